@@ -20,6 +20,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import ca.corefacility.bioinformatics.irida.exceptions.ExecutionManagerConfigurationException;
 import ca.corefacility.bioinformatics.irida.model.upload.galaxy.GalaxyAccountEmail;
@@ -84,6 +85,20 @@ public class ExecutionManagerConfig {
 	@Value("${galaxy.library.upload.threads}")
 	private int libraryUploadThreads;
 
+	/**
+	 * Number of independent threads to use for downloading analysis output
+	 * files from Galaxy.
+	 */
+	@Value("${galaxy.output.download.threads:4}")
+	private int outputDownloadThreads;
+
+	/**
+	 * Number of independent threads to use for reading the status of running
+	 * analyses from Galaxy.
+	 */
+	@Value("${galaxy.status.monitor.threads:4}")
+	private int statusMonitorThreads;
+
 	@Autowired
 	private Environment environment;
 
@@ -288,6 +303,38 @@ public class ExecutionManagerConfig {
 		return new GalaxyLibrariesService(librariesClient(), pollingTime, libraryTimeout, libraryUploadThreads);
 	}
 
+	/**
+	 * Executor used to download analysis output files from Galaxy. The pool
+	 * is shared by every analysis, so its size is the limit on concurrent
+	 * downloads from the Galaxy instance.
+	 *
+	 * @return An executor for downloading analysis output files.
+	 */
+	@Bean(name = "galaxyOutputDownloadExecutor")
+	public ThreadPoolTaskExecutor galaxyOutputDownloadExecutor() {
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(outputDownloadThreads);
+		taskExecutor.setMaxPoolSize(outputDownloadThreads);
+		taskExecutor.setThreadNamePrefix("galaxy-output-download-");
+		return taskExecutor;
+	}
+
+	/**
+	 * Executor used to read the status of running analyses from Galaxy when
+	 * they're monitored. Its size is the limit on concurrent status requests
+	 * to the Galaxy instance.
+	 *
+	 * @return An executor for reading the status of running analyses.
+	 */
+	@Bean(name = "galaxyStatusMonitorExecutor")
+	public ThreadPoolTaskExecutor galaxyStatusMonitorExecutor() {
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(statusMonitorThreads);
+		taskExecutor.setMaxPoolSize(statusMonitorThreads);
+		taskExecutor.setThreadNamePrefix("galaxy-status-monitor-");
+		return taskExecutor;
+	}
+
 	/**
 	 * @return A ToolsClient for interacting with Galaxy tools.
 	 * @throws ExecutionManagerConfigurationException If there is an issue building the execution manager.
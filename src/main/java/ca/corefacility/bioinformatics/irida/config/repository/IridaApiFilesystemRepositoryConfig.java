@@ -5,6 +5,7 @@ import ca.corefacility.bioinformatics.irida.model.project.ReferenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisOutputFile;
 import ca.corefacility.bioinformatics.irida.repositories.filesystem.FilesystemSupplementedRepositoryImpl.RelativePathTranslatorListener;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.StagingDirectory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -39,6 +40,19 @@ public class IridaApiFilesystemRepositoryConfig {
 	private @Value("${assembly.file.base.directory}")
 	String assemblyFileBaseDirectory;
 
+	// staging directories default to a directory on the same filesystem as the base directory
+	private @Value("${sequence.file.staging.directory:${sequence.file.base.directory}/.staging}")
+	String sequenceFileStagingDirectory;
+
+	private @Value("${reference.file.staging.directory:${reference.file.base.directory}/.staging}")
+	String referenceFileStagingDirectory;
+
+	private @Value("${output.file.staging.directory:${output.file.base.directory}/.staging}")
+	String outputFileStagingDirectory;
+
+	private @Value("${assembly.file.staging.directory:${assembly.file.base.directory}/.staging}")
+	String assemblyFileStagingDirectory;
+
 	@Autowired
 	private ApplicationContext applicationContext;
 
@@ -88,6 +102,41 @@ public class IridaApiFilesystemRepositoryConfig {
 		return getExistingPathOrThrow(assemblyFileBaseDirectory);
 	}
 
+	@Bean(name = "sequenceFileStagingDirectory")
+	public StagingDirectory sequenceFileStagingDirectory() throws IOException {
+		return configureStagingDirectory(sequenceFileStagingDirectory, sequenceFileBaseDirectory());
+	}
+
+	@Bean(name = "referenceFileStagingDirectory")
+	public StagingDirectory referenceFileStagingDirectory() throws IOException {
+		return configureStagingDirectory(referenceFileStagingDirectory, referenceFileBaseDirectory());
+	}
+
+	@Bean(name = "outputFileStagingDirectory")
+	public StagingDirectory outputFileStagingDirectory() throws IOException {
+		return configureStagingDirectory(outputFileStagingDirectory, outputFileBaseDirectory());
+	}
+
+	@Bean(name = "assemblyFileStagingDirectory")
+	public StagingDirectory assemblyFileStagingDirectory() throws IOException {
+		return configureStagingDirectory(assemblyFileStagingDirectory, assemblyFileBaseDirectory());
+	}
+
+	private StagingDirectory configureStagingDirectory(String directory, Path baseDirectory) throws IOException {
+		StagingDirectory stagingDirectory = new StagingDirectory(Paths.get(directory));
+
+		if (!Files.getFileStore(stagingDirectory.getRoot())
+				.equals(Files.getFileStore(baseDirectory))) {
+			logger.warn(String.format(
+					"Staging directory [%s] is not on the same filesystem as [%s], files will be copied into the repository rather than moved.",
+					stagingDirectory.getRoot(), baseDirectory));
+		} else {
+			logger.info(String.format("Staging files for [%s] in [%s].", baseDirectory, stagingDirectory.getRoot()));
+		}
+
+		return stagingDirectory;
+	}
+
 	private Path getExistingPathOrThrow(String directory) {
 		Path baseDirectory = Paths.get(directory);
 		if (!Files.exists(baseDirectory)) {
@@ -14,6 +14,9 @@ import ca.corefacility.bioinformatics.irida.repositories.ProjectRepository;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.AnalysisSubmissionRepository;
 import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectSampleJoinRepository;
 import ca.corefacility.bioinformatics.irida.repositories.sample.SampleRepository;
+import ca.corefacility.bioinformatics.irida.repositories.sample.SampleTotalBasesAspect;
+import ca.corefacility.bioinformatics.irida.security.permissions.ProjectMembershipCache;
+import ca.corefacility.bioinformatics.irida.security.permissions.ProjectMembershipCacheAspect;
 import ca.corefacility.bioinformatics.irida.service.analysis.annotations.RunAsUserAspect;
 import ca.corefacility.bioinformatics.irida.service.analysis.execution.AnalysisExecutionServiceAspect;
 import ca.corefacility.bioinformatics.irida.validators.ValidMethodParametersAspect;
@@ -44,6 +47,31 @@ public class IridaApiAspectsConfig {
 		return new AnalysisExecutionServiceAspect(analysisSubmissionRepository, emailController);
 	}
 
+	/**
+	 * Aspect for invalidating cached project memberships when they're changed
+	 * 
+	 * @param membershipCache
+	 *            the {@link ProjectMembershipCache} to invalidate
+	 * @return new {@link ProjectMembershipCacheAspect} bean
+	 */
+	@Bean
+	public ProjectMembershipCacheAspect projectMembershipCacheAspect(final ProjectMembershipCache membershipCache) {
+		return new ProjectMembershipCacheAspect(membershipCache);
+	}
+
+	/**
+	 * Aspect for updating the stored total bases of samples when their
+	 * sequencing objects change
+	 * 
+	 * @param sampleRepository
+	 *            the {@link SampleRepository} to update the totals with
+	 * @return new {@link SampleTotalBasesAspect} bean
+	 */
+	@Bean
+	public SampleTotalBasesAspect sampleTotalBasesAspect(final SampleRepository sampleRepository) {
+		return new SampleTotalBasesAspect(sampleRepository);
+	}
+
 	/**
 	 * Aspect for setting the user in the security context to be the user in the
 	 * {@link AnalysisSubmission}
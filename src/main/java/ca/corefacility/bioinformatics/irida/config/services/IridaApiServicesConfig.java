@@ -24,6 +24,7 @@ import ca.corefacility.bioinformatics.irida.service.impl.InMemoryTaxonomyService
 import ca.corefacility.bioinformatics.irida.service.impl.analysis.submission.AnalysisSubmissionCleanupServiceImpl;
 import ca.corefacility.bioinformatics.irida.service.user.UserService;
 import ca.corefacility.bioinformatics.irida.util.IridaPluginMessageSource;
+import ca.corefacility.bioinformatics.irida.util.ZipStreamWriter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import net.matlux.NreplServerSpring;
@@ -63,6 +64,7 @@ import java.util.*;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -96,6 +98,9 @@ public class IridaApiServicesConfig {
 	@Value("${file.processing.decompress.remove.compressed.file}")
 	private Boolean removeCompressedFiles;
 
+	@Value("${file.processing.stream:true}")
+	private Boolean streamFiles;
+
 	// the key + colon syntax allows default values. we use `false` here so we can conditionally show tags on the page with thymeleaf
 	@Value("${help.page.title:false}")
 	private String helpPageTitle;
@@ -118,6 +123,33 @@ public class IridaApiServicesConfig {
 	@Value("${file.processing.queue.capacity}")
 	private int fpQueueCapacity;
 
+	@Value("${file.processing.file.threads:4}")
+	private int fpFileThreads;
+
+	@Value("${project.sync.project.threads:2}")
+	private int syncProjectThreads;
+
+	@Value("${project.sync.project.queue:100}")
+	private int syncProjectQueueCapacity;
+
+	@Value("${project.sync.sample.threads:4}")
+	private int syncSampleThreads;
+
+	@Value("${project.sync.sample.queue:100}")
+	private int syncSampleQueueCapacity;
+
+	@Value("${zip.download.readahead.threads:4}")
+	private int zipReadAheadThreads;
+
+	@Value("${export.bundle.threads:2}")
+	private int exportBundleThreads;
+
+	@Value("${export.bundle.queue:20}")
+	private int exportBundleQueueCapacity;
+
+	@Value("${galaxy.status.cache.refresh.threads:2}")
+	private int galaxyStatusRefreshThreads;
+
 	@Value("${irida.debug.nrepl.server.port:#{null}}")
 	private Integer nreplPort;
 
@@ -289,6 +321,7 @@ public class IridaApiServicesConfig {
 			CoverageFileProcessor coverageProcessor, AutomatedAnalysisFileProcessor automatedAnalysisFileProcessor) {
 
 		gzipFileProcessor.setRemoveCompressedFiles(removeCompressedFiles);
+		fastQcFileProcessor.setFileExecutor(fileProcessingFileExecutor());
 
 		final List<FileProcessor> fileProcessors = Lists.newArrayList(checksumProcessor, gzipFileProcessor,
 				fastQcFileProcessor, coverageProcessor, automatedAnalysisFileProcessor);
@@ -298,7 +331,12 @@ public class IridaApiServicesConfig {
 			fileProcessors.remove(gzipFileProcessor);
 		}
 
-		return new DefaultFileProcessingChain(sequencingObjectRepository, qcRepository, fileProcessors);
+		DefaultFileProcessingChain fileProcessingChain = new DefaultFileProcessingChain(sequencingObjectRepository,
+				qcRepository, fileProcessors);
+		fileProcessingChain.setStreamFiles(streamFiles);
+		fileProcessingChain.setFileExecutor(fileProcessingFileExecutor());
+
+		return fileProcessingChain;
 	}
 
 	@Bean(name = "fileProcessingChainExecutor")
@@ -311,6 +349,117 @@ public class IridaApiServicesConfig {
 		return taskExecutor;
 	}
 
+	/**
+	 * Executor used to process the individual files of a sequencing object
+	 * (ie. the forward and reverse reads of a pair) at the same time. When the
+	 * pool is busy the file is processed in the processing chain's own thread.
+	 *
+	 * @return An executor for processing individual sequence files.
+	 */
+	@Bean(name = "fileProcessingFileExecutor")
+	public ThreadPoolTaskExecutor fileProcessingFileExecutor() {
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(fpFileThreads);
+		taskExecutor.setMaxPoolSize(fpFileThreads);
+		taskExecutor.setQueueCapacity(0);
+		taskExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		taskExecutor.setThreadPriority(Thread.MIN_PRIORITY);
+		return taskExecutor;
+	}
+
+	/**
+	 * Executor used to synchronize remote projects. Each project is
+	 * synchronized in one of these threads, while its samples are synchronized
+	 * on the {@link #projectSyncSampleExecutor()}. Projects that don't fit in
+	 * the queue are synchronized on a later check.
+	 *
+	 * @return An executor for synchronizing remote projects.
+	 */
+	@Bean(name = "projectSyncProjectExecutor")
+	public ThreadPoolTaskExecutor projectSyncProjectExecutor() {
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(syncProjectThreads);
+		taskExecutor.setMaxPoolSize(syncProjectThreads);
+		taskExecutor.setQueueCapacity(syncProjectQueueCapacity);
+		taskExecutor.setThreadPriority(Thread.MIN_PRIORITY);
+		return taskExecutor;
+	}
+
+	/**
+	 * Executor used to synchronize the samples of remote projects (ie.
+	 * downloading their sequence files and assemblies). Shared by all of the
+	 * projects being synchronized. Each project only queues as many samples
+	 * as it's allowed to synchronize at once from its remote api, so the queue
+	 * only fills if it's configured smaller than that.
+	 *
+	 * @return An executor for synchronizing remote samples.
+	 */
+	@Bean(name = "projectSyncSampleExecutor")
+	public ThreadPoolTaskExecutor projectSyncSampleExecutor() {
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(syncSampleThreads);
+		taskExecutor.setMaxPoolSize(syncSampleThreads);
+		taskExecutor.setQueueCapacity(syncSampleQueueCapacity);
+		taskExecutor.setThreadPriority(Thread.MIN_PRIORITY);
+		return taskExecutor;
+	}
+
+	/**
+	 * Executor used to prepare the files of zip downloads ahead of the file
+	 * being written to the client. Shared by all zip downloads.
+	 *
+	 * @return An executor for preparing zip entries.
+	 */
+	@Bean(name = "zipReadAheadExecutor")
+	public ThreadPoolTaskExecutor zipReadAheadExecutor() {
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(zipReadAheadThreads);
+		taskExecutor.setMaxPoolSize(zipReadAheadThreads);
+		return taskExecutor;
+	}
+
+	/**
+	 * Writer for zip downloads, preparing as many files ahead of the one being
+	 * written as there are read ahead threads.
+	 *
+	 * @return the {@link ZipStreamWriter}
+	 */
+	@Bean
+	public ZipStreamWriter zipStreamWriter() {
+		return new ZipStreamWriter(zipReadAheadExecutor(), zipReadAheadThreads);
+	}
+
+	/**
+	 * Executor used to write export bundles in the background. Bundles
+	 * requested while all of the threads are busy wait in the queue, and are
+	 * rejected once the queue is full.
+	 *
+	 * @return An executor for writing export bundles.
+	 */
+	@Bean(name = "exportBundleExecutor")
+	public ThreadPoolTaskExecutor exportBundleExecutor() {
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(exportBundleThreads);
+		taskExecutor.setMaxPoolSize(exportBundleThreads);
+		taskExecutor.setQueueCapacity(exportBundleQueueCapacity);
+		taskExecutor.setThreadPriority(Thread.MIN_PRIORITY);
+		return taskExecutor;
+	}
+
+	/**
+	 * Executor used to read the status of running analyses from Galaxy in the
+	 * background, when it isn't already known from monitoring the analyses.
+	 *
+	 * @return An executor for reading Galaxy workflow statuses.
+	 */
+	@Bean(name = "galaxyStatusRefreshExecutor")
+	public ThreadPoolTaskExecutor galaxyStatusRefreshExecutor() {
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(galaxyStatusRefreshThreads);
+		taskExecutor.setMaxPoolSize(galaxyStatusRefreshThreads);
+		return taskExecutor;
+	}
+
 
 	@Bean
 	public Validator validator() {
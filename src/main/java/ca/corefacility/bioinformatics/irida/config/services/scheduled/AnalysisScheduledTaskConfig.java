@@ -13,6 +13,7 @@ import ca.corefacility.bioinformatics.irida.service.EmailController;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -21,6 +22,7 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Scheduled;
 
 import java.time.Duration;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -50,12 +52,23 @@ public class AnalysisScheduledTaskConfig {
 	@Autowired
 	private AnalysisWorkspaceService analysisWorkspaceService;
 
+	@Autowired
+	@Qualifier("galaxyStatusMonitorExecutor")
+	private Executor galaxyStatusMonitorExecutor;
+
 	/**
 	 * Defines the time to clean up in number of days a submission must exist before it is cleaned up.
 	 */
 	@Value("${irida.analysis.cleanup.days}")
 	private Double daysToCleanup;
 
+	/**
+	 * The longest time in seconds between reading the status of an analysis
+	 * whose progress hasn't changed.
+	 */
+	@Value("${irida.analysis.monitor.max-poll-seconds:120}")
+	private long maxPollSeconds;
+
 	/**
 	 * Rate in milliseconds of the analysis execution tasks.
 	 */
@@ -125,7 +138,7 @@ public class AnalysisScheduledTaskConfig {
 	public AnalysisExecutionScheduledTask analysisExecutionScheduledTask() {
 		return new AnalysisExecutionScheduledTaskImpl(analysisSubmissionRepository, analysisExecutionService,
 				cleanupAnalysisSubmissionCondition(), galaxyJobErrorsService, jobErrorRepository, emailController,
-				analysisWorkspaceService);
+				analysisWorkspaceService, galaxyStatusMonitorExecutor, TimeUnit.SECONDS.toMillis(maxPollSeconds));
 	}
 
 	/**
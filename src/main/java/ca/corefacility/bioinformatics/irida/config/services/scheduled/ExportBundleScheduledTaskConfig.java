@@ -0,0 +1,31 @@
+package ca.corefacility.bioinformatics.irida.config.services.scheduled;
+
+import ca.corefacility.bioinformatics.irida.service.export.ExportBundleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Scheduled task configuration for removing expired export bundles. Bundles are kept by the server which wrote them,
+ * so this runs on every server which handles web requests.
+ */
+@Profile({ "prod", "dev", "web" })
+@Configuration
+public class ExportBundleScheduledTaskConfig {
+
+	@Autowired
+	private ExportBundleService exportBundleService;
+
+	// rate in MS of checking for expired bundles
+	private static final long EXPORT_BUNDLE_EVICTION_RATE = 600000; // 10 minutes
+
+	/**
+	 * Remove export bundles which haven't been used within their time to live
+	 */
+	@Scheduled(initialDelay = EXPORT_BUNDLE_EVICTION_RATE, fixedDelay = EXPORT_BUNDLE_EVICTION_RATE)
+	public void evictExpiredBundles() {
+		exportBundleService.evictExpiredBundles();
+	}
+
+}
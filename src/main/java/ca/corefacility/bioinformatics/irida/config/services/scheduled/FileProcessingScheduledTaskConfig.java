@@ -1,13 +1,19 @@
 package ca.corefacility.bioinformatics.irida.config.services.scheduled;
 
+import ca.corefacility.bioinformatics.irida.events.SequencingObjectCreatedEvent;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectProcessingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.Executor;
 
 /**
  * Scheduled task configuration for running file processors
@@ -20,13 +26,19 @@ public class FileProcessingScheduledTaskConfig {
 	@Autowired
 	private SequencingObjectProcessingService fileProcessingService;
 
+	@Autowired
+	@Qualifier("scheduledTaskExecutor")
+	private Executor scheduledTaskExecutor;
+
 	@Value("${file.processing.process}")
 	private boolean processFiles;
 
 	/**
-	 * Check for newly uploaded files to process
+	 * Check for newly uploaded files to process. Files uploaded to this server are normally dispatched by
+	 * {@link #sequencingObjectCreated(SequencingObjectCreatedEvent)}, so this picks up files uploaded to other servers
+	 * and any files that couldn't be processed right away.
 	 */
-	@Scheduled(fixedDelay = 5000)
+	@Scheduled(fixedDelayString = "${file.processing.poll.interval:10000}")
 	public void processFiles() {
 		if (processFiles) {
 			fileProcessingService.runProcessingJob();
@@ -34,4 +46,20 @@ public class FileProcessingScheduledTaskConfig {
 			logger.trace("Skipping file processing.  It is disabled on this server.");
 		}
 	}
+
+	/**
+	 * Start processing a new {@link SequencingObject} as soon as the transaction that created it has been committed.
+	 * The processing is handed off to the scheduled task executor so it runs with the scheduler's credentials rather
+	 * than blocking (and using the credentials of) the thread that created the object.
+	 *
+	 * @param event the event for the created {@link SequencingObject}
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void sequencingObjectCreated(SequencingObjectCreatedEvent event) {
+		if (processFiles) {
+			logger.trace("Dispatching new sequencing object " + event.getSequencingObjectId() + " for processing");
+			scheduledTaskExecutor.execute(
+					() -> fileProcessingService.processSequencingObject(event.getSequencingObjectId()));
+		}
+	}
 }
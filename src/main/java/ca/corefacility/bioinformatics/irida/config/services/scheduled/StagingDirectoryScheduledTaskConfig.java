@@ -0,0 +1,55 @@
+package ca.corefacility.bioinformatics.irida.config.services.scheduled;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.StagingDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Scheduled task configuration for reporting how files were moved out of the {@link StagingDirectory}s on this
+ * server.  A staging directory that isn't on the same filesystem as its repository has every file copied into the
+ * repository instead of renamed, which is only otherwise visible as slow uploads.
+ */
+@Profile({ "prod", "dev", "ncbi", "analysis", "sync", "processing", "email", "web" })
+@Configuration
+public class StagingDirectoryScheduledTaskConfig {
+	private static final Logger logger = LoggerFactory.getLogger(StagingDirectoryScheduledTaskConfig.class);
+
+	@Autowired
+	private Map<String, StagingDirectory> stagingDirectories;
+
+	// rate in MS of logging the staging directory statistics
+	private static final long STAGING_STATISTICS_RATE = 3600000; // 1 hour
+
+	// the number of moves last logged for each staging directory
+	private final Map<String, Long> loggedMoves = new HashMap<>();
+
+	/**
+	 * Log the number of files moved out of each staging directory, and how many of those had to be copied, for the
+	 * staging directories which have moved files since they were last logged.
+	 */
+	@Scheduled(initialDelay = STAGING_STATISTICS_RATE, fixedDelay = STAGING_STATISTICS_RATE)
+	public void logStagingStatistics() {
+		stagingDirectories.forEach((name, stagingDirectory) -> {
+			long moves = stagingDirectory.getMoves();
+			if (moves == loggedMoves.getOrDefault(name, 0L)) {
+				return;
+			}
+			loggedMoves.put(name, moves);
+
+			if (stagingDirectory.getCrossDeviceMoves() > 0) {
+				logger.warn(name + ": " + stagingDirectory
+						+ ".  Files are being copied rather than renamed into the repository.");
+			} else {
+				logger.info(name + ": " + stagingDirectory);
+			}
+		});
+	}
+
+}
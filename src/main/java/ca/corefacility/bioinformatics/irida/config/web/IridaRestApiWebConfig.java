@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.config.web;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
@@ -7,11 +8,13 @@ import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.*;
 import org.springframework.context.support.ReloadableResourceBundleMessageSource;
 import org.springframework.core.Ordered;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.MediaType;
 import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.multipart.commons.CommonsMultipartResolver;
@@ -23,6 +26,7 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.view.ContentNegotiatingViewResolver;
 import org.springframework.web.servlet.view.json.MappingJackson2JsonView;
 
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.StagingDirectory;
 import ca.corefacility.bioinformatics.irida.web.controller.api.json.PathJson;
 import ca.corefacility.bioinformatics.irida.web.spring.view.*;
 
@@ -51,11 +55,16 @@ public class IridaRestApiWebConfig implements WebMvcConfigurer {
 
 	@Bean
 	@Scope(value = "request", proxyMode = ScopedProxyMode.TARGET_CLASS)
-	public CommonsMultipartResolver multipartResolver() {
+	public CommonsMultipartResolver multipartResolver(
+			@Qualifier("sequenceFileStagingDirectory") StagingDirectory stagingDirectory) throws IOException {
 		CommonsMultipartResolver resolver = new CommonsMultipartResolver();
 
 		resolver.setMaxInMemorySize(MAX_IN_MEMORY_SIZE);
 		resolver.setMaxUploadSize(MAX_UPLOAD_SIZE);
+		// buffer uploads on the same filesystem as the sequence files so
+		// MultipartFile.transferTo can rename the upload instead of copying it
+		resolver.setUploadTempDir(new FileSystemResource(stagingDirectory.getRoot()
+				.toFile()));
 
 		return resolver;
 	}
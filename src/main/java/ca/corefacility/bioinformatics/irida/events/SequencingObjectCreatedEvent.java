@@ -0,0 +1,25 @@
+package ca.corefacility.bioinformatics.irida.events;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+
+/**
+ * Application event published when a new {@link SequencingObject} is created.
+ * Listeners should use a transactional event listener so that they're only
+ * notified once the {@link SequencingObject} has been committed.
+ */
+public class SequencingObjectCreatedEvent {
+	private final Long sequencingObjectId;
+
+	public SequencingObjectCreatedEvent(Long sequencingObjectId) {
+		this.sequencingObjectId = sequencingObjectId;
+	}
+
+	/**
+	 * Get the id of the created {@link SequencingObject}
+	 * 
+	 * @return the id of the {@link SequencingObject}
+	 */
+	public Long getSequencingObjectId() {
+		return sequencingObjectId;
+	}
+}
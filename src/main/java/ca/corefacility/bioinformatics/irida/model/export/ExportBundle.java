@@ -0,0 +1,125 @@
+package ca.corefacility.bioinformatics.irida.model.export;
+
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ca.corefacility.bioinformatics.irida.util.ZipStreamWriter;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A zip archive of files assembled on the server so it can be downloaded (and
+ * resumed) separately from the request which asked for it. Bundles are
+ * identified by a checksum of their contents so identical selections share a
+ * bundle.
+ */
+public class ExportBundle {
+
+	/**
+	 * The state of a bundle.
+	 */
+	public enum State {
+		/**
+		 * Waiting for a thread to write the bundle
+		 */
+		QUEUED,
+		/**
+		 * The bundle is being written
+		 */
+		RUNNING,
+		/**
+		 * The bundle is ready to download
+		 */
+		COMPLETE,
+		/**
+		 * The bundle couldn't be written
+		 */
+		FAILED
+	}
+
+	private final String id;
+	private final String name;
+	private final Path file;
+	private final Date createdDate;
+	private final ZipStreamWriter.Progress progress = new ZipStreamWriter.Progress();
+	private final Set<String> users = ConcurrentHashMap.newKeySet();
+
+	private volatile State state = State.QUEUED;
+	private volatile long lastAccessed;
+
+	public ExportBundle(String id, String name, Path file) {
+		this.id = id;
+		this.name = name;
+		this.file = file;
+		this.createdDate = new Date();
+		this.lastAccessed = createdDate.getTime();
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * @return the name to give the downloaded archive, without the extension
+	 */
+	public String getName() {
+		return name;
+	}
+
+	@JsonIgnore
+	public Path getFile() {
+		return file;
+	}
+
+	public Date getCreatedDate() {
+		return createdDate;
+	}
+
+	public ZipStreamWriter.Progress getProgress() {
+		return progress;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public void setState(State state) {
+		this.state = state;
+	}
+
+	@JsonIgnore
+	public long getLastAccessed() {
+		return lastAccessed;
+	}
+
+	/**
+	 * Record that the bundle has been requested or downloaded, delaying when
+	 * it expires.
+	 */
+	public void touch() {
+		lastAccessed = System.currentTimeMillis();
+	}
+
+	/**
+	 * Allow a user to read the bundle.
+	 *
+	 * @param username
+	 *            the name of the user who requested the bundle
+	 */
+	public void addUser(String username) {
+		users.add(username);
+	}
+
+	/**
+	 * Check if a user requested the bundle.
+	 *
+	 * @param username
+	 *            the name of the user
+	 * @return true if the user requested the bundle
+	 */
+	public boolean hasUser(String username) {
+		return users.contains(username);
+	}
+}
@@ -64,6 +64,11 @@ public class RemoteStatus {
 	@Temporal(TemporalType.TIMESTAMP)
 	private Date lastUpdate;
 
+	// the start of the last successful synchronization
+	@Column(name = "last_synchronized")
+	@Temporal(TemporalType.TIMESTAMP)
+	private Date lastSynchronized;
+
 	@SuppressWarnings("unused")
 	protected RemoteStatus() {
 	}
@@ -127,6 +132,14 @@ public class RemoteStatus {
 		this.lastUpdate = lastUpdate;
 	}
 
+	public Date getLastSynchronized() {
+		return lastSynchronized;
+	}
+
+	public void setLastSynchronized(Date lastSynchronized) {
+		this.lastSynchronized = lastSynchronized;
+	}
+
 	/**
 	 * The status of the synchronized object
 	 */
@@ -161,6 +161,15 @@ public class Sample extends IridaResourceSupport
 	@OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.REMOVE, mappedBy = "sample")
 	private List<SampleGenomeAssemblyJoin> genomeAssemblies;
 
+	/*
+	 * Sum of the total bases of the sample's sequencing objects. This is
+	 * maintained by the database (see SampleRepositoryCustom) so it's never
+	 * written by hibernate.
+	 */
+	@Column(name = "total_bases", insertable = false, updatable = false)
+	@NotAudited
+	private Long totalBases;
+
 	public Sample() {
 		createdDate = new Date();
 		metadata = new HashMap<>();
@@ -349,6 +358,19 @@ public class Sample extends IridaResourceSupport
 		this.remoteStatus = status;
 	}
 
+	/**
+	 * Get the total number of bases in all of the sample's sequence files, as
+	 * counted by FastQC. This is the value stored the last time the sample was
+	 * loaded.
+	 * 
+	 * @return the total number of bases, or null if any sequence file doesn't
+	 *         have FastQC results yet.
+	 */
+	@JsonIgnore
+	public Long getTotalBases() {
+		return totalBases;
+	}
+
 	@JsonIgnore
 	public Map<MetadataTemplateField, MetadataEntry> getMetadata() {
 		return metadata;
@@ -78,6 +78,15 @@ public abstract class SequencingObject extends IridaResourceSupport implements M
 	@Column(name = "file_processor")
 	private String fileProcessor;
 
+	/*
+	 * Sum of the FastQC total bases of the object's files. This is maintained
+	 * by the database (see SequencingObjectRepositoryCustom) so it's never
+	 * written by hibernate.
+	 */
+	@Column(name = "total_bases", insertable = false, updatable = false)
+	@NotAudited
+	private Long totalBases;
+
 	public SequencingObject() {
 		createdDate = new Date();
 		processingState = ProcessingState.UNPROCESSED;
@@ -177,6 +186,18 @@ public abstract class SequencingObject extends IridaResourceSupport implements M
 		this.remoteStatus = remoteStatus;
 	}
 
+	/**
+	 * Get the total number of bases in the files of this
+	 * {@link SequencingObject}, as counted by FastQC.
+	 * 
+	 * @return the total number of bases, or null if any file doesn't have
+	 *         FastQC results yet.
+	 */
+	@JsonIgnore
+	public Long getTotalBases() {
+		return totalBases;
+	}
+
 	@JsonIgnore
 	public Set<QCEntry> getQcEntries() {
 		return qcEntries;
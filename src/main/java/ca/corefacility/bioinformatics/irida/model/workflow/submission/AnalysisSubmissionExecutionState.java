@@ -0,0 +1,56 @@
+package ca.corefacility.bioinformatics.irida.model.workflow.submission;
+
+import java.util.Objects;
+
+import ca.corefacility.bioinformatics.irida.model.enums.AnalysisState;
+
+/**
+ * The id, remote analysis id and {@link AnalysisState} of an
+ * {@link AnalysisSubmission}, read from a query without loading the whole
+ * submission.
+ */
+public class AnalysisSubmissionExecutionState {
+	private final Long id;
+	private final String remoteAnalysisId;
+	private final AnalysisState analysisState;
+
+	public AnalysisSubmissionExecutionState(Long id, String remoteAnalysisId, AnalysisState analysisState) {
+		this.id = id;
+		this.remoteAnalysisId = remoteAnalysisId;
+		this.analysisState = analysisState;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getRemoteAnalysisId() {
+		return remoteAnalysisId;
+	}
+
+	public AnalysisState getAnalysisState() {
+		return analysisState;
+	}
+
+	@Override
+	public String toString() {
+		return "AnalysisSubmissionExecutionState{id=" + id + ", remoteAnalysisId='" + remoteAnalysisId + '\''
+				+ ", analysisState=" + analysisState + '}';
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+		AnalysisSubmissionExecutionState that = (AnalysisSubmissionExecutionState) o;
+		return Objects.equals(id, that.id) && Objects.equals(remoteAnalysisId, that.remoteAnalysisId)
+				&& analysisState == that.analysisState;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(id, remoteAnalysisId, analysisState);
+	}
+}
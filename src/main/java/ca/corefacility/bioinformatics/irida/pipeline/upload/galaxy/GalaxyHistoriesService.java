@@ -256,10 +256,25 @@ public class GalaxyHistoriesService {
 	public Dataset getDatasetForFileInHistory(String filename, String historyId) throws GalaxyDatasetException {
 		checkNotNull(filename, "filename is null");
 		checkNotNull(historyId, "historyId is null");
-				
-		List<HistoryContents> historyContentsList =
-				historiesClient.showHistoryContents(historyId);
-		
+
+		return getDatasetForFileInHistory(filename, historyId, historiesClient.showHistoryContents(historyId));
+	}
+
+	/**
+	 * Gets a Dataset object for a file with the given name in the given history, using contents of the history which
+	 * have already been read. Lets several datasets be found with one request for the history's contents.
+	 * @param filename  The name of the file to get a Dataset object for.
+	 * @param historyId  The history id to look for the dataset.
+	 * @param historyContentsList  The contents of the history.
+	 * @return The corresponding dataset for the given file name.
+	 * @throws GalaxyDatasetException If there was an issue when searching for a dataset.
+	 */
+	public Dataset getDatasetForFileInHistory(String filename, String historyId,
+			List<HistoryContents> historyContentsList) throws GalaxyDatasetException {
+		checkNotNull(filename, "filename is null");
+		checkNotNull(historyId, "historyId is null");
+		checkNotNull(historyContentsList, "historyContentsList is null");
+
 		List<HistoryContents> matchingHistoryContents = historyContentsList.stream()
 				.filter((historyContents) -> filename.equals(historyContents.getName())
 						&& !COLLECTION.equals(historyContents.getHistoryContentType()))
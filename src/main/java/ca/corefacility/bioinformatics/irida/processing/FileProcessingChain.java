@@ -45,6 +45,16 @@ public interface FileProcessingChain {
 	 */
 	public void setFastFail(Boolean fastFail);
 
+	/**
+	 * Set whether or not the {@link FileProcessingChain} should read each file
+	 * once and stream the contents to all {@link StreamingFileProcessor}s,
+	 * rather than letting each {@link FileProcessor} read the file itself.
+	 * 
+	 * @param streamFiles
+	 *            whether or not the chain should stream files.
+	 */
+	public void setStreamFiles(Boolean streamFiles);
+
 	/**
 	 * Set the total amount of time (in seconds) that the processor chain should
 	 * wait for the {@link SequencingObject} to appear before failing.
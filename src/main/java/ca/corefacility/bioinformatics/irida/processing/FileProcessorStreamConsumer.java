@@ -0,0 +1,69 @@
+package ca.corefacility.bioinformatics.irida.processing;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+
+/**
+ * Receives the contents of a single {@link SequenceFile} on behalf of a
+ * {@link StreamingFileProcessor}.
+ */
+public interface FileProcessorStreamConsumer extends Closeable {
+
+	/**
+	 * The form of the file contents that a {@link FileProcessorStreamConsumer}
+	 * wants to receive.
+	 */
+	public enum StreamType {
+		/**
+		 * The bytes exactly as they're stored on disk.
+		 */
+		RAW,
+		/**
+		 * The bytes after gzip decompression (the same as {@link #RAW} if the
+		 * file isn't compressed).
+		 */
+		DECOMPRESSED
+	}
+
+	/**
+	 * Get the form of the file contents this consumer wants.
+	 *
+	 * @return the {@link StreamType} for this consumer.
+	 */
+	public StreamType getStreamType();
+
+	/**
+	 * Accept the next block of bytes from the file.
+	 *
+	 * @param buffer
+	 *            the buffer containing the bytes
+	 * @param offset
+	 *            the offset of the first byte in the buffer
+	 * @param length
+	 *            the number of bytes to read from the buffer
+	 * @throws IOException
+	 *             if the bytes could not be handled
+	 */
+	public void update(byte[] buffer, int offset, int length) throws IOException;
+
+	/**
+	 * Called once the whole file has been read. Any modifications to the
+	 * {@link SequenceFile} should be made and persisted here.
+	 *
+	 * @param sequenceFile
+	 *            the (freshly loaded) {@link SequenceFile} that was read.
+	 * @throws IOException
+	 *             if the results could not be completed
+	 */
+	public void complete(SequenceFile sequenceFile) throws IOException;
+
+	/**
+	 * Release any resources held by the consumer. This is called whether or
+	 * not {@link #complete(SequenceFile)} was called.
+	 */
+	@Override
+	public default void close() throws IOException {
+	}
+}
@@ -0,0 +1,33 @@
+package ca.corefacility.bioinformatics.irida.processing;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+
+/**
+ * A {@link FileProcessor} that can receive the contents of a
+ * {@link SequenceFile} while the {@link FileProcessingChain} reads it, rather
+ * than reading the file from disk itself. The {@link FileProcessingChain} uses
+ * this to read each file a single time and fan the bytes out to every
+ * {@link StreamingFileProcessor} at once.
+ *
+ * A {@link StreamingFileProcessor} must still implement
+ * {@link FileProcessor#process(SequencingObject)} so it can be used in a chain
+ * that isn't streaming files.
+ */
+public interface StreamingFileProcessor extends FileProcessor {
+
+	/**
+	 * Create a consumer for the contents of a {@link SequenceFile}.
+	 *
+	 * @param sequenceFile
+	 *            the {@link SequenceFile} that is about to be read.
+	 * @param gzipped
+	 *            whether or not the file on disk is gzip compressed.
+	 * @return a {@link FileProcessorStreamConsumer} for the file, or
+	 *         <code>null</code> if this processor has nothing to do for the
+	 *         file.
+	 * @throws FileProcessorException
+	 *             if the consumer could not be created.
+	 */
+	public FileProcessorStreamConsumer createStreamConsumer(SequenceFile sequenceFile, boolean gzipped);
+}
@@ -3,8 +3,10 @@ package ca.corefacility.bioinformatics.irida.processing.impl;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
+import java.security.MessageDigest;
 import java.util.Set;
 
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,14 +17,20 @@ import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessor;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessorStreamConsumer;
+import ca.corefacility.bioinformatics.irida.processing.StreamingFileProcessor;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
 
 /**
  * {@link FileProcessor} used to calculate a checksum using sha256 for uploaded
- * {@link SequenceFile}s
+ * {@link SequenceFile}s. Files which already have a checksum set by the
+ * server keep it: files mirrored from a remote IRIDA, whose checksum is
+ * verified when they're downloaded, and streamed uploads, whose checksum is
+ * calculated as they're received. Checksums sent by clients with multipart
+ * uploads are cleared before the file is saved so they're calculated here.
  */
 @Component
-public class ChecksumFileProcessor implements FileProcessor {
+public class ChecksumFileProcessor implements StreamingFileProcessor {
 	private static final Logger logger = LoggerFactory.getLogger(ChecksumFileProcessor.class);
 
 	private SequenceFileRepository fileRepository;
@@ -48,13 +56,12 @@ public class ChecksumFileProcessor implements FileProcessor {
 		Set<SequenceFile> files = sequencingObject.getFiles();
 
 		for (SequenceFile file : files) {
+			if (file.getUploadSha256() != null) {
+				continue;
+			}
 
 			try (InputStream is = Files.newInputStream(file.getFile())) {
-				String shaDigest = DigestUtils.sha256Hex(is);
-				logger.trace("Checksum generated for file " + file.getId() + ": " + shaDigest);
-				file.setUploadSha256(shaDigest);
-
-				fileRepository.saveMetadata(file);
+				saveChecksum(file, DigestUtils.sha256Hex(is));
 			} catch (IOException e) {
 				throw new FileProcessorException("could not calculate checksum", e);
 			}
@@ -62,6 +69,50 @@ public class ChecksumFileProcessor implements FileProcessor {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public FileProcessorStreamConsumer createStreamConsumer(SequenceFile sequenceFile, boolean gzipped) {
+		if (sequenceFile.getUploadSha256() != null) {
+			return null;
+		}
+
+		final MessageDigest digest = DigestUtils.getSha256Digest();
+
+		return new FileProcessorStreamConsumer() {
+			@Override
+			public StreamType getStreamType() {
+				return StreamType.RAW;
+			}
+
+			@Override
+			public void update(byte[] buffer, int offset, int length) {
+				digest.update(buffer, offset, length);
+			}
+
+			@Override
+			public void complete(SequenceFile file) {
+				saveChecksum(file, Hex.encodeHexString(digest.digest()));
+			}
+		};
+	}
+
+	/**
+	 * Set the checksum on a {@link SequenceFile} and save it.
+	 *
+	 * @param file
+	 *            the {@link SequenceFile} to update
+	 * @param shaDigest
+	 *            the sha256 checksum of the file
+	 */
+	private void saveChecksum(SequenceFile file, String shaDigest) {
+		logger.trace("Checksum generated for file " + file.getId() + ": " + shaDigest);
+		file.setUploadSha256(shaDigest);
+
+		fileRepository.saveMetadata(file);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -70,4 +121,14 @@ public class ChecksumFileProcessor implements FileProcessor {
 		return false;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean shouldProcessFile(SequencingObject sequencingObject) {
+		return sequencingObject.getFiles()
+				.stream()
+				.anyMatch(f -> f.getUploadSha256() == null);
+	}
+
 }
@@ -13,6 +13,7 @@ import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFast
 import ca.corefacility.bioinformatics.irida.processing.FileProcessor;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.AnalysisRepository;
 import ca.corefacility.bioinformatics.irida.repositories.sample.QCEntryRepository;
+import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequencingObjectRepository;
 
 /**
  * {@link FileProcessor} used to calculate coverage of a
@@ -26,10 +27,14 @@ public class CoverageFileProcessor implements FileProcessor {
 
 	private AnalysisRepository analysisRepository;
 
+	private SequencingObjectRepository sequencingObjectRepository;
+
 	@Autowired
-	public CoverageFileProcessor(QCEntryRepository qcEntryRepository, AnalysisRepository analysisRepository) {
+	public CoverageFileProcessor(QCEntryRepository qcEntryRepository, AnalysisRepository analysisRepository,
+			SequencingObjectRepository sequencingObjectRepository) {
 		this.qcEntryRepository = qcEntryRepository;
 		this.analysisRepository = analysisRepository;
+		this.sequencingObjectRepository = sequencingObjectRepository;
 	}
 
 	/**
@@ -74,6 +79,9 @@ public class CoverageFileProcessor implements FileProcessor {
 					+ sequencingObject.getId());
 		}
 
+		// keep the stored totals of the object and its sample in line with the fastqc results
+		sequencingObjectRepository.updateTotalBases(sequencingObject.getId());
+
 	}
 
 }
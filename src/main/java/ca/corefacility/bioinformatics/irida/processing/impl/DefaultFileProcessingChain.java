@@ -1,26 +1,37 @@
 package ca.corefacility.bioinformatics.irida.processing.impl;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ca.corefacility.bioinformatics.irida.exceptions.FileProcessorTimeoutException;
 import ca.corefacility.bioinformatics.irida.model.sample.FileProcessorErrorQCEntry;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.Fast5Object;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessingChain;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessor;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessorStreamConsumer;
+import ca.corefacility.bioinformatics.irida.processing.StreamingFileProcessor;
 import ca.corefacility.bioinformatics.irida.repositories.sample.QCEntryRepository;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequencingObjectRepository;
+import ca.corefacility.bioinformatics.irida.util.FileUtils;
 
 /**
  * Default implementation of {@link FileProcessingChain}. Simply iterates
  * through a collection of {@link FileProcessor}.
  * 
- * 
+ * When streaming is enabled, each file is read from disk a single time before
+ * the processors are run and the contents are sent to all
+ * {@link StreamingFileProcessor}s at once. The processors are then still
+ * completed in order, with the same error handling as a non-streaming chain.
  */
 public class DefaultFileProcessingChain implements FileProcessingChain {
 
@@ -34,6 +45,10 @@ public class DefaultFileProcessingChain implements FileProcessingChain {
 
 	private Integer sleepDuration = 1000;
 
+	private Boolean streamFiles = false;
+
+	private Executor fileExecutor = Runnable::run;
+
 	private final SequencingObjectRepository sequencingObjectRepository;
 	private QCEntryRepository qcRepository;
 
@@ -75,12 +90,21 @@ public class DefaultFileProcessingChain implements FileProcessingChain {
 			}
 		}
 
+		Map<FileProcessor, StreamedFiles> streamedProcessors = Collections.emptyMap();
+		if (streamFiles) {
+			streamedProcessors = streamFiles(getSettledSequencingObject(sequencingObjectId));
+		}
+
 		for (FileProcessor fileProcessor : fileProcessors) {
 			try {
 				SequencingObject settledSequencingObject = getSettledSequencingObject(sequencingObjectId);
 
 				if (fileProcessor.shouldProcessFile(settledSequencingObject)) {
-					fileProcessor.process(settledSequencingObject);
+					if (streamedProcessors.containsKey(fileProcessor)) {
+						streamedProcessors.get(fileProcessor).complete(settledSequencingObject);
+					} else {
+						fileProcessor.process(settledSequencingObject);
+					}
 				}
 			} catch (FileProcessorException e) {
 				SequencingObject sequencingObject = sequencingObjectRepository.findById(sequencingObjectId).orElse(null);
@@ -113,6 +137,97 @@ public class DefaultFileProcessingChain implements FileProcessingChain {
 		return ignoredExceptions;
 	}
 
+	/**
+	 * Read each file in the {@link SequencingObject} once, sending the contents
+	 * to every {@link StreamingFileProcessor} in the chain. Failures aren't
+	 * thrown here, they're recorded and thrown when the processor would
+	 * normally run so the chain's error handling is unchanged.
+	 * 
+	 * @param sequencingObject
+	 *            the {@link SequencingObject} to read
+	 * @return the streamed results for each {@link StreamingFileProcessor}
+	 */
+	private Map<FileProcessor, StreamedFiles> streamFiles(SequencingObject sequencingObject) {
+		// fast5 data isn't fastq, so it's left to the regular processors
+		if (sequencingObject instanceof Fast5Object) {
+			return Collections.emptyMap();
+		}
+
+		Map<FileProcessor, StreamedFiles> streamedProcessors = new HashMap<>();
+		for (FileProcessor fileProcessor : fileProcessors) {
+			if (fileProcessor instanceof StreamingFileProcessor && fileProcessor.shouldProcessFile(sequencingObject)) {
+				streamedProcessors.put(fileProcessor, new StreamedFiles());
+			}
+		}
+
+		if (streamedProcessors.isEmpty()) {
+			return streamedProcessors;
+		}
+
+		// files in the same object (ie. R1 and R2) are independent, so read
+		// them at the same time
+		List<CompletableFuture<Void>> streams = new ArrayList<>();
+		for (SequenceFile sequenceFile : sequencingObject.getFiles()) {
+			streams.add(CompletableFuture.runAsync(() -> streamFile(sequenceFile, streamedProcessors), fileExecutor));
+		}
+		CompletableFuture.allOf(streams.toArray(new CompletableFuture[streams.size()])).join();
+
+		return streamedProcessors;
+	}
+
+	/**
+	 * Read a single {@link SequenceFile}, sending the contents to every
+	 * {@link StreamingFileProcessor} that wants it.
+	 * 
+	 * @param sequenceFile
+	 *            the {@link SequenceFile} to read
+	 * @param streamedProcessors
+	 *            the streamed results for each {@link StreamingFileProcessor}
+	 */
+	private void streamFile(SequenceFile sequenceFile, Map<FileProcessor, StreamedFiles> streamedProcessors) {
+		Map<FileProcessorStreamConsumer, FileProcessor> consumers = new LinkedHashMap<>();
+
+		try {
+			boolean gzipped = FileUtils.isGzipped(sequenceFile.getFile());
+
+			for (Map.Entry<FileProcessor, StreamedFiles> entry : streamedProcessors.entrySet()) {
+				StreamingFileProcessor processor = (StreamingFileProcessor) entry.getKey();
+				try {
+					FileProcessorStreamConsumer consumer = processor.createStreamConsumer(sequenceFile, gzipped);
+					if (consumer != null) {
+						consumers.put(consumer, processor);
+						entry.getValue().consumers.put(sequenceFile.getId(), consumer);
+					}
+				} catch (FileProcessorException e) {
+					entry.getValue().failures.put(sequenceFile.getId(), e);
+				}
+			}
+
+			if (!consumers.isEmpty()) {
+				logger.trace("Streaming file [" + sequenceFile.getId() + "] to " + consumers.size()
+						+ " file processors");
+
+				Map<FileProcessorStreamConsumer, Exception> failures = new SequenceFileStreamReader(
+						consumers.keySet()).read(sequenceFile.getFile(), gzipped);
+
+				failures.forEach((consumer, e) -> streamedProcessors.get(consumers.get(consumer)).failures
+						.put(sequenceFile.getId(), e));
+			}
+		} catch (Exception e) {
+			// if the file couldn't be read, every processor fails on it
+			logger.error("Could not stream file [" + sequenceFile.getId() + "] to file processors", e);
+			streamedProcessors.values().forEach(s -> s.failures.put(sequenceFile.getId(), e));
+		} finally {
+			for (FileProcessorStreamConsumer consumer : consumers.keySet()) {
+				try {
+					consumer.close();
+				} catch (IOException e) {
+					logger.warn("Could not close stream consumer [" + consumer.getClass() + "]", e);
+				}
+			}
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -125,6 +240,26 @@ public class DefaultFileProcessingChain implements FileProcessingChain {
 		this.fastFail = fastFail;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setStreamFiles(Boolean streamFiles) {
+		this.streamFiles = streamFiles;
+	}
+
+	/**
+	 * Set the {@link Executor} used to stream the files of a
+	 * {@link SequencingObject} at the same time. By default files are streamed
+	 * one after another in the calling thread.
+	 * 
+	 * @param fileExecutor
+	 *            the {@link Executor} to stream files with
+	 */
+	public void setFileExecutor(Executor fileExecutor) {
+		this.fileExecutor = fileExecutor;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -152,13 +287,13 @@ public class DefaultFileProcessingChain implements FileProcessingChain {
 	 *             if the files don't settle in the configured timeout
 	 */
 	private SequencingObject getSettledSequencingObject(Long sequencingObjectId) throws FileProcessorTimeoutException {
-		boolean filesNotSettled = true;
-
 		Integer waiting = 0;
 
-		Optional<SequencingObject> sequencingObject;
+		Optional<SequencingObject> sequencingObject = sequencingObjectRepository.findById(sequencingObjectId);
 
-		do {
+		// the files are normally in place already (processing is dispatched
+		// after the upload commits), so only sleep if they're not
+		while (!filesSettled(sequencingObject)) {
 			if (waiting > timeout) {
 				throw new FileProcessorTimeoutException("Waiting for longer than " + sleepDuration * timeout
 						+ "ms, bailing out.  File id " + sequencingObjectId);
@@ -172,15 +307,64 @@ public class DefaultFileProcessingChain implements FileProcessingChain {
 			}
 
 			sequencingObject = sequencingObjectRepository.findById(sequencingObjectId);
-
-			if(sequencingObject.isPresent()) {
-				Set<SequenceFile> files = sequencingObject.get().getFiles();
-				filesNotSettled = files.stream().anyMatch(f -> {
-					return !Files.exists(f.getFile());
-				});
-			}
-		} while (filesNotSettled);
+		}
 
 		return sequencingObject.get();
 	}
+
+	/**
+	 * Check if all the files of a {@link SequencingObject} exist on disk
+	 * 
+	 * @param sequencingObject
+	 *            the {@link SequencingObject} to check
+	 * @return true if the object exists and all its files exist
+	 */
+	private boolean filesSettled(Optional<SequencingObject> sequencingObject) {
+		if (!sequencingObject.isPresent()) {
+			return false;
+		}
+
+		Set<SequenceFile> files = sequencingObject.get().getFiles();
+		return files.stream().allMatch(f -> Files.exists(f.getFile()));
+	}
+
+	/**
+	 * The results of streaming the files of a {@link SequencingObject} to a
+	 * single {@link StreamingFileProcessor}.
+	 */
+	private static class StreamedFiles {
+		private final Map<Long, FileProcessorStreamConsumer> consumers = new ConcurrentHashMap<>();
+		private final Map<Long, Exception> failures = new ConcurrentHashMap<>();
+
+		/**
+		 * Complete the streamed processing for the files in the
+		 * {@link SequencingObject}.
+		 * 
+		 * @param sequencingObject
+		 *            the settled {@link SequencingObject} that was streamed
+		 * @throws FileProcessorException
+		 *             if processing failed for any of the files
+		 */
+		public void complete(SequencingObject sequencingObject) {
+			for (SequenceFile sequenceFile : sequencingObject.getFiles()) {
+				Exception failure = failures.get(sequenceFile.getId());
+				if (failure != null) {
+					if (failure instanceof FileProcessorException) {
+						throw (FileProcessorException) failure;
+					}
+					throw new FileProcessorException("Failed to process streamed file [" + sequenceFile + "].",
+							failure);
+				}
+
+				FileProcessorStreamConsumer consumer = consumers.get(sequenceFile.getId());
+				if (consumer != null) {
+					try {
+						consumer.complete(sequenceFile);
+					} catch (IOException e) {
+						throw new FileProcessorException("Failed to process streamed file [" + sequenceFile + "].", e);
+					}
+				}
+			}
+		}
+	}
 }
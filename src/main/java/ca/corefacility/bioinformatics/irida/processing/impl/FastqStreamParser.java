@@ -0,0 +1,154 @@
+package ca.corefacility.bioinformatics.irida.processing.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import uk.ac.babraham.FastQC.Sequence.Sequence;
+import uk.ac.babraham.FastQC.Sequence.SequenceFile;
+import uk.ac.babraham.FastQC.Sequence.SequenceFormatException;
+
+/**
+ * Push-style FASTQ parser which builds FastQC {@link Sequence}s from blocks of
+ * bytes as they're read from a file, rather than pulling lines from a file
+ * opened by FastQC. Follows the same rules as FastQC's own
+ * <code>FastQFile</code> (blank lines between records are allowed, sequences
+ * are upper-cased), but doesn't handle colorspace data.
+ */
+public class FastqStreamParser implements SequenceFile {
+	private static final String TRUNCATED_MESSAGE = "Ran out of data in the middle of a fastq entry.  Your file is probably truncated";
+
+	private final String name;
+	private final Consumer<Sequence> sequenceConsumer;
+
+	private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+	private final String[] record = new String[4];
+	private int lineInRecord = 0;
+
+	/**
+	 * Create a new parser
+	 *
+	 * @param name
+	 *            the name of the file being parsed (reported by FastQC's
+	 *            basic stats module).
+	 * @param sequenceConsumer
+	 *            receives every {@link Sequence} parsed from the stream
+	 */
+	public FastqStreamParser(String name, Consumer<Sequence> sequenceConsumer) {
+		this.name = name;
+		this.sequenceConsumer = sequenceConsumer;
+	}
+
+	/**
+	 * Parse the next block of bytes
+	 *
+	 * @param buffer
+	 *            the buffer containing the bytes
+	 * @param offset
+	 *            the offset of the first byte in the buffer
+	 * @param length
+	 *            the number of bytes to read from the buffer
+	 * @throws SequenceFormatException
+	 *             if the bytes aren't valid FASTQ
+	 */
+	public void update(byte[] buffer, int offset, int length) throws SequenceFormatException {
+		int lineStart = offset;
+		int end = offset + length;
+
+		for (int i = offset; i < end; i++) {
+			if (buffer[i] == '\n') {
+				line.write(buffer, lineStart, i - lineStart);
+				handleLine();
+				lineStart = i + 1;
+			}
+		}
+
+		line.write(buffer, lineStart, end - lineStart);
+	}
+
+	/**
+	 * Finish parsing once the whole file has been read.
+	 *
+	 * @throws SequenceFormatException
+	 *             if the file ended in the middle of a record
+	 */
+	public void finish() throws SequenceFormatException {
+		if (line.size() > 0) {
+			handleLine();
+		}
+
+		if (lineInRecord != 0) {
+			throw new SequenceFormatException(TRUNCATED_MESSAGE);
+		}
+	}
+
+	/**
+	 * Handle a complete line in the line buffer
+	 *
+	 * @throws SequenceFormatException
+	 *             if the line isn't valid in its position in the record
+	 */
+	private void handleLine() throws SequenceFormatException {
+		int length = line.size();
+		byte[] bytes = line.toByteArray();
+		line.reset();
+
+		// handle windows line endings the same as BufferedReader.readLine
+		if (length > 0 && bytes[length - 1] == '\r') {
+			length--;
+		}
+
+		String value = new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+
+		if (lineInRecord == 0) {
+			// We might have blank lines between entries or at the end
+			if (value.isEmpty()) {
+				return;
+			}
+
+			if (!value.startsWith("@")) {
+				throw new SequenceFormatException("ID line didn't start with '@'");
+			}
+		} else if (lineInRecord == 2 && !value.startsWith("+")) {
+			throw new SequenceFormatException("Midline '" + value + "' didn't start with '+'");
+		}
+
+		record[lineInRecord++] = value;
+
+		if (lineInRecord == record.length) {
+			lineInRecord = 0;
+			sequenceConsumer.accept(new Sequence(this, record[1].toUpperCase(), record[3], record[0]));
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		return false;
+	}
+
+	@Override
+	public Sequence next() throws SequenceFormatException {
+		throw new SequenceFormatException("Sequences are pushed to the consumer as they're parsed");
+	}
+
+	@Override
+	public boolean isColorspace() {
+		return false;
+	}
+
+	@Override
+	public String name() {
+		return name;
+	}
+
+	@Override
+	public int getPercentComplete() {
+		return 0;
+	}
+
+	@Override
+	public File getFile() {
+		return null;
+	}
+}
@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.processing.impl;
 
+import ca.corefacility.bioinformatics.irida.exceptions.AnalysisAlreadySetException;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.Fast5Object;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.OverrepresentedSequence;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
@@ -7,13 +8,17 @@ import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC.AnalysisFastQCBuilder;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisOutputFile;
-import ca.corefacility.bioinformatics.irida.processing.FileProcessor;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessorStreamConsumer;
+import ca.corefacility.bioinformatics.irida.processing.StreamingFileProcessor;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.AnalysisOutputFileRepository;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.StagingDirectory;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
+import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequencingObjectRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Component;
@@ -26,17 +31,22 @@ import uk.ac.babraham.FastQC.Modules.OverRepresentedSeqs.OverrepresentedSeq;
 import uk.ac.babraham.FastQC.Sequence.QualityEncoding.PhredEncoding;
 import uk.ac.babraham.FastQC.Sequence.Sequence;
 import uk.ac.babraham.FastQC.Sequence.SequenceFactory;
+import uk.ac.babraham.FastQC.Sequence.SequenceFormatException;
 
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * Executes FastQC on a {@link SequenceFile} and stores the report in the database. This is a terrible, ugly, hacky
@@ -44,91 +54,198 @@ import java.util.Set;
  * those fields and make them <code>public</code> to get the values.
  */
 @Component
-public class FastqcFileProcessor implements FileProcessor {
+public class FastqcFileProcessor implements StreamingFileProcessor {
 	private static final Logger logger = LoggerFactory.getLogger(FastqcFileProcessor.class);
 
 	private static final String EXECUTION_MANAGER_ANALYSIS_ID = "internal-fastqc";
 
 	private final SequenceFileRepository sequenceFileRepository;
+	private final SequencingObjectRepository sequencingObjectRepository;
 	private final AnalysisOutputFileRepository outputFileRepository;
+	private final StagingDirectory outputStagingDirectory;
 	private final MessageSource messageSource;
 
+	private Executor fileExecutor = Runnable::run;
+
 	/**
 	 * Create a new {@link FastqcFileProcessor}
 	 *
 	 * @param messageSource          the message source for i18n (used to add an internationalized description for the
 	 *                               analysis).
-	 * @param sequenceFileRepository Repository for storing sequence files
-	 * @param outputFileRepository   Repository for storing analysis output files
+	 * @param sequenceFileRepository     Repository for storing sequence files
+	 * @param sequencingObjectRepository Repository for updating the total bases of sequencing objects
+	 * @param outputFileRepository       Repository for storing analysis output files
+	 * @param outputStagingDirectory     Where charts are written before they're stored as analysis output files
 	 */
 	@Autowired
 	public FastqcFileProcessor(final MessageSource messageSource, final SequenceFileRepository sequenceFileRepository,
-			AnalysisOutputFileRepository outputFileRepository) {
+			final SequencingObjectRepository sequencingObjectRepository,
+			AnalysisOutputFileRepository outputFileRepository,
+			@Qualifier("outputFileStagingDirectory") StagingDirectory outputStagingDirectory) {
 		this.messageSource = messageSource;
 		this.sequenceFileRepository = sequenceFileRepository;
+		this.sequencingObjectRepository = sequencingObjectRepository;
 		this.outputFileRepository = outputFileRepository;
+		this.outputStagingDirectory = outputStagingDirectory;
 	}
 
+	/**
+	 * Set the {@link Executor} used to run FastQC on the files of a {@link SequencingObject} at the same time. By
+	 * default files are processed one after another in the calling thread.
+	 *
+	 * @param fileExecutor the {@link Executor} to run FastQC with
+	 */
+	public void setFileExecutor(Executor fileExecutor) {
+		this.fileExecutor = fileExecutor;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The FastQC modules for each file are computed concurrently on the configured {@link Executor}, then the
+	 * results are saved one after another in the calling thread (and its transaction). Files that already have
+	 * FastQC results (ie. mirrored from a remote IRIDA) are skipped.
+	 */
 	@Override
 	@Transactional
 	public void process(SequencingObject sequencingObject) {
+		Map<SequenceFile, CompletableFuture<FastQCModules>> results = new LinkedHashMap<>();
 		for (SequenceFile file : sequencingObject.getFiles()) {
-			processSingleFile(file);
+			if (file.getFastQCAnalysis() != null) {
+				logger.trace("Skipping FastQC for file " + file.getId() + " with existing results");
+				continue;
+			}
+
+			results.put(file, CompletableFuture.supplyAsync(() -> runModules(file), fileExecutor));
+		}
+
+		for (Map.Entry<SequenceFile, CompletableFuture<FastQCModules>> result : results.entrySet()) {
+			FastQCModules modules;
+			try {
+				modules = result.getValue()
+						.join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof FileProcessorException) {
+					throw (FileProcessorException) e.getCause();
+				}
+				throw new FileProcessorException("FastQC failed to parse the sequence file.", e.getCause());
+			}
+
+			try {
+				saveAnalysis(result.getKey(), modules);
+			} catch (Exception e) {
+				logger.error("FastQC failed to process the sequence file: " + e.getMessage());
+				throw new FileProcessorException("FastQC failed to parse the sequence file.", e);
+			}
 		}
+
+		sequencingObjectRepository.updateTotalBases(sequencingObject.getId());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public FileProcessorStreamConsumer createStreamConsumer(SequenceFile sequenceFile, boolean gzipped) {
+		if (sequenceFile.getFastQCAnalysis() != null) {
+			return null;
+		}
+
+		final FastQCModules modules = new FastQCModules();
+		final FastqStreamParser parser = new FastqStreamParser(sequenceFile.getFileName(), modules::processSequence);
+
+		return new FileProcessorStreamConsumer() {
+			@Override
+			public StreamType getStreamType() {
+				return StreamType.DECOMPRESSED;
+			}
+
+			@Override
+			public void update(byte[] buffer, int offset, int length) throws IOException {
+				try {
+					parser.update(buffer, offset, length);
+				} catch (SequenceFormatException e) {
+					throw new IOException("FastQC failed to parse the sequence file.", e);
+				}
+			}
+
+			@Override
+			public void complete(SequenceFile file) throws IOException {
+				try {
+					parser.finish();
+				} catch (SequenceFormatException e) {
+					throw new IOException("FastQC failed to parse the sequence file.", e);
+				}
+
+				logger.debug("Finished FastQC analysis modules on streamed file.");
+				try {
+					saveAnalysis(file, modules);
+				} catch (AnalysisAlreadySetException e) {
+					throw new IOException("FastQC results were already set for the sequence file.", e);
+				}
+			}
+		};
 	}
 
 	/**
-	 * Process a single {@link SequenceFile}
+	 * Run the FastQC modules on every sequence in a single {@link SequenceFile}
 	 *
 	 * @param sequenceFile file to process
+	 * @return the FastQC modules that have processed the file
 	 * @throws FileProcessorException if an error occurs while processing
 	 */
-	private void processSingleFile(SequenceFile sequenceFile) throws FileProcessorException {
+	private FastQCModules runModules(SequenceFile sequenceFile) throws FileProcessorException {
 		Path fileToProcess = sequenceFile.getFile();
-		AnalysisFastQC.AnalysisFastQCBuilder analysis = AnalysisFastQC.builder()
-				.fastqcVersion(FastQCApplication.VERSION)
-				.executionManagerAnalysisId(EXECUTION_MANAGER_ANALYSIS_ID)
-				.description(messageSource.getMessage("fastqc.file.processor.analysis.description", new Object[] {FastQCApplication.VERSION},
-						LocaleContextHolder.getLocale()));
 		try {
 			uk.ac.babraham.FastQC.Sequence.SequenceFile fastQCSequenceFile = SequenceFactory.getSequenceFile(
 					fileToProcess.toFile());
-			BasicStats basicStats = new BasicStats();
-			PerBaseQualityScores pbqs = new PerBaseQualityScores();
-			PerSequenceQualityScores psqs = new PerSequenceQualityScores();
-			OverRepresentedSeqs overRep = new OverRepresentedSeqs();
-			QCModule[] moduleList = new QCModule[] { basicStats, pbqs, psqs, overRep };
+			FastQCModules modules = new FastQCModules();
 
 			logger.debug("Launching FastQC analysis modules on all sequences.");
 			while (fastQCSequenceFile.hasNext()) {
-				Sequence sequence = fastQCSequenceFile.next();
-				for (QCModule module : moduleList) {
-					module.processSequence(sequence);
-				}
+				modules.processSequence(fastQCSequenceFile.next());
 			}
 
 			logger.debug("Finished FastQC analysis modules.");
 
-			Path outputDirectory = Files.createTempDirectory("analysis-output");
+			return modules;
+		} catch (Exception e) {
+			logger.error("FastQC failed to process the sequence file: " + e.getMessage());
+			throw new FileProcessorException("FastQC failed to parse the sequence file.", e);
+		}
+	}
 
-			handleBasicStats(basicStats, analysis);
-			handlePerBaseQualityScores(pbqs, analysis, outputDirectory);
-			handlePerSequenceQualityScores(psqs, analysis, outputDirectory);
-			handleDuplicationLevel(overRep.duplicationLevelModule(), analysis, outputDirectory);
-			Set<OverrepresentedSequence> overrepresentedSequences = handleOverRepresentedSequences(overRep);
+	/**
+	 * Build the {@link AnalysisFastQC} from the computed FastQC modules and save
+	 * it with the {@link SequenceFile}.
+	 *
+	 * @param sequenceFile the {@link SequenceFile} the modules were run on
+	 * @param modules      the FastQC modules that have processed every sequence in the file
+	 * @throws IOException                if the charts could not be written
+	 * @throws AnalysisAlreadySetException if the file already has FastQC results
+	 */
+	private void saveAnalysis(SequenceFile sequenceFile, FastQCModules modules)
+			throws IOException, AnalysisAlreadySetException {
+		AnalysisFastQC.AnalysisFastQCBuilder analysis = AnalysisFastQC.builder()
+				.fastqcVersion(FastQCApplication.VERSION)
+				.executionManagerAnalysisId(EXECUTION_MANAGER_ANALYSIS_ID)
+				.description(messageSource.getMessage("fastqc.file.processor.analysis.description", new Object[] {FastQCApplication.VERSION},
+						LocaleContextHolder.getLocale()));
 
-			logger.trace("Saving FastQC analysis.");
-			analysis.overrepresentedSequences(overrepresentedSequences);
+		Path outputDirectory = outputStagingDirectory.createTempDirectory("analysis-output");
 
-			AnalysisFastQC analysisFastQC = analysis.build();
+		handleBasicStats(modules.basicStats, analysis);
+		handlePerBaseQualityScores(modules.pbqs, analysis, outputDirectory);
+		handlePerSequenceQualityScores(modules.psqs, analysis, outputDirectory);
+		handleDuplicationLevel(modules.overRep.duplicationLevelModule(), analysis, outputDirectory);
+		Set<OverrepresentedSequence> overrepresentedSequences = handleOverRepresentedSequences(modules.overRep);
 
-			sequenceFile.setFastQCAnalysis(analysis.build());
+		logger.trace("Saving FastQC analysis.");
+		analysis.overrepresentedSequences(overrepresentedSequences);
 
-			sequenceFileRepository.saveMetadata(sequenceFile);
-		} catch (Exception e) {
-			logger.error("FastQC failed to process the sequence file: " + e.getMessage());
-			throw new FileProcessorException("FastQC failed to parse the sequence file.", e);
-		}
+		sequenceFile.setFastQCAnalysis(analysis.build());
+
+		sequenceFileRepository.saveMetadata(sequenceFile);
 	}
 
 	/**
@@ -258,6 +375,31 @@ public class FastqcFileProcessor implements FileProcessor {
 			}
 		}
 
-		return true;
+		// files mirrored from a remote IRIDA come with the remote's FastQC results
+		return sequencingObject.getFiles()
+				.stream()
+				.anyMatch(f -> f.getFastQCAnalysis() == null);
+	}
+
+	/**
+	 * The set of FastQC modules run on each file.
+	 */
+	private static class FastQCModules {
+		private final BasicStats basicStats = new BasicStats();
+		private final PerBaseQualityScores pbqs = new PerBaseQualityScores();
+		private final PerSequenceQualityScores psqs = new PerSequenceQualityScores();
+		private final OverRepresentedSeqs overRep = new OverRepresentedSeqs();
+		private final QCModule[] moduleList = new QCModule[] { basicStats, pbqs, psqs, overRep };
+
+		/**
+		 * Run every module on a sequence
+		 *
+		 * @param sequence the sequence to process
+		 */
+		public void processSequence(Sequence sequence) {
+			for (QCModule module : moduleList) {
+				module.processSequence(sequence);
+			}
+		}
 	}
 }
@@ -1,6 +1,8 @@
 package ca.corefacility.bioinformatics.irida.processing.impl;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -10,13 +12,16 @@ import ca.corefacility.bioinformatics.irida.model.sequenceFile.Fast5Object;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
-import ca.corefacility.bioinformatics.irida.processing.FileProcessor;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessorStreamConsumer;
+import ca.corefacility.bioinformatics.irida.processing.StreamingFileProcessor;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.StagingDirectory;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
 import ca.corefacility.bioinformatics.irida.util.FileUtils;
 
@@ -31,22 +36,27 @@ import ca.corefacility.bioinformatics.irida.util.FileUtils;
  *
  */
 @Component
-public class GzipFileProcessor implements FileProcessor {
+public class GzipFileProcessor implements StreamingFileProcessor {
 	private static final Logger logger = LoggerFactory.getLogger(GzipFileProcessor.class);
 	private static final String GZIP_EXTENSION = ".gz";
 
 	private final SequenceFileRepository sequenceFileRepository;
+	private final StagingDirectory stagingDirectory;
 	private boolean disableFileProcessor = false;
 	private boolean removeCompressedFile;
 
 	@Autowired
-	public GzipFileProcessor(final SequenceFileRepository sequenceFileRepository) {
+	public GzipFileProcessor(final SequenceFileRepository sequenceFileRepository,
+			@Qualifier("sequenceFileStagingDirectory") final StagingDirectory stagingDirectory) {
 		this.sequenceFileRepository = sequenceFileRepository;
+		this.stagingDirectory = stagingDirectory;
 		removeCompressedFile = false;
 	}
 
-	public GzipFileProcessor(final SequenceFileRepository sequenceFileRepository, Boolean removeCompressedFiles) {
+	public GzipFileProcessor(final SequenceFileRepository sequenceFileRepository,
+			final StagingDirectory stagingDirectory, Boolean removeCompressedFiles) {
 		this.sequenceFileRepository = sequenceFileRepository;
+		this.stagingDirectory = stagingDirectory;
 		this.removeCompressedFile = removeCompressedFiles;
 	}
 
@@ -102,12 +112,7 @@ public class GzipFileProcessor implements FileProcessor {
 		}
 
 		Path file = sequenceFile.getFile();
-		String nameWithoutExtension = file.getFileName().toString();
-
-		// strip the extension from the filename (if necessary)
-		if (nameWithoutExtension.endsWith(GZIP_EXTENSION)) {
-			nameWithoutExtension = nameWithoutExtension.substring(0, nameWithoutExtension.lastIndexOf(GZIP_EXTENSION));
-		}
+		String nameWithoutExtension = getNameWithoutExtension(file);
 
 		try {
 			logger.trace("About to try handling a gzip file.");
@@ -117,28 +122,11 @@ public class GzipFileProcessor implements FileProcessor {
 				try (GZIPInputStream zippedInputStream = new GZIPInputStream(Files.newInputStream(file))) {
 					logger.trace("Handling gzip compressed file.");
 
-					Path targetDirectory = Files.createTempDirectory(null);
-					Path target = targetDirectory.resolve(nameWithoutExtension);
-					logger.debug("Target directory is [" + targetDirectory + "]");
-					logger.debug("Writing uncompressed file to [" + target + "]");
+					Path target = createTarget(nameWithoutExtension);
 
 					Files.copy(zippedInputStream, target);
 
-					sequenceFile.setFile(target);
-					sequenceFile = sequenceFileRepository.save(sequenceFile);
-
-					if (removeCompressedFile) {
-						logger.debug(
-								"Removing original compressed files [file.processing.decompress.remove.compressed.file=true]");
-						try {
-							Files.delete(file);
-						} catch (final Exception e) {
-							logger.error("Failed to remove the original compressed file.", e);
-							// throw the exception again to be caught by the
-							// outer try/catch block:
-							throw e;
-						}
-					}
+					replaceCompressedFile(sequenceFile, file, target);
 				}
 			}
 		} catch (Exception e) {
@@ -147,6 +135,167 @@ public class GzipFileProcessor implements FileProcessor {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public FileProcessorStreamConsumer createStreamConsumer(SequenceFile sequenceFile, boolean gzipped) {
+		if (disableFileProcessor || !gzipped) {
+			return null;
+		}
+
+		try {
+			return new DecompressedFileConsumer(createTarget(getNameWithoutExtension(sequenceFile.getFile())));
+		} catch (IOException e) {
+			logger.error("Failed to create a target for the input file [" + sequenceFile + "]; stack trace follows.",
+					e);
+			throw new FileProcessorException("Failed to process input file [" + sequenceFile + "].");
+		}
+	}
+
+	/**
+	 * Strip the gzip extension from a filename (if necessary)
+	 *
+	 * @param file
+	 *            the file to get the name for
+	 * @return the name of the file without the gzip extension
+	 */
+	private String getNameWithoutExtension(Path file) {
+		String nameWithoutExtension = file.getFileName().toString();
+
+		if (nameWithoutExtension.endsWith(GZIP_EXTENSION)) {
+			nameWithoutExtension = nameWithoutExtension.substring(0, nameWithoutExtension.lastIndexOf(GZIP_EXTENSION));
+		}
+
+		return nameWithoutExtension;
+	}
+
+	/**
+	 * Create a location to write the uncompressed file to.
+	 *
+	 * @param nameWithoutExtension
+	 *            the name of the uncompressed file
+	 * @return the path to write the uncompressed file to
+	 * @throws IOException
+	 *             if the temp directory could not be created
+	 */
+	private Path createTarget(String nameWithoutExtension) throws IOException {
+		Path targetDirectory = stagingDirectory.createTempDirectory(null);
+		Path target = targetDirectory.resolve(nameWithoutExtension);
+		logger.debug("Target directory is [" + targetDirectory + "]");
+		logger.debug("Writing uncompressed file to [" + target + "]");
+
+		return target;
+	}
+
+	/**
+	 * Swap the compressed file in a {@link SequenceFile} for the uncompressed
+	 * file and save it, then remove the compressed file if configured.
+	 *
+	 * @param sequenceFile
+	 *            the {@link SequenceFile} to update
+	 * @param compressedFile
+	 *            the original compressed file
+	 * @param target
+	 *            the uncompressed file
+	 * @throws IOException
+	 *             if the compressed file could not be removed
+	 */
+	private void replaceCompressedFile(SequenceFile sequenceFile, Path compressedFile, Path target)
+			throws IOException {
+		saveUncompressedFile(sequenceFile, target);
+		removeCompressedFile(compressedFile);
+	}
+
+	/**
+	 * Swap the compressed file in a {@link SequenceFile} for the uncompressed
+	 * file and save it.
+	 *
+	 * @param sequenceFile
+	 *            the {@link SequenceFile} to update
+	 * @param target
+	 *            the uncompressed file
+	 */
+	private void saveUncompressedFile(SequenceFile sequenceFile, Path target) {
+		sequenceFile.setFile(target);
+		sequenceFileRepository.save(sequenceFile);
+	}
+
+	/**
+	 * Remove the original compressed file if configured.
+	 *
+	 * @param compressedFile
+	 *            the original compressed file
+	 * @throws IOException
+	 *             if the compressed file could not be removed
+	 */
+	private void removeCompressedFile(Path compressedFile) throws IOException {
+		if (removeCompressedFile) {
+			logger.debug("Removing original compressed files [file.processing.decompress.remove.compressed.file=true]");
+			try {
+				Files.delete(compressedFile);
+			} catch (final IOException e) {
+				logger.error("Failed to remove the original compressed file.", e);
+				// throw the exception again to be caught by the
+				// outer try/catch block:
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * {@link FileProcessorStreamConsumer} which writes the decompressed stream
+	 * to the target file, then swaps it into the {@link SequenceFile}. If the
+	 * consumer is closed before the target was saved to the
+	 * {@link SequenceFile}, the target and its temp directory are removed.
+	 */
+	private class DecompressedFileConsumer implements FileProcessorStreamConsumer {
+		private final Path target;
+		private final OutputStream outputStream;
+		private boolean completed = false;
+
+		public DecompressedFileConsumer(Path target) throws IOException {
+			this.target = target;
+			this.outputStream = new BufferedOutputStream(Files.newOutputStream(target));
+		}
+
+		@Override
+		public StreamType getStreamType() {
+			return StreamType.DECOMPRESSED;
+		}
+
+		@Override
+		public void update(byte[] buffer, int offset, int length) throws IOException {
+			outputStream.write(buffer, offset, length);
+		}
+
+		@Override
+		public void complete(SequenceFile sequenceFile) throws IOException {
+			outputStream.close();
+
+			logger.trace("Handling streamed gzip compressed file.");
+			Path file = addExtensionToFilename(sequenceFile.getFile(), GZIP_EXTENSION);
+			saveUncompressedFile(sequenceFile, target);
+			completed = true;
+			removeCompressedFile(file);
+		}
+
+		@Override
+		public void close() throws IOException {
+			outputStream.close();
+
+			if (!completed) {
+				logger.debug("Stream was not completed, removing uncompressed file [" + target + "]");
+				try {
+					Files.deleteIfExists(target);
+					Files.deleteIfExists(target.getParent());
+				} catch (final IOException e) {
+					logger.error("Failed to remove uncompressed file [" + target + "]", e);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Ensures that the supplied file ends with a specific extension.
 	 *
@@ -0,0 +1,187 @@
+package ca.corefacility.bioinformatics.irida.processing.impl;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.corefacility.bioinformatics.irida.processing.FileProcessorStreamConsumer;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessorStreamConsumer.StreamType;
+
+/**
+ * Reads a file from disk exactly once and hands every block of bytes to a
+ * collection of {@link FileProcessorStreamConsumer}s. Consumers asking for
+ * {@link StreamType#RAW} receive the bytes as they're stored on disk, consumers
+ * asking for {@link StreamType#DECOMPRESSED} receive the gzip decompressed
+ * bytes.
+ *
+ * A consumer that throws an exception stops receiving bytes, but the file
+ * continues to be read for the remaining consumers. Failures are returned to
+ * the caller.
+ */
+public class SequenceFileStreamReader {
+	private static final Logger logger = LoggerFactory.getLogger(SequenceFileStreamReader.class);
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final List<FileProcessorStreamConsumer> rawConsumers = new ArrayList<>();
+	private final List<FileProcessorStreamConsumer> decompressedConsumers = new ArrayList<>();
+	private final Map<FileProcessorStreamConsumer, Exception> failures = new HashMap<>();
+
+	/**
+	 * Create a reader for the given consumers.
+	 *
+	 * @param consumers
+	 *            the consumers to send the file contents to
+	 */
+	public SequenceFileStreamReader(Collection<FileProcessorStreamConsumer> consumers) {
+		for (FileProcessorStreamConsumer consumer : consumers) {
+			if (consumer.getStreamType() == StreamType.RAW) {
+				rawConsumers.add(consumer);
+			} else {
+				decompressedConsumers.add(consumer);
+			}
+		}
+	}
+
+	/**
+	 * Read the file and send its contents to the consumers.
+	 *
+	 * @param file
+	 *            the file to read
+	 * @param gzipped
+	 *            whether or not the file is gzip compressed
+	 * @return the exceptions thrown by any consumers while reading, keyed by
+	 *         the consumer that threw them
+	 * @throws IOException
+	 *             if the file itself could not be read or decompressed
+	 */
+	public Map<FileProcessorStreamConsumer, Exception> read(Path file, boolean gzipped) throws IOException {
+		logger.trace("Reading [" + file + "] for " + (rawConsumers.size() + decompressedConsumers.size())
+				+ " stream consumers");
+
+		try (InputStream raw = new FanOutInputStream(Files.newInputStream(file), rawConsumers)) {
+			if (gzipped && !decompressedConsumers.isEmpty()) {
+				try (InputStream decompressed = new GZIPInputStream(raw, BUFFER_SIZE)) {
+					pump(decompressed, decompressedConsumers);
+				}
+			} else {
+				pump(raw, gzipped ? Collections.emptyList() : decompressedConsumers);
+			}
+		}
+
+		return failures;
+	}
+
+	/**
+	 * Read a stream to the end, sending each block to the consumers.
+	 *
+	 * @param stream
+	 *            the stream to read
+	 * @param consumers
+	 *            the consumers to send the bytes to
+	 * @throws IOException
+	 *             if the stream could not be read
+	 */
+	private void pump(InputStream stream, List<FileProcessorStreamConsumer> consumers) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int read;
+		while ((read = stream.read(buffer)) != -1) {
+			send(consumers, buffer, 0, read);
+		}
+	}
+
+	/**
+	 * Send a block of bytes to all consumers that haven't failed yet.
+	 */
+	private void send(List<FileProcessorStreamConsumer> consumers, byte[] buffer, int offset, int length) {
+		if (length <= 0) {
+			return;
+		}
+
+		for (FileProcessorStreamConsumer consumer : consumers) {
+			if (failures.containsKey(consumer)) {
+				continue;
+			}
+
+			try {
+				consumer.update(buffer, offset, length);
+			} catch (Exception e) {
+				logger.debug("Stream consumer [" + consumer.getClass() + "] failed, it won't receive more data", e);
+				failures.put(consumer, e);
+			}
+		}
+	}
+
+	/**
+	 * {@link FilterInputStream} which sends a copy of every byte read to the
+	 * {@link StreamType#RAW} consumers. Closing the stream drains any bytes
+	 * that weren't read (ie. trailing bytes after a gzip stream) so the raw
+	 * consumers always see the whole file.
+	 */
+	private class FanOutInputStream extends FilterInputStream {
+		private final List<FileProcessorStreamConsumer> consumers;
+		private boolean drained = false;
+
+		FanOutInputStream(InputStream in, List<FileProcessorStreamConsumer> consumers) {
+			super(in);
+			this.consumers = consumers;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b != -1) {
+				send(consumers, new byte[] { (byte) b }, 0, 1);
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			send(consumers, b, off, read);
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			// read instead of skipping so the consumers see the skipped bytes
+			byte[] buffer = new byte[(int) Math.min(n, BUFFER_SIZE)];
+			long skipped = 0;
+			while (skipped < n) {
+				int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+				if (read == -1) {
+					break;
+				}
+				skipped += read;
+			}
+			return skipped;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!drained) {
+				drained = true;
+				if (!consumers.isEmpty()) {
+					byte[] buffer = new byte[BUFFER_SIZE];
+					while (read(buffer, 0, buffer.length) != -1) {
+						// keep reading for the raw consumers
+					}
+				}
+			}
+			super.close();
+		}
+	}
+}
@@ -11,6 +11,7 @@ import org.springframework.stereotype.Repository;
 
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisOutputFile;
 import ca.corefacility.bioinformatics.irida.repositories.filesystem.FilesystemSupplementedRepositoryImpl;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.StagingDirectory;
 
 /**
  * Custom implementation of {@link FilesystemSupplementedRepositoryImpl} for
@@ -23,8 +24,9 @@ public class AnalysisOutputFileRepositoryImpl extends FilesystemSupplementedRepo
 
 	@Autowired
 	public AnalysisOutputFileRepositoryImpl(EntityManager entityManager,
-			@Qualifier("outputFileBaseDirectory") Path baseDirectory) {
-		super(entityManager, baseDirectory);
+			@Qualifier("outputFileBaseDirectory") Path baseDirectory,
+			@Qualifier("outputFileStagingDirectory") StagingDirectory stagingDirectory) {
+		super(entityManager, baseDirectory, stagingDirectory);
 	}
 
 	/**
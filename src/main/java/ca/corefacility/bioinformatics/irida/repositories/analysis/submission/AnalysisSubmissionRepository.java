@@ -16,6 +16,7 @@ import ca.corefacility.bioinformatics.irida.model.user.User;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.Analysis;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.ProjectSampleAnalysisOutputInfo;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmissionExecutionState;
 import ca.corefacility.bioinformatics.irida.repositories.IridaJpaRepository;
 
 /**
@@ -47,6 +48,19 @@ public interface AnalysisSubmissionRepository extends IridaJpaRepository<Analysi
 	@Query("select s from AnalysisSubmission s where s.analysisState in ?1")
 	public List<AnalysisSubmission> findByAnalysisState(Collection<AnalysisState> state);
 
+	/**
+	 * Get the id, remote analysis id and state of the
+	 * {@link AnalysisSubmission}s with the given state, without loading the
+	 * submissions.
+	 *
+	 * @param state
+	 *            The state of the analyses to search for.
+	 * @return A {@link List} of {@link AnalysisSubmissionExecutionState}s for
+	 *         the analyses with the given state.
+	 */
+	@Query("select new ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmissionExecutionState(s.id, s.remoteAnalysisId, s.analysisState) from AnalysisSubmission s where s.analysisState = ?1 order by s.id")
+	public List<AnalysisSubmissionExecutionState> findExecutionStatesByAnalysisState(AnalysisState state);
+
 	/**
 	 * Get the analysis submissions that are currently in the given list of states
 	 *
@@ -56,6 +70,16 @@ public interface AnalysisSubmissionRepository extends IridaJpaRepository<Analysi
 	@Query("select count(s.id) from AnalysisSubmission s where s.analysisState in ?1")
 	public Long countByAnalysisState(Collection<AnalysisState> state);
 
+	/**
+	 * Count the analysis submissions in each of the given states
+	 *
+	 * @param states the states to count analyses in
+	 * @return a list of pairs of an {@link AnalysisState} and the number of
+	 *         analyses in that state. States without any analyses are left out.
+	 */
+	@Query("select s.analysisState, count(s.id) from AnalysisSubmission s where s.analysisState in ?1 group by s.analysisState")
+	public List<Object[]> countAnalysesByState(Collection<AnalysisState> states);
+
 
 	/**
 	 * Loads up a list of {@link AnalysisSubmission}s with the given states.
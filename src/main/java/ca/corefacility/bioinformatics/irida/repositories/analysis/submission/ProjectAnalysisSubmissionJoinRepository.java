@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.repositories.analysis.submission;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.Query;
@@ -26,6 +27,17 @@ public interface ProjectAnalysisSubmissionJoinRepository
 	@Query("FROM ProjectAnalysisSubmissionJoin j WHERE j.analysisSubmission=?1")
 	public List<ProjectAnalysisSubmissionJoin> getProjectsForSubmission(AnalysisSubmission submission);
 
+	/**
+	 * Get all {@link Project}s a collection of {@link AnalysisSubmission}s are
+	 * shared with
+	 * 
+	 * @param submissions
+	 *            the {@link AnalysisSubmission}s
+	 * @return a list of {@link ProjectAnalysisSubmissionJoin}s
+	 */
+	@Query("FROM ProjectAnalysisSubmissionJoin j WHERE j.analysisSubmission IN ?1")
+	public List<ProjectAnalysisSubmissionJoin> getProjectsForSubmissions(Collection<AnalysisSubmission> submissions);
+
 	/**
 	 * Gets all the {@link ProjectAnalysisSubmissionJoin}s for a given {@link Project}.
 	 * 
@@ -39,11 +39,14 @@ public abstract class FilesystemSupplementedRepositoryImpl<Type extends Versione
 	private static final Logger logger = LoggerFactory.getLogger(FilesystemSupplementedRepository.class);
 
 	private final Path baseDirectory;
+	private final StagingDirectory stagingDirectory;
 	private final EntityManager entityManager;
 
-	public FilesystemSupplementedRepositoryImpl(final EntityManager entityManager, final Path baseDirectory) {
+	public FilesystemSupplementedRepositoryImpl(final EntityManager entityManager, final Path baseDirectory,
+			final StagingDirectory stagingDirectory) {
 		this.entityManager = entityManager;
 		this.baseDirectory = baseDirectory;
+		this.stagingDirectory = stagingDirectory;
 	}
 
 	/**
@@ -249,7 +252,7 @@ public abstract class FilesystemSupplementedRepositoryImpl<Type extends Versione
 						logger.trace("Created directory: [" + sequenceFileDirWithRevision.toString() + "]");
 					}
 
-					Files.move(source, target);
+					stagingDirectory.move(source, target);
 					logger.trace("Moved file " + source + " to " + target);
 				} catch (IOException e) {
 					logger.error("Unable to move file into new directory", e);
@@ -0,0 +1,222 @@
+package ca.corefacility.bioinformatics.irida.repositories.filesystem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A directory to write new files to before they're saved in a
+ * {@link FilesystemSupplementedRepository}. The staging directory should be on
+ * the same filesystem as the repository's base directory so that saving a file
+ * is a rename rather than a copy.
+ */
+public class StagingDirectory {
+	private static final Logger logger = LoggerFactory.getLogger(StagingDirectory.class);
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Path root;
+
+	private final AtomicLong moves = new AtomicLong();
+	private final AtomicLong crossDeviceMoves = new AtomicLong();
+
+	/**
+	 * Create a staging directory, creating the directory if it doesn't exist.
+	 *
+	 * @param root
+	 *            the directory to stage files in
+	 * @throws IOException
+	 *             if the directory can't be created
+	 */
+	public StagingDirectory(Path root) throws IOException {
+		this.root = Files.createDirectories(root).toAbsolutePath();
+	}
+
+	/**
+	 * Get the directory files are staged in
+	 *
+	 * @return the staging directory
+	 */
+	public Path getRoot() {
+		return root;
+	}
+
+	/**
+	 * Create a new empty directory in the staging directory to write files to.
+	 *
+	 * @param prefix
+	 *            the prefix of the directory name, may be null
+	 * @return the new directory
+	 * @throws IOException
+	 *             if the directory can't be created
+	 */
+	public Path createTempDirectory(String prefix) throws IOException {
+		return Files.createTempDirectory(root, prefix);
+	}
+
+	/**
+	 * Write a stream to a new file in the staging directory. The sha256
+	 * checksum of the stream is calculated, and whether it's gzipped is
+	 * checked, while it's written so the file doesn't need to be read again.
+	 *
+	 * @param inputStream
+	 *            the stream to write. The stream is read to the end but not
+	 *            closed.
+	 * @param filename
+	 *            the name of the file to write. Any directories in the name
+	 *            are ignored.
+	 * @return the written file
+	 * @throws IOException
+	 *             if the stream can't be read or the file can't be written
+	 */
+	public StagedFile write(InputStream inputStream, String filename) throws IOException {
+		Path name = filename == null ? null : Paths.get(filename).getFileName();
+		if (name == null || name.toString().trim().isEmpty()) {
+			throw new IllegalArgumentException("A file name is required to stage a file");
+		}
+
+		Path target = createTempDirectory(null).resolve(name.toString());
+		MessageDigest digest = DigestUtils.getSha256Digest();
+		byte[] header = new byte[2];
+		long size = 0;
+
+		try (OutputStream outputStream = Files.newOutputStream(target)) {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int read;
+			while ((read = inputStream.read(buffer)) != -1) {
+				for (int i = 0; i < read && size + i < header.length; i++) {
+					header[(int) size + i] = buffer[i];
+				}
+				digest.update(buffer, 0, read);
+				outputStream.write(buffer, 0, read);
+				size += read;
+			}
+		} catch (IOException e) {
+			Files.deleteIfExists(target);
+			Files.deleteIfExists(target.getParent());
+			throw e;
+		}
+
+		boolean gzipped = size >= header.length && header[0] == (byte) GZIPInputStream.GZIP_MAGIC
+				&& header[1] == (byte) (GZIPInputStream.GZIP_MAGIC >> 8);
+
+		logger.trace("Staged " + size + " bytes to " + target + (gzipped ? " (gzipped)" : ""));
+
+		return new StagedFile(target, Hex.encodeHexString(digest.digest()), size, gzipped);
+	}
+
+	/**
+	 * Move a file to its location in a repository. The file is renamed if
+	 * possible, otherwise it's copied and the original removed. If the file
+	 * was written to a directory created by
+	 * {@link #createTempDirectory(String)} the directory is removed once it's
+	 * empty.
+	 *
+	 * @param source
+	 *            the file to move
+	 * @param target
+	 *            the location in the repository to move the file to
+	 * @throws IOException
+	 *             if the file can't be moved
+	 */
+	public void move(Path source, Path target) throws IOException {
+		moves.incrementAndGet();
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			crossDeviceMoves.incrementAndGet();
+			logger.debug("Can't rename " + source + " to " + target + ", copying the file instead");
+			Files.move(source, target);
+		}
+
+		Path sourceDirectory = source.toAbsolutePath().getParent();
+		if (root.equals(sourceDirectory.getParent())) {
+			try {
+				Files.deleteIfExists(sourceDirectory);
+			} catch (DirectoryNotEmptyException e) {
+				logger.trace("Not removing staging directory " + sourceDirectory + ", it still has files");
+			}
+		}
+	}
+
+	/**
+	 * @return the number of files moved into the repository
+	 */
+	public long getMoves() {
+		return moves.get();
+	}
+
+	/**
+	 * @return the number of files which couldn't be renamed into the repository
+	 *         and had to be copied because they were on another filesystem
+	 */
+	public long getCrossDeviceMoves() {
+		return crossDeviceMoves.get();
+	}
+
+	@Override
+	public String toString() {
+		return "Staging directory " + root + ", moves: " + getMoves() + ", cross device moves: "
+				+ getCrossDeviceMoves();
+	}
+
+	/**
+	 * A file written to the staging directory by
+	 * {@link StagingDirectory#write(InputStream, String)}.
+	 */
+	public static class StagedFile {
+		private final Path file;
+		private final String sha256;
+		private final long size;
+		private final boolean gzipped;
+
+		private StagedFile(Path file, String sha256, long size, boolean gzipped) {
+			this.file = file;
+			this.sha256 = sha256;
+			this.size = size;
+			this.gzipped = gzipped;
+		}
+
+		/**
+		 * @return the file in the staging directory
+		 */
+		public Path getFile() {
+			return file;
+		}
+
+		/**
+		 * @return the hex encoded sha256 checksum of the file
+		 */
+		public String getSha256() {
+			return sha256;
+		}
+
+		/**
+		 * @return the size of the file in bytes
+		 */
+		public long getSize() {
+			return size;
+		}
+
+		/**
+		 * @return whether the file starts with the gzip magic number
+		 */
+		public boolean isGzipped() {
+			return gzipped;
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.repositories.joins.project;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
@@ -29,6 +30,16 @@ public interface ProjectSampleJoinRepository extends PagingAndSortingRepository<
 	@Query("select j from ProjectSampleJoin j where j.sample = ?1")
 	public List<Join<Project, Sample>> getProjectForSample(Sample sample);
 
+	/**
+	 * Get the {@link Project}s for a collection of {@link Sample}s
+	 * 
+	 * @param samples
+	 *            the {@link Sample}s to get projects for
+	 * @return the {@link Project}s for the given {@link Sample}s
+	 */
+	@Query("select j from ProjectSampleJoin j where j.sample in ?1")
+	public List<Join<Project, Sample>> getProjectsForSamples(Collection<Sample> samples);
+
 	/**
 	 * Get a specific {@link ProjectSampleJoin} for a {@link Project} and
 	 * {@link Sample}
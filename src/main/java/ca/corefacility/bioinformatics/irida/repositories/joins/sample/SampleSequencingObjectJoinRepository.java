@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.repositories.joins.sample;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.Query;
@@ -47,4 +48,14 @@ public interface SampleSequencingObjectJoinRepository extends IridaJpaRepository
 	 */
 	@Query("from SampleSequencingObjectJoin j where j.sequencingObject = ?1")
 	public SampleSequencingObjectJoin getSampleForSequencingObject(SequencingObject seqObject);
+
+	/**
+	 * Get the {@link Sample}s for a collection of {@link SequencingObject}s
+	 * 
+	 * @param seqObjects
+	 *            the {@link SequencingObject}s to get samples for
+	 * @return a list of {@link SampleSequencingObjectJoin}s
+	 */
+	@Query("from SampleSequencingObjectJoin j where j.sequencingObject in ?1")
+	public List<SampleSequencingObjectJoin> getSamplesForSequencingObjects(Collection<SequencingObject> seqObjects);
 }
@@ -11,6 +11,7 @@ import org.springframework.stereotype.Repository;
 
 import ca.corefacility.bioinformatics.irida.model.project.ReferenceFile;
 import ca.corefacility.bioinformatics.irida.repositories.filesystem.FilesystemSupplementedRepositoryImpl;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.StagingDirectory;
 import ca.corefacility.bioinformatics.irida.service.util.SequenceFileUtilities;
 
 /**
@@ -27,8 +28,9 @@ public class ReferenceFileRepositoryImpl extends FilesystemSupplementedRepositor
 	@Autowired
 	public ReferenceFileRepositoryImpl(final EntityManager entityManager, 
 			final SequenceFileUtilities sequenceFileUtilities,
-			final @Qualifier("referenceFileBaseDirectory") Path baseDirectory) {
-		super(entityManager, baseDirectory);
+			final @Qualifier("referenceFileBaseDirectory") Path baseDirectory,
+			final @Qualifier("referenceFileStagingDirectory") StagingDirectory stagingDirectory) {
+		super(entityManager, baseDirectory, stagingDirectory);
 		this.sequenceFileUtilities = sequenceFileUtilities;
 	}
 
@@ -1,8 +1,10 @@
 package ca.corefacility.bioinformatics.irida.repositories.remote;
 
+import java.util.Date;
 import java.util.Map;
 
 import ca.corefacility.bioinformatics.irida.model.RemoteAPI;
+import ca.corefacility.bioinformatics.irida.model.remote.resource.ResourceList;
 import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
@@ -14,6 +16,22 @@ import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
  */
 public interface SampleRemoteRepository extends RemoteRepository<Sample> {
 
+	/**
+	 * List the {@link Sample}s of a remote project which have changed since
+	 * the given date
+	 * 
+	 * @param uri
+	 *            the project samples URI
+	 * @param changedSince
+	 *            the date to get changes after
+	 * @param remoteAPI
+	 *            the {@link RemoteAPI} to read from
+	 * @return the changed {@link Sample}s along with the total number of
+	 *         samples in the project. Remote installations which can't list
+	 *         changes return all of their samples without a total.
+	 */
+	public ResourceList<Sample> listChangedSince(String uri, Date changedSince, RemoteAPI remoteAPI);
+
 	/**
 	 * Get the {@link Sample} metadata for a remote sample
 	 * 
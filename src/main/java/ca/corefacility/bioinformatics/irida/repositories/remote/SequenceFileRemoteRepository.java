@@ -6,6 +6,7 @@ import org.springframework.http.MediaType;
 
 import ca.corefacility.bioinformatics.irida.model.RemoteAPI;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
 
 /**
  * Repository for reading {@link SequenceFile}s from a Remote IRIDA installation
@@ -32,4 +33,15 @@ public interface SequenceFileRemoteRepository extends RemoteRepository<SequenceF
 	 * @return A temporary {@link Path} to the sequence file data
 	 */
 	public Path downloadRemoteSequenceFile(String uri, RemoteAPI api, MediaType... mediaTypes);
+
+	/**
+	 * Read the FastQC results the remote IRIDA installation calculated for a
+	 * {@link SequenceFile}. Only the summary values are read, not the charts.
+	 *
+	 * @param file      the remote {@link SequenceFile} to read results for
+	 * @param remoteAPI the {@link RemoteAPI} this file resides on
+	 * @return a new {@link AnalysisFastQC} with the remote results, or null if
+	 * the remote file hasn't been processed
+	 */
+	public AnalysisFastQC readRemoteFastQC(SequenceFile file, RemoteAPI remoteAPI);
 }
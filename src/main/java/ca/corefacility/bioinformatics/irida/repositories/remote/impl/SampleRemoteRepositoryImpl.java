@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.repositories.remote.impl;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -12,12 +13,14 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Repository;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import ca.corefacility.bioinformatics.irida.model.IridaResourceSupport;
 import ca.corefacility.bioinformatics.irida.model.RemoteAPI;
 import ca.corefacility.bioinformatics.irida.model.remote.resource.ListResourceWrapper;
+import ca.corefacility.bioinformatics.irida.model.remote.resource.ResourceList;
 import ca.corefacility.bioinformatics.irida.model.remote.resource.ResourceWrapper;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
@@ -46,6 +49,8 @@ public class SampleRemoteRepositoryImpl extends RemoteRepositoryImpl<Sample> imp
 
 	private final static String METADATA_REL = RESTSampleMetadataController.METADATA_REL;
 
+	private final static String CHANGED_SINCE_PARAM = "changedSince";
+
 	private RemoteAPITokenService tokenService;
 
 	@Autowired
@@ -63,6 +68,27 @@ public class SampleRemoteRepositoryImpl extends RemoteRepositoryImpl<Sample> imp
 		return super.list(uri, remoteAPI);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ResourceList<Sample> listChangedSince(String uri, Date changedSince, RemoteAPI remoteAPI) {
+		String changesUri = UriComponentsBuilder.fromHttpUrl(uri)
+				.queryParam(CHANGED_SINCE_PARAM, changedSince.getTime())
+				.toUriString();
+		logger.trace("Listing remote samples changed since " + changedSince + " from " + changesUri);
+
+		OAuthTokenRestTemplate restTemplate = new OAuthTokenRestTemplate(tokenService, remoteAPI);
+		ResponseEntity<ListResourceWrapper<Sample>> exchange = restTemplate.exchange(changesUri, HttpMethod.GET,
+				HttpEntity.EMPTY, listTypeReference);
+
+		ResourceList<Sample> resource = exchange.getBody().getResource();
+		for (Sample s : resource.getResources()) {
+			setRemoteStatus(s, remoteAPI);
+		}
+		return resource;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
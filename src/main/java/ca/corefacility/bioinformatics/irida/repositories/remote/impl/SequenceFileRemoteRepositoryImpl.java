@@ -1,24 +1,46 @@
 package ca.corefacility.bioinformatics.irida.repositories.remote.impl;
 
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.hateoas.Link;
 import org.springframework.http.*;
-import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.security.core.token.TokenService;
 import org.springframework.stereotype.Repository;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import ca.corefacility.bioinformatics.irida.model.IridaResourceSupport;
 import ca.corefacility.bioinformatics.irida.model.RemoteAPI;
 import ca.corefacility.bioinformatics.irida.model.remote.resource.ListResourceWrapper;
 import ca.corefacility.bioinformatics.irida.model.remote.resource.ResourceWrapper;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.OverrepresentedSequence;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.StagingDirectory;
 import ca.corefacility.bioinformatics.irida.repositories.remote.SequenceFileRemoteRepository;
 import ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate.OAuthTokenRestTemplate;
-import ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate.SequenceFileMessageConverter;
+import ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate.ResumableFileDownloader;
 import ca.corefacility.bioinformatics.irida.service.RemoteAPITokenService;
+import ca.corefacility.bioinformatics.irida.web.controller.api.samples.RESTSampleSequenceFilesController;
 
 /**
  * Implementation of {@link SequenceFileRemoteRepository} using
@@ -29,13 +51,23 @@ import ca.corefacility.bioinformatics.irida.service.RemoteAPITokenService;
 @Repository
 public class SequenceFileRemoteRepositoryImpl extends RemoteRepositoryImpl<SequenceFile> implements
 		SequenceFileRemoteRepository {
+	private static final Logger logger = LoggerFactory.getLogger(SequenceFileRemoteRepositoryImpl.class);
+
 	public static final MediaType DEFAULT_DOWNLOAD_MEDIA_TYPE = new MediaType("application", "fastq");
 	private static final ParameterizedTypeReference<ListResourceWrapper<SequenceFile>> listTypeReference = new ParameterizedTypeReference<>() {
 	};
 	private static final ParameterizedTypeReference<ResourceWrapper<SequenceFile>> objectTypeReference = new ParameterizedTypeReference<>() {
 	};
+
+	// type reference for the fastqc responses
+	private static final ParameterizedTypeReference<ResourceWrapper<FastQCWrapper>> fastqcTypeReference = new ParameterizedTypeReference<>() {
+	};
+
+	private static final String QC_REL = RESTSampleSequenceFilesController.REL_SEQ_QC;
+
 	// OAuth2 token storage service for making requests
 	private final RemoteAPITokenService tokenService;
+	private final StagingDirectory stagingDirectory;
 
 	/**
 	 * Create a new SequenceFileRemoteRepositoryImpl
@@ -44,9 +76,11 @@ public class SequenceFileRemoteRepositoryImpl extends RemoteRepositoryImpl<Seque
 	 *            The {@link TokenService} storing OAuth2 tokens
 	 */
 	@Autowired
-	public SequenceFileRemoteRepositoryImpl(RemoteAPITokenService tokenService) {
+	public SequenceFileRemoteRepositoryImpl(RemoteAPITokenService tokenService,
+			@Qualifier("sequenceFileStagingDirectory") StagingDirectory stagingDirectory) {
 		super(tokenService, listTypeReference, objectTypeReference);
 		this.tokenService = tokenService;
+		this.stagingDirectory = stagingDirectory;
 	}
 
 	/**
@@ -58,19 +92,104 @@ public class SequenceFileRemoteRepositoryImpl extends RemoteRepositoryImpl<Seque
 
 		OAuthTokenRestTemplate restTemplate = new OAuthTokenRestTemplate(tokenService, remoteAPI);
 
-		// add the sequence file message markdownConverter
-		List<HttpMessageConverter<?>> converters = restTemplate.getMessageConverters();
-		converters.add(new SequenceFileMessageConverter(file.getFileName()));
-		restTemplate.setMessageConverters(converters);
+		// get the file, resuming any earlier download that was interrupted
+		ResumableFileDownloader downloader = new ResumableFileDownloader(restTemplate, stagingDirectory);
+		MessageDigest digest = DigestUtils.getSha256Digest();
+		Path downloaded = downloader.download(uri, file.getFileName(), Arrays.asList(mediaTypes), digest);
+
+		verifyChecksum(file, downloaded, Hex.encodeHexString(digest.digest()));
+
+		return downloaded;
+	}
+
+	/**
+	 * Check the checksum of a downloaded file against the checksum the remote
+	 * IRIDA calculated when the file was uploaded. A file that was decompressed
+	 * by the remote's file processing no longer matches its upload checksum,
+	 * so only files which are still compressed (and so are served exactly as
+	 * they were uploaded) are rejected when the checksum doesn't match.
+	 *
+	 * @param file
+	 *            the remote {@link SequenceFile}
+	 * @param downloaded
+	 *            the downloaded file
+	 * @param sha256
+	 *            the checksum of the downloaded file
+	 */
+	private void verifyChecksum(SequenceFile file, Path downloaded, String sha256) {
+		String uploadSha256 = file.getUploadSha256();
+
+		if (uploadSha256 == null) {
+			logger.trace("No checksum for remote file " + file.getSelfHref());
+		} else if (uploadSha256.equals(sha256)) {
+			logger.trace("Verified checksum for remote file " + file.getSelfHref());
+		} else if (file.getFileName()
+				.endsWith(".gz")) {
+			try {
+				FileUtils.deleteDirectory(downloaded.getParent()
+						.toFile());
+			} catch (IOException e) {
+				logger.warn("Could not remove downloaded file " + downloaded, e);
+			}
+
+			throw new ResourceAccessException(
+					"Checksum of downloaded file [" + sha256 + "] doesn't match remote file " + file.getSelfHref()
+							+ " [" + uploadSha256 + "]");
+		} else {
+			logger.debug("Checksum of remote file " + file.getSelfHref()
+					+ " doesn't match its upload, it may have been decompressed by the remote IRIDA");
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public AnalysisFastQC readRemoteFastQC(SequenceFile file, RemoteAPI remoteAPI) {
+		Link qcLink = file.getLink(QC_REL);
+		String qcHref = qcLink != null ? qcLink.getHref() : file.getSelfHref() + "/qc";
+
+		logger.trace("Requesting fastqc results from " + qcHref);
+		OAuthTokenRestTemplate restTemplate = new OAuthTokenRestTemplate(tokenService, remoteAPI);
+
+		FastQCWrapper fastqc;
+		try {
+			ResponseEntity<ResourceWrapper<FastQCWrapper>> exchange = restTemplate.exchange(qcHref, HttpMethod.GET,
+					HttpEntity.EMPTY, fastqcTypeReference);
+			fastqc = exchange.getBody()
+					.getResource();
+		} catch (HttpClientErrorException e) {
+			if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+				logger.debug("No fastqc results for remote file " + file.getSelfHref());
+				return null;
+			}
+			throw e;
+		}
 
-		// add the application/fastq accept header
-		HttpHeaders requestHeaders = new HttpHeaders();
-		requestHeaders.setAccept(Arrays.asList(mediaTypes));
-		HttpEntity<Path> requestEntity = new HttpEntity<>(requestHeaders);
+		Set<OverrepresentedSequence> overrepresentedSequences = new HashSet<>();
+		if (fastqc.overrepresentedSequences != null) {
+			overrepresentedSequences = fastqc.overrepresentedSequences.stream()
+					.map(o -> new OverrepresentedSequence(o.sequence, o.overrepresentedSequenceCount, o.percentage,
+							o.possibleSource))
+					.collect(Collectors.toSet());
+		}
 
-		// get the file
-		ResponseEntity<Path> exchange = restTemplate.exchange(uri, HttpMethod.GET, requestEntity, Path.class);
-		return exchange.getBody();
+		// the charts aren't available from the REST API, so only the summary
+		// values are mirrored
+		return AnalysisFastQC.builder()
+				.fastqcVersion(fastqc.fastqcVersion)
+				.executionManagerAnalysisId(fastqc.executionManagerAnalysisId)
+				.description(fastqc.description)
+				.fileType(fastqc.fileType)
+				.encoding(fastqc.encoding)
+				.totalSequences(fastqc.totalSequences)
+				.filteredSequences(fastqc.filteredSequences)
+				.totalBases(fastqc.totalBases)
+				.minLength(fastqc.minLength)
+				.maxLength(fastqc.maxLength)
+				.gcContent(fastqc.gcContent)
+				.overrepresentedSequences(overrepresentedSequences)
+				.build();
 	}
 
 	/**
@@ -81,4 +200,49 @@ public class SequenceFileRemoteRepositoryImpl extends RemoteRepositoryImpl<Seque
 		return downloadRemoteSequenceFile(uri, remoteAPI, DEFAULT_DOWNLOAD_MEDIA_TYPE);
 	}
 
+	/**
+	 * Class to capture the response from a fastqc request
+	 */
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	private static class FastQCWrapper extends IridaResourceSupport {
+		@JsonProperty
+		String fastqcVersion;
+		@JsonProperty
+		String executionManagerAnalysisId;
+		@JsonProperty
+		String description;
+		@JsonProperty
+		String fileType;
+		@JsonProperty
+		String encoding;
+		@JsonProperty
+		Integer totalSequences;
+		@JsonProperty
+		Integer filteredSequences;
+		@JsonProperty
+		Long totalBases;
+		@JsonProperty
+		Integer minLength;
+		@JsonProperty
+		Integer maxLength;
+		@JsonProperty
+		Short gcContent;
+		@JsonProperty
+		List<OverrepresentedSequenceWrapper> overrepresentedSequences;
+	}
+
+	/**
+	 * Class to capture an overrepresented sequence from a fastqc request
+	 */
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	private static class OverrepresentedSequenceWrapper {
+		@JsonProperty
+		String sequence;
+		@JsonProperty
+		int overrepresentedSequenceCount;
+		@JsonProperty
+		BigDecimal percentage;
+		@JsonProperty
+		String possibleSource;
+	}
 }
@@ -0,0 +1,467 @@
+package ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Striped;
+
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.StagingDirectory;
+
+/**
+ * Downloads files from a remote IRIDA installation using HTTP Range requests
+ * so that an interrupted download continues where it left off instead of
+ * starting over. Partially downloaded files are kept in a directory named for
+ * the file's URI, along with the file's <code>ETag</code> (or
+ * <code>Last-Modified</code> date if it has no strong <code>ETag</code>), so
+ * they're resumed by the next attempt or the next synchronization. Downloads
+ * of the same URI hold a lock so they don't write the same partial file at
+ * once. The validator is sent back in an <code>If-Range</code> header so that
+ * a file which changed remotely is downloaded again from the start. Servers
+ * which don't support ranges send the whole file, which replaces the partial
+ * file. Partial downloads which haven't changed for a day (ie. the remote file
+ * was removed) are removed.
+ */
+public class ResumableFileDownloader {
+	private static final Logger logger = LoggerFactory.getLogger(ResumableFileDownloader.class);
+
+	private static final String PARTIAL_DIRECTORY = "irida-remote-downloads";
+	private static final String PARTIAL_FILE = "partial";
+	private static final String VALIDATOR_FILE = ".validator";
+	private static final int DEFAULT_MAX_ATTEMPTS = 5;
+	private static final long DEFAULT_RETRY_DELAY = 5000;
+	private static final long ABANDONED_DOWNLOAD_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+	private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+|\\*)");
+
+	/**
+	 * Locks for the partial download directories, shared by every downloader
+	 * since a new one is created for each file.
+	 */
+	private static final Striped<Lock> PARTIAL_LOCKS = Striped.lazyWeakLock(256);
+
+	private final RestTemplate restTemplate;
+	private final StagingDirectory stagingDirectory;
+	private final Path partialDirectory;
+	private final int maxAttempts;
+	private final long retryDelay;
+
+	/**
+	 * Create a new {@link ResumableFileDownloader} keeping partial files in a
+	 * staging directory.
+	 *
+	 * @param restTemplate
+	 *            the {@link RestTemplate} used to request the file
+	 * @param stagingDirectory
+	 *            the {@link StagingDirectory} to download files to
+	 */
+	public ResumableFileDownloader(RestTemplate restTemplate, StagingDirectory stagingDirectory) {
+		this(restTemplate, stagingDirectory, DEFAULT_MAX_ATTEMPTS, DEFAULT_RETRY_DELAY);
+	}
+
+	/**
+	 * Create a new {@link ResumableFileDownloader}
+	 *
+	 * @param restTemplate
+	 *            the {@link RestTemplate} used to request the file
+	 * @param stagingDirectory
+	 *            the {@link StagingDirectory} to download files to. Partially
+	 *            downloaded files are kept in a directory inside it.
+	 * @param maxAttempts
+	 *            the number of times to try to finish a download before
+	 *            giving up
+	 * @param retryDelay
+	 *            the time in milliseconds to wait before the second attempt.
+	 *            Doubled for each attempt after that.
+	 */
+	public ResumableFileDownloader(RestTemplate restTemplate, StagingDirectory stagingDirectory, int maxAttempts,
+			long retryDelay) {
+		this.restTemplate = restTemplate;
+		this.stagingDirectory = stagingDirectory;
+		this.partialDirectory = stagingDirectory.getRoot()
+				.resolve(PARTIAL_DIRECTORY);
+		this.maxAttempts = maxAttempts;
+		this.retryDelay = retryDelay;
+	}
+
+	/**
+	 * Download a file, resuming the partial file left by a failed attempt or
+	 * an earlier synchronization.
+	 *
+	 * @param uri
+	 *            the URI of the file
+	 * @param fileName
+	 *            the name to give the downloaded file
+	 * @param mediaTypes
+	 *            the media types to accept
+	 * @return the downloaded file, in a new temporary directory
+	 */
+	public Path download(String uri, String fileName, List<MediaType> mediaTypes) {
+		return download(uri, fileName, mediaTypes, null);
+	}
+
+	/**
+	 * Download a file, resuming the partial file left by a failed attempt or
+	 * an earlier synchronization, and digest its contents as they're written. When a download is resumed
+	 * the part of the file that was already downloaded is read into the
+	 * digest first, so the digest always covers the whole file.
+	 *
+	 * @param uri
+	 *            the URI of the file
+	 * @param fileName
+	 *            the name to give the downloaded file
+	 * @param mediaTypes
+	 *            the media types to accept
+	 * @param digest
+	 *            the {@link MessageDigest} to update with the file's contents,
+	 *            or null
+	 * @return the downloaded file, in a new temporary directory
+	 */
+	public Path download(String uri, String fileName, List<MediaType> mediaTypes, MessageDigest digest) {
+		removeAbandonedDownloads();
+
+		String key = Hashing.sha256()
+				.hashString(uri, StandardCharsets.UTF_8)
+				.toString();
+		Path downloadDirectory = partialDirectory.resolve(key);
+
+		Lock lock = PARTIAL_LOCKS.get(key);
+		lock.lock();
+		try {
+			Files.createDirectories(downloadDirectory);
+			// the partial file is kept when the download gives up so the next synchronization can resume it
+			return downloadWithRetries(uri, fileName, mediaTypes, digest, downloadDirectory);
+		} catch (IOException e) {
+			throw new ResourceAccessException("Could not create partial download directory for [" + uri + "]", e);
+		} finally {
+			removeIfEmpty(downloadDirectory);
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Download a file into a partial download directory, retrying failed
+	 * attempts.
+	 *
+	 * @param uri
+	 *            the URI of the file
+	 * @param fileName
+	 *            the name to give the downloaded file
+	 * @param mediaTypes
+	 *            the media types to accept
+	 * @param digest
+	 *            the {@link MessageDigest} to update with the file's contents,
+	 *            or null
+	 * @param downloadDirectory
+	 *            the directory to keep the partial file in
+	 * @return the downloaded file, in a new temporary directory
+	 */
+	private Path downloadWithRetries(String uri, String fileName, List<MediaType> mediaTypes,
+			MessageDigest digest, Path downloadDirectory) {
+		Path partialFile = downloadDirectory.resolve(PARTIAL_FILE);
+		Path validatorFile = downloadDirectory.resolve(VALIDATOR_FILE);
+
+		ResourceAccessException lastError = null;
+		for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+			try {
+				HttpHeaders requestHeaders = new HttpHeaders();
+				requestHeaders.setAccept(mediaTypes);
+
+				long partialSize = Files.exists(partialFile) ? Files.size(partialFile) : 0;
+				if (partialSize > 0 && Files.exists(validatorFile)) {
+					logger.debug("Resuming download of [" + uri + "] at byte " + partialSize);
+					requestHeaders.set(HttpHeaders.RANGE, "bytes=" + partialSize + "-");
+					requestHeaders.set(HttpHeaders.IF_RANGE, new String(Files.readAllBytes(validatorFile),
+							StandardCharsets.UTF_8));
+				}
+
+				restTemplate.execute(uri, HttpMethod.GET, request -> request.getHeaders()
+						.putAll(requestHeaders), response -> {
+					writeResponse(response, partialFile, validatorFile, mediaTypes, digest);
+					return null;
+				});
+
+				Path tempDirectory = stagingDirectory.createTempDirectory(null);
+				Path downloaded = Files.move(partialFile, tempDirectory.resolve(fileName));
+
+				Files.deleteIfExists(validatorFile);
+
+				return downloaded;
+			} catch (HttpClientErrorException e) {
+				if (e.getStatusCode() != HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE) {
+					throw e;
+				}
+
+				// the partial file doesn't match the remote file, start again right away
+				logger.debug("Remote file [" + uri + "] doesn't match the partial download, starting over");
+				deletePartial(partialFile, validatorFile);
+				lastError = new ResourceAccessException("Range not satisfiable for [" + uri + "]");
+				continue;
+			} catch (ResourceAccessException e) {
+				logger.warn("Attempt " + attempt + " to download [" + uri + "] failed: " + e.getMessage());
+				lastError = e;
+			} catch (IOException e) {
+				throw new ResourceAccessException("Could not write partial download of [" + uri + "]", e);
+			}
+
+			if (attempt < maxAttempts) {
+				waitToRetry(attempt);
+			}
+		}
+
+		throw new ResourceAccessException(
+				"Could not download [" + uri + "] after " + maxAttempts + " attempts: " + lastError.getMessage(),
+				lastError.getCause() instanceof IOException ? (IOException) lastError.getCause() : null);
+	}
+
+	/**
+	 * Write the body of a response to the partial file, appending to it if
+	 * the response is for the remaining range of the file.
+	 *
+	 * @param response
+	 *            the {@link ClientHttpResponse} containing the file
+	 * @param partialFile
+	 *            the file being downloaded
+	 * @param validatorFile
+	 *            the file storing the remote file's validator
+	 * @param mediaTypes
+	 *            the media types that were requested
+	 * @param digest
+	 *            the {@link MessageDigest} to update with the file's contents,
+	 *            or null
+	 * @throws IOException
+	 *             if the response couldn't be read or the file is incomplete
+	 */
+	private void writeResponse(ClientHttpResponse response, Path partialFile, Path validatorFile,
+			List<MediaType> mediaTypes, MessageDigest digest) throws IOException {
+		HttpHeaders headers = response.getHeaders();
+
+		MediaType contentType = headers.getContentType();
+		if (contentType != null && mediaTypes.stream()
+				.noneMatch(t -> t.includes(contentType))) {
+			throw new RestClientException("Unexpected content type [" + contentType + "] for a file download");
+		}
+
+		boolean append;
+		long expectedSize;
+		if (response.getStatusCode() == HttpStatus.PARTIAL_CONTENT) {
+			Matcher range = CONTENT_RANGE.matcher(String.valueOf(headers.getFirst(HttpHeaders.CONTENT_RANGE)));
+			long partialSize = Files.size(partialFile);
+			if (!range.matches() || Long.parseLong(range.group(1)) != partialSize) {
+				// don't resume from a partial file the server disagrees with again
+				deletePartial(partialFile, validatorFile);
+				throw new IOException("Unexpected range [" + headers.getFirst(HttpHeaders.CONTENT_RANGE)
+						+ "] when resuming from byte " + partialSize);
+			}
+
+			append = true;
+			expectedSize = range.group(3)
+					.equals("*") ? -1 : Long.parseLong(range.group(3));
+		} else {
+			// the whole file was sent, replace anything we had
+			append = false;
+			expectedSize = headers.getContentLength();
+
+			String validator = getValidator(headers);
+			if (validator != null) {
+				Files.write(validatorFile, validator.getBytes(StandardCharsets.UTF_8));
+			} else {
+				Files.deleteIfExists(validatorFile);
+			}
+		}
+
+		if (digest != null) {
+			digest.reset();
+			if (append) {
+				try (InputStream partialStream = new DigestInputStream(Files.newInputStream(partialFile), digest)) {
+					IOUtils.copyLarge(partialStream, NullOutputStream.NULL_OUTPUT_STREAM);
+				}
+			}
+		}
+
+		OutputStream fileStream = Files.newOutputStream(partialFile, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+		if (digest != null) {
+			fileStream = new DigestOutputStream(fileStream, digest);
+		}
+
+		try (InputStream inputStream = response.getBody(); OutputStream outputStream = fileStream) {
+			IOUtils.copyLarge(inputStream, outputStream);
+		}
+
+		long fileSize = Files.size(partialFile);
+		if (expectedSize >= 0 && fileSize != expectedSize) {
+			throw new IOException(
+					"Error when writing remote file to path [" + partialFile + "], expectedSize [" + expectedSize
+							+ "] != actual size [" + fileSize + "]");
+		}
+	}
+
+	/**
+	 * Get the validator to send in an <code>If-Range</code> header when
+	 * resuming a file. Weak <code>ETag</code>s can't be used for ranges, so
+	 * the <code>Last-Modified</code> date is used instead.
+	 *
+	 * @param headers
+	 *            the headers of the response containing the whole file
+	 * @return the validator, or null if the response doesn't have one
+	 */
+	private static String getValidator(HttpHeaders headers) {
+		String eTag = headers.getETag();
+		if (eTag != null && !eTag.startsWith("W/")) {
+			return eTag;
+		}
+		return headers.getFirst(HttpHeaders.LAST_MODIFIED);
+	}
+
+	/**
+	 * Remove a partial download so the next attempt starts from the
+	 * beginning.
+	 *
+	 * @param partialFile
+	 *            the partially downloaded file
+	 * @param validatorFile
+	 *            the file storing the remote file's validator
+	 */
+	private void deletePartial(Path partialFile, Path validatorFile) {
+		try {
+			Files.deleteIfExists(partialFile);
+			Files.deleteIfExists(validatorFile);
+		} catch (IOException e) {
+			throw new ResourceAccessException("Could not remove partial download [" + partialFile + "]", e);
+		}
+	}
+
+	/**
+	 * Remove a partial download directory if nothing was downloaded into it.
+	 *
+	 * @param downloadDirectory
+	 *            the partial download directory
+	 */
+	private void removeIfEmpty(Path downloadDirectory) {
+		try {
+			Files.deleteIfExists(downloadDirectory);
+		} catch (DirectoryNotEmptyException e) {
+			logger.trace("Keeping partial download [" + downloadDirectory + "]");
+		} catch (IOException e) {
+			logger.warn("Could not remove partial download directory [" + downloadDirectory + "]", e);
+		}
+	}
+
+	/**
+	 * Remove a partial download directory and anything left in it.
+	 *
+	 * @param downloadDirectory
+	 *            the partial download directory
+	 */
+	private void deleteDownloadDirectory(Path downloadDirectory) {
+		try {
+			FileUtils.deleteDirectory(downloadDirectory.toFile());
+		} catch (IOException e) {
+			logger.warn("Could not remove partial download directory [" + downloadDirectory + "]", e);
+		}
+	}
+
+	/**
+	 * Remove partial download directories which haven't changed for a day.
+	 * They were left behind by downloads that were never finished, ie.
+	 * because the remote file was removed.
+	 */
+	private void removeAbandonedDownloads() {
+		if (!Files.isDirectory(partialDirectory)) {
+			return;
+		}
+
+		long abandonedBefore = System.currentTimeMillis() - ABANDONED_DOWNLOAD_MILLIS;
+		try (DirectoryStream<Path> downloadDirectories = Files.newDirectoryStream(partialDirectory)) {
+			for (Path downloadDirectory : downloadDirectories) {
+				// skip partial downloads that are being resumed right now
+				Lock lock = PARTIAL_LOCKS.get(downloadDirectory.getFileName()
+						.toString());
+				if (!lock.tryLock()) {
+					continue;
+				}
+				try {
+					if (getLastModified(downloadDirectory) < abandonedBefore) {
+						logger.debug("Removing abandoned partial download [" + downloadDirectory + "]");
+						deleteDownloadDirectory(downloadDirectory);
+					}
+				} finally {
+					lock.unlock();
+				}
+			}
+		} catch (IOException e) {
+			logger.warn("Could not check for abandoned partial downloads in [" + partialDirectory + "]", e);
+		}
+	}
+
+	/**
+	 * Get the time a partial download directory or any of the files in it
+	 * last changed.
+	 *
+	 * @param downloadDirectory
+	 *            the partial download directory
+	 * @return the last modified time in milliseconds
+	 * @throws IOException
+	 *             if the directory couldn't be read
+	 */
+	private long getLastModified(Path downloadDirectory) throws IOException {
+		long lastModified = Files.getLastModifiedTime(downloadDirectory)
+				.toMillis();
+		if (Files.isDirectory(downloadDirectory)) {
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(downloadDirectory)) {
+				for (Path file : files) {
+					lastModified = Math.max(lastModified, Files.getLastModifiedTime(file)
+							.toMillis());
+				}
+			}
+		}
+		return lastModified;
+	}
+
+	/**
+	 * Wait before the next attempt to download a file.
+	 *
+	 * @param attempt
+	 *            the attempt that just failed
+	 */
+	private void waitToRetry(int attempt) {
+		try {
+			Thread.sleep(retryDelay << (attempt - 1));
+		} catch (InterruptedException e) {
+			Thread.currentThread()
+					.interrupt();
+			throw new ResourceAccessException("Interrupted while waiting to retry a download");
+		}
+	}
+}
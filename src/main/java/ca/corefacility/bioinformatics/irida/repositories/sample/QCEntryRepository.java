@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.repositories.sample;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.Query;
@@ -23,4 +24,16 @@ public interface QCEntryRepository extends IridaJpaRepository<QCEntry, Long> {
 	 */
 	@Query("FROM QCEntry e WHERE e.sequencingObject.sample.sample = ?1")
 	public List<QCEntry> getQCEntriesForSample(Sample sample);
-}
\ No newline at end of file
+
+	/**
+	 * Find all the {@link QCEntry} associated with {@link SequencingObject}s
+	 * in any of the given {@link Sample}s, along with the identifier of the
+	 * {@link Sample} each entry belongs to.
+	 *
+	 * @param samples
+	 *            the {@link Sample}s to get {@link QCEntry} for
+	 * @return a list of pairs of {@link Sample} identifier and {@link QCEntry}
+	 */
+	@Query("SELECT j.sample.id, e FROM QCEntry e, SampleSequencingObjectJoin j WHERE j.sequencingObject = e.sequencingObject AND j.sample IN ?1")
+	public List<Object[]> getQCEntriesForSamples(Collection<Sample> samples);
+}
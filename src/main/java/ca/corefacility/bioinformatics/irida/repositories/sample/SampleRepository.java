@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.repositories.sample;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -34,6 +35,19 @@ public interface SampleRepository extends IridaJpaRepository<Sample, Long>, Samp
 	@Query("select j.sample from ProjectSampleJoin j where j.project = ?1 and j.sample.sampleName = ?2")
 	public Sample getSampleBySampleName(Project p, String sampleName) throws EntityNotFoundException;
 
+	/**
+	 * Get the {@link Sample}s in a specific project with any of the given
+	 * sample names.
+	 *
+	 * @param p
+	 *            The {@link Project} that the {@link Sample}s belong to.
+	 * @param sampleNames
+	 *            The sample names to look for
+	 * @return The {@link Sample}s in the project with one of the names
+	 */
+	@Query("select j.sample from ProjectSampleJoin j where j.project = ?1 and j.sample.sampleName in ?2")
+	public List<Sample> getSamplesBySampleNames(Project p, Collection<String> sampleNames);
+
 	/**
 	 * Get a {@link Page} of {@link Sample}s based on a list of {@link Sample}
 	 * names
@@ -3,7 +3,10 @@ package ca.corefacility.bioinformatics.irida.repositories.sample;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Custom methods for getting {@link Sample}s.  This can be used to create custom, higher speed methods for specific
@@ -18,4 +21,33 @@ public interface SampleRepositoryCustom {
 	 * @return a list of {@link Sample}
 	 */
 	public List<Sample> getSamplesForProjectShallow(Project project);
+
+	/**
+	 * Get the {@link Sample}s for a {@link Project} that have changed since the given date, without extending into
+	 * related objects.  A sample has changed if it was added to the project, was modified, or had a sequencing object
+	 * or assembly added to it after the date.
+	 *
+	 * @param project      the {@link Project} to get samples for
+	 * @param changedSince the date to get changes after
+	 * @return a list of {@link Sample}
+	 */
+	public List<Sample> getSamplesForProjectChangedSince(Project project, Date changedSince);
+
+	/**
+	 * Get the stored total number of bases in the sequence files of each of the given {@link Sample}s, as counted by
+	 * FastQC.  This is read with a single query rather than by loading each sequence file's FastQC analysis.
+	 *
+	 * @param sampleIds the identifiers of the {@link Sample}s to get the bases for
+	 * @return a map of {@link Sample} identifier to total number of bases.  Samples without any sequence files have a
+	 * total of 0.  Samples where any sequence file is missing a FastQC analysis are not included.
+	 */
+	public Map<Long, Long> getTotalBasesForSamples(Collection<Long> sampleIds);
+
+	/**
+	 * Recalculate the stored total number of bases of each of the given {@link Sample}s from the totals of their
+	 * sequencing objects.  This must be called whenever sequencing objects are added to or removed from a sample.
+	 *
+	 * @param sampleIds the identifiers of the {@link Sample}s to update
+	 */
+	public void updateTotalBases(Collection<Long> sampleIds);
 }
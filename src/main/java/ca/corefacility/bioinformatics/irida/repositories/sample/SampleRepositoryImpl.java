@@ -6,22 +6,57 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import javax.sql.DataSource;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Impl of custom methods for {@link SampleRepository}.  This class can be used for speed improvements for sample
  * listing methods.
  */
 public class SampleRepositoryImpl implements SampleRepositoryCustom {
+	private static final String SHALLOW_SAMPLE_QUERY = "select s.id, s.createdDate, s.modifiedDate, s.description, s.sampleName, s.collectedBy, s.geographicLocationName, s.isolate, s.isolationSource, s.latitude, s.longitude, s.organism, s.strain, s.collectionDate, null as remote_status FROM sample s INNER JOIN project_sample p ON p.sample_id=s.id";
+
+	private static final RowMapper<Sample> SHALLOW_SAMPLE_MAPPER = new RowMapper<Sample>() {
+
+		@Override
+		public Sample mapRow(ResultSet rs, int rowNum) throws SQLException {
+			Sample s = new Sample();
+
+			s.setId(rs.getLong("s.id"));
+			s.setCreatedDate(rs.getTimestamp("s.createdDate"));
+			s.setModifiedDate(rs.getTimestamp("s.modifiedDate"));
+			s.setDescription(rs.getString("s.description"));
+			s.setSampleName(rs.getString("s.sampleName"));
+			s.setCollectedBy(rs.getString("s.collectedBy"));
+			s.setGeographicLocationName(rs.getString("s.geographicLocationName"));
+			s.setIsolate(rs.getString("s.isolate"));
+			s.setIsolationSource(rs.getString("s.isolationSource"));
+			s.setLatitude(rs.getString("s.latitude"));
+			s.setLongitude(rs.getString("s.longitude"));
+			s.setOrganism(rs.getString("s.organism"));
+			s.setStrain(rs.getString("s.strain"));
+			s.setCollectionDate(rs.getDate("s.collectionDate"));
+
+			return s;
+		}
+	};
+
 	private final DataSource dataSource;
+	private final EntityManager entityManager;
 
 	@Autowired
-	public SampleRepositoryImpl(DataSource dataSource) {
+	public SampleRepositoryImpl(DataSource dataSource, EntityManager entityManager) {
 		this.dataSource = dataSource;
+		this.entityManager = entityManager;
 	}
 
 	/**
@@ -32,35 +67,71 @@ public class SampleRepositoryImpl implements SampleRepositoryCustom {
 		MapSqlParameterSource parameters = new MapSqlParameterSource();
 
 		//query to read samples for a project
-		String queryString = "select s.id, s.createdDate, s.modifiedDate, s.description, s.sampleName, s.collectedBy, s.geographicLocationName, s.isolate, s.isolationSource, s.latitude, s.longitude, s.organism, s.strain, s.collectionDate, null as remote_status FROM sample s INNER JOIN project_sample p ON p.sample_id=s.id WHERE p.project_id=:project";
+		String queryString = SHALLOW_SAMPLE_QUERY + " WHERE p.project_id=:project";
 
 		parameters.addValue("project", project.getId());
 
-		List<Sample> results = tmpl.query(queryString, parameters, new RowMapper<Sample>() {
-
-			@Override
-			public Sample mapRow(ResultSet rs, int rowNum) throws SQLException {
-				Sample s = new Sample();
-
-				s.setId(rs.getLong("s.id"));
-				s.setCreatedDate(rs.getTimestamp("s.createdDate"));
-				s.setModifiedDate(rs.getTimestamp("s.modifiedDate"));
-				s.setDescription(rs.getString("s.description"));
-				s.setSampleName(rs.getString("s.sampleName"));
-				s.setCollectedBy(rs.getString("s.collectedBy"));
-				s.setGeographicLocationName(rs.getString("s.geographicLocationName"));
-				s.setIsolate(rs.getString("s.isolate"));
-				s.setIsolationSource(rs.getString("s.isolationSource"));
-				s.setLatitude(rs.getString("s.latitude"));
-				s.setLongitude(rs.getString("s.longitude"));
-				s.setOrganism(rs.getString("s.organism"));
-				s.setStrain(rs.getString("s.strain"));
-				s.setCollectionDate(rs.getDate("s.collectionDate"));
-
-				return s;
-			}
+		return tmpl.query(queryString, parameters, SHALLOW_SAMPLE_MAPPER);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public List<Sample> getSamplesForProjectChangedSince(Project project, Date changedSince) {
+		NamedParameterJdbcTemplate tmpl = new NamedParameterJdbcTemplate(dataSource);
+		MapSqlParameterSource parameters = new MapSqlParameterSource();
+
+		// samples added to the project, modified, or with new files or assemblies since the date
+		String queryString = SHALLOW_SAMPLE_QUERY + " WHERE p.project_id=:project AND (p.createdDate > :since OR s.modifiedDate > :since"
+				+ " OR EXISTS (SELECT ss.id FROM sample_sequencingobject ss WHERE ss.sample_id=s.id AND ss.created_date > :since)"
+				+ " OR EXISTS (SELECT sa.id FROM sample_genome_assembly sa WHERE sa.sample_id=s.id AND sa.createdDate > :since))";
+
+		parameters.addValue("project", project.getId());
+		parameters.addValue("since", changedSince);
+
+		return tmpl.query(queryString, parameters, SHALLOW_SAMPLE_MAPPER);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Map<Long, Long> getTotalBasesForSamples(Collection<Long> sampleIds) {
+		Map<Long, Long> totalBases = new HashMap<>();
+		if (sampleIds.isEmpty()) {
+			return totalBases;
+		}
+
+		NamedParameterJdbcTemplate tmpl = new NamedParameterJdbcTemplate(dataSource);
+		MapSqlParameterSource parameters = new MapSqlParameterSource();
+
+		// the stored totals are null for samples where a file is missing FastQC results
+		String queryString = "SELECT s.id, s.total_bases FROM sample s WHERE s.id IN (:samples) AND s.total_bases IS NOT NULL";
+
+		parameters.addValue("samples", sampleIds);
+
+		tmpl.query(queryString, parameters, rs -> {
+			totalBases.put(rs.getLong("s.id"), rs.getLong("s.total_bases"));
 		});
 
-		return results;
+		return totalBases;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Transactional
+	public void updateTotalBases(Collection<Long> sampleIds) {
+		if (sampleIds.isEmpty()) {
+			return;
+		}
+
+		// run through the entity manager so sample joins saved earlier in the transaction are flushed first
+		String queryString = "UPDATE sample SET total_bases=(SELECT CASE WHEN COUNT(ss.id)=COUNT(so.total_bases) THEN COALESCE(SUM(so.total_bases), 0) END "
+				+ "FROM sample_sequencingobject ss INNER JOIN sequencing_object so ON so.id=ss.sequencingobject_id WHERE ss.sample_id=sample.id) "
+				+ "WHERE id IN (:samples)";
+
+		entityManager.createNativeQuery(queryString)
+				.setParameter("samples", sampleIds)
+				.executeUpdate();
 	}
 }
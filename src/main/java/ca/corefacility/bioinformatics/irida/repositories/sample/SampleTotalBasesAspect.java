@@ -0,0 +1,94 @@
+package ca.corefacility.bioinformatics.irida.repositories.sample;
+
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
+import ca.corefacility.bioinformatics.irida.repositories.joins.sample.SampleSequencingObjectJoinRepository;
+
+/**
+ * Aspect updating the stored total bases of a {@link Sample} when sequencing
+ * objects are added to or removed from it through the
+ * {@link ca.corefacility.bioinformatics.irida.repositories.joins.sample.SampleSequencingObjectJoinRepository}.
+ * This covers creating objects in a sample, removing them, merging samples and
+ * concatenating files. Joins deleted by identifier are looked up before the
+ * delete so their samples are known.
+ */
+@Aspect
+public class SampleTotalBasesAspect {
+	private static final Logger logger = LoggerFactory.getLogger(SampleTotalBasesAspect.class);
+
+	private final SampleRepository sampleRepository;
+
+	public SampleTotalBasesAspect(final SampleRepository sampleRepository) {
+		this.sampleRepository = sampleRepository;
+	}
+
+	/**
+	 * Update the totals of the samples affected by a save or delete of a
+	 * {@link SampleSequencingObjectJoin}.
+	 *
+	 * @param jp         the join point describing the repository method called
+	 * @param repository the repository the joins are written to
+	 * @return the result of the repository method
+	 * @throws Throwable if the repository method throws
+	 */
+	@Around("(execution(* save*(..)) || execution(* delete*(..))) && target(repository)")
+	public Object updateSampleTotalBases(ProceedingJoinPoint jp, SampleSequencingObjectJoinRepository repository)
+			throws Throwable {
+		// collect the samples before proceeding, joins deleted by id can't be read afterwards
+		Set<Long> sampleIds = new HashSet<>();
+		Object[] args = jp.getArgs();
+		if (args.length == 0 && jp.getSignature().getName().startsWith("delete")) {
+			// deleteAll() removes every join
+			collectSampleIds(repository.findAll(), sampleIds, repository);
+		}
+		for (Object arg : args) {
+			collectSampleIds(arg, sampleIds, repository);
+		}
+
+		Object result = jp.proceed();
+
+		if (!sampleIds.isEmpty()) {
+			logger.trace("Updating total bases of samples " + sampleIds + " after " + jp.toString());
+			sampleRepository.updateTotalBases(sampleIds);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Collect the identifiers of the samples in the object written to the
+	 * repository.
+	 *
+	 * @param written    the object passed to the repository
+	 * @param sampleIds  the set to add the sample identifiers to
+	 * @param repository the repository to look up joins passed by identifier
+	 */
+	private void collectSampleIds(Object written, Set<Long> sampleIds,
+			SampleSequencingObjectJoinRepository repository) {
+		if (written instanceof SampleSequencingObjectJoin) {
+			Sample sample = ((SampleSequencingObjectJoin) written).getSubject();
+			if (sample != null && sample.getId() != null) {
+				sampleIds.add(sample.getId());
+			}
+		} else if (written instanceof Iterable<?>) {
+			for (Object o : (Iterable<?>) written) {
+				collectSampleIds(o, sampleIds, repository);
+			}
+		} else if (written instanceof Long) {
+			Optional<SampleSequencingObjectJoin> join = repository.findById((Long) written);
+			join.ifPresent(j -> collectSampleIds(j, sampleIds, repository));
+		} else if (written != null) {
+			logger.debug("Can't update sample total bases for " + written);
+		}
+	}
+}
@@ -11,6 +11,7 @@ import org.springframework.stereotype.Repository;
 
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.repositories.filesystem.FilesystemSupplementedRepositoryImpl;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.StagingDirectory;
 
 /**
  * Custom implementation of {@link FilesystemSupplementedRepositoryImpl} for
@@ -23,8 +24,9 @@ public class SequenceFileRepositoryImpl extends FilesystemSupplementedRepository
 
 	@Autowired
 	public SequenceFileRepositoryImpl(EntityManager entityManager,
-			@Qualifier("sequenceFileBaseDirectory") Path baseDirectory) {
-		super(entityManager, baseDirectory);
+			@Qualifier("sequenceFileBaseDirectory") Path baseDirectory,
+			@Qualifier("sequenceFileStagingDirectory") StagingDirectory stagingDirectory) {
+		super(entityManager, baseDirectory, stagingDirectory);
 	}
 
 	/**
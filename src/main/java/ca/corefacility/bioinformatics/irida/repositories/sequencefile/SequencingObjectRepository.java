@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.repositories.sequencefile;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -15,7 +16,8 @@ import org.springframework.transaction.annotation.Transactional;
 /**
  * Repository for storing and retrieving {@link SequencingObject}s
  */
-public interface SequencingObjectRepository extends IridaJpaRepository<SequencingObject, Long> {
+public interface SequencingObjectRepository
+		extends IridaJpaRepository<SequencingObject, Long>, SequencingObjectRepositoryCustom {
 
 	/**
 	 * Get the {@link SequencingObject}s for a given {@link SequencingRun}
@@ -36,6 +38,17 @@ public interface SequencingObjectRepository extends IridaJpaRepository<Sequencin
 	@Query("select f from SequencingObject f where ?1 IN elements(f.analysisSubmissions)")
 	public Set<SequencingObject> findSequencingObjectsForAnalysisSubmission(AnalysisSubmission analysisSubmission);
 
+	/**
+	 * Get the {@link SequencingObject}s which have one of the given {@link AnalysisSubmission}s as their automated
+	 * assembly or SISTR typing
+	 *
+	 * @param analysisSubmissions the {@link AnalysisSubmission}s
+	 * @return the set of {@link SequencingObject}s with the submissions as automated analyses
+	 */
+	@Query("select f from SequencingObject f where f.automatedAssembly IN ?1 OR f.sistrTyping IN ?1")
+	public Set<SequencingObject> findSequencingObjectsForAutomatedAnalysisSubmissions(
+			Collection<AnalysisSubmission> analysisSubmissions);
+
 	/**
 	 * Get all {@link SequencingObject}s with the given {@link ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject.ProcessingState}
 	 *
@@ -63,9 +76,10 @@ public interface SequencingObjectRepository extends IridaJpaRepository<Sequencin
 	 * @param objectId        ID of the sequencing object
 	 * @param processor       File processor id string to set
 	 * @param processingState processing state to set
+	 * @return the number of objects marked (0 if another processor already marked the object)
 	 */
 	@Transactional
 	@Modifying(clearAutomatically = true)
 	@Query("UPDATE SequencingObject f SET f.processingState = ?3, f.fileProcessor = ?2 WHERE f.id = ?1 AND f.fileProcessor is NULL")
-	public void markFileProcessor(Long objectId, String processor, SequencingObject.ProcessingState processingState);
+	public int markFileProcessor(Long objectId, String processor, SequencingObject.ProcessingState processingState);
 }
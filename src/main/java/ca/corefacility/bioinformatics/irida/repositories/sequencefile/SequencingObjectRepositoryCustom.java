@@ -0,0 +1,32 @@
+package ca.corefacility.bioinformatics.irida.repositories.sequencefile;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+
+/**
+ * Custom repository methods for {@link SequencingObject}s
+ */
+public interface SequencingObjectRepositoryCustom {
+
+	/**
+	 * Atomically claim up to the given number of the oldest
+	 * {@link ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject.ProcessingState#UNPROCESSED}
+	 * {@link SequencingObject}s for a file processor. Claimed objects are set to
+	 * {@link ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject.ProcessingState#QUEUED} with the
+	 * given processor string. Objects already claimed by another processor are passed over rather than fought over,
+	 * and on databases that support SKIP LOCKED so are objects another processor is in the middle of claiming.
+	 *
+	 * @param processor File processor id string to set
+	 * @param limit     the maximum number of objects to claim
+	 * @return the number of objects claimed
+	 */
+	public int claimUnprocessedSequencingObjects(String processor, int limit);
+
+	/**
+	 * Recalculate the stored total number of bases of a {@link SequencingObject} from the FastQC results of its files,
+	 * then the stored total of the {@link ca.corefacility.bioinformatics.irida.model.sample.Sample} it belongs to. The
+	 * object's total is null until every file has FastQC results.
+	 *
+	 * @param sequencingObjectId the identifier of the {@link SequencingObject} to update
+	 */
+	public void updateTotalBases(Long sequencingObjectId);
+}
@@ -0,0 +1,148 @@
+package ca.corefacility.bioinformatics.irida.repositories.sequencefile;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject.ProcessingState;
+
+/**
+ * Impl of custom methods for {@link SequencingObjectRepository}.
+ */
+public class SequencingObjectRepositoryImpl implements SequencingObjectRepositoryCustom {
+	private static final Logger logger = LoggerFactory.getLogger(SequencingObjectRepositoryImpl.class);
+
+	private static final Pattern VERSION_PATTERN = Pattern.compile("(\\d+)\\.(\\d+)\\.(\\d+)");
+
+	private final DataSource dataSource;
+	private final EntityManager entityManager;
+
+	private volatile Boolean skipLockedSupported;
+
+	@Autowired
+	public SequencingObjectRepositoryImpl(DataSource dataSource, EntityManager entityManager) {
+		this.dataSource = dataSource;
+		this.entityManager = entityManager;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	public int claimUnprocessedSequencingObjects(String processor, int limit) {
+		if (limit <= 0) {
+			return 0;
+		}
+
+		NamedParameterJdbcTemplate tmpl = new NamedParameterJdbcTemplate(dataSource);
+		MapSqlParameterSource parameters = new MapSqlParameterSource();
+
+		parameters.addValue("queued", ProcessingState.QUEUED.toString());
+		parameters.addValue("unprocessed", ProcessingState.UNPROCESSED.toString());
+		parameters.addValue("processor", processor);
+		parameters.addValue("limit", limit);
+
+		/*
+		 * Pick the ids to claim first, then claim only those rows.  Where the database supports it the rows are locked
+		 * with SKIP LOCKED, so rows another processor is claiming are passed over instead of waited on.  Otherwise the
+		 * ids are read without locking and the update re-checks file_processor, so rows another processor got to first
+		 * aren't claimed twice.
+		 */
+		String selectString = "SELECT id FROM sequencing_object WHERE processing_state=:unprocessed AND file_processor IS NULL ORDER BY id LIMIT :limit";
+		if (isSkipLockedSupported(tmpl)) {
+			selectString += " FOR UPDATE SKIP LOCKED";
+		}
+
+		List<Long> ids = tmpl.queryForList(selectString, parameters, Long.class);
+		if (ids.isEmpty()) {
+			return 0;
+		}
+
+		parameters.addValue("ids", ids);
+		String updateString = "UPDATE sequencing_object SET processing_state=:queued, file_processor=:processor WHERE id IN (:ids) AND processing_state=:unprocessed AND file_processor IS NULL";
+
+		return tmpl.update(updateString, parameters);
+	}
+
+	/**
+	 * Check whether the database supports SELECT ... FOR UPDATE SKIP LOCKED.  The answer is only looked up once.
+	 *
+	 * @param tmpl template to query the database with
+	 * @return true if SKIP LOCKED can be used
+	 */
+	private boolean isSkipLockedSupported(NamedParameterJdbcTemplate tmpl) {
+		if (skipLockedSupported == null) {
+			String version = tmpl.getJdbcTemplate().queryForObject("SELECT VERSION()", String.class);
+			skipLockedSupported = supportsSkipLocked(version);
+			logger.debug("Database version " + version + " supports SKIP LOCKED: " + skipLockedSupported);
+		}
+		return skipLockedSupported;
+	}
+
+	/**
+	 * Check whether a MySQL or MariaDB server version supports SKIP LOCKED.  MySQL added it in 8.0.1 and MariaDB in
+	 * 10.6.
+	 *
+	 * @param version the version string reported by the server
+	 * @return true if the version supports SKIP LOCKED
+	 */
+	static boolean supportsSkipLocked(String version) {
+		if (version == null) {
+			return false;
+		}
+
+		Matcher matcher = VERSION_PATTERN.matcher(version);
+		if (!matcher.lookingAt()) {
+			return false;
+		}
+
+		int major = Integer.parseInt(matcher.group(1));
+		int minor = Integer.parseInt(matcher.group(2));
+		int patch = Integer.parseInt(matcher.group(3));
+
+		if (version.contains("MariaDB")) {
+			return major > 10 || (major == 10 && minor >= 6);
+		}
+		return major > 8 || (major == 8 && (minor > 0 || patch >= 1));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	public void updateTotalBases(Long sequencingObjectId) {
+		/*
+		 * These run through the entity manager rather than a JdbcTemplate so that FastQC results and sample joins
+		 * saved earlier in the transaction are flushed before they're counted.  The files of both single end and
+		 * paired objects are included.
+		 */
+		String objectQuery = "UPDATE sequencing_object SET total_bases=(SELECT CASE WHEN COUNT(f.id)=COUNT(a.totalBases) THEN SUM(a.totalBases) END "
+				+ "FROM (SELECT se.id AS object_id, se.file_id AS file_id FROM sequence_file_single_end se "
+				+ "UNION ALL SELECT sp.pair_id AS object_id, sp.files_id AS file_id FROM sequence_file_pair_files sp) o "
+				+ "INNER JOIN sequence_file f ON f.id=o.file_id LEFT JOIN analysis_fastqc a ON a.id=f.fastqc_analysis_id "
+				+ "WHERE o.object_id=sequencing_object.id) WHERE id=:object";
+
+		String sampleQuery = "UPDATE sample SET total_bases=(SELECT CASE WHEN COUNT(ss.id)=COUNT(so.total_bases) THEN COALESCE(SUM(so.total_bases), 0) END "
+				+ "FROM sample_sequencingobject ss INNER JOIN sequencing_object so ON so.id=ss.sequencingobject_id WHERE ss.sample_id=sample.id) "
+				+ "WHERE id IN (SELECT j.sample_id FROM sample_sequencingobject j WHERE j.sequencingobject_id=:object)";
+
+		entityManager.createNativeQuery(objectQuery)
+				.setParameter("object", sequencingObjectId)
+				.executeUpdate();
+		entityManager.createNativeQuery(sampleQuery)
+				.setParameter("object", sequencingObjectId)
+				.executeUpdate();
+	}
+}
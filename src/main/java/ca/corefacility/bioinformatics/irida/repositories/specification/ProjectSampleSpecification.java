@@ -7,6 +7,7 @@ import java.util.List;
 import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.Predicate;
 
+import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.jpa.domain.Specification;
 
 import com.google.common.base.Strings;
@@ -20,6 +21,11 @@ import ca.corefacility.bioinformatics.irida.model.sample.Sample;
  */
 public class ProjectSampleSpecification {
 
+	/**
+	 * Name of the sort property for ordering by the coverage of a {@link Sample} in its {@link Project}
+	 */
+	public static final String COVERAGE_SORT_PROPERTY = "coverage";
+
 	/**
 	 * Search a {@link Project} and it's associated {@link Project}s for {@link Sample}s based on filtering criteria.
 	 *
@@ -30,10 +36,13 @@ public class ProjectSampleSpecification {
 	 * @param organism    {@link String} organism to search for.
 	 * @param minDate     {@link Date} minimum date the sample was modified.
 	 * @param maxDate     {@link Date} maximum date the sample was modified.
+	 * @param minCoverage {@link Double} minimum coverage of the sample in its project.
+	 * @param maxCoverage {@link Double} maximum coverage of the sample in its project.
 	 * @return {@link Specification} of {@link ProjectSampleJoin} for criteria to search based on the filtered criteria.
 	 */
 	public static Specification<ProjectSampleJoin> getSamples(List<Project> projects, List<String> sampleNames,
-			String sampleName, String searchTerm, String organism, Date minDate, Date maxDate) {
+			String sampleName, String searchTerm, String organism, Date minDate, Date maxDate, Double minCoverage,
+			Double maxCoverage) {
 		return (root, criteriaQuery, criteriaBuilder) -> {
 			List<Predicate> predicates = new ArrayList<>();
 
@@ -71,6 +80,15 @@ public class ProjectSampleSpecification {
 				predicates.add(criteriaBuilder
 						.lessThanOrEqualTo(root.get("sample").get("modifiedDate"), maxDate));
 			}
+			// Check the coverage using the stored total bases, samples without a total or genome size don't match
+			if (minCoverage != null) {
+				predicates.add(criteriaBuilder.ge(root.get("sample").<Long>get("totalBases"),
+						criteriaBuilder.prod(root.get("project").<Long>get("genomeSize"), minCoverage)));
+			}
+			if (maxCoverage != null) {
+				predicates.add(criteriaBuilder.le(root.get("sample").<Long>get("totalBases"),
+						criteriaBuilder.prod(root.get("project").<Long>get("genomeSize"), maxCoverage)));
+			}
 			if (predicates.size() > 0) {
 				return criteriaBuilder.and(predicates.toArray(new Predicate[predicates.size()]));
 			} else {
@@ -78,4 +96,21 @@ public class ProjectSampleSpecification {
 			}
 		};
 	}
+
+	/**
+	 * Order {@link ProjectSampleJoin}s by the coverage of the {@link Sample} in its {@link Project}.  The ordering
+	 * can't be expressed as a {@link org.springframework.data.domain.Sort} so the query must be run unsorted.
+	 *
+	 * @param direction {@link Direction} to order the coverage in.
+	 * @return {@link Specification} of {@link ProjectSampleJoin} ordering by coverage.
+	 */
+	public static Specification<ProjectSampleJoin> orderByCoverage(Direction direction) {
+		return (root, criteriaQuery, criteriaBuilder) -> {
+			Expression<Number> coverage = criteriaBuilder.quot(root.get("sample").<Long>get("totalBases"),
+					root.get("project").<Long>get("genomeSize"));
+			criteriaQuery.orderBy(
+					direction.isAscending() ? criteriaBuilder.asc(coverage) : criteriaBuilder.desc(coverage));
+			return null;
+		};
+	}
 }
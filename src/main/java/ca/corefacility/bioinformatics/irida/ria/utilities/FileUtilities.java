@@ -3,12 +3,10 @@ package ca.corefacility.bioinformatics.irida.ria.utilities;
 import java.io.*;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
@@ -25,6 +23,8 @@ import ca.corefacility.bioinformatics.irida.ria.web.dto.ExcelCol;
 import ca.corefacility.bioinformatics.irida.ria.web.dto.ExcelData;
 import ca.corefacility.bioinformatics.irida.ria.web.dto.ExcelHeader;
 import ca.corefacility.bioinformatics.irida.ria.web.dto.ExcelRow;
+import ca.corefacility.bioinformatics.irida.util.LineOffsetIndex;
+import ca.corefacility.bioinformatics.irida.util.ZipStreamWriter;
 
 import com.monitorjbl.xlsx.StreamingReader;
 import com.monitorjbl.xlsx.impl.StreamingCell;
@@ -42,6 +42,7 @@ public class FileUtilities {
 	public static final String CONTENT_TYPE_TEXT = "text/plain";
 	public static final String EXTENSION_ZIP = ".zip";
 	private static final Pattern regexExt = Pattern.compile("^.*\\.(\\w+)$");
+	private static final ZipStreamWriter ZIP_STREAM_WRITER = new ZipStreamWriter();
 
 	/**
 	 * Utility method for download a zip file containing all output files from
@@ -70,9 +71,9 @@ public class FileUtilities {
 		// for zip file
 		response.setContentType(CONTENT_TYPE_APPLICATION_ZIP);
 
-		try (ServletOutputStream responseStream = response.getOutputStream();
-				ZipOutputStream outputStream = new ZipOutputStream(responseStream)) {
-
+		try (ServletOutputStream responseStream = response.getOutputStream()) {
+			List<ZipStreamWriter.Entry> entries = new ArrayList<>();
+			ObjectMapper objectMapper = new ObjectMapper();
 			for (AnalysisOutputFile file : files) {
 				if (!Files.exists(file.getFile())) {
 					response.setStatus(404);
@@ -82,27 +83,15 @@ public class FileUtilities {
 				StringBuilder zipEntryName = new StringBuilder(fileName);
 				zipEntryName.append("/").append(file.getLabel());
 
-				// 2) Tell the zip stream that we are starting a new entry in
-				// the archive.
-				outputStream.putNextEntry(new ZipEntry(zipEntryName.toString()));
-
-				// 3) COPY all of thy bytes from the file to the output stream.
-				Files.copy(file.getFile(), outputStream);
-
-				// 4) Close the current entry in the archive in preparation for
-				// the next entry.
-				outputStream.closeEntry();
-
-				ObjectMapper objectMapper = new ObjectMapper();
-				byte[] bytes = objectMapper.writeValueAsBytes(file);
-				outputStream.putNextEntry(new ZipEntry(zipEntryName.toString() + "-prov.json"));
-				outputStream.write(bytes);
-				outputStream.closeEntry();
+				// 2) Add the file and its provenance to the archive.
+				entries.add(ZipStreamWriter.Entry.ofFile(zipEntryName.toString(), file.getFile(), null));
+				entries.add(ZipStreamWriter.Entry.ofContent(zipEntryName.toString() + "-prov.json",
+						objectMapper.writeValueAsBytes(file)));
 			}
 
-			// Tell the output stream that you are finished downloading.
-			outputStream.finish();
-			outputStream.close();
+			// 3) Write all of the entries to the response. Already
+			// compressed files aren't compressed again.
+			ZIP_STREAM_WRITER.write(entries, responseStream, null);
 		} catch (IOException e) {
 			// this generally means that the user has cancelled the download
 			// from their web browser; we can safely ignore this
@@ -137,38 +126,18 @@ public class FileUtilities {
 		response.setHeader(CONTENT_DISPOSITION, ATTACHMENT_FILENAME + fileName + EXTENSION_ZIP);
 		response.setContentType(CONTENT_TYPE_APPLICATION_ZIP);
 
-		try (ServletOutputStream responseStream = response.getOutputStream();
-				ZipOutputStream outputStream = new ZipOutputStream(responseStream)) {
-			for (Map.Entry<ProjectSampleAnalysisOutputInfo, AnalysisOutputFile> entry : files.entrySet()) {
-				final AnalysisOutputFile file = entry.getValue();
-				final ProjectSampleAnalysisOutputInfo outputInfo = entry.getKey();
-				if (!Files.exists(file.getFile())) {
-					response.setStatus(404);
-					throw new FileNotFoundException("File '" + file.getFile().toFile().getAbsolutePath() + "' does not exist!");
-				}
-				// 1) Build a folder/file name
-				// building similar filename for each analysis output file as:
-				// resources/js/pages/projects/project-analysis-outputs.js#downloadSelected
-				String outputFilename = file.getFile()
-						.getFileName()
-						.toString();
-				// trying to pack as much useful info into the filename as possible!
-				outputFilename = outputInfo.getSampleName() + "-sampleId-" + outputInfo.getSampleId() + "-analysisSubmissionId-" + outputInfo.getAnalysisSubmissionId() + "-" + outputFilename;
-				// 2) Tell the zip stream that we are starting a new entry in
-				// the archive.
-				outputStream.putNextEntry(new ZipEntry(fileName + "/" + outputFilename));
-
-				// 3) COPY all of thy bytes from the file to the output stream.
-				Files.copy(file.getFile(), outputStream);
-
-				// 4) Close the current entry in the archive in preparation for
-				// the next entry.
-				outputStream.closeEntry();
+		try (ServletOutputStream responseStream = response.getOutputStream()) {
+			List<ZipStreamWriter.Entry> entries;
+			try {
+				entries = getBatchAnalysisOutputFileEntries(fileName, files);
+			} catch (FileNotFoundException e) {
+				response.setStatus(404);
+				throw e;
 			}
 
-			// Tell the output stream that you are finished downloading.
-			outputStream.finish();
-			outputStream.close();
+			// 3) Write all of the entries to the response. Already
+			// compressed files aren't compressed again.
+			ZIP_STREAM_WRITER.write(entries, responseStream, null);
 		} catch (IOException e) {
 			// this generally means that the user has cancelled the download
 			// from their web browser; we can safely ignore this
@@ -179,6 +148,46 @@ public class FileUtilities {
 		}
 	}
 
+	/**
+	 * Build the zip entries for a batch download of analysis output files. The
+	 * entries are placed in a folder with the formatted name of the download
+	 * and named with the sample and submission they came from.
+	 *
+	 * @param fileName
+	 *            Name of the download, which is formatted for use as the
+	 *            folder name
+	 * @param files
+	 *            Map of {@link ProjectSampleAnalysisOutputInfo} to the
+	 *            {@link AnalysisOutputFile} to download
+	 * @return the entries to write to the zip archive
+	 * @throws FileNotFoundException
+	 *             if one of the files doesn't exist
+	 */
+	public static List<ZipStreamWriter.Entry> getBatchAnalysisOutputFileEntries(String fileName,
+			Map<ProjectSampleAnalysisOutputInfo, AnalysisOutputFile> files) throws FileNotFoundException {
+		fileName = formatName(fileName);
+
+		List<ZipStreamWriter.Entry> entries = new ArrayList<>();
+		for (Map.Entry<ProjectSampleAnalysisOutputInfo, AnalysisOutputFile> entry : files.entrySet()) {
+			final AnalysisOutputFile file = entry.getValue();
+			final ProjectSampleAnalysisOutputInfo outputInfo = entry.getKey();
+			if (!Files.exists(file.getFile())) {
+				throw new FileNotFoundException("File '" + file.getFile().toFile().getAbsolutePath() + "' does not exist!");
+			}
+			// 1) Build a folder/file name
+			// building similar filename for each analysis output file as:
+			// resources/js/pages/projects/project-analysis-outputs.js#downloadSelected
+			String outputFilename = file.getFile()
+					.getFileName()
+					.toString();
+			// trying to pack as much useful info into the filename as possible!
+			outputFilename = outputInfo.getSampleName() + "-sampleId-" + outputInfo.getSampleId() + "-analysisSubmissionId-" + outputInfo.getAnalysisSubmissionId() + "-" + outputFilename;
+			// 2) Add the file to the archive.
+			entries.add(ZipStreamWriter.Entry.ofFile(fileName + "/" + outputFilename, file.getFile(), null));
+		}
+		return entries;
+	}
+
 	/**
 	 * Utility method for download single file from an analysis.
 	 *
@@ -272,46 +281,38 @@ public class FileUtilities {
 	}
 
 	/**
-	 * Read a specified number of lines from a file.
+	 * Read a specified number of lines from a file using its {@link LineOffsetIndex}. A {@code start} of 0 skips the
+	 * first (header) line.
 	 *
-	 * @param reader File reader
-	 * @param limit  Limit to the number of lines to read
-	 * @param start  Optional line number to start reading at
-	 * @param end    Optional line number to read up to
-	 * @return Lines read from file
+	 * @param index Line index of the file
+	 * @param limit Limit to the number of lines to read
+	 * @param start Optional line number to start reading at
+	 * @param end   Optional line number to read up to
+	 * @return Lines read from file and the file pointer after the last line
+	 * @throws IOException if error enountered while reading file
 	 */
-	public static List<String> readLinesLimit(BufferedReader reader, Long limit, Long start, Long end) {
+	public static LineOffsetIndex.Lines readLinesLimit(LineOffsetIndex index, Long limit, Long start, Long end)
+			throws IOException {
 		Long linesLimit = (limit != null) ? limit : 100L;
 		start = (start == null) ? 0 : start;
 		if (end != null && end > start) {
 			linesLimit = end - start + 1;
 		}
-		return reader.lines()
-				.skip(start == 0 ? 1L : start)
-				.limit(linesLimit)
-				.collect(Collectors.toList());
+		return index.readLines(start == 0 ? 1L : start, linesLimit);
 	}
 
 	/**
-	 * Read lines from file using a {@link RandomAccessFile}.
-	 * <p>
-	 * Use this method if preserving the {@link RandomAccessFile#getFilePointer()} for continuing reading is important.
-	 * For most use cases, {@link FileUtilities#readLinesLimit(BufferedReader, Long, Long, Long)} will perform better
-	 * due to bufffered reading.
+	 * Read lines from a file starting at a file pointer position.
 	 *
-	 * @param randomAccessFile File reader
-	 * @param limit            Limit to the number of lines to read
-	 * @return Lines read from file
+	 * @param file  File to read
+	 * @param seek  FilePointer position to start reading at
+	 * @param limit Limit to the number of lines to read
+	 * @return Lines read from file and the file pointer after the last line
 	 * @throws IOException if error enountered while reading file
 	 */
-	public static List<String> readLinesFromFilePointer(RandomAccessFile randomAccessFile, Long limit)
+	public static LineOffsetIndex.Lines readLinesFromFilePointer(Path file, Long seek, Long limit)
 			throws IOException {
-		ArrayList<String> lines = new ArrayList<>();
-		String line;
-		while (lines.size() < limit && (line = randomAccessFile.readLine()) != null) {
-			lines.add(line);
-		}
-		return lines;
+		return LineOffsetIndex.readLines(file, seek, limit);
 	}
 
 	/**
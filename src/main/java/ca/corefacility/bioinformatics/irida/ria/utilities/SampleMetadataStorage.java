@@ -1,17 +1,45 @@
 package ca.corefacility.bioinformatics.irida.ria.utilities;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
- * Used to store information relating to sample metadata during upload.
+ * Used to store information relating to sample metadata during upload.  Only the headers and the sample name column
+ * are kept in memory; the rows of the uploaded file are written to a temporary file and read back from it when
+ * they're needed.  The temporary file is deleted when this is removed from the session or the session expires.
  */
-public class SampleMetadataStorage {
+public class SampleMetadataStorage implements HttpSessionBindingListener {
+	private static final Logger logger = LoggerFactory.getLogger(SampleMetadataStorage.class);
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+	private static final TypeReference<Map<String, String>> ROW_TYPE = new TypeReference<Map<String, String>>() {
+	};
+
 	private String sampleNameColumn;
 	private List<String> headers;
-	private List<Map<String, String>> rows;
-	private List<Map<String, String>> found;
-	private List<Map<String, String>> missing;
+	private Path rowsFile;
+	// names of the samples found in the project, set once the rows have been sorted into found and missing
+	private Set<String> foundSampleNames;
 
 	public void setSampleNameColumn(String sampleColumnName) {
 		this.sampleNameColumn = sampleColumnName;
@@ -26,27 +54,60 @@ public class SampleMetadataStorage {
 	}
 
 	/**
-	 * Save the given rows
-	 * @param rows the rows to save
+	 * Open a writer to save rows to a new temporary file.  Any rows that were already saved are removed.
+	 *
+	 * @return a {@link RowWriter} to save the rows with.
+	 * @throws IOException if the temporary file could not be created.
+	 */
+	public RowWriter writeRows() throws IOException {
+		removeRows();
+		foundSampleNames = null;
+		rowsFile = Files.createTempFile("sample-metadata-", ".json");
+		return new RowWriter(Files.newBufferedWriter(rowsFile, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Sort the saved rows into found and missing by the names of the samples that were found in the project.
+	 *
+	 * @param foundSampleNames the names of the samples that were found.
 	 */
-	public void saveRows(List<Map<String, String>> rows) {
-		this.rows = rows;
+	public void saveFoundSampleNames(Set<String> foundSampleNames) {
+		this.foundSampleNames = foundSampleNames;
 	}
 
 	/**
-	 * Save the found values
-	 * @param found the found values
+	 * Read each of the saved rows back from the temporary file.
+	 *
+	 * @param consumer called with each row.
+	 * @throws IOException if the temporary file could not be read.
 	 */
-	public void saveFound(List<Map<String, String>> found) {
-		this.found = found;
+	public void readRows(Consumer<Map<String, String>> consumer) throws IOException {
+		if (rowsFile == null) {
+			return;
+		}
+		try (BufferedReader reader = Files.newBufferedReader(rowsFile, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				consumer.accept(objectMapper.readValue(line, ROW_TYPE));
+			}
+		}
 	}
 
 	/**
-	 * Save the missing values
-	 * @param missing the missing values
+	 * Read each of the saved rows for a sample that was found in the project.
+	 *
+	 * @param consumer called with each found row.
+	 * @throws IOException if the temporary file could not be read.
 	 */
-	public void saveMissing(List<Map<String, String>> missing) {
-		this.missing = missing;
+	public void readFound(Consumer<Map<String, String>> consumer) throws IOException {
+		if (foundSampleNames == null) {
+			return;
+		}
+		readRows(row -> {
+			if (foundSampleNames.contains(row.get(sampleNameColumn))) {
+				consumer.accept(row);
+			}
+		});
 	}
 
 	public String getSampleNameColumn() {
@@ -57,22 +118,105 @@ public class SampleMetadataStorage {
 		return headers;
 	}
 
+	/**
+	 * Get the rows that haven't been sorted into found and missing yet.
+	 *
+	 * @return the rows, or null if there are none or they've already been sorted.
+	 */
 	public List<Map<String, String>> getRows() {
-		return rows;
+		if (rowsFile == null || foundSampleNames != null) {
+			return null;
+		}
+		return collectRows(row -> true);
 	}
 
 	public List<Map<String, String>> getFound() {
-		return found;
+		if (foundSampleNames == null) {
+			return null;
+		}
+		return collectRows(row -> foundSampleNames.contains(row.get(sampleNameColumn)));
 	}
 
 	public List<Map<String, String>> getMissing() {
-		return missing;
+		if (foundSampleNames == null) {
+			return null;
+		}
+		return collectRows(row -> !foundSampleNames.contains(row.get(sampleNameColumn)));
+	}
+
+	/**
+	 * Read the rows matching the given filter into a list.
+	 *
+	 * @param filter the rows to keep.
+	 * @return the matching rows.
+	 */
+	private List<Map<String, String>> collectRows(Predicate<Map<String, String>> filter) {
+		List<Map<String, String>> rows = new ArrayList<>();
+		try {
+			readRows(row -> {
+				if (filter.test(row)) {
+					rows.add(row);
+				}
+			});
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read uploaded sample metadata", e);
+		}
+		return rows;
 	}
 
 	/**
-	 * remove all rows
+	 * remove all rows, deleting the temporary file holding them
 	 */
 	public void removeRows() {
-		this.rows = null;
+		if (rowsFile != null) {
+			try {
+				Files.deleteIfExists(rowsFile);
+			} catch (IOException e) {
+				logger.warn("Could not delete uploaded sample metadata file " + rowsFile, e);
+			}
+			rowsFile = null;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void valueBound(HttpSessionBindingEvent event) {
+	}
+
+	/**
+	 * Delete the saved rows once this is removed from the session or the session expires.
+	 */
+	@Override
+	public void valueUnbound(HttpSessionBindingEvent event) {
+		removeRows();
+	}
+
+	/**
+	 * Writes rows to the temporary file, one JSON object per line.
+	 */
+	public static class RowWriter implements Closeable {
+		private final BufferedWriter writer;
+
+		private RowWriter(BufferedWriter writer) {
+			this.writer = writer;
+		}
+
+		/**
+		 * Save a row.
+		 *
+		 * @param row the row to save.
+		 * @throws IOException if the row could not be written.
+		 */
+		public void write(Map<String, String> row) throws IOException {
+			writer.write(objectMapper.writeValueAsString(row));
+			writer.newLine();
+		}
+
+		@Override
+		public void close() throws IOException {
+			writer.close();
+		}
 	}
 }
@@ -0,0 +1,77 @@
+package ca.corefacility.bioinformatics.irida.ria.web.ajax.export;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
+import ca.corefacility.bioinformatics.irida.model.export.ExportBundle;
+import ca.corefacility.bioinformatics.irida.service.export.ExportBundleService;
+import ca.corefacility.bioinformatics.irida.web.spring.view.HttpRangeFileWriter;
+
+/**
+ * Spring Ajax Controller to read the status of {@link ExportBundle}s and download them once they're complete.
+ */
+@RestController
+@RequestMapping("/ajax/export-bundles")
+public class ExportBundleAjaxController {
+	private final ExportBundleService exportBundleService;
+
+	@Autowired
+	public ExportBundleAjaxController(ExportBundleService exportBundleService) {
+		this.exportBundleService = exportBundleService;
+	}
+
+	/**
+	 * Get the status of an {@link ExportBundle}
+	 *
+	 * @param bundleId Identifier for the {@link ExportBundle}
+	 * @return the {@link ExportBundle}, or not found if the current user didn't request a bundle with the identifier
+	 */
+	@RequestMapping("/{bundleId}")
+	public ResponseEntity<ExportBundle> getBundle(@PathVariable String bundleId) {
+		try {
+			return ResponseEntity.ok(exportBundleService.getBundle(bundleId));
+		} catch (EntityNotFoundException e) {
+			return ResponseEntity.notFound()
+					.build();
+		}
+	}
+
+	/**
+	 * Download a complete {@link ExportBundle}. Supports <code>Range</code> requests so interrupted downloads can be
+	 * resumed.
+	 *
+	 * @param bundleId Identifier for the {@link ExportBundle}
+	 * @param request  {@link HttpServletRequest}
+	 * @param response {@link HttpServletResponse}
+	 * @throws IOException if the bundle can't be read or written to the response
+	 */
+	@RequestMapping("/{bundleId}/download")
+	public void downloadBundle(@PathVariable String bundleId, HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+		ExportBundle bundle;
+		try {
+			bundle = exportBundleService.getBundle(bundleId);
+		} catch (EntityNotFoundException e) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		if (bundle.getState() != ExportBundle.State.COMPLETE) {
+			response.sendError(HttpServletResponse.SC_CONFLICT, "Export bundle is " + bundle.getState());
+			return;
+		}
+
+		response.setContentType("application/zip");
+		response.setHeader("Content-Disposition", "attachment; filename=\"" + bundle.getName() + ".zip\"");
+		HttpRangeFileWriter.writeFile(bundle.getFile(), bundle.getId(), request, response);
+	}
+}
@@ -24,6 +24,7 @@ import org.springframework.web.bind.annotation.*;
 import ca.corefacility.bioinformatics.irida.config.analysis.ExecutionManagerConfig;
 import ca.corefacility.bioinformatics.irida.exceptions.*;
 import ca.corefacility.bioinformatics.irida.model.enums.AnalysisState;
+import ca.corefacility.bioinformatics.irida.model.export.ExportBundle;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectMetadataTemplateJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.project.ReferenceFile;
@@ -53,10 +54,12 @@ import ca.corefacility.bioinformatics.irida.ria.web.dto.ResponseDetails;
 import ca.corefacility.bioinformatics.irida.ria.web.utilities.DateUtilities;
 import ca.corefacility.bioinformatics.irida.security.permissions.analysis.UpdateAnalysisSubmissionPermission;
 import ca.corefacility.bioinformatics.irida.service.*;
+import ca.corefacility.bioinformatics.irida.service.export.ExportBundleService;
 import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 import ca.corefacility.bioinformatics.irida.service.user.UserService;
 import ca.corefacility.bioinformatics.irida.service.workflow.IridaWorkflowsService;
+import ca.corefacility.bioinformatics.irida.util.LineOffsetIndex;
 
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -94,6 +97,7 @@ public class AnalysisAjaxController {
 	private AnalysisAudit analysisAudit;
 	private AnalysisTypesService analysisTypesService;
 	private EmailController emailController;
+	private ExportBundleService exportBundleService;
 
 	@Autowired
 	public AnalysisAjaxController(AnalysisSubmissionService analysisSubmissionService,
@@ -102,7 +106,8 @@ public class AnalysisAjaxController {
 			MetadataTemplateService metadataTemplateService, SequencingObjectService sequencingObjectService,
 			AnalysisSubmissionSampleProcessor analysisSubmissionSampleProcessor,
 			AnalysisOutputFileDownloadManager analysisOutputFileDownloadManager, MessageSource messageSource,
-			ExecutionManagerConfig configFile, AnalysisAudit analysisAudit, AnalysisTypesService analysisTypesService, EmailController emailController) {
+			ExecutionManagerConfig configFile, AnalysisAudit analysisAudit, AnalysisTypesService analysisTypesService, EmailController emailController,
+			ExportBundleService exportBundleService) {
 
 		this.analysisSubmissionService = analysisSubmissionService;
 		this.workflowsService = iridaWorkflowsService;
@@ -119,6 +124,7 @@ public class AnalysisAjaxController {
 		this.analysisAudit = analysisAudit;
 		this.analysisTypesService = analysisTypesService;
 		this.emailController = emailController;
+		this.exportBundleService = exportBundleService;
 	}
 
 	/**
@@ -516,36 +522,33 @@ public class AnalysisAjaxController {
 			contents.setToolName(tool.getToolName());
 			contents.setToolVersion(tool.getToolVersion());
 			try {
-				final File file = aofFile.toFile();
-				final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
-				randomAccessFile.seek(seek);
-				if (seek == 0) {
-					if (chunk != null && chunk > 0) {
+				if (chunk != null && chunk > 0) {
+					try (RandomAccessFile randomAccessFile = new RandomAccessFile(aofFile.toFile(), "r")) {
 						contents.setText(FileUtilities.readChunk(randomAccessFile, seek, chunk));
 						contents.setChunk(chunk);
 						contents.setStartSeek(seek);
-					} else {
-						final BufferedReader reader = new BufferedReader(new FileReader(randomAccessFile.getFD()));
-						final List<String> lines = FileUtilities.readLinesLimit(reader, limit, start, end);
-						contents.setLines(lines);
-						contents.setLimit((long) lines.size());
-						contents.setStart(start);
-						contents.setEnd(start + lines.size());
+						contents.setFilePointer(randomAccessFile.getFilePointer());
 					}
+				} else if (seek == 0) {
+					// the line index lets any range of lines be read without reading the lines before it
+					final LineOffsetIndex.Lines lines = FileUtilities.readLinesLimit(LineOffsetIndex.forFile(aofFile),
+							limit, start, end);
+					contents.setLines(lines.getLines());
+					contents.setLimit((long) lines.getLines()
+							.size());
+					contents.setStart(start);
+					contents.setEnd(start + lines.getLines()
+							.size());
+					contents.setFilePointer(lines.getEndOffset());
 				} else {
-					if (chunk != null && chunk > 0) {
-						contents.setText(FileUtilities.readChunk(randomAccessFile, seek, chunk));
-						contents.setChunk(chunk);
-						contents.setStartSeek(seek);
-					} else {
-						final List<String> lines = FileUtilities.readLinesFromFilePointer(randomAccessFile, limit);
-						contents.setLines(lines);
-						contents.setStartSeek(seek);
-						contents.setStart(start);
-						contents.setLimit((long) lines.size());
-					}
+					final LineOffsetIndex.Lines lines = FileUtilities.readLinesFromFilePointer(aofFile, seek, limit);
+					contents.setLines(lines.getLines());
+					contents.setStartSeek(seek);
+					contents.setStart(start);
+					contents.setLimit((long) lines.getLines()
+							.size());
+					contents.setFilePointer(lines.getEndOffset());
 				}
-				contents.setFilePointer(randomAccessFile.getFilePointer());
 			} catch (IOException e) {
 				logger.error("Could not read output file '" + aof.getId() + "' " + e);
 				response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
@@ -856,6 +859,24 @@ public class AnalysisAjaxController {
 		FileUtilities.createBatchAnalysisOutputFileZippedResponse(response, filename, files);
 	}
 
+	/**
+	 * Start building a bundle of the selected {@link AnalysisOutputFile} in the background. If the same files have
+	 * already been bundled the existing bundle is returned.
+	 *
+	 * @param filename Optional filename for file download.
+	 * @return the queued, running or complete {@link ExportBundle}
+	 * @throws FileNotFoundException if one of the selected files doesn't exist
+	 */
+	@RequestMapping(value = "/download/selection/bundle", method = RequestMethod.POST)
+	@ResponseBody
+	public ExportBundle requestSelectionBundle(
+			@RequestParam(required = false, defaultValue = "analysis-output-files-batch-download") String filename)
+			throws FileNotFoundException {
+		Map<ProjectSampleAnalysisOutputInfo, AnalysisOutputFile> files = analysisOutputFileDownloadManager.getSelection();
+		return exportBundleService.requestBundle(filename,
+				FileUtilities.getBatchAnalysisOutputFileEntries(filename, files));
+	}
+
 	/**
 	 * Download single output files from an {@link AnalysisSubmission}
 	 *
@@ -329,6 +329,8 @@ public class LineListController {
 						.compareToIgnoreCase(f2.getHeaderName()))
 				.collect(Collectors.toList());
 
+		fields.add(0, new UIMetadataFieldDefault(messages.getMessage("linelist.field.coverage", new Object[] {}, locale),
+				UISampleMetadata.COVERAGE, "number"));
 		fields.add(0, new UIMetadataFieldDefault(messages.getMessage("linelist.field.created", new Object[] {}, locale),
 				UISampleMetadata.CREATED_DATE, "date"));
 		UIMetadataFieldDefault modifiedField = new UIMetadataFieldDefault(
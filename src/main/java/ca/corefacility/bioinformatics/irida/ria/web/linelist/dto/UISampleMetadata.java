@@ -21,6 +21,7 @@ public class UISampleMetadata extends HashMap<String, String> {
 	public static final String PROJECT_ID = PREFIX + "project-id";
 	public static final String CREATED_DATE = PREFIX + "created";
 	public static final String MODIFIED_DATE = PREFIX + "modified";
+	public static final String COVERAGE = PREFIX + "coverage";
 	public static final String EDITABLE = "editable";
 	public static final String OWNER = "owner";
 
@@ -36,11 +37,28 @@ public class UISampleMetadata extends HashMap<String, String> {
 				.toString());
 		this.put(MODIFIED_DATE, sample.getModifiedDate()
 				.toString());
+		this.put(COVERAGE, getCoverage(project, sample));
 		this.putAll(getAllMetadataForSample(sample));
 		this.put(EDITABLE, String.valueOf(editable));
 		this.put(OWNER, String.valueOf(join.isOwner()));
 	}
 
+	/**
+	 * Get the coverage of the sample from its stored total bases and the project's genome size.
+	 *
+	 * @param project {@link Project} to get the genome size from
+	 * @param sample  {@link Sample} to get the total bases from
+	 * @return the coverage rounded to 2 decimal places, or an empty {@link String} if it isn't known
+	 */
+	private String getCoverage(Project project, Sample sample) {
+		Long genomeSize = project.getGenomeSize();
+		Long totalBases = sample.getTotalBases();
+		if (genomeSize == null || genomeSize <= 0 || totalBases == null) {
+			return "";
+		}
+		return String.valueOf(Math.round(totalBases * 100.0 / genomeSize) / 100.0);
+	}
+
 	/**
 	 * Convert the sample metadata into a format that can be consumed by Ag Grid.
 	 *
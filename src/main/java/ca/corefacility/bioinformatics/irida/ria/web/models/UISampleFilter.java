@@ -13,6 +13,8 @@ public class UISampleFilter {
 	private String organism;
 	private String startDate;
 	private String endDate;
+	private String minCoverage;
+	private String maxCoverage;
 
 	public String getName() {
 		return Strings.isNullOrEmpty(name) ? "" : name;
@@ -63,4 +65,30 @@ public class UISampleFilter {
 	public void setEndDate(String date) {
 		this.endDate = date;
 	}
+
+	/**
+	 * Get the minimum coverage of the filter
+	 *
+	 * @return minimum coverage
+	 */
+	public Double getMinCoverage() {
+		return Strings.isNullOrEmpty(minCoverage) ? null : Double.valueOf(minCoverage);
+	}
+
+	public void setMinCoverage(String minCoverage) {
+		this.minCoverage = minCoverage;
+	}
+
+	/**
+	 * Get the maximum coverage of the filter
+	 *
+	 * @return maximum coverage
+	 */
+	public Double getMaxCoverage() {
+		return Strings.isNullOrEmpty(maxCoverage) ? null : Double.valueOf(maxCoverage);
+	}
+
+	public void setMaxCoverage(String maxCoverage) {
+		this.maxCoverage = maxCoverage;
+	}
 }
@@ -7,11 +7,10 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.security.Principal;
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 
@@ -24,6 +23,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -31,7 +31,7 @@ import org.springframework.web.bind.annotation.*;
 
 import ca.corefacility.bioinformatics.irida.exceptions.EntityExistsException;
 import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
-import ca.corefacility.bioinformatics.irida.exceptions.SequenceFileAnalysisException;
+import ca.corefacility.bioinformatics.irida.model.export.ExportBundle;
 import ca.corefacility.bioinformatics.irida.model.joins.Join;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.RelatedProjectJoin;
@@ -40,6 +40,7 @@ import ca.corefacility.bioinformatics.irida.model.sample.QCEntry;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.ria.web.ajax.export.ExportBundleAjaxController;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesExportToFile;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesExportTypes;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesParams;
@@ -52,7 +53,9 @@ import ca.corefacility.bioinformatics.irida.ria.web.models.datatables.DTProjectS
 import ca.corefacility.bioinformatics.irida.ria.web.projects.dto.ProjectCartSample;
 import ca.corefacility.bioinformatics.irida.service.ProjectService;
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
+import ca.corefacility.bioinformatics.irida.service.export.ExportBundleService;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
+import ca.corefacility.bioinformatics.irida.util.ZipStreamWriter;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
@@ -78,21 +81,27 @@ public class ProjectSamplesController {
 	private static final String PROJECT_SAMPLES_PAGE = PROJECTS_DIR + "project_samples";
 	private static final Logger logger = LoggerFactory.getLogger(ProjectsController.class);
 
+	private static final String DOWNLOAD_PROGRESS_ATTRIBUTE = "projectSamplesDownloadProgress-";
+
 	// Services
 	private final ProjectService projectService;
 	private final SampleService sampleService;
 	private final ProjectControllerUtils projectControllerUtils;
 	private final SequencingObjectService sequencingObjectService;
 	private final MessageSource messageSource;
+	private final ZipStreamWriter zipStreamWriter;
+	private final ExportBundleService exportBundleService;
 
 	@Autowired
 	public ProjectSamplesController(ProjectService projectService, SampleService sampleService, SequencingObjectService sequencingObjectService, ProjectControllerUtils projectControllerUtils,
-			MessageSource messageSource) {
+			MessageSource messageSource, ZipStreamWriter zipStreamWriter, ExportBundleService exportBundleService) {
 		this.projectService = projectService;
 		this.sampleService = sampleService;
 		this.sequencingObjectService = sequencingObjectService;
 		this.projectControllerUtils = projectControllerUtils;
 		this.messageSource = messageSource;
+		this.zipStreamWriter = zipStreamWriter;
+		this.exportBundleService = exportBundleService;
 	}
 
 	/**
@@ -368,42 +377,66 @@ public class ProjectSamplesController {
 
 		final Page<ProjectSampleJoin> page = sampleService.getFilteredSamplesForProjects(projects, sampleNames,
 				filter.getName(), params.getSearchValue(), filter.getOrganism(), filter.getStartDate(),
-				filter.getEndDate(), params.getCurrentPage(), params.getLength(), params.getSort());
+				filter.getEndDate(), filter.getMinCoverage(), filter.getMaxCoverage(), params.getCurrentPage(),
+				params.getLength(), params.getSort());
 
 		// Create DataTables representation of the page.
-		List<DataTablesResponseModel> models = new ArrayList<>();
-		for (ProjectSampleJoin psj : page.getContent()) {
-			models.add(buildProjectSampleDataTablesModel(psj, locale));
-		}
+		List<DataTablesResponseModel> models = new ArrayList<>(
+				buildProjectSampleDataTablesModels(page.getContent(), locale));
 		return new DataTablesResponse(params, page, models);
 	}
 
 	/**
-	 * Build a {@link ProjectSampleModel} object for a given {@link Sample}
+	 * Build the {@link DTProjectSamples} for a page of {@link ProjectSampleJoin}.  The total bases and QC entries for
+	 * every {@link Sample} on the page are loaded together rather than row by row.
 	 *
-	 * @param sso    a {@link ProjectSampleJoin} to build the {@link ProjectSampleModel} from
+	 * @param joins  the {@link ProjectSampleJoin}s to build the {@link DTProjectSamples} from
 	 * @param locale of the current user.
+	 * @return a newly constructed {@link DTProjectSamples} for each join
+	 */
+	private List<DTProjectSamples> buildProjectSampleDataTablesModels(List<ProjectSampleJoin> joins, Locale locale) {
+		Set<Sample> samples = joins.stream()
+				.map(ProjectSampleJoin::getObject)
+				.collect(Collectors.toSet());
+
+		Map<Long, Long> totalBases = Collections.emptyMap();
+		Map<Long, List<QCEntry>> qcEntries = Collections.emptyMap();
+		if (!samples.isEmpty()) {
+			totalBases = sampleService.getTotalBasesForSamples(samples);
+			qcEntries = sampleService.getQCEntriesForSamples(samples);
+		}
+
+		List<DTProjectSamples> models = new ArrayList<>();
+		for (ProjectSampleJoin psj : joins) {
+			Long sampleId = psj.getObject()
+					.getId();
+			models.add(buildProjectSampleDataTablesModel(psj, totalBases.get(sampleId),
+					qcEntries.getOrDefault(sampleId, Collections.emptyList()), locale));
+		}
+		return models;
+	}
+
+	/**
+	 * Build a {@link ProjectSampleModel} object for a given {@link Sample}
+	 *
+	 * @param sso        a {@link ProjectSampleJoin} to build the {@link ProjectSampleModel} from
+	 * @param totalBases the total bases in the {@link Sample}, or null if they're not known
+	 * @param qcEntries  the {@link QCEntry}s for the {@link Sample}
+	 * @param locale     of the current user.
 	 * @return a newly constructed {@link ProjectSampleModel}
 	 */
-	private DTProjectSamples buildProjectSampleDataTablesModel(ProjectSampleJoin sso, Locale locale) {
+	private DTProjectSamples buildProjectSampleDataTablesModel(ProjectSampleJoin sso, Long totalBases,
+			List<QCEntry> qcEntries, Locale locale) {
 		Project project = sso.getSubject();
 		Long genomeSize = project.getGenomeSize();
-		Sample sample = sso.getObject();
 		Double coverage = null;
 
-		if (genomeSize != null) {
-			try {
-				coverage = sampleService.estimateCoverageForSample(sample, genomeSize);
-			} catch (SequenceFileAnalysisException e) {
-				// Don't need to do anything here.
-			}
+		if (genomeSize != null && genomeSize > 0 && totalBases != null) {
+			coverage = totalBases / (double) genomeSize;
 		}
-		List<QCEntry> qcEntriesForSample = sampleService.getQCEntriesForSample(sample);
 		List<String> list = new ArrayList<>();
-		for (QCEntry q : qcEntriesForSample) {
+		for (QCEntry q : qcEntries) {
 			q.addProjectSettings(project);
-			String status = q.getStatus()
-					.toString();
 			if (q.getStatus() == QCEntry.QCEntryStatus.NEGATIVE) {
 				list.add(
 						messageSource.getMessage("sample.files.qc." + q.getType(), new Object[] { q.getMessage() }, locale));
@@ -442,7 +475,8 @@ public class ProjectSamplesController {
 		Sort sort = Sort.by(Direction.ASC, "id");
 		final Page<ProjectSampleJoin> page = sampleService.getFilteredSamplesForProjects(projects, sampleNames,
 				filter.getName(), params.getSearchValue(), filter.getOrganism(), filter.getStartDate(),
-				filter.getEndDate(), 0, Integer.MAX_VALUE, params.getSort());
+				filter.getEndDate(), filter.getMinCoverage(), filter.getMaxCoverage(), 0, Integer.MAX_VALUE,
+				params.getSort());
 
 		// Converting everything to a string for consumption by the UI.
 		Map<String, List<String>> result = new HashMap<>();
@@ -704,14 +738,16 @@ public class ProjectSamplesController {
 	/**
 	 * Download a set of sequence files from selected samples within a project
 	 *
-	 * @param projectId Id for a {@link Project}
-	 * @param ids       List of ids ofr {@link Sample} within the project
-	 * @param response  {@link HttpServletResponse}
+	 * @param projectId  Id for a {@link Project}
+	 * @param ids        List of ids ofr {@link Sample} within the project
+	 * @param downloadId an identifier chosen by the client to read the progress of the download with, may be null
+	 * @param session    {@link HttpSession} the progress of the download is kept in
+	 * @param response   {@link HttpServletResponse}
 	 * @throws IOException if we fail to read a file from the filesystem.
 	 */
 	@RequestMapping(value = "/projects/{projectId}/download/files")
 	public void downloadSamples(@PathVariable Long projectId, @RequestParam(value = "ids[]") List<Long> ids,
-			HttpServletResponse response)
+			@RequestParam(required = false) String downloadId, HttpSession session, HttpServletResponse response)
 			throws IOException {
 		Project project = projectService.read(projectId);
 		List<Sample> samples = (List<Sample>) sampleService.readMultiple(ids);
@@ -721,41 +757,15 @@ public class ProjectSamplesController {
 		response.setHeader("Content-Disposition", "attachment; filename=\"" + project.getName() + ".zip\"");
 		response.setHeader("Transfer-Encoding", "chunked");
 
-		// storing used file names to ensure we don't have a conflict
-		Set<String> usedFileNames = new HashSet<>();
-
-		try (ZipOutputStream outputStream = new ZipOutputStream(response.getOutputStream())) {
-			for (Sample sample : samples) {
-				Collection<SampleSequencingObjectJoin> sequencingObjectsForSample = sequencingObjectService
-						.getSequencingObjectsForSample(sample);
-
-				for (SampleSequencingObjectJoin join : sequencingObjectsForSample) {
-					for (SequenceFile file : join.getObject().getFiles()) {
-						Path path = file.getFile();
-
-						String fileName = project.getName() + "/" + sample.getSampleName() + "/" + path.getFileName()
-								.toString();
-						if (usedFileNames.contains(fileName)) {
-							fileName = handleDuplicate(fileName, usedFileNames);
-						}
-						final ZipEntry entry = new ZipEntry(fileName);
-						// set the file creation time on the zip entry to be
-						// whatever the creation time is on the filesystem
-						final BasicFileAttributes attr = Files.readAttributes(path, BasicFileAttributes.class);
-						entry.setCreationTime(attr.creationTime());
-						entry.setLastModifiedTime(attr.creationTime());
-
-						outputStream.putNextEntry(entry);
-
-						usedFileNames.add(fileName);
-
-						Files.copy(path, outputStream);
+		ZipStreamWriter.Progress progress = new ZipStreamWriter.Progress();
+		String progressAttribute = getDownloadProgressAttribute(projectId, downloadId);
+		if (downloadId != null) {
+			session.setAttribute(progressAttribute, progress);
+		}
 
-						outputStream.closeEntry();
-					}
-				}
-			}
-			outputStream.finish();
+		try {
+			List<ZipStreamWriter.Entry> entries = getDownloadEntries(project, samples);
+			zipStreamWriter.write(entries, response.getOutputStream(), progress);
 		} catch (IOException e) {
 			// this generally means that the user has cancelled the download
 			// from their web browser; we can safely ignore this
@@ -764,12 +774,117 @@ public class ProjectSamplesController {
 		} catch (Exception e) {
 			logger.error("Download failed...", e);
 		} finally {
+			// a complete download's progress is removed once it's been reported to the client; a failed or
+			// cancelled download will never be reported complete so it's removed now
+			if (downloadId != null && !progress.isComplete()) {
+				session.removeAttribute(progressAttribute);
+			}
+
 			// close the response outputStream so that we're not leaking
 			// streams.
 			response.getOutputStream().close();
 		}
 	}
 
+	/**
+	 * Start building a bundle of the sequence files from selected samples within a project in the background. If the
+	 * same files have already been bundled the existing bundle is returned. The bundle's status and download are read
+	 * from {@link ExportBundleAjaxController}.
+	 *
+	 * @param projectId Id for a {@link Project}
+	 * @param ids       List of ids for {@link Sample} within the project
+	 * @return the queued, running or complete {@link ExportBundle}
+	 * @throws IOException if we fail to read the attributes of a file
+	 */
+	@RequestMapping(value = "/projects/{projectId}/download/bundle", method = RequestMethod.POST)
+	@ResponseBody
+	public ExportBundle requestDownloadBundle(@PathVariable Long projectId,
+			@RequestParam(value = "ids[]") List<Long> ids) throws IOException {
+		Project project = projectService.read(projectId);
+		List<Sample> samples = (List<Sample>) sampleService.readMultiple(ids);
+
+		return exportBundleService.requestBundle(project.getName(), getDownloadEntries(project, samples));
+	}
+
+	/**
+	 * Get the zip entries for the sequence files of samples within a project, named by project and sample.
+	 *
+	 * @param project the {@link Project} being downloaded
+	 * @param samples the {@link Sample}s to download the files of
+	 * @return the entries to write to the zip archive
+	 * @throws IOException if we fail to read the attributes of a file
+	 */
+	private List<ZipStreamWriter.Entry> getDownloadEntries(Project project, List<Sample> samples) throws IOException {
+		// storing used file names to ensure we don't have a conflict
+		Set<String> usedFileNames = new HashSet<>();
+		List<ZipStreamWriter.Entry> entries = new ArrayList<>();
+
+		for (Sample sample : samples) {
+			Collection<SampleSequencingObjectJoin> sequencingObjectsForSample = sequencingObjectService
+					.getSequencingObjectsForSample(sample);
+
+			for (SampleSequencingObjectJoin join : sequencingObjectsForSample) {
+				for (SequenceFile file : join.getObject().getFiles()) {
+					Path path = file.getFile();
+
+					String fileName = project.getName() + "/" + sample.getSampleName() + "/" + path.getFileName()
+							.toString();
+					if (usedFileNames.contains(fileName)) {
+						fileName = handleDuplicate(fileName, usedFileNames);
+					}
+					usedFileNames.add(fileName);
+
+					// set the file creation time on the zip entry to be
+					// whatever the creation time is on the filesystem
+					final BasicFileAttributes attr = Files.readAttributes(path, BasicFileAttributes.class);
+					entries.add(ZipStreamWriter.Entry.ofFile(fileName, path, attr.creationTime()));
+				}
+			}
+		}
+
+		return entries;
+	}
+
+	/**
+	 * Get the progress of a download of sequence files started with
+	 * {@link #downloadSamples(Long, List, String, HttpSession, HttpServletResponse)}.
+	 *
+	 * @param projectId  Id for the {@link Project} being downloaded
+	 * @param downloadId the identifier the client gave the download
+	 * @param session    {@link HttpSession} the progress of the download is kept in
+	 * @return the progress of the download, or not found if there's no download with the identifier in the project.
+	 * The progress is removed once it's been reported complete, or once the download fails.
+	 */
+	@RequestMapping(value = "/projects/{projectId}/download/progress")
+	@ResponseBody
+	public ResponseEntity<ZipStreamWriter.Progress> getDownloadProgress(@PathVariable Long projectId,
+			@RequestParam String downloadId, HttpSession session) {
+		// check that the user can still read the project
+		projectService.read(projectId);
+
+		String progressAttribute = getDownloadProgressAttribute(projectId, downloadId);
+		ZipStreamWriter.Progress progress = (ZipStreamWriter.Progress) session.getAttribute(progressAttribute);
+		if (progress == null) {
+			return ResponseEntity.notFound()
+					.build();
+		}
+		if (progress.isComplete()) {
+			session.removeAttribute(progressAttribute);
+		}
+		return ResponseEntity.ok(progress);
+	}
+
+	/**
+	 * Get the name of the session attribute the progress of a download is kept in
+	 *
+	 * @param projectId  Id for the {@link Project} being downloaded
+	 * @param downloadId the identifier the client gave the download
+	 * @return the name of the session attribute
+	 */
+	private static String getDownloadProgressAttribute(Long projectId, String downloadId) {
+		return DOWNLOAD_PROGRESS_ATTRIBUTE + projectId + "-" + downloadId;
+	}
+
 	/**
 	 * Rename a filename {@code original} and ensure it doesn't exist in {@code usedNames}. Uses the windows style of
 	 * renaming file.ext to file (1).ext
@@ -827,13 +942,11 @@ public class ProjectSamplesController {
 
 		final Page<ProjectSampleJoin> page = sampleService
 				.getFilteredSamplesForProjects(projects, sampleNames, filter.getName(), params.getSearchValue(), filter.getOrganism(), filter.getStartDate(),
-						filter.getEndDate(), 0, Integer.MAX_VALUE, params.getSort());
+						filter.getEndDate(), filter.getMinCoverage(), filter.getMaxCoverage(), 0, Integer.MAX_VALUE,
+						params.getSort());
 
 		// Create DataTables representation of the page.
-		List<DTProjectSamples> models = new ArrayList<>();
-		for (ProjectSampleJoin psj : page.getContent()) {
-			models.add(buildProjectSampleDataTablesModel(psj, locale));
-		}
+		List<DTProjectSamples> models = buildProjectSampleDataTablesModels(page.getContent(), locale);
 		List<String> headers = models.get(0)
 				.getExportableTableHeaders(messageSource, locale);
 		DataTablesExportToFile.writeFile(type, response, project.getLabel()
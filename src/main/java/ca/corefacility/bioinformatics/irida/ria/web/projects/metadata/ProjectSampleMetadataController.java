@@ -1,7 +1,5 @@
 package ca.corefacility.bioinformatics.irida.ria.web.projects.metadata;
 
-import java.io.ByteArrayInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.Principal;
@@ -12,17 +10,17 @@ import javax.servlet.http.HttpSession;
 
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
 import ca.corefacility.bioinformatics.irida.exceptions.MetadataImportFileTypeNotSupportedError;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
@@ -38,6 +36,8 @@ import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.Files;
+import com.monitorjbl.xlsx.StreamingReader;
+import com.monitorjbl.xlsx.impl.StreamingCell;
 
 /**
  * This class is designed to be used for bulk actions on {@link MetadataEntry}
@@ -47,6 +47,10 @@ import com.google.common.io.Files;
 @RequestMapping("/projects/{projectId}/sample-metadata")
 public class ProjectSampleMetadataController {
 	private static final Logger logger = LoggerFactory.getLogger(ProjectSampleMetadataController.class);
+	// Number of rows kept in memory while streaming an xlsx file
+	private static final int STREAMING_ROW_CACHE_SIZE = 100;
+	// Number of rows saved in each transaction
+	public static final int SAVE_BATCH_SIZE = 500;
 	private final MessageSource messageSource;
 	private final ProjectService projectService;
 	private final SampleService sampleService;
@@ -80,52 +84,79 @@ public class ProjectSampleMetadataController {
 	}
 
 	/**
-	 * Upload Excel file containing sample metadata and extract the headers.  The file is stored in the session until
-	 * the column that corresponds to a {@link Sample} identifier has been sent.
+	 * Upload Excel file containing sample metadata and extract the headers.  The rows are stored in a temporary file
+	 * referenced from the session until the column that corresponds to a {@link Sample} identifier has been sent.
 	 *
 	 * @param session   {@link HttpSession}
 	 * @param projectId {@link Long} identifier for the current {@link Project}
 	 * @param file      {@link MultipartFile} The excel file containing the metadata.
 	 * @return {@link Map} of headers and rows from the excel file for the user to select the header corresponding the
-	 * {@link Sample} identifier.
+	 * {@link Sample} identifier, or a bad request if the file could not be read.
 	 */
 	@RequestMapping(value = "/upload/file", method = RequestMethod.POST)
 	@ResponseBody
-	public SampleMetadataStorage createProjectSampleMetadata(HttpSession session, @PathVariable long projectId,
-			@RequestParam("file") MultipartFile file) {
+	public ResponseEntity<SampleMetadataStorage> createProjectSampleMetadata(HttpSession session,
+			@PathVariable long projectId, @RequestParam("file") MultipartFile file) {
 		// We want to return a list of the table headers back to the UI.
 		SampleMetadataStorage storage = new SampleMetadataStorage();
-		try {
-			// Need an input stream
-			String filename = file.getOriginalFilename();
-			byte[] byteArr = file.getBytes();
-			InputStream fis = new ByteArrayInputStream(byteArr);
+		String filename = file.getOriginalFilename();
+		String extension = Files.getFileExtension(filename);
 
-			Workbook workbook;
-			String extension = Files.getFileExtension(filename);
-
-			// Check the type of workbook
+		// Read straight from the uploaded file rather than copying the whole thing into memory first.
+		try (InputStream fis = file.getInputStream()) {
 			switch (extension) {
 			case "xlsx":
-				workbook = new XSSFWorkbook(fis);
+				// Stream the rows out of the sheet instead of loading the whole workbook.
+				try (Workbook workbook = StreamingReader.builder()
+						.rowCacheSize(STREAMING_ROW_CACHE_SIZE)
+						.open(fis)) {
+					readWorkbook(workbook, storage);
+				}
 				break;
 			case "xls":
-				workbook = new HSSFWorkbook(fis);
+				try (Workbook workbook = new HSSFWorkbook(fis)) {
+					readWorkbook(workbook, storage);
+				}
 				break;
 			default:
-				// Should never reach here as the uploader limits to .xlsx and .xlx files.
+				// Should never reach here as the uploader limits to .xlsx and .xls files.
 				throw new MetadataImportFileTypeNotSupportedError(extension);
 			}
+		} catch (IOException e) {
+			logger.error("Error opening file " + filename, e);
+			storage.removeRows();
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+					.build();
+		}
 
-			// Only look at the first sheet in the workbook as this should be the file we want.
-			Sheet sheet = workbook.getSheetAt(0);
-			Iterator<Row> rowIterator = sheet.iterator();
-
-			List<String> headers = getWorkbookHeaders(rowIterator.next());
-			storage.saveHeaders(headers);
+		session.setAttribute("pm-" + projectId, storage);
+		return ResponseEntity.ok(storage);
+	}
 
-			// Get the metadata out of the table.
-			List<Map<String, String>> rows = new ArrayList<>();
+	/**
+	 * Read the headers and rows from the first sheet of a workbook into the storage.
+	 *
+	 * @param workbook {@link Workbook} the uploaded workbook.
+	 * @param storage  {@link SampleMetadataStorage} to save the headers and rows to.
+	 * @throws IOException if the rows could not be saved.
+	 */
+	private void readWorkbook(Workbook workbook, SampleMetadataStorage storage) throws IOException {
+		// Only look at the first sheet in the workbook as this should be the file we want.
+		Sheet sheet = workbook.getSheetAt(0);
+		Iterator<Row> rowIterator = sheet.iterator();
+
+		List<String> headers = getWorkbookHeaders(rowIterator.next());
+		storage.saveHeaders(headers);
+
+		/*
+		This is a special handler for number cells.  It was requested that numbers
+		keep their formatting from their excel files.  E.g. 2.222222 with formatting
+		for 2 decimal places will be saved as 2.22.
+		 */
+		DataFormatter formatter = new DataFormatter();
+
+		// Get the metadata out of the table, writing each row out as it's read.
+		try (SampleMetadataStorage.RowWriter rows = storage.writeRows()) {
 			while (rowIterator.hasNext()) {
 				Map<String, String> rowMap = new HashMap<>();
 				Row row = rowIterator.next();
@@ -137,38 +168,37 @@ public class ProjectSampleMetadataController {
 					if (columnIndex < headers.size()) {
 						String header = headers.get(columnIndex);
 
+						// Need to ignore empty headers.
 						if (!Strings.isNullOrEmpty(header)) {
-							// Need to ignore empty headers.
-							if(cell.getCellTypeEnum().equals(CellType.NUMERIC)) {
-								/*
-								This is a special handler for number cells.  It was requested that numbers
-								keep their formatting from their excel files.  E.g. 2.222222 with formatting
-								for 2 decimal places will be saved as 2.22.
-								 */
-								DataFormatter formatter = new DataFormatter();
-								String value = formatter.formatCellValue(cell);
-								rowMap.put(header, value);
-							}
-							else {
-								cell.setCellType(CellType.STRING);
-								rowMap.put(header, cell.getStringCellValue());
-							}
+							rowMap.put(header, getCellValue(cell, formatter));
 						}
 					}
 				}
-				rows.add(rowMap);
-			}
-			storage.saveRows(rows);
 
-			fis.close();
-		} catch (FileNotFoundException e) {
-			logger.debug("No file found for uploading an excel file of metadata.");
-		} catch (IOException e) {
-			logger.error("Error opening file" + file.getOriginalFilename());
+				if (!rowMap.isEmpty()) {
+					rows.write(rowMap);
+				}
+			}
 		}
+	}
 
-		session.setAttribute("pm-" + projectId, storage);
-		return storage;
+	/**
+	 * Get the value of a cell as it's displayed in the spreadsheet.
+	 *
+	 * @param cell      {@link Cell} to get the value of.
+	 * @param formatter {@link DataFormatter} used to format number cells.
+	 * @return {@link String} value of the cell.
+	 */
+	private String getCellValue(Cell cell, DataFormatter formatter) {
+		if (cell.getCellTypeEnum().equals(CellType.NUMERIC)) {
+			return formatter.formatCellValue(cell);
+		} else if (cell instanceof StreamingCell) {
+			// Streamed cells are read only, but already hold their (cached) value as a string.
+			return cell.getStringCellValue();
+		} else {
+			cell.setCellType(CellType.STRING);
+			return cell.getStringCellValue();
+		}
 	}
 
 	/**
@@ -212,37 +242,35 @@ public class ProjectSampleMetadataController {
 	 */
 	@RequestMapping(value = "/upload/setSampleColumn", method = RequestMethod.POST)
 	@ResponseBody
-	public Map<String, Object> setProjectSampleMetadataSampleId(HttpSession session, @PathVariable long projectId,
-			@RequestParam String sampleNameColumn) {
+	public ResponseEntity<Map<String, Object>> setProjectSampleMetadataSampleId(HttpSession session,
+			@PathVariable long projectId, @RequestParam String sampleNameColumn) {
 		// Attempt to get the metadata from the sessions
 		SampleMetadataStorage stored = (SampleMetadataStorage) session.getAttribute("pm-" + projectId);
 
 		if (stored != null) {
 			stored.setSampleNameColumn(sampleNameColumn);
 			Project project = projectService.read(projectId);
-			List<Map<String, String>> rows = stored.getRows();
-
-			// Remove 'rows' since they are now going to be sorted into found and not found.
-			stored.removeRows();
-			List<Map<String, String>> found = new ArrayList<>();
-			List<Map<String, String>> missing = new ArrayList<>();
-
-			// Get the metadata out of the table.
-			for (Map<String, String> row : rows) {
-				try {
-					// If this throws an error than the sample does not exist.
-					sampleService.getSampleBySampleName(project, row.get(sampleNameColumn));
-					found.add(row);
-				} catch (EntityNotFoundException e) {
-					missing.add(row);
-				}
+
+			// Look up all of the samples named in the table at once.
+			Set<String> sampleNames = new HashSet<>();
+			try {
+				stored.readRows(row -> {
+					if (row.get(sampleNameColumn) != null) {
+						sampleNames.add(row.get(sampleNameColumn));
+					}
+				});
+			} catch (IOException e) {
+				logger.error("Error reading uploaded metadata for project " + projectId, e);
+				return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+						.body(ImmutableMap.of("result", "error"));
 			}
+			Map<String, Sample> samples = sampleService.getSamplesBySampleNames(project, sampleNames);
 
-			stored.saveFound(found);
-			stored.saveMissing(missing);
+			// The rows are now sorted into found and not found by the names of the samples that exist.
+			stored.saveFoundSampleNames(new HashSet<>(samples.keySet()));
 		}
 
-		return ImmutableMap.of("result", "complete");
+		return ResponseEntity.ok(ImmutableMap.of("result", "complete"));
 	}
 
 	/**
@@ -265,69 +293,131 @@ public class ProjectSampleMetadataController {
 		SampleMetadataStorage stored = (SampleMetadataStorage) session.getAttribute("pm-" + projectId);
 		if (stored == null) {
 			errors.put("stored-error", true);
+			return errors;
 		}
 
-		List<Sample> samplesToUpdate = new ArrayList<>();
-
-		List<Map<String, String>> found = stored.getFound();
-		if (found != null) {
+		if (stored.getSampleNameColumn() != null) {
 			// Lets try to get a sample
 			String sampleNameColumn = stored.getSampleNameColumn();
 			List<String> errorList = new ArrayList<>();
-			try {
-				for (Map<String, String> row : found) {
-
-					String name = row.get(sampleNameColumn);
-					Sample sample = sampleService.getSampleBySampleName(project, name);
-					row.remove(sampleNameColumn);
 
-					Map<MetadataTemplateField, MetadataEntry> newData = new HashMap<>();
-
-					// Need to overwrite duplicate keys
-					for (Entry<String, String> entry : row.entrySet()) {
+			// Create any new metadata fields up front rather than once per row and cell.
+			Set<String> labels = new HashSet<>();
+			try {
+				stored.readFound(row -> {
+					for (String label : row.keySet()) {
 						// Make sure we are not saving non-metadata items.
-						if (!DEFAULT_HEADERS.contains(entry.getKey())) {
-							MetadataTemplateField key = metadataTemplateService.readMetadataFieldByLabel(
-									entry.getKey());
-
-							if (key == null) {
-								key = metadataTemplateService.saveMetadataField(
-										new MetadataTemplateField(entry.getKey(), "text"));
-							}
-
-							newData.put(key, new MetadataEntry(entry.getValue(), "text"));
+						if (!label.equals(sampleNameColumn) && !DEFAULT_HEADERS.contains(label)) {
+							labels.add(label);
 						}
 					}
+				});
+			} catch (IOException e) {
+				return readError(locale, projectId, e);
+			}
 
-					sample.mergeMetadata(newData);
-
-					// Save metadata back to the sample
-
-					samplesToUpdate.add(sample);
-
-				}
+			Map<String, MetadataTemplateField> fields = metadataTemplateService.getOrCreateMetadataFields(labels);
 
-				sampleService.updateMultiple(samplesToUpdate);
-			} catch (EntityNotFoundException e) {
-				// This really should not happen, but hey, you never know!
-				errorList.add(messageSource.getMessage("metadata.results.save.sample-not-found",
-						new Object[] { e.getMessage() }, locale));
+			// Save the rows in chunks, each in its own transaction, so only one chunk of samples is held in memory.
+			Set<String> updatedSampleNames = new HashSet<>();
+			List<Map<String, String>> chunk = new ArrayList<>();
+			try {
+				stored.readFound(row -> {
+					chunk.add(row);
+					if (chunk.size() == SAVE_BATCH_SIZE) {
+						saveMetadataChunk(project, sampleNameColumn, chunk, fields, updatedSampleNames, errorList,
+								locale);
+						chunk.clear();
+					}
+				});
+			} catch (IOException e) {
+				return readError(locale, projectId, e);
+			}
+			if (!chunk.isEmpty()) {
+				saveMetadataChunk(project, sampleNameColumn, chunk, fields, updatedSampleNames, errorList, locale);
 			}
 
 			if (errorList.size() > 0) {
 				errors.put("save-errors", errorList);
 			}
+
+			if (errors.size() == 0) {
+				return ImmutableMap.of("success", messageSource.getMessage("metadata.results.save.success",
+						new Object[] { updatedSampleNames.size() }, locale));
+			}
 		} else {
 			errors.put("found-error",
 					messageSource.getMessage("metadata.results.save.found-error", new Object[] {}, locale));
 		}
-		if (errors.size() == 0) {
-			return ImmutableMap.of("success",
-					messageSource.getMessage("metadata.results.save.success", new Object[] { found.size() }, locale));
-		}
 		return errors;
 	}
 
+	/**
+	 * Merge the metadata in a chunk of uploaded rows into their samples and save the samples in one transaction.
+	 *
+	 * @param project            the {@link Project} the samples are in
+	 * @param sampleNameColumn   the column holding the sample names
+	 * @param rows               the rows to save
+	 * @param fields             the {@link MetadataTemplateField}s by column
+	 * @param updatedSampleNames the names of the samples saved so far, to add the saved samples to
+	 * @param errorList          the errors so far, to add errors for samples which couldn't be found to
+	 * @param locale             {@link Locale} of the current user.
+	 */
+	private void saveMetadataChunk(Project project, String sampleNameColumn, List<Map<String, String>> rows,
+			Map<String, MetadataTemplateField> fields, Set<String> updatedSampleNames, List<String> errorList,
+			Locale locale) {
+		Set<String> sampleNames = new HashSet<>();
+		for (Map<String, String> row : rows) {
+			sampleNames.add(row.get(sampleNameColumn));
+		}
+		Map<String, Sample> samples = sampleService.getSamplesBySampleNames(project, sampleNames);
+
+		Set<Sample> samplesToUpdate = new LinkedHashSet<>();
+		for (Map<String, String> row : rows) {
+			String name = row.get(sampleNameColumn);
+			Sample sample = samples.get(name);
+			if (sample == null) {
+				// This really should not happen, but hey, you never know!
+				errorList.add(messageSource.getMessage("metadata.results.save.sample-not-found", new Object[] { name },
+						locale));
+				continue;
+			}
+
+			Map<MetadataTemplateField, MetadataEntry> newData = new HashMap<>();
+
+			// Need to overwrite duplicate keys
+			for (Entry<String, String> entry : row.entrySet()) {
+				MetadataTemplateField key = fields.get(entry.getKey());
+				if (key != null) {
+					newData.put(key, new MetadataEntry(entry.getValue(), "text"));
+				}
+			}
+
+			sample.mergeMetadata(newData);
+
+			// Save metadata back to the sample
+			samplesToUpdate.add(sample);
+		}
+
+		sampleService.updateMultiple(samplesToUpdate);
+		samplesToUpdate.forEach(sample -> updatedSampleNames.add(sample.getSampleName()));
+	}
+
+	/**
+	 * Log an error reading the uploaded metadata back from its temporary file and get the error to return to the
+	 * client.
+	 *
+	 * @param locale    {@link Locale} of the current user.
+	 * @param projectId {@link Long} identifier for the current project
+	 * @param e         the {@link IOException} reading the file.
+	 * @return {@link Map} of the error.
+	 */
+	private Map<String, Object> readError(Locale locale, long projectId, IOException e) {
+		logger.error("Error reading uploaded metadata for project " + projectId, e);
+		return ImmutableMap.of("save-errors", ImmutableList.of(
+				messageSource.getMessage("metadata.results.save.read-error", new Object[] {}, locale)));
+	}
+
 	/**
 	 * Clear any uploaded sample metadata stored into the session.
 	 *
@@ -1,7 +1,6 @@
 package ca.corefacility.bioinformatics.irida.ria.web.samples;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -49,6 +48,7 @@ import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
 import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 import ca.corefacility.bioinformatics.irida.web.controller.api.projects.RESTProjectSamplesController;
+import ca.corefacility.bioinformatics.irida.web.spring.view.HttpRangeFileWriter;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -343,6 +343,8 @@ public class SamplesController extends BaseController {
 	 *            Id for the sample containing the assembly to download.
 	 * @param assemblyId
 	 *            The id for the assembly.
+	 * @param request
+	 *            {@link HttpServletRequest}
 	 * @param response
 	 *            {@link HttpServletResponse}
 	 * @throws IOException
@@ -350,15 +352,14 @@ public class SamplesController extends BaseController {
 	 */
 	@RequestMapping("/samples/download/{sampleId}/assembly/{assemblyId}")
 	public void downloadAssembly(@PathVariable Long sampleId, @PathVariable Long assemblyId,
-			HttpServletResponse response) throws IOException {
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
 		Sample sample = sampleService.read(sampleId);
 		GenomeAssembly genomeAssembly = genomeAssemblyService.getGenomeAssemblyForSample(sample, assemblyId);
 
 		Path path = genomeAssembly.getFile();
 		response.setHeader("Content-Disposition",
 				"attachment; filename=\"" + genomeAssembly.getLabel() + "\"");
-		Files.copy(path, response.getOutputStream());
-		response.flushBuffer();
+		HttpRangeFileWriter.writeFile(path, request, response);
 	}
 
 	/**
@@ -1,7 +1,12 @@
 package ca.corefacility.bioinformatics.irida.security.permissions;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +49,24 @@ public abstract class BasePermission<DomainObjectType, IdentifierType extends Se
 	protected abstract boolean customPermissionAllowed(Authentication authentication,
 			DomainObjectType targetDomainObject);
 
+	/**
+	 * This method is called by {@link BasePermission} to evaluate the custom
+	 * permissions for a collection of objects. By default each object is
+	 * tested with {@link #customPermissionAllowed(Authentication, Object)}.
+	 * Implementing classes can override this to test the whole collection with
+	 * a few set-based queries.
+	 * 
+	 * @param authentication
+	 *            the authenticated user.
+	 * @param targetDomainObjects
+	 *            the objects that the user is attempting to access.
+	 * @return true if permitted for every object, false otherwise.
+	 */
+	protected boolean customPermissionAllowedAll(Authentication authentication,
+			Collection<DomainObjectType> targetDomainObjects) {
+		return targetDomainObjects.stream().allMatch(o -> customPermissionAllowed(authentication, o));
+	}
+
 	/**
 	 * The type of object to be loaded from the database.
 	 */
@@ -117,7 +140,10 @@ public abstract class BasePermission<DomainObjectType, IdentifierType extends Se
 	}
 
 	/**
-	 * Tests permission for a collection of objects.
+	 * Tests permission for a collection of objects. Any identifiers in the
+	 * collection are loaded together, then the objects that aren't fast
+	 * passed for administrators are tested together with
+	 * {@link #customPermissionAllowedAll(Authentication, Collection)}.
 	 * 
 	 * @param authentication
 	 *            The Authentication object.
@@ -128,13 +154,51 @@ public abstract class BasePermission<DomainObjectType, IdentifierType extends Se
 	 * @throws EntityNotFoundException
 	 *             If one of the objects in the collection does not exist.
 	 */
+	@SuppressWarnings("unchecked")
 	private boolean customPermissionAllowedCollection(Authentication authentication, Collection<?> targetDomainObjects) {
-		boolean permitted = true;
+		final List<DomainObjectType> domainObjects = new ArrayList<>(targetDomainObjects.size());
+		final Set<IdentifierType> ids = new HashSet<>();
+
 		for (Object domainObjectInCollection : targetDomainObjects) {
-			permitted &= customPermissionAllowedSingleObject(authentication, domainObjectInCollection);
+			if (identifierType.isAssignableFrom(domainObjectInCollection.getClass())) {
+				ids.add((IdentifierType) domainObjectInCollection);
+			} else if (domainObjectType.isAssignableFrom(domainObjectInCollection.getClass())) {
+				domainObjects.add((DomainObjectType) domainObjectInCollection);
+			} else {
+				throw new IllegalArgumentException("Parameter to " + getClass().getName()
+						+ " must be of type Long or " + domainObjectType.getName() + ".");
+			}
+		}
+
+		if (!ids.isEmpty()) {
+			logger.trace("Trying to find domain objects by id " + ids);
+			int found = 0;
+			for (DomainObjectType domainObject : repository.findAllById(ids)) {
+				domainObjects.add(domainObject);
+				found++;
+			}
+
+			if (found != ids.size()) {
+				throw new EntityNotFoundException("Could not find all entities with ids " + ids);
+			}
+		}
+
+		final boolean isAdmin = authentication.getAuthorities()
+				.stream()
+				.anyMatch(g -> g.getAuthority().equals(ADMIN_AUTHORITY));
+
+		/**
+		 * Fast pass the objects that administrators are allowed to access
+		 */
+		final List<DomainObjectType> toCheck = domainObjects.stream()
+				.filter(o -> !(isAdmin && adminAccessAllowed(authentication, o)))
+				.collect(Collectors.toList());
+
+		if (toCheck.isEmpty()) {
+			return true;
 		}
 
-		return permitted;
+		return customPermissionAllowedAll(authentication, toCheck);
 	}
 
 	/**
@@ -13,6 +13,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.core.Authentication;
 
+import com.google.common.collect.Lists;
+
 /**
  * Custom permission evaluator to determine whether or not an authenticated user
  * has authorization to view or modify a resource.
@@ -61,6 +63,17 @@ public class IridaPermissionEvaluator implements PermissionEvaluator {
 		}
 
 		BasePermission<?,?> permissionEvaluator = namedPermissionMap.get(permission.toString());
+
+		/*
+		 * Collections are evaluated together by the permission so it can load
+		 * and check the whole collection at once. Other iterables (ie. the
+		 * idents passed to readMultiple) are collected so they're evaluated
+		 * the same way.
+		 */
+		if (targetDomainObject instanceof Iterable<?> && !(targetDomainObject instanceof Collection<?>)) {
+			targetDomainObject = Lists.newArrayList((Iterable<?>) targetDomainObject);
+		}
+
 		boolean allowed = permissionEvaluator.isAllowed(authentication, targetDomainObject);
 
 		logger.trace("Permission request for access to [" + targetDomainObject + "] with permission [" + permission
@@ -0,0 +1,248 @@
+package ca.corefacility.bioinformatics.irida.security.permissions;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupProjectJoin;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectUserJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.UserGroupProjectJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Cache of the {@link ProjectRole} a user has on a {@link Project}, either
+ * directly or through their user groups. This is shared by the
+ * {@link BasePermission}s that need to know if a user is a member of a project
+ * so that checking many objects in the same project doesn't repeatedly load the
+ * project's members.
+ *
+ * Entries must be invalidated whenever a {@link ProjectUserJoin},
+ * {@link UserGroupProjectJoin} or
+ * {@link ca.corefacility.bioinformatics.irida.model.user.group.UserGroupJoin}
+ * is written. This is done by {@link ProjectMembershipCacheAspect}.
+ * <p>
+ * Invalidation only reaches the cache of the server that made the change, so
+ * a membership changed on one IRIDA server may still be granted on another
+ * until its entry expires. Caching is off unless
+ * <code>security.project.membership.cache.seconds</code> is set, and it should
+ * be kept short when more than one server shares the database.
+ */
+@Component
+public class ProjectMembershipCache {
+	private static final Logger logger = LoggerFactory.getLogger(ProjectMembershipCache.class);
+
+	private static final long MAXIMUM_SIZE = 10000;
+
+	private final UserRepository userRepository;
+	private final ProjectUserJoinRepository pujRepository;
+	private final UserGroupProjectJoinRepository ugpjRepository;
+
+	// null when caching is turned off
+	private final Cache<MembershipKey, Optional<ProjectRole>> cache;
+
+	/*
+	 * Incremented on every invalidation so that a membership loaded while a
+	 * join was being written isn't put back in the cache after the write.
+	 */
+	private final AtomicLong generation = new AtomicLong();
+
+	/**
+	 * Construct an instance of {@link ProjectMembershipCache}.
+	 *
+	 * @param userRepository the user repository.
+	 * @param pujRepository  the project user join repository.
+	 * @param ugpjRepository the user group project join repository.
+	 * @param cacheSeconds   how long a membership is trusted after it's
+	 *                       loaded (which is also how long a change made on
+	 *                       another server may go unnoticed), or 0 to not
+	 *                       cache memberships.
+	 */
+	@Autowired
+	public ProjectMembershipCache(final UserRepository userRepository, final ProjectUserJoinRepository pujRepository,
+			final UserGroupProjectJoinRepository ugpjRepository,
+			@Value("${security.project.membership.cache.seconds:0}") final long cacheSeconds) {
+		this.userRepository = userRepository;
+		this.pujRepository = pujRepository;
+		this.ugpjRepository = ugpjRepository;
+
+		if (cacheSeconds > 0) {
+			this.cache = CacheBuilder.newBuilder()
+					.maximumSize(MAXIMUM_SIZE)
+					.expireAfterWrite(cacheSeconds, TimeUnit.SECONDS)
+					.build();
+		} else {
+			this.cache = null;
+		}
+	}
+
+	/**
+	 * Get the role a user has on a project. If the user has a role both
+	 * directly and through a group, the highest role is returned.
+	 *
+	 * @param username the username of the user
+	 * @param project  the {@link Project} to check
+	 * @return the user's {@link ProjectRole} on the project, or empty if the
+	 * user isn't a member of the project.
+	 */
+	public Optional<ProjectRole> getProjectRole(final String username, final Project project) {
+		if (cache == null || project.getId() == null) {
+			return loadProjectRole(username, project);
+		}
+
+		final MembershipKey key = new MembershipKey(username, project.getId());
+		Optional<ProjectRole> role = cache.getIfPresent(key);
+
+		if (role == null) {
+			final long loadedGeneration = generation.get();
+			role = loadProjectRole(username, project);
+
+			if (generation.get() == loadedGeneration) {
+				cache.put(key, role);
+			}
+		} else {
+			logger.trace("Using cached role for [" + username + "] on project [" + project.getId() + "]");
+		}
+
+		return role;
+	}
+
+	/**
+	 * Load the role a user has on a project from the database.
+	 *
+	 * @param username the username of the user
+	 * @param project  the {@link Project} to check
+	 * @return the user's {@link ProjectRole} on the project, or empty if the
+	 * user isn't a member of the project.
+	 */
+	private Optional<ProjectRole> loadProjectRole(final String username, final Project project) {
+		final User u = userRepository.loadUserByUsername(username);
+
+		ProjectRole role = null;
+
+		final ProjectUserJoin projectUser = pujRepository.getProjectJoinForUser(project, u);
+		if (projectUser != null) {
+			role = projectUser.getProjectRole();
+		}
+
+		if (role != ProjectRole.PROJECT_OWNER) {
+			for (final UserGroupProjectJoin group : ugpjRepository.findGroupsByProjectAndUser(project, u)) {
+				if (role == null || group.getProjectRole() == ProjectRole.PROJECT_OWNER) {
+					role = group.getProjectRole();
+				}
+			}
+		}
+
+		return Optional.ofNullable(role);
+	}
+
+	/**
+	 * Invalidate the membership of a user on a project.
+	 *
+	 * @param user    the {@link User}
+	 * @param project the {@link Project}
+	 */
+	public void invalidate(final User user, final Project project) {
+		invalidateMatching(k -> k.username.equals(user.getUsername()) && k.projectId.equals(project.getId()));
+	}
+
+	/**
+	 * Invalidate the membership of every user on a project.
+	 *
+	 * @param project the {@link Project}
+	 */
+	public void invalidateProject(final Project project) {
+		invalidateMatching(k -> k.projectId.equals(project.getId()));
+	}
+
+	/**
+	 * Invalidate the membership of a user on every project.
+	 *
+	 * @param user the {@link User}
+	 */
+	public void invalidateUser(final User user) {
+		invalidateMatching(k -> k.username.equals(user.getUsername()));
+	}
+
+	/**
+	 * Invalidate every cached membership.
+	 */
+	public void invalidateAll() {
+		invalidateMatching(k -> true);
+	}
+
+	/**
+	 * Remove the matching entries from the cache. If a transaction is running
+	 * the entries are removed again once it completes, so that memberships
+	 * read by other threads before the transaction committed aren't kept.
+	 *
+	 * @param matches the entries to remove
+	 */
+	private void invalidateMatching(final Predicate<MembershipKey> matches) {
+		if (cache == null) {
+			return;
+		}
+
+		evict(matches);
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					evict(matches);
+				}
+			});
+		}
+	}
+
+	private void evict(final Predicate<MembershipKey> matches) {
+		generation.incrementAndGet();
+		cache.asMap().keySet().removeIf(matches);
+	}
+
+	/**
+	 * Key for a user's membership on a project
+	 */
+	private static class MembershipKey {
+		private final String username;
+		private final Long projectId;
+
+		MembershipKey(final String username, final Long projectId) {
+			this.username = username;
+			this.projectId = projectId;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof MembershipKey)) {
+				return false;
+			}
+			MembershipKey that = (MembershipKey) o;
+			return Objects.equals(username, that.username) && Objects.equals(projectId, that.projectId);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(username, projectId);
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package ca.corefacility.bioinformatics.irida.security.permissions;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.After;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupJoin;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupProjectJoin;
+
+/**
+ * Aspect invalidating the {@link ProjectMembershipCache} when project
+ * membership is written through the {@link ProjectUserJoin},
+ * {@link UserGroupProjectJoin} or {@link UserGroupJoin} repositories, or
+ * when a user group is deleted.
+ */
+@Aspect
+public class ProjectMembershipCacheAspect {
+	private static final Logger logger = LoggerFactory.getLogger(ProjectMembershipCacheAspect.class);
+
+	private final ProjectMembershipCache membershipCache;
+
+	public ProjectMembershipCacheAspect(final ProjectMembershipCache membershipCache) {
+		this.membershipCache = membershipCache;
+	}
+
+	/**
+	 * Invalidate the memberships affected by a save or delete on one of the
+	 * membership join repositories.
+	 *
+	 * @param jp the join point describing the repository method called
+	 */
+	@After("(execution(* save*(..)) || execution(* delete*(..))) && ("
+			+ "target(ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectUserJoinRepository) || "
+			+ "target(ca.corefacility.bioinformatics.irida.repositories.joins.project.UserGroupProjectJoinRepository) || "
+			+ "target(ca.corefacility.bioinformatics.irida.repositories.user.UserGroupJoinRepository))")
+	public void invalidateMemberships(JoinPoint jp) {
+		logger.trace("Invalidating project memberships after " + jp.toString());
+
+		if (jp.getArgs().length == 0) {
+			// ie. deleteAll()
+			membershipCache.invalidateAll();
+		}
+
+		for (Object arg : jp.getArgs()) {
+			invalidate(arg);
+		}
+	}
+
+	/**
+	 * Invalidate every membership when a user group is deleted, as the
+	 * group's joins are removed by cascade rather than by the repositories.
+	 *
+	 * @param jp the join point describing the repository method called
+	 */
+	@After("execution(* delete*(..)) && target(ca.corefacility.bioinformatics.irida.repositories.user.UserGroupRepository)")
+	public void invalidateGroupMemberships(JoinPoint jp) {
+		logger.trace("Invalidating project memberships after " + jp.toString());
+		membershipCache.invalidateAll();
+	}
+
+	/**
+	 * Invalidate the memberships affected by writing the given object.
+	 *
+	 * @param written the object passed to the repository
+	 */
+	private void invalidate(Object written) {
+		if (written instanceof ProjectUserJoin) {
+			ProjectUserJoin join = (ProjectUserJoin) written;
+			membershipCache.invalidate(join.getObject(), join.getSubject());
+		} else if (written instanceof UserGroupProjectJoin) {
+			membershipCache.invalidateProject(((UserGroupProjectJoin) written).getSubject());
+		} else if (written instanceof UserGroupJoin) {
+			membershipCache.invalidateUser(((UserGroupJoin) written).getSubject());
+		} else if (written instanceof Iterable<?>) {
+			for (Object o : (Iterable<?>) written) {
+				invalidate(o);
+			}
+		} else {
+			// an identifier, we don't know who it affects
+			membershipCache.invalidateAll();
+		}
+	}
+}
@@ -1,6 +1,10 @@
 package ca.corefacility.bioinformatics.irida.security.permissions.analysis;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.slf4j.Logger;
@@ -146,4 +150,72 @@ public class ReadAnalysisSubmissionPermission extends BasePermission<AnalysisSub
 				"Permission DENIED for [" + authentication + "] on analysis submission [" + analysisSubmission + "]");
 		return false;
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean customPermissionAllowedAll(Authentication authentication,
+			Collection<AnalysisSubmission> analysisSubmissions) {
+		logger.trace("Testing permission for [" + authentication + "] on " + analysisSubmissions.size()
+				+ " analysis submissions");
+		User u = userRepository.loadUserByUsername(authentication.getName());
+
+		// the submissions that haven't been granted yet
+		Map<Long, AnalysisSubmission> remaining = new HashMap<>();
+		for (AnalysisSubmission analysisSubmission : analysisSubmissions) {
+			if (!analysisSubmission.getSubmitter().equals(u)) {
+				remaining.put(analysisSubmission.getId(), analysisSubmission);
+			}
+		}
+
+		if (remaining.isEmpty()) {
+			return true;
+		}
+
+		/*
+		 * Check the projects the remaining submissions are shared with, only
+		 * checking each distinct project one time.
+		 */
+		Map<Long, Boolean> readableProjects = new HashMap<>();
+		for (ProjectAnalysisSubmissionJoin j : pasRepository.getProjectsForSubmissions(remaining.values())) {
+			boolean canReadProject = readableProjects.computeIfAbsent(j.getSubject().getId(),
+					id -> readProjectPermission.customPermissionAllowed(authentication, j.getSubject()));
+			if (canReadProject) {
+				remaining.remove(j.getObject().getId());
+			}
+		}
+
+		if (remaining.isEmpty()) {
+			return true;
+		}
+
+		/*
+		 * Check if the remaining submissions are the auto assembly or sistr
+		 * for a file and if they can read the file
+		 */
+		Set<SequencingObject> automatedInputFiles = sequencingObjectRepository
+				.findSequencingObjectsForAutomatedAnalysisSubmissions(remaining.values());
+		for (SequencingObject o : automatedInputFiles) {
+			List<Long> automatedIds = new ArrayList<>();
+			if (o.getAutomatedAssembly() != null && remaining.containsKey(o.getAutomatedAssembly().getId())) {
+				automatedIds.add(o.getAutomatedAssembly().getId());
+			}
+			if (o.getSistrTyping() != null && remaining.containsKey(o.getSistrTyping().getId())) {
+				automatedIds.add(o.getSistrTyping().getId());
+			}
+
+			if (!automatedIds.isEmpty() && seqObjectPermission.customPermissionAllowed(authentication, o)) {
+				automatedIds.forEach(remaining::remove);
+			}
+		}
+
+		if (!remaining.isEmpty()) {
+			logger.trace("Permission DENIED for [" + authentication + "] on analysis submissions "
+					+ remaining.keySet());
+			return false;
+		}
+
+		return true;
+	}
 }
@@ -1,5 +1,11 @@
 package ca.corefacility.bioinformatics.irida.security.permissions.files;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -61,6 +67,32 @@ public class ReadSequencingObjectPermission extends BasePermission<SequencingObj
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean customPermissionAllowedAll(final Authentication authentication,
+			final Collection<SequencingObject> sequencingObjects) {
+		// load the samples for every sequencing object at once, then check the
+		// distinct samples together.
+		final Map<Long, Sample> samples = new HashMap<>();
+		final Set<Long> joinedObjects = new HashSet<>();
+
+		for (SampleSequencingObjectJoin join : ssoRepository.getSamplesForSequencingObjects(sequencingObjects)) {
+			joinedObjects.add(join.getObject().getId());
+			samples.putIfAbsent(join.getSubject().getId(), join.getSubject());
+		}
+
+		if (!sequencingObjects.stream().allMatch(o -> joinedObjects.contains(o.getId()))) {
+			logger.trace("Permission denied for reading sequencing objects by user=" + authentication.getName()
+					+ ", no joined sample found for at least one object.");
+
+			return false;
+		}
+
+		return samplePermission.isAllowed(authentication, samples.values());
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
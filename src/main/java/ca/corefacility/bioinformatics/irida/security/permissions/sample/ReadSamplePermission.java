@@ -1,6 +1,11 @@
 package ca.corefacility.bioinformatics.irida.security.permissions.sample;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
@@ -60,6 +65,28 @@ public class ReadSamplePermission extends BasePermission<Sample, Long> {
 		return projectForSample.stream().anyMatch(j -> readProjectPermission.isAllowed(authentication, j.getSubject()));
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean customPermissionAllowedAll(Authentication authentication, Collection<Sample> samples) {
+		// load the projects for every sample at once, then only check each
+		// distinct project one time.
+		final Map<Long, Boolean> readableProjects = new HashMap<>();
+		final Set<Long> readableSamples = new HashSet<>();
+
+		for (Join<Project, Sample> join : psjRepository.getProjectsForSamples(samples)) {
+			final Project project = join.getSubject();
+			final boolean canRead = readableProjects.computeIfAbsent(project.getId(),
+					id -> readProjectPermission.isAllowed(authentication, project));
+			if (canRead) {
+				readableSamples.add(join.getObject().getId());
+			}
+		}
+
+		return samples.stream().allMatch(s -> readableSamples.contains(s.getId()));
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
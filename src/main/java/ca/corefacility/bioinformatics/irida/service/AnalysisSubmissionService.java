@@ -330,21 +330,25 @@ public interface AnalysisSubmissionService extends CRUDService<Long, AnalysisSub
 	List<ProjectSampleAnalysisOutputInfo> getAllAutomatedAnalysisOutputInfoForAProject(Long projectId);
 
 	/**
-	 * Get the status of the analysis service.  This will be the number of running and queued analyses
+	 * Get the status of the analysis service.  This will be the number of running and queued analyses, and the number
+	 * of analyses in each running {@link AnalysisState} and {@link AnalysisState#NEW}
 	 * @return An {@link AnalysisServiceStatus} object showing the number of running and queued analyses
 	 */
 	public AnalysisServiceStatus getAnalysisServiceStatus();
 
 	/**
-	 * Class to store the number of running and queued analyses
+	 * Class to store the number of running and queued analyses, and the number of analyses waiting in or working on
+	 * each stage
 	 */
 	class AnalysisServiceStatus {
 		private Long running;
 		private Long queued;
+		private Map<AnalysisState, Long> stateCounts;
 
-		public AnalysisServiceStatus(Long running, Long queued) {
+		public AnalysisServiceStatus(Long running, Long queued, Map<AnalysisState, Long> stateCounts) {
 			this.running = running;
 			this.queued = queued;
+			this.stateCounts = stateCounts;
 		}
 
 		public Long getRunning() {
@@ -355,9 +359,27 @@ public interface AnalysisSubmissionService extends CRUDService<Long, AnalysisSub
 			return queued;
 		}
 
+		public Map<AnalysisState, Long> getStateCounts() {
+			return stateCounts;
+		}
+
+		/**
+		 * Get the number of analyses in the given states
+		 *
+		 * @param states the states to count analyses in
+		 * @return the number of analyses in any of the states
+		 */
+		public long getCount(AnalysisState... states) {
+			long count = 0;
+			for (AnalysisState state : states) {
+				count += stateCounts.getOrDefault(state, 0L);
+			}
+			return count;
+		}
+
 		@Override
 		public String toString() {
-			return "Running: " + running + ", Queued: " + queued;
+			return "Running: " + running + ", Queued: " + queued + ", By state: " + stateCounts;
 		}
 	}
 }
@@ -15,8 +15,8 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.lang.management.ManagementFactory;
-import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service used to run a {@link FileProcessingChain} on incoming {@link SequencingObject}s.
@@ -33,6 +33,8 @@ public class SequencingObjectProcessingService {
 
 	private final String machineString;
 
+	private final ClaimStatistics claimStatistics = new ClaimStatistics();
+
 	@Autowired
 	public SequencingObjectProcessingService(SequencingObjectRepository sequencingObjectRepository,
 			@Qualifier("fileProcessingChainExecutor") ThreadPoolTaskExecutor executor,
@@ -58,31 +60,85 @@ public class SequencingObjectProcessingService {
 	 */
 	public synchronized void findFilesToProcess() {
 		//check our queue space
-		int queueSpace = fileProcessingChainExecutor.getCorePoolSize() - fileProcessingChainExecutor.getActiveCount();
+		int queueSpace = getQueueSpace();
 
 		logger.trace("Processor " + machineString + " + has queuespace: " + queueSpace);
 
-		//check for any unprocessed files
-		List<SequencingObject> toProcess = sequencingObjectRepository
-				.getSequencingObjectsWithProcessingState(SequencingObject.ProcessingState.UNPROCESSED);
+		if (queueSpace <= 0) {
+			return;
+		}
+
+		//claim as many unprocessed files as we have room for in one statement
+		claimStatistics.claimAttempts.incrementAndGet();
+		int claimed;
+		try {
+			claimed = sequencingObjectRepository.claimUnprocessedSequencingObjects(machineString, queueSpace);
+		} catch (CannotAcquireLockException ex) {
+			//If we can't get the lock, other processors are claiming the same files.  Try again next time around.
+			claimStatistics.lockFailures.incrementAndGet();
+			logger.info("Couldn't get transaction lock to claim files for processor " + machineString + ". "
+					+ claimStatistics);
+			return;
+		}
 
-		// individually loop through and mark the ones we're going to process.  Looping individually so 2 processes are less likely to write at the same time.
-		Iterator<SequencingObject> iterator = toProcess.iterator();
+		claimStatistics.claimed.addAndGet(claimed);
+		claimStatistics.lastBatchSize = claimed;
 
-		while (queueSpace > 0 && iterator.hasNext()) {
-			SequencingObject sequencingObject = iterator.next();
+		if (claimed > 0) {
+			logger.info("File processor " + machineString + " claimed " + claimed + " of " + queueSpace
+					+ " requested files. " + claimStatistics);
+		}
+	}
+
+	/**
+	 * Immediately process a newly created {@link SequencingObject} if this processor has room for it. If it doesn't,
+	 * the object will be found by {@link #findFilesToProcess()} later on.
+	 *
+	 * @param sequencingObjectId the id of the {@link SequencingObject} to process
+	 */
+	public synchronized void processSequencingObject(Long sequencingObjectId) {
+		if (getQueueSpace() <= 0) {
+			logger.trace("Processor " + machineString + " has no room for new file " + sequencingObjectId
+					+ ", leaving it for the scheduled task");
+			return;
+		}
 
-			logger.trace("File processor " + machineString + " is processing file " + sequencingObject.getId());
+		if (markForProcessing(sequencingObjectId)) {
+			processFiles();
+		}
+	}
 
-			try {
-				sequencingObjectRepository.markFileProcessor(sequencingObject.getId(), machineString,
-						SequencingObject.ProcessingState.QUEUED);
+	/**
+	 * Get the number of {@link SequencingObject}s this processor has room to process
+	 *
+	 * @return the number of free processing threads
+	 */
+	private int getQueueSpace() {
+		return fileProcessingChainExecutor.getCorePoolSize() - fileProcessingChainExecutor.getActiveCount();
+	}
 
-				queueSpace--;
-			} catch (CannotAcquireLockException ex) {
-				//If we can't get the lock, another processor is trying to pick up this file.  Let them have it.
-				logger.debug("Couldn't get transaction lock to mark file " + sequencingObject.getId());
+	/**
+	 * Mark that this processor is going to handle the given {@link SequencingObject}
+	 *
+	 * @param sequencingObjectId the id of the {@link SequencingObject} to mark
+	 * @return true if this processor marked the object, false if another processor got to it first
+	 */
+	private boolean markForProcessing(Long sequencingObjectId) {
+		logger.trace("File processor " + machineString + " is processing file " + sequencingObjectId);
+
+		claimStatistics.claimAttempts.incrementAndGet();
+		try {
+			boolean marked = sequencingObjectRepository.markFileProcessor(sequencingObjectId, machineString,
+					SequencingObject.ProcessingState.QUEUED) > 0;
+			if (marked) {
+				claimStatistics.claimed.incrementAndGet();
 			}
+			return marked;
+		} catch (CannotAcquireLockException ex) {
+			//If we can't get the lock, another processor is trying to pick up this file.  Let them have it.
+			claimStatistics.lockFailures.incrementAndGet();
+			logger.debug("Couldn't get transaction lock to mark file " + sequencingObjectId);
+			return false;
 		}
 	}
 
@@ -106,4 +162,57 @@ public class SequencingObjectProcessingService {
 							SecurityContextHolder.getContext()));
 		}
 	}
+
+	/**
+	 * Get the statistics for {@link SequencingObject}s claimed by this processor
+	 *
+	 * @return the {@link ClaimStatistics} for this processor
+	 */
+	public ClaimStatistics getClaimStatistics() {
+		return claimStatistics;
+	}
+
+	/**
+	 * Counts of the {@link SequencingObject}s claimed by a single file processor node
+	 */
+	public static class ClaimStatistics {
+		private final AtomicLong claimAttempts = new AtomicLong();
+		private final AtomicLong claimed = new AtomicLong();
+		private final AtomicLong lockFailures = new AtomicLong();
+		private volatile int lastBatchSize = 0;
+
+		/**
+		 * @return the number of times this processor has tried to claim files
+		 */
+		public long getClaimAttempts() {
+			return claimAttempts.get();
+		}
+
+		/**
+		 * @return the total number of files claimed by this processor
+		 */
+		public long getClaimed() {
+			return claimed.get();
+		}
+
+		/**
+		 * @return the number of claims that failed because another processor held the lock
+		 */
+		public long getLockFailures() {
+			return lockFailures.get();
+		}
+
+		/**
+		 * @return the number of files claimed by the most recent batch claim
+		 */
+		public int getLastBatchSize() {
+			return lastBatchSize;
+		}
+
+		@Override
+		public String toString() {
+			return "Claim attempts: " + getClaimAttempts() + ", claimed: " + getClaimed() + ", lock failures: "
+					+ getLockFailures() + ", last batch: " + getLastBatchSize();
+		}
+	}
 }
@@ -7,6 +7,7 @@ import ca.corefacility.bioinformatics.irida.exceptions.ExecutionManagerException
 import ca.corefacility.bioinformatics.irida.exceptions.IridaWorkflowAnalysisTypeException;
 import ca.corefacility.bioinformatics.irida.exceptions.IridaWorkflowException;
 import ca.corefacility.bioinformatics.irida.exceptions.IridaWorkflowNotFoundException;
+import ca.corefacility.bioinformatics.irida.model.enums.AnalysisState;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.Analysis;
 import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowStatus;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
@@ -67,6 +68,18 @@ public interface AnalysisExecutionService {
 	 */
 	public GalaxyWorkflowStatus getWorkflowStatus(AnalysisSubmission submittedAnalysis) throws ExecutionManagerException;
 
+	/**
+	 * Gets the status of an analysis from its remote analysis id, without
+	 * needing the whole {@link AnalysisSubmission}.
+	 * 
+	 * @param remoteAnalysisId
+	 *            The id of the analysis in the execution manager.
+	 * @return A WorkflowStatus object containing the status of the analysis.
+	 * @throws ExecutionManagerException
+	 *             If there was an issue checking the status.
+	 */
+	public GalaxyWorkflowStatus getWorkflowStatus(String remoteAnalysisId) throws ExecutionManagerException;
+
 	/**
 	 * Downloads and saves the results of an {@link AnalysisSubmission} that was
 	 * previously submitted from an execution manager.
@@ -121,4 +134,22 @@ public interface AnalysisExecutionService {
 	 * @return the number of available slots for running jobs
 	 */
 	public int getCapacity();
+
+
+	/**
+	 * Get the capacity of the stage that {@link AnalysisSubmission}s in the
+	 * given state are waiting for. This will return the number of submissions
+	 * in the state that can be started on their next stage, from the limit on
+	 * how many submissions that stage works on at once, and for submissions
+	 * waiting to be executed, how many can be running in the execution manager.
+	 * 
+	 * NOTE: Like {@link #getCapacity()}, this is not a hard limit.
+	 * 
+	 * @param analysisState
+	 *            The {@link AnalysisState} of the submissions waiting for
+	 *            their next stage.
+	 * @return the number of submissions that can be started on their next
+	 *         stage
+	 */
+	public int getCapacity(AnalysisState analysisState);
 }
@@ -17,7 +17,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 
 import java.io.IOException;
-import java.util.Collection;
 import java.util.concurrent.Future;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -35,10 +34,23 @@ public class AnalysisExecutionServiceGalaxy implements AnalysisExecutionService
 	private final GalaxyHistoriesService galaxyHistoriesService;
 	private final AnalysisExecutionServiceGalaxyAsync analysisExecutionServiceGalaxyAsync;
 	private final AnalysisExecutionServiceGalaxyCleanupAsync analysisExecutionServiceGalaxyCleanupAsync;
+	private final GalaxyWorkflowStatusCache galaxyWorkflowStatusCache;
 	
 	@Value("${irida.workflow.max-running}")
 	private int maxJobs;
 
+	@Value("${irida.workflow.max-galaxy-running:${irida.workflow.max-running}}")
+	private int maxGalaxyJobs;
+
+	@Value("${irida.workflow.max-submitting:4}")
+	private int maxSubmitting;
+
+	@Value("${irida.workflow.max-completing:4}")
+	private int maxCompleting;
+
+	@Value("${irida.workflow.max-post-processing:4}")
+	private int maxPostProcessing;
+
 	/**
 	 * Builds a new {@link AnalysisExecutionServiceGalaxy} with the given
 	 * information.
@@ -52,16 +64,20 @@ public class AnalysisExecutionServiceGalaxy implements AnalysisExecutionService
 	 *            the tasks asynchronously.
 	 * @param analysisExecutionServiceGalaxyCleanupAsync
 	 *            A service for cleaning up files in Galaxy.
+	 * @param galaxyWorkflowStatusCache
+	 *            The cache to record the status of running workflows in.
 	 */
 	@Autowired
 	public AnalysisExecutionServiceGalaxy(AnalysisSubmissionService analysisSubmissionService,
 			GalaxyHistoriesService galaxyHistoriesService,
 			AnalysisExecutionServiceGalaxyAsync analysisExecutionServiceGalaxyAsync,
-			AnalysisExecutionServiceGalaxyCleanupAsync analysisExecutionServiceGalaxyCleanupAsync) {
+			AnalysisExecutionServiceGalaxyCleanupAsync analysisExecutionServiceGalaxyCleanupAsync,
+			GalaxyWorkflowStatusCache galaxyWorkflowStatusCache) {
 		this.analysisSubmissionService = analysisSubmissionService;
 		this.galaxyHistoriesService = galaxyHistoriesService;
 		this.analysisExecutionServiceGalaxyAsync = analysisExecutionServiceGalaxyAsync;
 		this.analysisExecutionServiceGalaxyCleanupAsync = analysisExecutionServiceGalaxyCleanupAsync;
+		this.galaxyWorkflowStatusCache = galaxyWorkflowStatusCache;
 	}
 
 	/**
@@ -134,8 +150,20 @@ public class AnalysisExecutionServiceGalaxy implements AnalysisExecutionService
 		checkNotNull(submittedAnalysis, "submittedAnalysis is null");
 		checkNotNull(submittedAnalysis.getRemoteAnalysisId(), "remote analysis id is null");
 
-		String analysisId = submittedAnalysis.getRemoteAnalysisId();
-		return galaxyHistoriesService.getStatusForHistory(analysisId);
+		return getWorkflowStatus(submittedAnalysis.getRemoteAnalysisId());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public GalaxyWorkflowStatus getWorkflowStatus(String remoteAnalysisId) throws ExecutionManagerException {
+		checkNotNull(remoteAnalysisId, "remote analysis id is null");
+
+		GalaxyWorkflowStatus workflowStatus = galaxyHistoriesService.getStatusForHistory(remoteAnalysisId);
+		galaxyWorkflowStatusCache.putStatus(remoteAnalysisId, workflowStatus);
+
+		return workflowStatus;
 	}
 
 	/**
@@ -159,12 +187,42 @@ public class AnalysisExecutionServiceGalaxy implements AnalysisExecutionService
 	 */
 	@Override
 	public int getCapacity() {
-		Collection<AnalysisSubmission> runningAnalyses = analysisSubmissionService
-				.findAnalysesByState(AnalysisState.getRunningStates());
+		Long runningAnalyses = analysisSubmissionService.getAnalysisServiceStatus()
+				.getRunning();
 
-		int available = maxJobs - runningAnalyses.size();
+		int available = maxJobs - runningAnalyses.intValue();
 
 		logger.trace("Available analysis slots: " + available);
 		return available;
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getCapacity(AnalysisState analysisState) {
+		if (AnalysisState.NEW.equals(analysisState)) {
+			return getCapacity();
+		}
+
+		AnalysisSubmissionService.AnalysisServiceStatus status = analysisSubmissionService.getAnalysisServiceStatus();
+		long available;
+		switch (analysisState) {
+		case PREPARED:
+			available = Math.min(maxSubmitting - status.getCount(AnalysisState.SUBMITTING),
+					maxGalaxyJobs - status.getCount(AnalysisState.SUBMITTING, AnalysisState.RUNNING));
+			break;
+		case FINISHED_RUNNING:
+			available = maxCompleting - status.getCount(AnalysisState.COMPLETING);
+			break;
+		case TRANSFERRED:
+			available = maxPostProcessing - status.getCount(AnalysisState.POST_PROCESSING);
+			break;
+		default:
+			throw new IllegalArgumentException("No stage starts from analysis state " + analysisState);
+		}
+
+		logger.trace("Available slots for analyses in state " + analysisState + ": " + available);
+		return (int) available;
+	}
 }
@@ -0,0 +1,156 @@
+package ca.corefacility.bioinformatics.irida.service.analysis.execution.galaxy;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import ca.corefacility.bioinformatics.irida.exceptions.ExecutionManagerException;
+import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowStatus;
+import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyHistoriesService;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * The last known {@link GalaxyWorkflowStatus} of histories running in Galaxy,
+ * so the progress of running analyses can be shown without waiting on Galaxy.
+ * <p>
+ * Statuses are recorded when the running analyses are monitored. A status
+ * that's missing or older than the refresh interval (for example, when the
+ * analyses are monitored by another IRIDA server) is read again in the
+ * background, and reading the status never waits for Galaxy. The monitor reads
+ * the status of an analysis that isn't making progress less often (up to the
+ * monitor's maximum poll interval), so a status recorded by the monitor is
+ * only read again in the background once the monitor is overdue.
+ */
+@Component
+public class GalaxyWorkflowStatusCache {
+	private static final Logger logger = LoggerFactory.getLogger(GalaxyWorkflowStatusCache.class);
+
+	private static final long MAXIMUM_SIZE = 10000;
+
+	// statuses of histories that are no longer being read (because the
+	// analysis has finished running) are dropped
+	private static final long EXPIRE_MINUTES = 10;
+
+	private final GalaxyHistoriesService galaxyHistoriesService;
+	private final Executor executor;
+	private final long refreshMillis;
+	private final long monitoredRefreshMillis;
+
+	private final Cache<String, CachedStatus> statuses = CacheBuilder.newBuilder()
+			.maximumSize(MAXIMUM_SIZE)
+			.expireAfterAccess(EXPIRE_MINUTES, TimeUnit.MINUTES)
+			.build();
+
+	private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Construct an instance of {@link GalaxyWorkflowStatusCache}.
+	 *
+	 * @param galaxyHistoriesService the service used to read the status of a history.
+	 * @param executor               the executor used to read statuses in the background.
+	 * @param refreshSeconds         how old a status can be before it's read again.
+	 * @param monitorMaxPollSeconds  the longest time the analysis monitor waits between reading the status of an
+	 *                               analysis.
+	 */
+	@Autowired
+	public GalaxyWorkflowStatusCache(final GalaxyHistoriesService galaxyHistoriesService,
+			@Qualifier("galaxyStatusRefreshExecutor") final Executor executor,
+			@Value("${galaxy.status.cache.refresh.seconds:30}") final long refreshSeconds,
+			@Value("${irida.analysis.monitor.max-poll-seconds:120}") final long monitorMaxPollSeconds) {
+		this.galaxyHistoriesService = galaxyHistoriesService;
+		this.executor = executor;
+		this.refreshMillis = TimeUnit.SECONDS.toMillis(refreshSeconds);
+		// the monitor may wait up to its maximum poll interval before reading a status again
+		this.monitoredRefreshMillis = refreshMillis + TimeUnit.SECONDS.toMillis(monitorMaxPollSeconds);
+	}
+
+	/**
+	 * Get the last known status of a history. If the status is missing or out
+	 * of date, it's read again in the background.
+	 *
+	 * @param historyId the id of the history in Galaxy.
+	 * @return the last known status of the history, or empty if it hasn't
+	 *         been read yet.
+	 */
+	public Optional<GalaxyWorkflowStatus> getStatus(final String historyId) {
+		final CachedStatus cached = statuses.getIfPresent(historyId);
+
+		if (cached == null) {
+			refresh(historyId);
+		} else {
+			final long maxAge = cached.monitored ? monitoredRefreshMillis : refreshMillis;
+			if (System.currentTimeMillis() - cached.readTime > maxAge) {
+				refresh(historyId);
+			}
+		}
+
+		return cached == null ? Optional.empty() : Optional.of(cached.status);
+	}
+
+	/**
+	 * Record the status of a history that was just read from Galaxy by the
+	 * analysis monitor.
+	 *
+	 * @param historyId the id of the history in Galaxy.
+	 * @param status    the status of the history.
+	 */
+	public void putStatus(final String historyId, final GalaxyWorkflowStatus status) {
+		statuses.put(historyId, new CachedStatus(status, true));
+	}
+
+	/**
+	 * Read the status of a history in the background, unless it's already
+	 * being read.
+	 *
+	 * @param historyId the id of the history in Galaxy.
+	 */
+	private void refresh(final String historyId) {
+		if (!refreshing.add(historyId)) {
+			return;
+		}
+
+		try {
+			executor.execute(() -> {
+				try {
+					statuses.put(historyId,
+							new CachedStatus(galaxyHistoriesService.getStatusForHistory(historyId), false));
+				} catch (final ExecutionManagerException | RuntimeException e) {
+					logger.debug("Could not read status of history " + historyId, e);
+				} finally {
+					refreshing.remove(historyId);
+				}
+			});
+		} catch (final RejectedExecutionException e) {
+			logger.debug("Could not queue reading status of history " + historyId, e);
+			refreshing.remove(historyId);
+		}
+	}
+
+	/**
+	 * A status, when it was read, and whether it was read by the analysis
+	 * monitor.
+	 */
+	private static class CachedStatus {
+		private final GalaxyWorkflowStatus status;
+		private final long readTime;
+		private final boolean monitored;
+
+		private CachedStatus(final GalaxyWorkflowStatus status, final boolean monitored) {
+			this.status = status;
+			this.readTime = System.currentTimeMillis();
+			this.monitored = monitored;
+		}
+	}
+}
@@ -7,6 +7,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -26,12 +29,21 @@ import com.github.jmchilton.blend4j.galaxy.beans.HistoryContentsProvenance;
 import com.github.jmchilton.blend4j.galaxy.beans.JobDetails;
 import com.github.jmchilton.blend4j.galaxy.beans.Tool;
 import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 /**
  * A class used to collect provenance data from Galaxy that corresponds to a
  * specific output file generated by an analysis submission.
- * 
+ * <p>
+ * The provenance, tool and job of each step in a history are read from Galaxy
+ * once and kept in a graph for the history, so steps shared by several output
+ * files (or reached by more than one path from an output file) aren't read
+ * again.
  *
  */
 public class AnalysisProvenanceServiceGalaxy {
@@ -47,10 +59,20 @@ public class AnalysisProvenanceServiceGalaxy {
 	
 	private static final String COLLECTION = "dataset_collection";
 
+	// the outputs of an analysis are read at about the same time, so a graph
+	// only needs to be kept for a short time after it was last used
+	private static final long MAXIMUM_GRAPHS = 50;
+	private static final long EXPIRE_MINUTES = 10;
+
 	private final GalaxyHistoriesService galaxyHistoriesService;
 	private final ToolsClient toolsClient;
 	private final JobsClient jobsClient;
 
+	private final Cache<String, ProvenanceGraph> provenanceGraphs = CacheBuilder.newBuilder()
+			.maximumSize(MAXIMUM_GRAPHS)
+			.expireAfterAccess(EXPIRE_MINUTES, TimeUnit.MINUTES)
+			.build();
+
 	public AnalysisProvenanceServiceGalaxy(final GalaxyHistoriesService galaxyHistoriesService,
 			final ToolsClient toolsClient, final JobsClient jobsClient) {
 		this.galaxyHistoriesService = galaxyHistoriesService;
@@ -85,7 +107,32 @@ public class AnalysisProvenanceServiceGalaxy {
 	 */
 	public ToolExecution buildToolExecutionForOutputFile(final String remoteAnalysisId,
 			final String analysisOutputFilename) throws ExecutionManagerException {
-		final List<HistoryContents> historyContents = galaxyHistoriesService.showHistoryContents(remoteAnalysisId);
+		return buildToolExecutionForOutputFile(remoteAnalysisId, analysisOutputFilename,
+				galaxyHistoriesService.showHistoryContents(remoteAnalysisId));
+	}
+
+	/**
+	 * Build up a provenance report for a specific file that's attached to the
+	 * outputs of an analysis submission, using contents of the submission
+	 * history which have already been read.
+	 * 
+	 * @param remoteAnalysisId
+	 *            the identifier of the submission history that the output file
+	 *            is attached to on the execution manager (i.e., Galaxy's
+	 *            history id).
+	 * @param analysisOutputFilename
+	 *            the filename to build the report for. This should be the raw
+	 *            basename of the file (i.e., only the filename + extension
+	 *            part).
+	 * @param historyContents
+	 *            the contents of the submission history.
+	 * @return the complete report for the file.
+	 * @throws ExecutionManagerException
+	 *             if the provenance could not be shown for the specified file.
+	 */
+	public ToolExecution buildToolExecutionForOutputFile(final String remoteAnalysisId,
+			final String analysisOutputFilename, final List<HistoryContents> historyContents)
+			throws ExecutionManagerException {
 		// group the history contents by name. The names that we're interested
 		// in starting from should match the filename of the output file.
 		final Map<String, List<HistoryContents>> historyContentsByName = historyContents.stream().
@@ -97,40 +144,61 @@ public class AnalysisProvenanceServiceGalaxy {
 			throw new ExecutionManagerException("Could not load a unique history contents for the specified filename ["
 					+ analysisOutputFilename + "] in history with id [" + remoteAnalysisId + "]");
 		}
-		final HistoryContentsProvenance currentProvenance = galaxyHistoriesService.showProvenance(
-				remoteAnalysisId, currentContents.get(0).getId());
-
 		try {
-			final Tool toolDetails = toolsClient.showTool(currentProvenance.getToolId());
-	
-			return buildToolExecutionForHistoryStep(toolDetails, currentProvenance, remoteAnalysisId);
+			final ProvenanceGraph graph = provenanceGraphs.get(remoteAnalysisId,
+					() -> new ProvenanceGraph(remoteAnalysisId));
+
+			return buildToolExecutionForHistoryStep(graph, graph.getStep(currentContents.get(0).getId()));
+		} catch (final ExecutionException e) {
+			throw new ExecutionManagerException("Failed to build tool execution provenance.", e.getCause());
 		} catch (final RuntimeException e) {
 			throw new ExecutionManagerException("Failed to build tool execution provenance.", e);
 		}
 	}
 
 	/**
-	 * Build up a complete *tree* of ToolExecution from Galaxy's history
-	 * contents provenance objects. Recursively follows predecessors from the
-	 * current history.
+	 * Build up a complete *tree* of ToolExecution from the steps in the
+	 * provenance graph of a history. Recursively follows predecessors from the
+	 * current step.
+	 * <p>
+	 * A new ToolExecution is built for every path to a step: each
+	 * ToolExecution can only be the previous step of one other ToolExecution,
+	 * and can only be created by one output file, so they can't be shared.
 	 * 
-	 * @param toolDetails
-	 *            the details of the current tool to build up tool execution
-	 *            details for.
-	 * @param currentProvenance
-	 *            the provenance that corresponds to the tool details.
-	 * @param historyId
-	 *            the Galaxy ID we should use to extract tool execution
-	 *            information.
-	 * @return the entire tree of ToolExecutions for the tool and its
-	 *         provenance.
+	 * @param graph
+	 *            the provenance graph of the history.
+	 * @param step
+	 *            the step to build up tool execution details for.
+	 * @return the entire tree of ToolExecutions for the step and its
+	 *         predecessors.
 	 * @throws ExecutionManagerException
 	 *             if we could not get the history contents provenance or the
-	 *             tool details for a predecessor of the current tool details or
-	 *             provenance.
+	 *             tool details for a predecessor of the current step.
+	 */
+	private ToolExecution buildToolExecutionForHistoryStep(final ProvenanceGraph graph, final ProvenanceStep step)
+			throws ExecutionManagerException {
+		final Set<ToolExecution> prevSteps = new HashSet<>();
+		for (final String predecessor : step.predecessors) {
+			prevSteps.add(buildToolExecutionForHistoryStep(graph, graph.getStep(predecessor)));
+		}
+		return new ToolExecution(prevSteps, step.toolName, step.toolVersion, step.jobId, step.parameters,
+				step.commandLine);
+	}
+
+	/**
+	 * Read the details of a step in a history from Galaxy.
+	 * 
+	 * @param graph
+	 *            the provenance graph of the history, used to share tools and
+	 *            jobs between steps.
+	 * @param currentProvenance
+	 *            the provenance of the step.
+	 * @return the step with its parameters and predecessors.
+	 * @throws ExecutionManagerException
+	 *             if the tool or job of the step could not be read.
 	 */
-	private ToolExecution buildToolExecutionForHistoryStep(final Tool toolDetails,
-			final HistoryContentsProvenance currentProvenance, final String historyId) throws ExecutionManagerException {
+	private ProvenanceStep buildProvenanceStep(final ProvenanceGraph graph,
+			final HistoryContentsProvenance currentProvenance) throws ExecutionManagerException {
 		final Map<String, Set<String>> predecessors = getPredecessors(currentProvenance);
 		final Map<String, Object> parameters = currentProvenance.getParameters();
 		// remove keys from parameters that are Galaxy-related (and thus
@@ -150,27 +218,17 @@ public class AnalysisProvenanceServiceGalaxy {
 			paramValues.put(parameterKey, parameters.get(parameterKey));
 		}
 
-		final Set<ToolExecution> prevSteps = new HashSet<>();
-		final String toolName = toolDetails.getName();
-		final String toolVersion = toolDetails.getVersion();
+		final Tool toolDetails = graph.getTool(currentProvenance.getToolId());
 		final String jobId = currentProvenance.getJobId();
-		final JobDetails jobDetails = jobsClient.showJob(jobId);
-		final String commandLine = jobDetails.getCommandLine();
-		final Map<String, String> paramStrings = buildParamMap(paramValues);
+		final JobDetails jobDetails = graph.getJob(jobId);
 
-		for (final String predecessorKey : predecessors.keySet()) {
-			// arbitrarily select one of the predecessors from the set, then
-			// recurse on that predecessor:
-			final String predecessor = predecessors.get(predecessorKey).iterator().next();
-			final HistoryContentsProvenance previousProvenance = galaxyHistoriesService.showProvenance(historyId,
-					predecessor);
-			final Tool previousToolDetails = toolsClient.showTool(previousProvenance.getToolId());
+		// arbitrarily select one of the predecessors from the set for each
+		// input:
+		final Set<String> predecessorIds = predecessors.values().stream().map(p -> p.iterator().next())
+				.collect(Collectors.toSet());
 
-			final ToolExecution toolExecution = buildToolExecutionForHistoryStep(previousToolDetails,
-					previousProvenance, historyId);
-			prevSteps.add(toolExecution);
-		}
-		return new ToolExecution(prevSteps, toolName, toolVersion, jobId, paramStrings, commandLine);
+		return new ProvenanceStep(toolDetails.getName(), toolDetails.getVersion(), jobId,
+				buildParamMap(paramValues), jobDetails.getCommandLine(), predecessorIds);
 	}
 
 	/**
@@ -311,4 +369,77 @@ public class AnalysisProvenanceServiceGalaxy {
 		}
 		return paramStrings;
 	}
+
+	/**
+	 * The steps of a Galaxy history, with the tools and jobs that ran them,
+	 * read from Galaxy when they're first needed. Concurrent requests for the
+	 * same step wait for it to be read once.
+	 */
+	private class ProvenanceGraph {
+		private final String historyId;
+		private final Cache<String, ProvenanceStep> steps = CacheBuilder.newBuilder()
+				.build();
+		private final Cache<String, Tool> tools = CacheBuilder.newBuilder()
+				.build();
+		private final Cache<String, JobDetails> jobs = CacheBuilder.newBuilder()
+				.build();
+
+		private ProvenanceGraph(final String historyId) {
+			this.historyId = historyId;
+		}
+
+		private ProvenanceStep getStep(final String historyContentsId) throws ExecutionManagerException {
+			return get(steps, historyContentsId, () -> buildProvenanceStep(this,
+					galaxyHistoriesService.showProvenance(historyId, historyContentsId)));
+		}
+
+		private Tool getTool(final String toolId) throws ExecutionManagerException {
+			return get(tools, toolId, () -> toolsClient.showTool(toolId));
+		}
+
+		private JobDetails getJob(final String jobId) throws ExecutionManagerException {
+			return get(jobs, jobId, () -> jobsClient.showJob(jobId));
+		}
+
+		/**
+		 * Get a value from one of the caches, rethrowing the exception thrown
+		 * while reading it.
+		 */
+		private <T> T get(final Cache<String, T> cache, final String id, final Callable<T> loader)
+				throws ExecutionManagerException {
+			try {
+				return cache.get(Strings.nullToEmpty(id), loader);
+			} catch (final ExecutionException e) {
+				Throwables.throwIfInstanceOf(e.getCause(), ExecutionManagerException.class);
+				throw new ExecutionManagerException("Failed to read [" + id + "] in history [" + historyId + "]",
+						e.getCause());
+			} catch (final UncheckedExecutionException e) {
+				Throwables.throwIfUnchecked(e.getCause());
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * The details of a step in a Galaxy history needed to build a
+	 * {@link ToolExecution}.
+	 */
+	private static class ProvenanceStep {
+		private final String toolName;
+		private final String toolVersion;
+		private final String jobId;
+		private final Map<String, String> parameters;
+		private final String commandLine;
+		private final Set<String> predecessors;
+
+		private ProvenanceStep(final String toolName, final String toolVersion, final String jobId,
+				final Map<String, String> parameters, final String commandLine, final Set<String> predecessors) {
+			this.toolName = toolName;
+			this.toolVersion = toolVersion;
+			this.jobId = jobId;
+			this.parameters = parameters;
+			this.commandLine = commandLine;
+			this.predecessors = predecessors;
+		}
+	}
 }
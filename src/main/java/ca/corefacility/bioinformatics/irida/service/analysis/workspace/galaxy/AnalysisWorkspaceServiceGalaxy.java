@@ -30,6 +30,7 @@ import com.github.jmchilton.blend4j.galaxy.beans.*;
 import com.github.jmchilton.blend4j.galaxy.beans.collection.response.CollectionResponse;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +41,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -69,6 +76,8 @@ public class AnalysisWorkspaceServiceGalaxy implements AnalysisWorkspaceService
 
 	private SequencingObjectService sequencingObjectService;
 
+	private Executor outputDownloadExecutor;
+
 	/**
 	 * Builds a new {@link AnalysisWorkspaceServiceGalaxy} with the given
 	 * information.
@@ -82,6 +91,8 @@ public class AnalysisWorkspaceServiceGalaxy implements AnalysisWorkspaceService
 	 * @param analysisProvenanceServiceGalaxy The service for provenance information.
 	 * @param analysisParameterServiceGalaxy  A service for setting up parameters in Galaxy.
 	 * @param sequencingObjectService         A service for reading {@link SequencingObject}s
+	 * @param outputDownloadExecutor          The executor used to download analysis output files from Galaxy. Its
+	 *                                        size bounds the number of concurrent downloads from Galaxy.
 	 */
 	public AnalysisWorkspaceServiceGalaxy(GalaxyHistoriesService galaxyHistoriesService,
 			GalaxyWorkflowService galaxyWorkflowService, GalaxyLibrariesService galaxyLibrariesService,
@@ -89,7 +100,7 @@ public class AnalysisWorkspaceServiceGalaxy implements AnalysisWorkspaceService
 			AnalysisCollectionServiceGalaxy analysisCollectionServiceGalaxy,
 			AnalysisProvenanceServiceGalaxy analysisProvenanceServiceGalaxy,
 			AnalysisParameterServiceGalaxy analysisParameterServiceGalaxy,
-			SequencingObjectService sequencingObjectService) {
+			SequencingObjectService sequencingObjectService, Executor outputDownloadExecutor) {
 		this.galaxyHistoriesService = galaxyHistoriesService;
 		this.galaxyWorkflowService = galaxyWorkflowService;
 		this.galaxyLibrariesService = galaxyLibrariesService;
@@ -98,6 +109,7 @@ public class AnalysisWorkspaceServiceGalaxy implements AnalysisWorkspaceService
 		this.analysisProvenanceServiceGalaxy = analysisProvenanceServiceGalaxy;
 		this.analysisParameterServiceGalaxy = analysisParameterServiceGalaxy;
 		this.sequencingObjectService = sequencingObjectService;
+		this.outputDownloadExecutor = outputDownloadExecutor;
 	}
 
 	/**
@@ -124,6 +136,8 @@ public class AnalysisWorkspaceServiceGalaxy implements AnalysisWorkspaceService
 	 *            The dataset containing the data for the AnalysisOutputFile.
 	 * @param outputDirectory
 	 *            A directory to download the resulting output files.
+	 * @param historyContents
+	 *            The contents of the analysis history in Galaxy.
 	 * @return An AnalysisOutputFile storing a local copy of the Galaxy file.
 	 * @throws IOException
 	 *             If there was an issue creating a local file.
@@ -134,14 +148,14 @@ public class AnalysisWorkspaceServiceGalaxy implements AnalysisWorkspaceService
 	 *             from Galaxy.
 	 */
 	private AnalysisOutputFile buildOutputFile(String analysisId, String labelPrefix, Dataset dataset,
-			Path outputDirectory) throws IOException, ExecutionManagerDownloadException, ExecutionManagerException {
+			Path outputDirectory, List<HistoryContents> historyContents) throws IOException, ExecutionManagerDownloadException, ExecutionManagerException {
 		String datasetId = dataset.getId();
 		String fileName = dataset.getName();
 
 		Path outputFile = outputDirectory.resolve(fileName);
 		galaxyHistoriesService.downloadDatasetTo(analysisId, datasetId, outputFile);
 		final ToolExecution toolExecution = analysisProvenanceServiceGalaxy.buildToolExecutionForOutputFile(analysisId,
-				fileName);
+				fileName, historyContents);
 
 		AnalysisOutputFile analysisOutputFile = new AnalysisOutputFile(outputFile, labelPrefix, datasetId,
 				toolExecution);
@@ -375,21 +389,91 @@ public class AnalysisWorkspaceServiceGalaxy implements AnalysisWorkspaceService
 
 		String labelPrefix = getLabelPrefix(analysisSubmission, iridaWorkflow);
 
-		Map<String, AnalysisOutputFile> analysisOutputFiles = Maps.newHashMap();
+		// the history contents are shared by every output instead of being read again for each one
+		List<HistoryContents> historyContents = galaxyHistoriesService.showHistoryContents(analysisId);
+
+		// a running download can't be interrupted, so once one download fails the others check this before they start
+		// and the output directory is deleted once those already running have finished
+		AtomicBoolean failed = new AtomicBoolean();
+		CompletableFuture<Void> firstFailure = new CompletableFuture<>();
+		Map<String, CompletableFuture<AnalysisOutputFile>> downloads = Maps.newHashMap();
 		for (String analysisOutputName : outputsMap.keySet()) {
 			String outputFileName = outputsMap.get(analysisOutputName).getFileName();
-			Dataset outputDataset = galaxyHistoriesService.getDatasetForFileInHistory(outputFileName, analysisId);
-
-			AnalysisOutputFile analysisOutput = buildOutputFile(analysisId, labelPrefix, outputDataset,
-					outputDirectory);
-			analysisOutputFiles.put(analysisOutputName, analysisOutput);
+			CompletableFuture<AnalysisOutputFile> download = CompletableFuture.supplyAsync(() -> {
+				if (failed.get()) {
+					throw new CancellationException("Not downloading " + outputFileName + " for analysis "
+							+ analysisId + " after another output file failed");
+				}
+				try {
+					Dataset outputDataset = galaxyHistoriesService.getDatasetForFileInHistory(outputFileName,
+							analysisId, historyContents);
+					return buildOutputFile(analysisId, labelPrefix, outputDataset, outputDirectory, historyContents);
+				} catch (IOException | ExecutionManagerException e) {
+					throw new CompletionException(e);
+				}
+			}, outputDownloadExecutor);
+			download.whenComplete((outputFile, e) -> {
+				if (e != null) {
+					failed.set(true);
+					firstFailure.completeExceptionally(e);
+				}
+			});
+			downloads.put(analysisOutputName, download);
+		}
+		CompletableFuture<Void> allDownloads = CompletableFuture.allOf(
+				downloads.values().toArray(new CompletableFuture[0]));
+
+		try {
+			// returns as soon as any download fails, without waiting for the others
+			CompletableFuture.anyOf(allDownloads, firstFailure).get();
+		} catch (InterruptedException e) {
+			failed.set(true);
+			deleteOutputDirectoryWhenDone(outputDirectory, allDownloads);
+			Thread.currentThread().interrupt();
+			throw new ExecutionManagerDownloadException("Interrupted while downloading output files for analysis "
+					+ analysisId, e);
+		} catch (ExecutionException e) {
+			deleteOutputDirectoryWhenDone(outputDirectory, allDownloads);
+			Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof ExecutionManagerException) {
+				throw (ExecutionManagerException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else {
+				throw new ExecutionManagerDownloadException("Could not download output files for analysis "
+						+ analysisId, cause);
+			}
 		}
 
+		Map<String, AnalysisOutputFile> analysisOutputFiles = Maps.newHashMap();
+		downloads.forEach((analysisOutputName, download) -> analysisOutputFiles.put(analysisOutputName,
+				download.join()));
+
 		AnalysisType analysisType = iridaWorkflow.getWorkflowDescription().getAnalysisType();
 		
 		return new Analysis(analysisId, analysisOutputFiles, analysisType);
 	}
 
+	/**
+	 * Delete the output files of an analysis whose results couldn't be read, once the downloads already writing to
+	 * the directory have finished.
+	 *
+	 * @param outputDirectory the directory the output files are downloaded to
+	 * @param allDownloads    completes when every download has finished or failed
+	 */
+	private static void deleteOutputDirectoryWhenDone(Path outputDirectory, CompletableFuture<Void> allDownloads) {
+		allDownloads.whenComplete((result, e) -> {
+			try {
+				FileUtils.deleteDirectory(outputDirectory.toFile());
+				logger.trace("Deleted output files in " + outputDirectory + " after a failed download");
+			} catch (IOException deleteException) {
+				logger.warn("Could not delete analysis output files in " + outputDirectory, deleteException);
+			}
+		});
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
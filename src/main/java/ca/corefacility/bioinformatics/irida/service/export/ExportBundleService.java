@@ -0,0 +1,49 @@
+package ca.corefacility.bioinformatics.irida.service.export;
+
+import java.util.List;
+
+import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
+import ca.corefacility.bioinformatics.irida.model.export.ExportBundle;
+import ca.corefacility.bioinformatics.irida.util.ZipStreamWriter;
+
+/**
+ * Service assembling zip archives of files in the background so that large
+ * downloads don't depend on a single request.
+ */
+public interface ExportBundleService {
+
+	/**
+	 * Get a bundle of the given entries, queueing it to be written if there's
+	 * no bundle of the same entries already. The current user is allowed to
+	 * read the bundle, so the caller must have checked that they can read the
+	 * files in it.
+	 *
+	 * @param name
+	 *            the name to give the downloaded archive, without the
+	 *            extension
+	 * @param entries
+	 *            the entries to write to the archive
+	 * @return the new or existing {@link ExportBundle}
+	 */
+	public ExportBundle requestBundle(String name, List<ZipStreamWriter.Entry> entries);
+
+	/**
+	 * Get a bundle requested by the current user.
+	 *
+	 * @param id
+	 *            the identifier of the bundle
+	 * @return the {@link ExportBundle}
+	 * @throws EntityNotFoundException
+	 *             if there's no bundle with the identifier requested by the
+	 *             current user
+	 */
+	public ExportBundle getBundle(String id) throws EntityNotFoundException;
+
+	/**
+	 * Remove finished bundles which haven't been requested or downloaded
+	 * within the configured time to live, and the least recently used
+	 * finished bundles while the bundles are larger than the configured
+	 * maximum size, and delete their files.
+	 */
+	public void evictExpiredBundles();
+}
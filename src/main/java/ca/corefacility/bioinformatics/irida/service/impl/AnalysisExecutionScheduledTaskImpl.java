@@ -1,9 +1,18 @@
 package ca.corefacility.bioinformatics.irida.service.impl;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,6 +28,7 @@ import ca.corefacility.bioinformatics.irida.model.workflow.analysis.Analysis;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.JobError;
 import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowStatus;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmissionExecutionState;
 import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyJobErrorsService;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.AnalysisSubmissionRepository;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.JobErrorRepository;
@@ -28,7 +38,10 @@ import ca.corefacility.bioinformatics.irida.service.CleanupAnalysisSubmissionCon
 import ca.corefacility.bioinformatics.irida.service.analysis.execution.AnalysisExecutionService;
 import ca.corefacility.bioinformatics.irida.service.EmailController;
 
+import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 
 /**
  * Implementation of analysis execution tasks. This will scan for
@@ -46,6 +59,21 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 
 	private static final Logger logger = LoggerFactory.getLogger(AnalysisExecutionScheduledTaskImpl.class);
 
+	/**
+	 * Time in milliseconds to wait before reading the status of an analysis
+	 * again the first time its progress hasn't changed. The time doubles each
+	 * time the progress still hasn't changed.
+	 */
+	private static final long INITIAL_POLL_INTERVAL_MILLIS = 30 * 1000;
+
+	/**
+	 * Order of {@link AnalysisSubmission}s waiting for a stage: highest
+	 * priority first, then oldest first.
+	 */
+	private static final Comparator<AnalysisSubmission> PRIORITY_ORDER = Comparator.comparing(
+			AnalysisSubmission::getPriority, Comparator.reverseOrder())
+			.thenComparing(AnalysisSubmission::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
 	private AnalysisSubmissionRepository analysisSubmissionRepository;
 	private AnalysisExecutionService analysisExecutionService;
 	private final CleanupAnalysisSubmissionCondition cleanupCondition;
@@ -53,7 +81,11 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 	private JobErrorRepository jobErrorRepository;
 	private final EmailController emailController;
 	private AnalysisWorkspaceService analysisWorkspaceService;
+	private final Executor statusMonitorExecutor;
+	private final long maxPollIntervalMillis;
 
+	// only used while holding monitorRunningAnalysesLock
+	private final Map<Long, PollSchedule> pollSchedules = Maps.newHashMap();
 
 	/**
 	 * Builds a new AnalysisExecutionScheduledTaskImpl with the given service
@@ -68,12 +100,39 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 	 * @param emailController                {@link EmailController} for sending completion/error emails for {@link AnalysisSubmission}s
 	 * @param analysisWorkspaceService 	     {@link AnalysisWorkspaceService}
 	 */
-	@Autowired
 	public AnalysisExecutionScheduledTaskImpl(AnalysisSubmissionRepository analysisSubmissionRepository,
 			AnalysisExecutionService analysisExecutionServiceGalaxy,
 			CleanupAnalysisSubmissionCondition cleanupCondition, GalaxyJobErrorsService galaxyJobErrorsService,
 			JobErrorRepository jobErrorRepository, EmailController emailController,
 		    AnalysisWorkspaceService analysisWorkspaceService) {
+		this(analysisSubmissionRepository, analysisExecutionServiceGalaxy, cleanupCondition, galaxyJobErrorsService,
+				jobErrorRepository, emailController, analysisWorkspaceService, MoreExecutors.directExecutor(), 0);
+	}
+
+	/**
+	 * Builds a new AnalysisExecutionScheduledTaskImpl with the given service
+	 * classes, reading the status of running analyses on the given executor.
+	 *
+	 * @param analysisSubmissionRepository   A repository for {@link AnalysisSubmission}s.
+	 * @param analysisExecutionServiceGalaxy A service for executing {@link AnalysisSubmission}s.
+	 * @param cleanupCondition               The condition defining when an {@link AnalysisSubmission}
+	 *                                       should be cleaned up.
+	 * @param galaxyJobErrorsService         {@link GalaxyJobErrorsService} for getting {@link JobError} objects
+	 * @param jobErrorRepository             {@link JobErrorRepository} for {@link JobError} objects
+	 * @param emailController                {@link EmailController} for sending completion/error emails for {@link AnalysisSubmission}s
+	 * @param analysisWorkspaceService       {@link AnalysisWorkspaceService}
+	 * @param statusMonitorExecutor          The executor used to read the status of running analyses.
+	 * @param maxPollIntervalMillis          The longest time in milliseconds between reading the status of an
+	 *                                       analysis whose progress hasn't changed, or 0 to read every status
+	 *                                       each time.
+	 */
+	@Autowired
+	public AnalysisExecutionScheduledTaskImpl(AnalysisSubmissionRepository analysisSubmissionRepository,
+			AnalysisExecutionService analysisExecutionServiceGalaxy,
+			CleanupAnalysisSubmissionCondition cleanupCondition, GalaxyJobErrorsService galaxyJobErrorsService,
+			JobErrorRepository jobErrorRepository, EmailController emailController,
+			AnalysisWorkspaceService analysisWorkspaceService, Executor statusMonitorExecutor,
+			long maxPollIntervalMillis) {
 		this.analysisSubmissionRepository = analysisSubmissionRepository;
 		this.analysisExecutionService = analysisExecutionServiceGalaxy;
 		this.cleanupCondition = cleanupCondition;
@@ -81,6 +140,8 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 		this.jobErrorRepository = jobErrorRepository;
 		this.emailController = emailController;
 		this.analysisWorkspaceService = analysisWorkspaceService;
+		this.statusMonitorExecutor = statusMonitorExecutor;
+		this.maxPollIntervalMillis = maxPollIntervalMillis;
 	}
 
 	/**
@@ -95,10 +156,7 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 					AnalysisState.NEW);
 
 			// Sort submissions by priority high to low
-			analysisSubmissions.sort((a1, a2) -> {
-				return a2.getPriority()
-						.compareTo(a1.getPriority());
-			});
+			analysisSubmissions.sort(PRIORITY_ORDER);
 
 			Set<Future<AnalysisSubmission>> submissions = Sets.newHashSet();
 
@@ -138,8 +196,8 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 		synchronized (executeAnalysesLock) {
 			logger.trace("Running executeAnalyses");
 
-			List<AnalysisSubmission> analysisSubmissions = analysisSubmissionRepository.findByAnalysisState(
-					AnalysisState.PREPARED);
+			List<AnalysisSubmission> analysisSubmissions = selectByPriority(
+					analysisSubmissionRepository.findByAnalysisState(AnalysisState.PREPARED), AnalysisState.PREPARED);
 
 			Set<Future<AnalysisSubmission>> submissions = Sets.newHashSet();
 
@@ -165,24 +223,62 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 		synchronized (monitorRunningAnalysesLock) {
 			logger.trace("Running monitorRunningAnalyses");
 
-			List<AnalysisSubmission> analysisSubmissions = analysisSubmissionRepository.findByAnalysisState(
-					AnalysisState.RUNNING);
+			List<AnalysisSubmissionExecutionState> analysisStates = analysisSubmissionRepository
+					.findExecutionStatesByAnalysisState(AnalysisState.RUNNING);
+			long now = System.currentTimeMillis();
+
+			// forget the schedules of analyses that are no longer running
+			pollSchedules.keySet()
+					.retainAll(analysisStates.stream()
+							.map(AnalysisSubmissionExecutionState::getId)
+							.collect(Collectors.toSet()));
+
+			// start reading every status that's due before waiting on any of them
+			Map<AnalysisSubmissionExecutionState, CompletableFuture<GalaxyWorkflowStatus>> workflowStatuses =
+					new LinkedHashMap<>();
+			for (AnalysisSubmissionExecutionState analysisState : analysisStates) {
+				PollSchedule schedule = pollSchedules.get(analysisState.getId());
+				if (schedule != null && schedule.nextPollTime > now) {
+					logger.trace("Not checking state of " + analysisState + " until " + schedule.nextPollTime);
+				} else {
+					workflowStatuses.put(analysisState, readWorkflowStatus(analysisState.getRemoteAnalysisId()));
+				}
+			}
 
 			Set<Future<AnalysisSubmission>> submissions = Sets.newHashSet();
 
-			for (AnalysisSubmission analysisSubmission : analysisSubmissions) {
-				logger.trace("Checking state of " + analysisSubmission);
+			for (Map.Entry<AnalysisSubmissionExecutionState, CompletableFuture<GalaxyWorkflowStatus>> entry :
+					workflowStatuses.entrySet()) {
+				AnalysisSubmissionExecutionState analysisState = entry.getKey();
+				logger.trace("Checking state of " + analysisState);
 
+				GalaxyWorkflowStatus workflowStatus;
 				try {
-					GalaxyWorkflowStatus workflowStatus = analysisExecutionService.getWorkflowStatus(
-							analysisSubmission);
-					submissions.add(handleWorkflowStatus(workflowStatus, analysisSubmission));
-				} catch (ExecutionManagerException | RuntimeException | IridaWorkflowNotFoundException e) {
-					logger.error("Error checking state for " + analysisSubmission, e);
-					analysisSubmission.setAnalysisState(AnalysisState.ERROR);
-					submissions.add(new AsyncResult<>(analysisSubmissionRepository.save(analysisSubmission)));
-					if (analysisSubmission.getEmailPipelineResult()) {
-						emailController.sendPipelineStatusEmail(analysisSubmission);
+					workflowStatus = getWorkflowStatus(entry.getValue());
+				} catch (ExecutionManagerException | RuntimeException e) {
+					logger.error("Error checking state for " + analysisState, e);
+					pollSchedules.remove(analysisState.getId());
+					loadSubmission(analysisState).ifPresent(s -> submissions.add(handleMonitorError(s)));
+					continue;
+				}
+
+				// the submission is only loaded if its state is going to change
+				if (!workflowStatus.errorOccurred() && workflowStatus.isRunning()) {
+					logger.trace("Workflow for analysis " + analysisState + " is running: proportion complete "
+							+ workflowStatus.getProportionComplete());
+					pollSchedules.computeIfAbsent(analysisState.getId(), id -> new PollSchedule())
+							.update(workflowStatus.getProportionComplete(), now);
+					continue;
+				}
+
+				pollSchedules.remove(analysisState.getId());
+				Optional<AnalysisSubmission> analysisSubmission = loadSubmission(analysisState);
+				if (analysisSubmission.isPresent()) {
+					try {
+						submissions.add(handleWorkflowStatus(workflowStatus, analysisSubmission.get()));
+					} catch (ExecutionManagerException | RuntimeException | IridaWorkflowNotFoundException e) {
+						logger.error("Error checking state for " + analysisSubmission.get(), e);
+						submissions.add(handleMonitorError(analysisSubmission.get()));
 					}
 				}
 			}
@@ -191,6 +287,109 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 		}
 	}
 
+	/**
+	 * Choose the {@link AnalysisSubmission}s waiting in a state to start on
+	 * their next stage. Submissions are taken in {@link #PRIORITY_ORDER}, up to
+	 * the capacity of the stage, so a high priority submission doesn't wait
+	 * behind lower priority ones that arrived first.
+	 *
+	 * @param analysisSubmissions the submissions waiting in the state.
+	 * @param analysisState       the state the submissions are waiting in.
+	 * @return the submissions to start on their next stage.
+	 */
+	private List<AnalysisSubmission> selectByPriority(List<AnalysisSubmission> analysisSubmissions,
+			AnalysisState analysisState) {
+		if (analysisSubmissions.isEmpty()) {
+			return analysisSubmissions;
+		}
+
+		int capacity = analysisExecutionService.getCapacity(analysisState);
+		if (capacity <= 0) {
+			logger.trace("No capacity for analyses in state " + analysisState + ", " + analysisSubmissions.size()
+					+ " waiting");
+			return Collections.emptyList();
+		}
+
+		analysisSubmissions.sort(PRIORITY_ORDER);
+		if (capacity < analysisSubmissions.size()) {
+			logger.debug("More analyses in state " + analysisState + " than capacity, list will be trimmed: "
+					+ analysisSubmissions.size() + "=>" + capacity);
+			return analysisSubmissions.subList(0, capacity);
+		}
+		return analysisSubmissions;
+	}
+
+	/**
+	 * Start reading the status of an analysis on the status monitor executor.
+	 *
+	 * @param remoteAnalysisId the id of the analysis in the execution manager.
+	 * @return the status of the analysis, once it's been read.
+	 */
+	private CompletableFuture<GalaxyWorkflowStatus> readWorkflowStatus(String remoteAnalysisId) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return analysisExecutionService.getWorkflowStatus(remoteAnalysisId);
+			} catch (ExecutionManagerException e) {
+				throw new CompletionException(e);
+			}
+		}, statusMonitorExecutor);
+	}
+
+	/**
+	 * Wait for the status of an analysis to be read, rethrowing whatever
+	 * reading it threw.
+	 *
+	 * @param workflowStatus the status being read.
+	 * @return the status of the analysis.
+	 * @throws ExecutionManagerException if the status couldn't be read.
+	 */
+	private GalaxyWorkflowStatus getWorkflowStatus(CompletableFuture<GalaxyWorkflowStatus> workflowStatus)
+			throws ExecutionManagerException {
+		try {
+			return workflowStatus.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof ExecutionManagerException) {
+				throw (ExecutionManagerException) cause;
+			}
+			Throwables.throwIfUnchecked(cause);
+			throw e;
+		}
+	}
+
+	/**
+	 * Load the whole {@link AnalysisSubmission} for an analysis that's being
+	 * monitored.
+	 *
+	 * @param analysisState the state of the analysis.
+	 * @return the {@link AnalysisSubmission}, or empty if it's been deleted
+	 *         since it was found.
+	 */
+	private Optional<AnalysisSubmission> loadSubmission(AnalysisSubmissionExecutionState analysisState) {
+		Optional<AnalysisSubmission> analysisSubmission = analysisSubmissionRepository.findById(analysisState.getId());
+		if (!analysisSubmission.isPresent()) {
+			logger.debug("Analysis " + analysisState + " no longer exists");
+		}
+		return analysisSubmission;
+	}
+
+	/**
+	 * Switch an {@link AnalysisSubmission} whose status couldn't be checked to
+	 * the error state.
+	 *
+	 * @param analysisSubmission the {@link AnalysisSubmission}.
+	 * @return A {@link Future} with the saved {@link AnalysisSubmission}.
+	 */
+	private Future<AnalysisSubmission> handleMonitorError(AnalysisSubmission analysisSubmission) {
+		analysisSubmission.setAnalysisState(AnalysisState.ERROR);
+		Future<AnalysisSubmission> returnedSubmission = new AsyncResult<>(
+				analysisSubmissionRepository.save(analysisSubmission));
+		if (analysisSubmission.getEmailPipelineResult()) {
+			emailController.sendPipelineStatusEmail(analysisSubmission);
+		}
+		return returnedSubmission;
+	}
+
 	/**
 	 * Handle async saving of {@link JobError} objects for a {@link AnalysisSubmission}
 	 * to database through {@link JobErrorRepository} if there are any
@@ -215,7 +414,8 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 		synchronized (transferAnalysesResultsLock) {
 			logger.trace("Running transferAnalysesResults");
 
-			List<AnalysisSubmission> analysisSubmissions = analysisSubmissionRepository.findByAnalysisState(
+			List<AnalysisSubmission> analysisSubmissions = selectByPriority(
+					analysisSubmissionRepository.findByAnalysisState(AnalysisState.FINISHED_RUNNING),
 					AnalysisState.FINISHED_RUNNING);
 
 			Set<Future<AnalysisSubmission>> submissions = Sets.newHashSet();
@@ -242,7 +442,8 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 		synchronized (postProcessingLock) {
 			logger.trace("Running postProcessResults");
 
-			List<AnalysisSubmission> analysisSubmissions = analysisSubmissionRepository.findByAnalysisState(
+			List<AnalysisSubmission> analysisSubmissions = selectByPriority(
+					analysisSubmissionRepository.findByAnalysisState(AnalysisState.TRANSFERRED),
 					AnalysisState.TRANSFERRED);
 
 			Set<Future<AnalysisSubmission>> submissions = Sets.newHashSet();
@@ -347,4 +548,26 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 			return cleanedSubmissions;
 		}
 	}
+
+	/**
+	 * When to next read the status of a running analysis. The status is read
+	 * every time while the analysis is making progress, and less often (up to
+	 * the maximum poll interval) while its progress stays the same.
+	 */
+	private class PollSchedule {
+		private float proportionComplete = Float.NaN;
+		private long intervalMillis = 0;
+		private long nextPollTime = 0;
+
+		private void update(float proportionComplete, long now) {
+			if (Float.compare(proportionComplete, this.proportionComplete) == 0) {
+				intervalMillis = Math.min(Math.max(intervalMillis * 2, INITIAL_POLL_INTERVAL_MILLIS),
+						maxPollIntervalMillis);
+			} else {
+				intervalMillis = 0;
+			}
+			this.proportionComplete = proportionComplete;
+			nextPollTime = now + intervalMillis;
+		}
+	}
 }
@@ -30,9 +30,11 @@ public class AnalysisSubmissionCleanupServiceImpl implements AnalysisSubmissionC
 	/**
 	 * Defines a set of states that, if IRIDA was shutdown with a submission in
 	 * one of these states, would need to be switched to an
-	 * {@link AnalysisSubmission.ERROR} state.
+	 * {@link AnalysisSubmission.ERROR} state.  Submissions left in these states would also hold one of the places
+	 * limiting how many submissions work on their stage at once.
 	 */
-	private static final Set<AnalysisState> inconsistentStates = ImmutableSet.of(AnalysisState.PREPARING, AnalysisState.SUBMITTING, AnalysisState.COMPLETING);
+	private static final Set<AnalysisState> inconsistentStates = ImmutableSet.of(AnalysisState.PREPARING,
+			AnalysisState.SUBMITTING, AnalysisState.COMPLETING, AnalysisState.POST_PROCESSING);
 	
 	private static boolean ranSwitchInconsistentSubmissionsToError = false;
 	
@@ -19,7 +19,6 @@ import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSu
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmissionTemplate;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.IridaWorkflowNamedParameters;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.ProjectAnalysisSubmissionJoin;
-import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyHistoriesService;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.AnalysisSubmissionRepository;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.AnalysisSubmissionTemplateRepository;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.JobErrorRepository;
@@ -30,11 +29,11 @@ import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
 import ca.corefacility.bioinformatics.irida.service.AnalysisSubmissionService;
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
 import ca.corefacility.bioinformatics.irida.service.analysis.execution.galaxy.AnalysisExecutionServiceGalaxyCleanupAsync;
+import ca.corefacility.bioinformatics.irida.service.analysis.execution.galaxy.GalaxyWorkflowStatusCache;
 import ca.corefacility.bioinformatics.irida.service.impl.CRUDServiceImpl;
 import ca.corefacility.bioinformatics.irida.service.workflow.IridaWorkflowsService;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -97,7 +96,7 @@ public class AnalysisSubmissionServiceImpl extends CRUDServiceImpl<Long, Analysi
 	private AnalysisSubmissionTemplateRepository analysisTemplateRepository;
 	private ProjectAnalysisSubmissionJoinRepository pasRepository;
 	private final ReferenceFileRepository referenceFileRepository;
-	private final GalaxyHistoriesService galaxyHistoriesService;
+	private final GalaxyWorkflowStatusCache galaxyWorkflowStatusCache;
 	private final SequencingObjectService sequencingObjectService;
 	private final IridaWorkflowsService iridaWorkflowsService;
 	private JobErrorRepository jobErrorRepository;
@@ -114,7 +113,7 @@ public class AnalysisSubmissionServiceImpl extends CRUDServiceImpl<Long, Analysi
 	 * @param userRepository               A repository for accessing user information.
 	 * @param referenceFileRepository      the reference file repository
 	 * @param sequencingObjectService      the {@link SequencingObject} service.
-	 * @param galaxyHistoriesService       The {@link GalaxyHistoriesService}.
+	 * @param galaxyWorkflowStatusCache    The {@link GalaxyWorkflowStatusCache}.
 	 * @param pasRepository                The {@link ProjectAnalysisSubmissionJoinRepository}
 	 * @param jobErrorRepository           A repository for accessing {@link JobError}
 	 * @param iridaWorkflowsService        The {@link IridaWorkflowsService}
@@ -124,7 +123,7 @@ public class AnalysisSubmissionServiceImpl extends CRUDServiceImpl<Long, Analysi
 	public AnalysisSubmissionServiceImpl(AnalysisSubmissionRepository analysisSubmissionRepository,
 			AnalysisSubmissionTemplateRepository analysisTemplateRepository, UserRepository userRepository,
 			final ReferenceFileRepository referenceFileRepository,
-			final SequencingObjectService sequencingObjectService, final GalaxyHistoriesService galaxyHistoriesService,
+			final SequencingObjectService sequencingObjectService, final GalaxyWorkflowStatusCache galaxyWorkflowStatusCache,
 			ProjectAnalysisSubmissionJoinRepository pasRepository, JobErrorRepository jobErrorRepository,
 			IridaWorkflowsService iridaWorkflowsService, Validator validator) {
 		super(analysisSubmissionRepository, validator, AnalysisSubmission.class);
@@ -132,7 +131,7 @@ public class AnalysisSubmissionServiceImpl extends CRUDServiceImpl<Long, Analysi
 		this.analysisSubmissionRepository = analysisSubmissionRepository;
 		this.analysisTemplateRepository = analysisTemplateRepository;
 		this.referenceFileRepository = referenceFileRepository;
-		this.galaxyHistoriesService = galaxyHistoriesService;
+		this.galaxyWorkflowStatusCache = galaxyWorkflowStatusCache;
 		this.sequencingObjectService = sequencingObjectService;
 		this.pasRepository = pasRepository;
 		this.jobErrorRepository = jobErrorRepository;
@@ -717,12 +716,19 @@ public class AnalysisSubmissionServiceImpl extends CRUDServiceImpl<Long, Analysi
 			 * If there are 20 out of 20 jobs finished in Galaxy, then the
 			 * percent complete is: percentComplete = 10 + (90 - 10) * 1.0 =
 			 * 90%.
+			 *
+			 * The status is the last one read from Galaxy when monitoring
+			 * running analyses. Until it's been read, the analysis is shown
+			 * as just started.
 			 */
 		case RUNNING:
 			String workflowHistoryId = analysisSubmission.getRemoteAnalysisId();
-			GalaxyWorkflowStatus workflowStatus = galaxyHistoriesService.getStatusForHistory(workflowHistoryId);
+			Optional<GalaxyWorkflowStatus> workflowStatus = galaxyWorkflowStatusCache.getStatus(workflowHistoryId);
+			if (!workflowStatus.isPresent()) {
+				return RUNNING_PERCENT;
+			}
 			return RUNNING_PERCENT + (FINISHED_RUNNING_PERCENT - RUNNING_PERCENT)
-					* workflowStatus.getProportionComplete();
+					* workflowStatus.get().getProportionComplete();
 
 		case FINISHED_RUNNING:
 		case COMPLETING:
@@ -800,10 +806,25 @@ public class AnalysisSubmissionServiceImpl extends CRUDServiceImpl<Long, Analysi
 	 */
 	@PreAuthorize("hasRole('ROLE_USER')")
 	public AnalysisServiceStatus getAnalysisServiceStatus() {
-		Long running = analysisSubmissionRepository.countByAnalysisState(AnalysisState.getRunningStates());
-		Long queued = analysisSubmissionRepository.countByAnalysisState(Lists.newArrayList(AnalysisState.NEW));
+		// only the queued and running states are counted, so finished analyses aren't scanned on every check
+		List<AnalysisState> countedStates = AnalysisState.getRunningStates();
+		countedStates.add(AnalysisState.NEW);
+
+		Map<AnalysisState, Long> stateCounts = new EnumMap<>(AnalysisState.class);
+		for (AnalysisState state : countedStates) {
+			stateCounts.put(state, 0L);
+		}
+		for (Object[] stateCount : analysisSubmissionRepository.countAnalysesByState(countedStates)) {
+			stateCounts.put((AnalysisState) stateCount[0], (Long) stateCount[1]);
+		}
+
+		Long running = AnalysisState.getRunningStates()
+				.stream()
+				.mapToLong(stateCounts::get)
+				.sum();
+		Long queued = stateCounts.get(AnalysisState.NEW);
 
-		return new AnalysisServiceStatus(running, queued);
+		return new AnalysisServiceStatus(running, queued, stateCounts);
 	}
 
 }
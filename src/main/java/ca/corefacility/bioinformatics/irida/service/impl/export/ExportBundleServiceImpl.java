@@ -0,0 +1,327 @@
+package ca.corefacility.bioinformatics.irida.service.impl.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
+import ca.corefacility.bioinformatics.irida.model.export.ExportBundle;
+import ca.corefacility.bioinformatics.irida.service.export.ExportBundleService;
+import ca.corefacility.bioinformatics.irida.util.ZipStreamWriter;
+
+/**
+ * {@link ExportBundleService} writing bundles to a directory on a bounded
+ * executor. Bundles are kept in memory by the server which wrote them, so each
+ * server writes to its own subdirectory (named for its host) of the configured
+ * directory, and only the bundle files in that subdirectory are removed when
+ * the service starts. Finished bundles are removed once they expire, or once
+ * the bundles on disk are larger than the configured maximum, least recently
+ * used first.
+ */
+@Service
+public class ExportBundleServiceImpl implements ExportBundleService {
+	private static final Logger logger = LoggerFactory.getLogger(ExportBundleServiceImpl.class);
+
+	private static final String ZIP_EXTENSION = ".zip";
+	private static final String PARTIAL_EXTENSION = ".part";
+	// bundle ids are sha-256 checksums
+	private static final Pattern BUNDLE_FILE_PATTERN = Pattern.compile(
+			"[0-9a-f]{64}(" + Pattern.quote(ZIP_EXTENSION) + "|" + Pattern.quote(PARTIAL_EXTENSION) + ")");
+
+	private final Executor executor;
+	private final ZipStreamWriter zipStreamWriter;
+	private final Path directory;
+	private final long timeToLive;
+	private final long maxSize;
+
+	private final Map<String, ExportBundle> bundles = new ConcurrentHashMap<>();
+
+	@Autowired
+	public ExportBundleServiceImpl(@Qualifier("exportBundleExecutor") Executor executor,
+			ZipStreamWriter zipStreamWriter,
+			@Value("${export.bundle.directory:${java.io.tmpdir}/irida-export-bundles}") String directory,
+			@Value("${export.bundle.ttl.minutes:1440}") long ttlMinutes,
+			@Value("${export.bundle.max.size.mb:51200}") long maxSizeMb) throws IOException {
+		this.executor = executor;
+		this.zipStreamWriter = zipStreamWriter;
+		this.directory = Files.createDirectories(Paths.get(directory)
+				.resolve(getHostName()));
+		this.timeToLive = TimeUnit.MINUTES.toMillis(ttlMinutes);
+		this.maxSize = maxSizeMb * 1024 * 1024;
+
+		// bundles this server wrote before a restart can't be found any more
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory)) {
+			for (Path file : stream) {
+				if (BUNDLE_FILE_PATTERN.matcher(file.getFileName()
+						.toString())
+						.matches()) {
+					logger.debug("Removing old export bundle " + file);
+					Files.deleteIfExists(file);
+				}
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@PreAuthorize("isAuthenticated()")
+	public ExportBundle requestBundle(String name, List<ZipStreamWriter.Entry> entries) {
+		String id = getBundleId(name, entries);
+
+		ExportBundle[] created = new ExportBundle[1];
+		ExportBundle bundle = bundles.compute(id, (key, existing) -> {
+			if (existing != null && isReusable(existing)) {
+				return existing;
+			}
+			created[0] = new ExportBundle(key, name, directory.resolve(key + ZIP_EXTENSION));
+			return created[0];
+		});
+
+		bundle.addUser(getUsername());
+		bundle.touch();
+
+		if (created[0] != null) {
+			logger.debug("Queueing export bundle " + id + " with " + entries.size() + " entries");
+			try {
+				executor.execute(() -> writeBundle(created[0], entries));
+			} catch (RejectedExecutionException e) {
+				// the queue is full; the bundle is failed so that it's queued again the next time it's requested
+				logger.warn("Too many export bundles queued, not writing " + id);
+				created[0].setState(ExportBundle.State.FAILED);
+				bundles.remove(id, created[0]);
+			}
+		} else {
+			logger.trace("Reusing export bundle " + id);
+		}
+
+		return bundle;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@PreAuthorize("isAuthenticated()")
+	public ExportBundle getBundle(String id) throws EntityNotFoundException {
+		ExportBundle bundle = bundles.get(id);
+		if (bundle == null || !bundle.hasUser(getUsername())) {
+			throw new EntityNotFoundException("No export bundle with id " + id);
+		}
+
+		bundle.touch();
+		return bundle;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized void evictExpiredBundles() {
+		long expired = System.currentTimeMillis() - timeToLive;
+
+		// running bundles can't be removed, but the space they'll take up is set aside
+		Map<ExportBundle, Long> finished = new HashMap<>();
+		long used = 0;
+		for (ExportBundle bundle : bundles.values()) {
+			if (isFinished(bundle)) {
+				long size = getFileSize(bundle);
+				finished.put(bundle, size);
+				used += size;
+			} else {
+				used += bundle.getProgress()
+						.getTotalBytes();
+			}
+		}
+
+		List<ExportBundle> leastRecentlyUsed = finished.keySet()
+				.stream()
+				.sorted(Comparator.comparingLong(ExportBundle::getLastAccessed))
+				.collect(Collectors.toList());
+		for (ExportBundle bundle : leastRecentlyUsed) {
+			if (bundle.getLastAccessed() < expired) {
+				logger.debug("Removing expired export bundle " + bundle.getId());
+			} else if (used > maxSize) {
+				logger.debug("Removing export bundle " + bundle.getId() + " to stay within the maximum size");
+			} else {
+				continue;
+			}
+			bundles.remove(bundle.getId(), bundle);
+			used -= finished.get(bundle);
+			try {
+				Files.deleteIfExists(bundle.getFile());
+			} catch (IOException e) {
+				logger.error("Couldn't delete export bundle " + bundle.getFile(), e);
+			}
+		}
+	}
+
+	/**
+	 * Write a bundle's archive, first to a partial file which is renamed when
+	 * the archive is complete.
+	 *
+	 * @param bundle
+	 *            the bundle to write
+	 * @param entries
+	 *            the entries to write to the archive
+	 */
+	private void writeBundle(ExportBundle bundle, List<ZipStreamWriter.Entry> entries) {
+		bundle.setState(ExportBundle.State.RUNNING);
+		Path partial = directory.resolve(bundle.getId() + PARTIAL_EXTENSION);
+
+		try {
+			try (OutputStream outputStream = Files.newOutputStream(partial)) {
+				zipStreamWriter.write(entries, outputStream, bundle.getProgress());
+			}
+			Files.move(partial, bundle.getFile(), StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+			bundle.setState(ExportBundle.State.COMPLETE);
+			logger.debug("Finished export bundle " + bundle.getId() + ": " + bundle.getProgress());
+
+			// make room for the new bundle now rather than on the next scheduled check
+			evictExpiredBundles();
+		} catch (IOException | RuntimeException e) {
+			logger.error("Couldn't write export bundle " + bundle.getId(), e);
+			bundle.setState(ExportBundle.State.FAILED);
+			try {
+				Files.deleteIfExists(partial);
+			} catch (IOException deleteException) {
+				logger.error("Couldn't delete partial export bundle " + partial, deleteException);
+			}
+		}
+	}
+
+	private static boolean isFinished(ExportBundle bundle) {
+		return bundle.getState() == ExportBundle.State.COMPLETE || bundle.getState() == ExportBundle.State.FAILED;
+	}
+
+	/**
+	 * Get the size of a finished bundle's file
+	 *
+	 * @param bundle
+	 *            the bundle
+	 * @return the size of the file, or 0 if there isn't one
+	 */
+	private static long getFileSize(ExportBundle bundle) {
+		try {
+			return Files.exists(bundle.getFile()) ? Files.size(bundle.getFile()) : 0;
+		} catch (IOException e) {
+			logger.debug("Couldn't read the size of " + bundle.getFile(), e);
+			return 0;
+		}
+	}
+
+	/**
+	 * Check if an existing bundle can be given to another request for the
+	 * same entries. Failed bundles, or bundles whose file has gone missing,
+	 * are written again.
+	 *
+	 * @param bundle
+	 *            the existing bundle
+	 * @return true if the bundle can be reused
+	 */
+	private static boolean isReusable(ExportBundle bundle) {
+		switch (bundle.getState()) {
+		case FAILED:
+			return false;
+		case COMPLETE:
+			return Files.exists(bundle.getFile());
+		default:
+			return true;
+		}
+	}
+
+	/**
+	 * Build the identifier of a bundle from its name and entries. The size
+	 * and modification time of each file are included so changed files get a
+	 * new bundle.
+	 *
+	 * @param name
+	 *            the name of the bundle
+	 * @param entries
+	 *            the entries in the bundle
+	 * @return a checksum of the bundle's contents
+	 */
+	private static String getBundleId(String name, List<ZipStreamWriter.Entry> entries) {
+		MessageDigest digest = DigestUtils.getSha256Digest();
+		update(digest, name);
+
+		for (ZipStreamWriter.Entry entry : entries) {
+			update(digest, entry.getName());
+			if (entry.getFile() != null) {
+				Path file = entry.getFile()
+						.toAbsolutePath();
+				update(digest, file.toString());
+				try {
+					update(digest, Files.size(file) + ":" + Files.getLastModifiedTime(file)
+							.toMillis());
+				} catch (IOException e) {
+					// the bundle will fail when the file is written
+					logger.debug("Couldn't read attributes of " + file, e);
+				}
+			} else {
+				digest.update(entry.getContent());
+				digest.update((byte) 0);
+			}
+		}
+
+		return Hex.encodeHexString(digest.digest());
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		digest.update(value.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+	}
+
+	/**
+	 * Get the name of this server's host, which names the subdirectory its
+	 * bundles are written to.
+	 *
+	 * @return the host name
+	 */
+	private static String getHostName() {
+		try {
+			return InetAddress.getLocalHost()
+					.getHostName();
+		} catch (UnknownHostException e) {
+			logger.warn("Couldn't read the host name, writing export bundles to 'localhost'", e);
+			return "localhost";
+		}
+	}
+
+	private static String getUsername() {
+		return SecurityContextHolder.getContext()
+				.getAuthentication()
+				.getName();
+	}
+}
@@ -1,8 +1,14 @@
 package ca.corefacility.bioinformatics.irida.service.impl.sample;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import javax.transaction.Transactional;
 import javax.validation.Validator;
@@ -10,6 +16,8 @@ import javax.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectMetadataTemplateJoin;
@@ -24,6 +32,10 @@ import ca.corefacility.bioinformatics.irida.repositories.sample.MetadataTemplate
 import ca.corefacility.bioinformatics.irida.service.impl.CRUDServiceImpl;
 import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+
 /**
  * Service for storing and reading {@link MetadataTemplate}s
  */
@@ -31,9 +43,26 @@ import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateServi
 public class MetadataTemplateServiceImpl extends CRUDServiceImpl<Long, MetadataTemplate>
 		implements MetadataTemplateService {
 
+	private static final long FIELD_CACHE_SIZE = 10000;
+
+	// an upper bound on how long a field is trusted in case it's changed
+	// outside of this service (ie. by another server)
+	private static final long FIELD_CACHE_EXPIRE_MINUTES = 60;
+
 	private ProjectMetadataTemplateJoinRepository pmtRepository;
 	private MetadataFieldRepository fieldRepository;
 
+	/*
+	 * Fields are looked up by label in tight loops (line list edits, metadata
+	 * imports, remote synchronization) and rarely change, so the id for each
+	 * label is shared between requests and the field itself is read by id in
+	 * the caller's session. Labels without a field aren't cached.
+	 */
+	private final Cache<String, Long> fieldIdsByLabel = CacheBuilder.newBuilder()
+			.maximumSize(FIELD_CACHE_SIZE)
+			.expireAfterWrite(FIELD_CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES)
+			.build();
+
 	@Autowired
 	public MetadataTemplateServiceImpl(MetadataTemplateRepository repository,
 			ProjectMetadataTemplateJoinRepository pmtRepository, MetadataFieldRepository fieldRepository,
@@ -105,7 +134,82 @@ public class MetadataTemplateServiceImpl extends CRUDServiceImpl<Long, MetadataT
 	@PreAuthorize("permitAll()")
 	@Override
 	public MetadataTemplateField readMetadataFieldByLabel(String label) {
-		return fieldRepository.findMetadataFieldByLabel(label);
+		Long id = fieldIdsByLabel.getIfPresent(label);
+
+		if (id != null) {
+			Optional<MetadataTemplateField> field = fieldRepository.findById(id);
+			if (field.isPresent()) {
+				return field.get();
+			}
+			// the field's gone, so fall back to looking it up by label
+			fieldIdsByLabel.invalidate(label);
+		}
+
+		MetadataTemplateField field = fieldRepository.findMetadataFieldByLabel(label);
+		if (field != null) {
+			cacheFieldIds(ImmutableMap.of(label, field.getId()));
+		}
+
+		return field;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@PreAuthorize("permitAll()")
+	@Override
+	public Map<String, MetadataTemplateField> readMetadataFieldsByLabels(Collection<String> labels) {
+		Map<String, MetadataTemplateField> fields = new HashMap<>();
+
+		Map<String, Long> cachedIds = fieldIdsByLabel.getAllPresent(labels);
+		if (!cachedIds.isEmpty()) {
+			Map<Long, MetadataTemplateField> fieldsById = new HashMap<>();
+			for (MetadataTemplateField field : fieldRepository.findAllById(new HashSet<>(cachedIds.values()))) {
+				fieldsById.put(field.getId(), field);
+			}
+
+			cachedIds.forEach((label, id) -> {
+				MetadataTemplateField field = fieldsById.get(id);
+				if (field != null) {
+					fields.put(label, field);
+				} else {
+					// the field's gone, so fall back to looking it up by label
+					fieldIdsByLabel.invalidate(label);
+				}
+			});
+		}
+
+		Set<String> missing = labels.stream()
+				.filter(l -> !fields.containsKey(l))
+				.collect(Collectors.toSet());
+		if (missing.isEmpty()) {
+			return fields;
+		}
+
+		/*
+		 * Prefer an exact match, but fall back to ignoring case. Fields with
+		 * labels that differ by case are equal, and the database may compare
+		 * labels ignoring case, so this matches what readMetadataFieldByLabel
+		 * finds for the same label.
+		 */
+		Map<String, MetadataTemplateField> found = new HashMap<>();
+		Map<String, MetadataTemplateField> foundIgnoringCase = new HashMap<>();
+		for (MetadataTemplateField field : fieldRepository.findMetadataFieldsByLabels(missing)) {
+			found.put(field.getLabel(), field);
+			foundIgnoringCase.putIfAbsent(field.getLabel().toLowerCase(), field);
+		}
+
+		Map<String, Long> foundIds = new HashMap<>();
+		for (String label : missing) {
+			MetadataTemplateField field = found.getOrDefault(label, foundIgnoringCase.get(label.toLowerCase()));
+			if (field != null) {
+				fields.put(label, field);
+				foundIds.put(label, field.getId());
+			}
+		}
+		cacheFieldIds(foundIds);
+
+		return fields;
 	}
 
 	@PreAuthorize("permitAll()")
@@ -133,7 +237,36 @@ public class MetadataTemplateServiceImpl extends CRUDServiceImpl<Long, MetadataT
 			throw new IllegalArgumentException("Cannot save a MetadataField that has an ID");
 		}
 
-		return fieldRepository.save(field);
+		MetadataTemplateField saved = fieldRepository.save(field);
+		cacheFieldIds(ImmutableMap.of(saved.getLabel(), saved.getId()));
+
+		return saved;
+	}
+
+	/**
+	 * Cache the ids of fields by label. Inside a transaction that can write,
+	 * the ids are only cached once it commits, so a field that's rolled back
+	 * (or isn't visible to other transactions yet) is never shared.
+	 *
+	 * @param ids
+	 *            the field ids by label
+	 */
+	private void cacheFieldIds(Map<String, Long> ids) {
+		if (ids.isEmpty()) {
+			return;
+		}
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()
+				&& !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					fieldIdsByLabel.putAll(ids);
+				}
+			});
+		} else {
+			fieldIdsByLabel.putAll(ids);
+		}
 	}
 
 	/**
@@ -145,24 +278,36 @@ public class MetadataTemplateServiceImpl extends CRUDServiceImpl<Long, MetadataT
 		return fieldRepository.findAllMetadataFieldsByLabelQuery(query);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
 	@Override
 	@Transactional
 	@PreAuthorize("permitAll()")
-	public Map<MetadataTemplateField, MetadataEntry> getMetadataMap(Map<String, MetadataEntry> metadataMap) {
-		Map<MetadataTemplateField, MetadataEntry> metadata = new HashMap<>();
-		metadataMap.entrySet().forEach(e -> {
-
-			// get the metadatatemplatefield if it exists
-			MetadataTemplateField field = readMetadataFieldByLabel(e.getKey());
+	public Map<String, MetadataTemplateField> getOrCreateMetadataFields(Collection<String> labels) {
+		// get the metadatatemplatefields that already exist in one query
+		Map<String, MetadataTemplateField> fields = new HashMap<>(readMetadataFieldsByLabels(labels));
 
+		for (String label : labels) {
 			// if not, create a new one
-			if (field == null) {
-				field = new MetadataTemplateField(e.getKey(), "text");
-				field = saveMetadataField(field);
+			if (!fields.containsKey(label)) {
+				MetadataTemplateField field = new MetadataTemplateField(label, "text");
+				fields.put(label, saveMetadataField(field));
 			}
+		}
+
+		return fields;
+	}
+
+	@Override
+	@Transactional
+	@PreAuthorize("permitAll()")
+	public Map<MetadataTemplateField, MetadataEntry> getMetadataMap(Map<String, MetadataEntry> metadataMap) {
+		Map<MetadataTemplateField, MetadataEntry> metadata = new HashMap<>();
+
+		Map<String, MetadataTemplateField> fields = getOrCreateMetadataFields(metadataMap.keySet());
 
-			metadata.put(field, e.getValue());
-		});
+		metadataMap.forEach((label, entry) -> metadata.put(fields.get(label), entry));
 
 		return metadata;
 	}
@@ -58,6 +58,8 @@ import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
 import ca.corefacility.bioinformatics.irida.service.impl.CRUDServiceImpl;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 
+import com.google.common.collect.Lists;
+
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -70,6 +72,8 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 
 	private static final Logger logger = LoggerFactory.getLogger(SampleServiceImpl.class);
 
+	private static final int SAMPLE_NAME_BATCH_SIZE = 1000;
+
 	/**
 	 * Reference to {@link SampleRepository} for managing {@link Sample}.
 	 */
@@ -228,6 +232,27 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	@PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_SEQUENCER') or hasPermission(#project, 'canReadProject')")
+	public Map<String, Sample> getSamplesBySampleNames(Project project, Collection<String> sampleNames) {
+		checkNotNull(sampleNames, "sampleNames is null");
+
+		Map<String, Sample> samples = new HashMap<>();
+		// keep the IN clause of each query to a reasonable size
+		List<String> distinctNames = new ArrayList<>(new HashSet<>(sampleNames));
+		for (List<String> names : Lists.partition(distinctNames, SAMPLE_NAME_BATCH_SIZE)) {
+			for (Sample sample : sampleRepository.getSamplesBySampleNames(project, names)) {
+				samples.put(sample.getSampleName(), sample);
+			}
+		}
+
+		return samples;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -256,6 +281,16 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 		return samplesForProjectShallow;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Transactional(readOnly = true)
+	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#project, 'canReadProject')")
+	@Override
+	public List<Sample> getSamplesForProjectChangedSince(Project project, Date changedSince) {
+		return sampleRepository.getSamplesForProjectChangedSince(project, changedSince);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -373,6 +408,15 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 	public Long getTotalBasesForSample(Sample sample) throws SequenceFileAnalysisException {
 		checkNotNull(sample, "sample is null");
 
+		// use the stored total where it's known, it's null when a file is missing fastqc results
+		if (sample.getId() != null) {
+			Long storedTotal = sampleRepository.getTotalBasesForSamples(Collections.singleton(sample.getId()))
+					.get(sample.getId());
+			if (storedTotal != null) {
+				return storedTotal;
+			}
+		}
+
 		long totalBases = 0;
 
 		List<SampleSequencingObjectJoin> sequencesForSample = ssoRepository.getSequencesForSample(sample);
@@ -419,6 +463,22 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 		return estimateCoverageForSample(sample, referenceFile.getFileLength());
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#samples, 'canReadSample')")
+	public Map<Long, Long> getTotalBasesForSamples(Collection<Sample> samples) {
+		checkNotNull(samples, "samples is null");
+
+		Set<Long> sampleIds = samples.stream()
+				.map(Sample::getId)
+				.collect(Collectors.toSet());
+
+		return sampleRepository.getTotalBasesForSamples(sampleIds);
+	}
+
 	/**
 	 * Add a {@link SequencingObject} to a {@link Sample} after testing if it
 	 * exists in a {@link Sample} already
@@ -447,10 +507,19 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 	@Override
 	@PreAuthorize("hasAnyRole('ROLE_ADMIN') or hasPermission(#projects, 'canReadProject')")
 	public Page<ProjectSampleJoin> getFilteredSamplesForProjects(List<Project> projects, List<String> sampleNames, String sampleName, String searchTerm,
-			String organism, Date minDate, Date maxDate, int currentPage, int pageSize, Sort sort) {
-		return psjRepository
-				.findAll(ProjectSampleSpecification.getSamples(projects, sampleNames, sampleName, searchTerm, organism, minDate, maxDate),
-						PageRequest.of(currentPage, pageSize, sort));
+			String organism, Date minDate, Date maxDate, Double minCoverage, Double maxCoverage, int currentPage,
+			int pageSize, Sort sort) {
+		Specification<ProjectSampleJoin> specification = ProjectSampleSpecification.getSamples(projects, sampleNames,
+				sampleName, searchTerm, organism, minDate, maxDate, minCoverage, maxCoverage);
+
+		// coverage is calculated from the sample and project, so it's ordered by the specification
+		Sort.Order coverageOrder = sort.getOrderFor(ProjectSampleSpecification.COVERAGE_SORT_PROPERTY);
+		if (coverageOrder != null) {
+			specification = specification.and(ProjectSampleSpecification.orderByCoverage(coverageOrder.getDirection()));
+			sort = Sort.unsorted();
+		}
+
+		return psjRepository.findAll(specification, PageRequest.of(currentPage, pageSize, sort));
 	}
 
 	/**
@@ -484,12 +553,36 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 		return qcEntryRepository.getQCEntriesForSample(sample);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Transactional(readOnly = true)
+	@Override
+	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#samples, 'canReadSample')")
+	public Map<Long, List<QCEntry>> getQCEntriesForSamples(Collection<Sample> samples) {
+		checkNotNull(samples, "samples is null");
+
+		Map<Long, List<QCEntry>> qcEntries = new HashMap<>();
+		if (samples.isEmpty()) {
+			return qcEntries;
+		}
+
+		for (Object[] sampleEntry : qcEntryRepository.getQCEntriesForSamples(samples)) {
+			qcEntries.computeIfAbsent((Long) sampleEntry[0], k -> new ArrayList<>())
+					.add((QCEntry) sampleEntry[1]);
+		}
+
+		return qcEntries;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@PreAuthorize("hasPermission(#objects, 'canUpdateSample')")
 	@Override
+	@Transactional
 	public List<Sample> updateMultiple(Collection<Sample> objects) {
+		// update(Sample) sets the modified date of each sample
 		return super.updateMultiple(objects);
 	}
 
@@ -14,7 +14,7 @@ import ca.corefacility.bioinformatics.irida.model.project.ProjectSyncFrequency;
 import ca.corefacility.bioinformatics.irida.model.remote.RemoteStatus;
 import ca.corefacility.bioinformatics.irida.model.remote.RemoteStatus.SyncStatus;
 import ca.corefacility.bioinformatics.irida.model.remote.RemoteSynchronizable;
-import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
+import ca.corefacility.bioinformatics.irida.model.remote.resource.ResourceList;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
 import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
@@ -30,12 +30,18 @@ import org.apache.commons.lang3.time.DateUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import com.google.common.collect.Lists;
 
@@ -48,6 +54,9 @@ import com.google.common.collect.Lists;
 public class ProjectSynchronizationService {
 	private static final Logger logger = LoggerFactory.getLogger(ProjectSynchronizationService.class);
 
+	// how far before the last synchronization to look for changed samples
+	private static final long CHANGED_SINCE_OVERLAP = TimeUnit.HOURS.toMillis(1);
+
 	private ProjectService projectService;
 	private SampleService sampleService;
 	private SequencingObjectService objectService;
@@ -62,13 +71,28 @@ public class ProjectSynchronizationService {
 	private RemoteAPITokenService tokenService;
 	private EmailController emailController;
 
+	private Executor projectExecutor;
+	private Executor sampleExecutor;
+	private int apiThreads;
+
+	// projects which have been handed to the project executor and haven't finished yet
+	private final Set<Long> projectsInProgress = ConcurrentHashMap.newKeySet();
+
+	private final Object tokenRefreshLock = new Object();
+
+	// limits the number of samples synchronized at the same time from each remote api
+	private final Map<String, Semaphore> apiPermits = new ConcurrentHashMap<>();
+
 	@Autowired
 	public ProjectSynchronizationService(ProjectService projectService, SampleService sampleService,
 			SequencingObjectService objectService, MetadataTemplateService metadataTemplateService,
 			GenomeAssemblyService assemblyService, ProjectRemoteService projectRemoteService,
 			SampleRemoteService sampleRemoteService, SingleEndSequenceFileRemoteService singleEndRemoteService,
 			SequenceFilePairRemoteService pairRemoteService, GenomeAssemblyRemoteService assemblyRemoteService,
-			RemoteAPITokenService tokenService, EmailController emailController) {
+			RemoteAPITokenService tokenService, EmailController emailController,
+			@Qualifier("projectSyncProjectExecutor") Executor projectExecutor,
+			@Qualifier("projectSyncSampleExecutor") Executor sampleExecutor,
+			@Value("${project.sync.api.threads:2}") int apiThreads) {
 
 		this.projectService = projectService;
 		this.sampleService = sampleService;
@@ -82,6 +106,9 @@ public class ProjectSynchronizationService {
 		this.assemblyRemoteService = assemblyRemoteService;
 		this.tokenService = tokenService;
 		this.emailController = emailController;
+		this.projectExecutor = projectExecutor;
+		this.sampleExecutor = sampleExecutor;
+		this.apiThreads = apiThreads;
 	}
 
 	/**
@@ -128,7 +155,8 @@ public class ProjectSynchronizationService {
 
 	/**
 	 * Find projects which should be synchronized and launch a synchornization
-	 * task.
+	 * task for each of them on the project executor. Projects which are still
+	 * being synchronized from a previous check are skipped.
 	 */
 	public synchronized void findMarkedProjectsToSync() {
 		// mark any projects which should be synched first
@@ -139,43 +167,73 @@ public class ProjectSynchronizationService {
 		logger.trace("Checking for projects to sync");
 
 		for (Project project : markedProjects) {
-			/*
-			 * Set the correct authorization for the user who's syncing the
-			 * project
-			 */
-			User readBy = project.getRemoteStatus().getReadBy();
-			setAuthentication(readBy);
-
-			logger.trace("Syncing project at " + project.getRemoteStatus().getURL());
+			if (!projectsInProgress.add(project.getId())) {
+				logger.trace("Project " + project.getRemoteStatus().getURL() + " is already being synchronized");
+				continue;
+			}
 
 			try {
-				RemoteAPI api = project.getRemoteStatus().getApi();
-				tokenService.updateTokenFromRefreshToken(api);
+				projectExecutor.execute(() -> {
+					try {
+						syncMarkedProject(project);
+					} finally {
+						projectsInProgress.remove(project.getId());
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				logger.debug("Can't start syncing project " + project.getRemoteStatus().getURL()
+						+ " right now, it will be synchronized on the next check", e);
+				projectsInProgress.remove(project.getId());
+			}
+		}
+
+	}
+
+	/**
+	 * Synchronize a {@link SyncStatus#MARKED} project as the user who's
+	 * syncing it, recording any errors in the project's {@link RemoteStatus}.
+	 *
+	 * @param project
+	 *            the {@link Project} to synchronize
+	 */
+	private void syncMarkedProject(Project project) {
+		/*
+		 * Set the correct authorization for the user who's syncing the
+		 * project
+		 */
+		User readBy = project.getRemoteStatus().getReadBy();
+		setAuthentication(readBy);
 
-				syncProject(project);
-			} catch (IridaOAuthException e) {
-				logger.trace("Can't sync project " + project.getRemoteStatus().getURL() + " due to oauth error:", e);
-				//re-reading project to get updated version
-				project = projectService.read(project.getId());
-				project.getRemoteStatus().setSyncStatus(SyncStatus.UNAUTHORIZED);
-				projectService.update(project);
-
-				emailController.sendProjectSyncUnauthorizedEmail(project);
-			} catch (Exception e) {
-				logger.debug("An error occurred while synchronizing project " + project.getRemoteStatus().getURL(), e);
-				//re-reading project to get updated version
-				project = projectService.read(project.getId());
-				project.getRemoteStatus().setSyncStatus(SyncStatus.ERROR);
-				projectService.update(project);
-			} finally {
-				// clear the context holder when you're done
-				SecurityContextHolder.clearContext();
-
-				logger.trace("Done project " + project.getRemoteStatus().getURL());
+		logger.trace("Syncing project at " + project.getRemoteStatus().getURL());
+
+		try {
+			RemoteAPI api = project.getRemoteStatus().getApi();
+			// projects from the same user and api share a token, don't refresh it twice at once
+			synchronized (tokenRefreshLock) {
+				tokenService.updateTokenFromRefreshToken(api);
 			}
 
-		}
+			syncProject(project);
+		} catch (IridaOAuthException e) {
+			logger.trace("Can't sync project " + project.getRemoteStatus().getURL() + " due to oauth error:", e);
+			//re-reading project to get updated version
+			project = projectService.read(project.getId());
+			project.getRemoteStatus().setSyncStatus(SyncStatus.UNAUTHORIZED);
+			projectService.update(project);
+
+			emailController.sendProjectSyncUnauthorizedEmail(project);
+		} catch (Exception e) {
+			logger.debug("An error occurred while synchronizing project " + project.getRemoteStatus().getURL(), e);
+			//re-reading project to get updated version
+			project = projectService.read(project.getId());
+			project.getRemoteStatus().setSyncStatus(SyncStatus.ERROR);
+			projectService.update(project);
+		} finally {
+			// clear the context holder when you're done
+			SecurityContextHolder.clearContext();
 
+			logger.trace("Done project " + project.getRemoteStatus().getURL());
+		}
 	}
 
 	/**
@@ -186,8 +244,11 @@ public class ProjectSynchronizationService {
 	 *            from a remote api.
 	 */
 	private void syncProject(Project project) {
+		Date syncStart = new Date();
+		Date lastSynchronized = project.getRemoteStatus().getLastSynchronized();
+
 		project.getRemoteStatus().setSyncStatus(SyncStatus.UPDATING);
-		project.getRemoteStatus().setLastUpdate(new Date());
+		project.getRemoteStatus().setLastUpdate(syncStart);
 		projectService.update(project);
 
 		String projectURL = project.getRemoteStatus().getURL();
@@ -226,9 +287,99 @@ public class ProjectSynchronizationService {
 			}
 		});
 
-		//read the remote samples from the remote API
-		List<Sample> readSamplesForProject = sampleRemoteService.getSamplesForProject(readProject);
+		//read the remote samples from the remote API, only the changed ones if the project has been synchronized before
+		List<Sample> readSamplesForProject = null;
+		if (lastSynchronized != null) {
+			readSamplesForProject = getChangedSamples(readProject, lastSynchronized, samplesByUrl);
+		}
+
+		if (readSamplesForProject == null) {
+			readSamplesForProject = sampleRemoteService.getSamplesForProject(readProject);
+
+			removeDeletedSamples(project, readSamplesForProject, samplesByUrl);
+		}
+
+		List<ProjectSynchronizationException> syncExceptions = syncSamples(readSamplesForProject, project,
+				samplesByUrl);
+
+		// re-read project to ensure any updates are reflected
+		project = projectService.read(project.getId());
+		project.setRemoteStatus(readProject.getRemoteStatus());
+
+		if (syncExceptions.isEmpty()) {
+			project.getRemoteStatus().setSyncStatus(SyncStatus.SYNCHRONIZED);
+			project.getRemoteStatus().setLastSynchronized(syncStart);
+		} else {
+			project.getRemoteStatus().setSyncStatus(SyncStatus.ERROR);
+
+			logger.error("Error syncing project " + project.getId() + " setting sync status to ERROR");
+		}
+
+		projectService.update(project);
+	}
+
+	/**
+	 * Read the remote {@link Sample}s of a project which have changed since
+	 * it was last synchronized. Samples removed remotely can't be listed as
+	 * changes, so if the number of samples in the remote project doesn't
+	 * match what we'd have after adding the changed samples, null is
+	 * returned and the whole project should be listed instead.
+	 *
+	 * @param readProject
+	 *            the {@link Project} read from the remote api
+	 * @param lastSynchronized
+	 *            the start of the last successful synchronization
+	 * @param samplesByUrl
+	 *            the local samples of the project by their remote url
+	 * @return the changed {@link Sample}s, or null if the whole project must
+	 *         be listed
+	 */
+	private List<Sample> getChangedSamples(Project readProject, Date lastSynchronized,
+			Map<String, Sample> samplesByUrl) {
+		// allow for the clocks of the two installations being a bit apart
+		Date changedSince = new Date(lastSynchronized.getTime() - CHANGED_SINCE_OVERLAP);
+
+		ResourceList<Sample> changedSamples = sampleRemoteService.getSamplesForProjectChangedSince(readProject,
+				changedSince);
+
+		// remote installations which can't list changes send all their samples without a total
+		if (changedSamples.getTotalResources() == null) {
+			logger.trace("Remote project " + readProject.getSelfHref() + " can't list changed samples");
+			return null;
+		}
+
+		long newSamples = changedSamples.getResources()
+				.stream()
+				.filter(s -> !samplesByUrl.containsKey(s.getRemoteStatus()
+						.getURL()))
+				.count();
+
+		if (samplesByUrl.size() + newSamples != changedSamples.getTotalResources()) {
+			logger.trace("Samples have been removed from remote project " + readProject.getSelfHref()
+					+ ", listing all samples");
+			return null;
+		}
+
+		logger.trace("Found " + changedSamples.getResources()
+				.size() + " changed samples in remote project " + readProject.getSelfHref());
+
+		return changedSamples.getResources();
+	}
 
+	/**
+	 * Remove any local {@link Sample}s from a project which no longer exist in
+	 * the remote project
+	 *
+	 * @param project
+	 *            the local {@link Project}
+	 * @param readSamplesForProject
+	 *            all the {@link Sample}s of the remote project
+	 * @param samplesByUrl
+	 *            the local samples of the project by their remote url. Removed
+	 *            samples will be removed from this map.
+	 */
+	private void removeDeletedSamples(Project project, List<Sample> readSamplesForProject,
+			Map<String, Sample> samplesByUrl) {
 		//get a list of all remote URLs in the project
 		Set<String> remoteUrls = readSamplesForProject.stream()
 				.map(s -> s.getRemoteStatus()
@@ -249,29 +400,132 @@ public class ProjectSynchronizationService {
 			projectService.removeSampleFromProject(project, samplesByUrl.get(localUrl));
 			samplesByUrl.remove(localUrl);
 		}
+	}
 
-		List<ProjectSynchronizationException> syncExceptions = new ArrayList<>();
-		for (Sample s : readSamplesForProject) {
-			s.setId(null);
-			s = syncSampleMetadata(s);
-			List<ProjectSynchronizationException> syncExceptionsSample = syncSample(s, project, samplesByUrl);
+	/**
+	 * Synchronize the samples of a project on the sample executor. The
+	 * metadata of every sample is read from the remote api first, then any new
+	 * metadata fields are created on this thread before the samples are saved.
+	 * Otherwise samples saved at the same time with the same new label would
+	 * each create a field for it.
+	 *
+	 * @param samples
+	 *            the {@link Sample}s read from the remote api
+	 * @param project
+	 *            The {@link Project} the {@link Sample}s belong in.
+	 * @param existingSamples
+	 *            A map of samples that have already been synchronized.
+	 * @return A list of {@link ProjectSynchronizationException}s, empty if no
+	 *         errors.
+	 */
+	private List<ProjectSynchronizationException> syncSamples(List<Sample> samples, Project project,
+			Map<String, Sample> existingSamples) {
+		Semaphore permits = getApiPermits(project.getRemoteStatus().getApi());
 
-			syncExceptions.addAll(syncExceptionsSample);
-		}
+		samples.forEach(s -> s.setId(null));
 
-		// re-read project to ensure any updates are reflected
-		project = projectService.read(project.getId());
-		project.setRemoteStatus(readProject.getRemoteStatus());
+		List<Map<String, MetadataEntry>> sampleMetadata = runSampleTasks(samples, permits, this::readSampleMetadata);
 
-		if (syncExceptions.isEmpty()) {
-			project.getRemoteStatus().setSyncStatus(SyncStatus.SYNCHRONIZED);
-		} else {
-			project.getRemoteStatus().setSyncStatus(SyncStatus.ERROR);
+		Set<String> labels = sampleMetadata.stream()
+				.flatMap(m -> m.keySet().stream())
+				.collect(Collectors.toSet());
+		metadataTemplateService.getOrCreateMetadataFields(labels);
+
+		List<Integer> indexes = IntStream.range(0, samples.size())
+				.boxed()
+				.collect(Collectors.toList());
+		List<List<ProjectSynchronizationException>> sampleSyncs = runSampleTasks(indexes, permits, i -> {
+			Sample sample = samples.get(i);
+			sample.setMetadata(metadataTemplateService.getMetadataMap(sampleMetadata.get(i)));
+			return syncSample(sample, project, existingSamples);
+		});
 
-			logger.error("Error syncing project " + project.getId() + " setting sync status to ERROR");
+		return sampleSyncs.stream()
+				.flatMap(List::stream)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Run a task for each input on the sample executor as the user who's
+	 * syncing the project. The number of tasks running at the same time
+	 * against the project's remote api is limited by
+	 * <code>project.sync.api.threads</code>. If a task fails with an
+	 * unexpected error no more tasks are started and the error is thrown once
+	 * the running tasks have finished.
+	 *
+	 * @param inputs
+	 *            the inputs to run the task for
+	 * @param permits
+	 *            the permits for the project's remote api
+	 * @param task
+	 *            the task to run
+	 * @return the result of the task for each input, in the same order
+	 */
+	private <S, T> List<T> runSampleTasks(List<S> inputs, Semaphore permits, Function<S, T> task) {
+		// the sample tasks run as the user who's syncing the project
+		SecurityContext context = SecurityContextHolder.getContext();
+
+		List<CompletableFuture<T>> futures = new ArrayList<>();
+		for (S input : inputs) {
+			// stop starting new tasks once one has failed
+			if (futures.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+				break;
+			}
+
+			permits.acquireUninterruptibly();
+
+			CompletableFuture<T> future = new CompletableFuture<>();
+			Runnable runnable = () -> {
+				try {
+					future.complete(task.apply(input));
+				} catch (Exception e) {
+					future.completeExceptionally(e);
+				} finally {
+					permits.release();
+				}
+			};
+
+			try {
+				sampleExecutor.execute(new DelegatingSecurityContextRunnable(runnable, context));
+			} catch (RejectedExecutionException e) {
+				permits.release();
+				future.completeExceptionally(e);
+			}
+
+			futures.add(future);
 		}
 
-		projectService.update(project);
+		List<T> results = new ArrayList<>();
+		RuntimeException failure = null;
+		for (CompletableFuture<T> future : futures) {
+			try {
+				results.add(future.join());
+			} catch (CompletionException e) {
+				if (failure == null) {
+					failure = e.getCause() instanceof RuntimeException ?
+							(RuntimeException) e.getCause() :
+							e;
+				}
+			}
+		}
+
+		if (failure != null) {
+			throw failure;
+		}
+
+		return results;
+	}
+
+	/**
+	 * Get the permits limiting the number of samples synchronized at the same
+	 * time from a {@link RemoteAPI}.
+	 *
+	 * @param api
+	 *            the {@link RemoteAPI} being synchronized from
+	 * @return the {@link Semaphore} for the api
+	 */
+	private Semaphore getApiPermits(RemoteAPI api) {
+		return apiPermits.computeIfAbsent(String.valueOf(api.getServiceURI()), k -> new Semaphore(apiThreads));
 	}
 
 	/**
@@ -416,20 +670,17 @@ public class ProjectSynchronizationService {
 	}
 
 	/**
-	 * Synchronize the given sample's metadata
+	 * Read the given sample's metadata from the remote api
 	 *
-	 * @param sample the sample to sync
-	 * @return the synchronized sample
+	 * @param sample the sample to read the metadata of
+	 * @return the sample's metadata by label
 	 */
-	public Sample syncSampleMetadata(Sample sample){
+	private Map<String, MetadataEntry> readSampleMetadata(Sample sample) {
 		Map<String, MetadataEntry> sampleMetadata = sampleRemoteService.getSampleMetadata(sample);
-		
+
 		sampleMetadata.values().forEach(e -> e.setId(null));
-		
-		Map<MetadataTemplateField, MetadataEntry> metadata = metadataTemplateService.getMetadataMap(sampleMetadata);
-		sample.setMetadata(metadata);
-		
-		return sample;
+
+		return sampleMetadata;
 	}
 
 	/**
@@ -447,6 +698,8 @@ public class ProjectSynchronizationService {
 		try {
 			file = singleEndRemoteService.mirrorSequencingObject(file);
 
+			// the local file processors still run, but skip the checksum and
+			// fastqc results that were mirrored from the remote
 			file.setProcessingState(SequencingObject.ProcessingState.UNPROCESSED);
 			file.setFileProcessor(null);
 
@@ -504,6 +757,8 @@ public class ProjectSynchronizationService {
 		try {
 			pair = pairRemoteService.mirrorSequencingObject(pair);
 
+			// the local file processors still run, but skip the checksum and
+			// fastqc results that were mirrored from the remote
 			pair.setProcessingState(SequencingObject.ProcessingState.UNPROCESSED);
 			pair.setFileProcessor(null);
 
@@ -1,9 +1,11 @@
 package ca.corefacility.bioinformatics.irida.service.remote;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
 import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.remote.resource.ResourceList;
 import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
@@ -23,6 +25,20 @@ public interface SampleRemoteService extends RemoteService<Sample> {
 	 */
 	public List<Sample> getSamplesForProject(Project project);
 
+	/**
+	 * Get the {@link Sample}s in a {@link Project} which have been added,
+	 * modified, or had files or assemblies added since a given date
+	 * 
+	 * @param project
+	 *            The {@link Project} to get samples from
+	 * @param changedSince
+	 *            the date to get changes after
+	 * @return the changed {@link Sample}s and the total number of samples in
+	 *         the project. If the remote installation can't list changes all
+	 *         {@link Sample}s are returned and the total is null.
+	 */
+	public ResourceList<Sample> getSamplesForProjectChangedSince(Project project, Date changedSince);
+
 	/**
 	 * Get the {@link Sample} metadata for a remote sample
 	 * 
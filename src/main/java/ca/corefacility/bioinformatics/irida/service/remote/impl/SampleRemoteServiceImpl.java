@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.service.remote.impl;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -8,6 +9,7 @@ import org.springframework.hateoas.Link;
 import org.springframework.stereotype.Service;
 
 import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.remote.resource.ResourceList;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
 import ca.corefacility.bioinformatics.irida.repositories.RemoteAPIRepository;
@@ -45,6 +47,16 @@ public class SampleRemoteServiceImpl extends RemoteServiceImpl<Sample> implement
 		return list(samplesHref, project.getRemoteStatus().getApi());
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ResourceList<Sample> getSamplesForProjectChangedSince(Project project, Date changedSince) {
+		Link link = project.getLink(PROJECT_SAMPLES_REL);
+		String samplesHref = link.getHref();
+		return sampleRemoteRepository.listChangedSince(samplesHref, changedSince, project.getRemoteStatus().getApi());
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -3,9 +3,13 @@ package ca.corefacility.bioinformatics.irida.service.remote.impl;
 import java.nio.file.Path;
 import java.util.Set;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import ca.corefacility.bioinformatics.irida.model.RemoteAPI;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
 import ca.corefacility.bioinformatics.irida.repositories.RemoteAPIRepository;
 import ca.corefacility.bioinformatics.irida.repositories.remote.RemoteRepository;
 import ca.corefacility.bioinformatics.irida.repositories.remote.SequenceFileRemoteRepository;
@@ -17,6 +21,8 @@ import ca.corefacility.bioinformatics.irida.service.remote.SequencingObjectRemot
  */
 public class SequencingObjectRemoteServiceImpl<Type extends SequencingObject> extends RemoteServiceImpl<Type>
 		implements SequencingObjectRemoteService<Type> {
+	private static final Logger logger = LoggerFactory.getLogger(SequencingObjectRemoteServiceImpl.class);
+
 	public SequenceFileRemoteRepository sequenceFileRemoteRepository;
 
 	public SequencingObjectRemoteServiceImpl(RemoteRepository<Type> repository,
@@ -25,6 +31,12 @@ public class SequencingObjectRemoteServiceImpl<Type extends SequencingObject> ex
 		this.sequenceFileRemoteRepository = sequenceFileRemoteRepository;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The FastQC results calculated by the remote IRIDA are mirrored along with
+	 * each file so they don't have to be calculated again locally.
+	 */
 	@Override
 	public Type mirrorSequencingObject(Type seqObject) {
 
@@ -35,6 +47,16 @@ public class SequencingObjectRemoteServiceImpl<Type extends SequencingObject> ex
 			RemoteAPI api = getRemoteApiForURI(fileHref);
 			Path downloadRemoteSequenceFile = sequenceFileRemoteRepository.downloadRemoteSequenceFile(fileHref, api);
 			file.setFile(downloadRemoteSequenceFile);
+
+			try {
+				AnalysisFastQC fastqc = sequenceFileRemoteRepository.readRemoteFastQC(file, api);
+				if (fastqc != null) {
+					file.setFastQCAnalysis(fastqc);
+				}
+			} catch (Exception e) {
+				logger.warn("Could not read fastqc results for remote file " + fileHref
+						+ ", they will be calculated locally", e);
+			}
 		}
 
 		return seqObject;
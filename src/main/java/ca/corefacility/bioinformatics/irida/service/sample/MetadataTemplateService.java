@@ -8,6 +8,7 @@ import ca.corefacility.bioinformatics.irida.model.sample.StaticMetadataTemplateF
 import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
 import ca.corefacility.bioinformatics.irida.service.CRUDService;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -74,6 +75,21 @@ public interface MetadataTemplateService extends CRUDService<Long, MetadataTempl
 	 */
 	public MetadataTemplateField readMetadataFieldByLabel(String label);
 
+	/**
+	 * Get the {@link MetadataTemplateField}s for a collection of labels.
+	 * Labels without an existing {@link MetadataTemplateField} are left out of
+	 * the result. A field with exactly the same label is preferred, but as
+	 * {@link MetadataTemplateField}s with labels that differ only by case are
+	 * equal, a field whose label differs by case is returned if there isn't
+	 * one.
+	 *
+	 * @param labels
+	 *            the {@link String} labels of the {@link MetadataTemplateField}s
+	 *
+	 * @return {@link Map} of label to {@link MetadataTemplateField}
+	 */
+	public Map<String, MetadataTemplateField> readMetadataFieldsByLabels(Collection<String> labels);
+
 	/**
 	 * Read a {@link MetadataTemplateField} by its key
 	 *
@@ -109,6 +125,17 @@ public interface MetadataTemplateService extends CRUDService<Long, MetadataTempl
 	 */
 	public List<MetadataTemplateField> getAllMetadataFieldsByQueryString(String query);
 
+	/**
+	 * Get the {@link MetadataTemplateField}s for a collection of labels,
+	 * creating a field for any label that doesn't have one.
+	 *
+	 * @param labels
+	 *            the {@link String} labels of the {@link MetadataTemplateField}s
+	 *
+	 * @return {@link Map} of label to {@link MetadataTemplateField}
+	 */
+	public Map<String, MetadataTemplateField> getOrCreateMetadataFields(Collection<String> labels);
+
 	/**
 	 * Get the appropriate {@link MetadataTemplateField}s and {@link MetadataEntry}s for a given map of Strings
 	 *
@@ -3,6 +3,7 @@ package ca.corefacility.bioinformatics.irida.service.sample;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
@@ -74,6 +75,17 @@ public interface SampleService extends CRUDService<Long, Sample> {
 	 */
 	public List<Sample> getSamplesForProjectShallow(Project project);
 
+	/**
+	 * Get a shallow listing of the {@link Sample}s in a {@link Project} that have changed since a given date.  A sample
+	 * has changed if it was added to the project, was modified, or had sequencing objects or assemblies added to it.
+	 * Note: This method will not return any metadata or associated objects.
+	 *
+	 * @param project      The {@link Project} to get samples for
+	 * @param changedSince the date to get changes after
+	 * @return a List of {@link Sample}
+	 */
+	public List<Sample> getSamplesForProjectChangedSince(Project project, Date changedSince);
+
 	/**
 	 * Get a list of {@link Sample} in a {@link Project} given some Sample ids.
 	 * @param project {@link Project} to get samples for.
@@ -133,6 +145,18 @@ public interface SampleService extends CRUDService<Long, Sample> {
 	 * @return A {@link Sample} with the given ID
 	 */
 	public Sample getSampleBySampleName(Project project, String sampleName);
+
+	/**
+	 * Get the {@link Sample}s in a {@link Project} with the given names.
+	 * Names without a matching {@link Sample} are left out of the result.
+	 *
+	 * @param project
+	 *            the {@link Project} that the {@link Sample}s belong to.
+	 * @param sampleNames
+	 *            the names of the requested samples
+	 * @return {@link Map} of sample name to the {@link Sample} with that name
+	 */
+	public Map<String, Sample> getSamplesBySampleNames(Project project, Collection<String> sampleNames);
 	
 	/**
 	 * Remove a {@link SequencingObject} from a given {@link Sample}. This will
@@ -213,6 +237,20 @@ public interface SampleService extends CRUDService<Long, Sample> {
 	public Double estimateCoverageForSample(Sample sample,
 			ReferenceFile referenceFile) throws SequenceFileAnalysisException;
 
+	/**
+	 * Get the total number of bases in all sequence files in each of a
+	 * collection of samples. Unlike {@link #getTotalBasesForSample(Sample)}
+	 * this is answered with a single aggregate query for the whole
+	 * collection.
+	 * 
+	 * @param samples
+	 *            The samples to find the total number of bases for.
+	 * @return A map of {@link Sample} identifier to the total number of bases
+	 *         in all sequence files in the sample. Samples where a sequence
+	 *         file is missing a FastQC analysis are not included.
+	 */
+	public Map<Long, Long> getTotalBasesForSamples(Collection<Sample> samples);
+
 	/**
 	 * Get a {@link Page} of {@link ProjectSampleJoin} for samples from 1 or more projects based on filtering criteria.
 	 *
@@ -230,6 +268,10 @@ public interface SampleService extends CRUDService<Long, Sample> {
 	 * 		{@link Date} minimum date the sample was modified.
 	 * @param maxDate
 	 * 		{@link Date} maximum date the sample was modified.
+	 * @param minCoverage
+	 * 		{@link Double} minimum coverage of the sample in its project.
+	 * @param maxCoverage
+	 * 		{@link Double} maximum coverage of the sample in its project.
 	 * @param currentPage
 	 * 		{@link Integer} the current page the table is on.
 	 * @param pageSize
@@ -241,7 +283,7 @@ public interface SampleService extends CRUDService<Long, Sample> {
 	 */
 	public Page<ProjectSampleJoin> getFilteredSamplesForProjects(List<Project> projects, List<String> sampleNames,
 			String sampleName, String searchTerm, String organism,
-			Date minDate, Date maxDate, int currentPage, int pageSize, Sort sort);
+			Date minDate, Date maxDate, Double minCoverage, Double maxCoverage, int currentPage, int pageSize, Sort sort);
 
 	/**
 	 * Get a list of all {@link Sample}s associated with a given
@@ -263,6 +305,18 @@ public interface SampleService extends CRUDService<Long, Sample> {
 	 */
 	public List<QCEntry> getQCEntriesForSample(Sample sample);
 
+	/**
+	 * Find all the {@link QCEntry} associated with {@link SequencingObject}s in
+	 * each of a collection of {@link Sample}s with a single query.
+	 * 
+	 * @param samples
+	 *            the {@link Sample}s to get {@link QCEntry} for
+	 * @return a map of {@link Sample} identifier to the list of
+	 *         {@link QCEntry} for that sample. Samples without any
+	 *         {@link QCEntry} are not included.
+	 */
+	public Map<Long, List<QCEntry>> getQCEntriesForSamples(Collection<Sample> samples);
+
 	/**
 	 * Search all {@link Sample}s in projects the current logged in user has
 	 * access to
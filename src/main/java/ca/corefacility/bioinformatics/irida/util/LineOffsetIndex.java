@@ -0,0 +1,392 @@
+package ca.corefacility.bioinformatics.irida.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A sparse index of the byte offsets of the lines in a text file, so a range of
+ * lines can be read without reading every line before it.
+ * <p>
+ * The offset of every {@link #DEFAULT_INTERVAL}th line is recorded, so reading
+ * a range of lines reads at most that many lines more than the range. Indexes
+ * of large files are saved beside the file (as <code>file.lines.idx</code>)
+ * and used again as long as the size and modification time of the file
+ * haven't changed. Indexes of small files are kept in memory instead, for as
+ * long as the file is unchanged. Lines end with <code>\n</code>, <code>\r\n</code> or
+ * <code>\r</code>, the same as {@link java.io.BufferedReader#readLine()}.
+ */
+public class LineOffsetIndex {
+	private static final Logger logger = LoggerFactory.getLogger(LineOffsetIndex.class);
+
+	/**
+	 * Number of lines between each recorded offset
+	 */
+	public static final int DEFAULT_INTERVAL = 1000;
+
+	/**
+	 * Files smaller than this are quick enough to index that the index isn't
+	 * saved.
+	 */
+	public static final long DEFAULT_PERSIST_SIZE = 8 * 1024 * 1024;
+
+	private static final String INDEX_EXTENSION = ".lines.idx";
+	private static final int MAGIC = 0x4952_4c49;
+	private static final int VERSION = 1;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final int MAXIMUM_CACHED_INDEXES = 256;
+	private static final int CACHE_EXPIRE_MINUTES = 30;
+
+	/**
+	 * Indexes of files too small to save, keyed by the file, its size and
+	 * modification time and the interval
+	 */
+	private static final Cache<String, LineOffsetIndex> unsavedIndexes = CacheBuilder.newBuilder()
+			.maximumSize(MAXIMUM_CACHED_INDEXES)
+			.expireAfterAccess(CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES)
+			.build();
+
+	private final Path file;
+	private final long fileSize;
+	private final long lastModified;
+	private final int interval;
+	private final long lineCount;
+	private final long[] offsets;
+
+	private LineOffsetIndex(Path file, long fileSize, long lastModified, int interval, long lineCount,
+			long[] offsets) {
+		this.file = file;
+		this.fileSize = fileSize;
+		this.lastModified = lastModified;
+		this.interval = interval;
+		this.lineCount = lineCount;
+		this.offsets = offsets;
+	}
+
+	/**
+	 * Get the index of a file, reading it from beside the file (or memory) if
+	 * it's up to date or building (and saving) it if not.
+	 *
+	 * @param file
+	 *            the file to index
+	 * @return the index of the file
+	 * @throws IOException
+	 *             if the file can't be read
+	 */
+	public static LineOffsetIndex forFile(Path file) throws IOException {
+		return forFile(file, DEFAULT_INTERVAL, DEFAULT_PERSIST_SIZE);
+	}
+
+	/**
+	 * Get the index of a file, reading it from beside the file (or memory) if
+	 * it's up to date or building it if not.
+	 *
+	 * @param file
+	 *            the file to index
+	 * @param interval
+	 *            the number of lines between each recorded offset
+	 * @param persistSize
+	 *            the size of file in bytes from which the index is saved
+	 * @return the index of the file
+	 * @throws IOException
+	 *             if the file can't be read
+	 */
+	public static LineOffsetIndex forFile(Path file, int interval, long persistSize) throws IOException {
+		long fileSize = Files.size(file);
+		long lastModified = Files.getLastModifiedTime(file)
+				.toMillis();
+		boolean persist = fileSize >= persistSize;
+		Path indexFile = getIndexFile(file);
+
+		String cacheKey = file.toAbsolutePath() + ":" + fileSize + ":" + lastModified + ":" + interval;
+
+		LineOffsetIndex index = persist ?
+				read(file, indexFile, fileSize, lastModified, interval) :
+				unsavedIndexes.getIfPresent(cacheKey);
+		if (index != null) {
+			return index;
+		}
+
+		index = build(file, fileSize, lastModified, interval);
+		if (persist) {
+			index.write(indexFile);
+		} else {
+			unsavedIndexes.put(cacheKey, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Get the file an index is saved to
+	 *
+	 * @param file
+	 *            the indexed file
+	 * @return the index file beside it
+	 */
+	static Path getIndexFile(Path file) {
+		return file.resolveSibling(file.getFileName() + INDEX_EXTENSION);
+	}
+
+	/**
+	 * @return the number of lines in the file
+	 */
+	public long getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * Read lines from the file.
+	 *
+	 * @param start
+	 *            the number of the first line to read, starting from 0
+	 * @param limit
+	 *            the maximum number of lines to read
+	 * @return the lines read and the offset after the last of them
+	 * @throws IOException
+	 *             if the file can't be read
+	 */
+	public Lines readLines(long start, long limit) throws IOException {
+		if (start >= lineCount) {
+			return new Lines(new ArrayList<>(), fileSize);
+		}
+
+		int checkpoint = (int) (start / interval);
+		try (LineReader reader = new LineReader(file, offsets[checkpoint])) {
+			for (long line = (long) checkpoint * interval; line < start; line++) {
+				reader.readLine(null);
+			}
+			return reader.readLines(limit);
+		}
+	}
+
+	/**
+	 * Read lines from a file starting at a byte offset, without an index.
+	 *
+	 * @param file
+	 *            the file to read
+	 * @param offset
+	 *            the byte offset to start reading from
+	 * @param limit
+	 *            the maximum number of lines to read
+	 * @return the lines read and the offset after the last of them
+	 * @throws IOException
+	 *             if the file can't be read
+	 */
+	public static Lines readLines(Path file, long offset, long limit) throws IOException {
+		try (LineReader reader = new LineReader(file, offset)) {
+			return reader.readLines(limit);
+		}
+	}
+
+	/**
+	 * Build the index of a file by reading all of its lines.
+	 */
+	private static LineOffsetIndex build(Path file, long fileSize, long lastModified, int interval)
+			throws IOException {
+		logger.trace("Building line index of " + file);
+		List<Long> offsets = new ArrayList<>();
+		long lineCount = 0;
+
+		try (LineReader reader = new LineReader(file, 0)) {
+			long offset = reader.position();
+			while (reader.readLine(null)) {
+				if (lineCount % interval == 0) {
+					offsets.add(offset);
+				}
+				lineCount++;
+				offset = reader.position();
+			}
+		}
+
+		return new LineOffsetIndex(file, fileSize, lastModified, interval, lineCount,
+				offsets.stream()
+						.mapToLong(Long::longValue)
+						.toArray());
+	}
+
+	/**
+	 * Read a saved index, if it's for the current version of the file.
+	 *
+	 * @return the saved index, or null if there isn't an up to date one
+	 */
+	private static LineOffsetIndex read(Path file, Path indexFile, long fileSize, long lastModified, int interval) {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != fileSize
+					|| in.readLong() != lastModified || in.readInt() != interval) {
+				logger.debug("Line index " + indexFile + " is out of date");
+				return null;
+			}
+
+			long lineCount = in.readLong();
+			long[] offsets = new long[in.readInt()];
+			for (int i = 0; i < offsets.length; i++) {
+				offsets[i] = in.readLong();
+			}
+			return new LineOffsetIndex(file, fileSize, lastModified, interval, lineCount, offsets);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			logger.warn("Couldn't read line index " + indexFile, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Save the index beside the file. Failing to save it isn't an error since
+	 * the index can be built again.
+	 */
+	private void write(Path indexFile) {
+		Path temp = null;
+		try {
+			temp = Files.createTempFile(indexFile.getParent(), indexFile.getFileName()
+					.toString(), ".tmp");
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(fileSize);
+				out.writeLong(lastModified);
+				out.writeInt(interval);
+				out.writeLong(lineCount);
+				out.writeInt(offsets.length);
+				for (long offset : offsets) {
+					out.writeLong(offset);
+				}
+			}
+			Files.move(temp, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			logger.warn("Couldn't save line index " + indexFile, e);
+			if (temp != null) {
+				try {
+					Files.deleteIfExists(temp);
+				} catch (IOException deleteException) {
+					logger.debug("Couldn't delete " + temp, deleteException);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Lines read from a file and the byte offset after the last line, which
+	 * the next lines can be read from.
+	 */
+	public static class Lines {
+		private final List<String> lines;
+		private final long endOffset;
+
+		private Lines(List<String> lines, long endOffset) {
+			this.lines = lines;
+			this.endOffset = endOffset;
+		}
+
+		public List<String> getLines() {
+			return lines;
+		}
+
+		public long getEndOffset() {
+			return endOffset;
+		}
+	}
+
+	/**
+	 * Reads lines from a {@link FileChannel} through a buffer, keeping track of
+	 * the byte offset of the next line.
+	 */
+	private static class LineReader implements Closeable {
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		private long position;
+
+		private LineReader(Path file, long offset) throws IOException {
+			this.channel = FileChannel.open(file, StandardOpenOption.READ);
+			this.channel.position(offset);
+			this.position = offset;
+			buffer.flip();
+		}
+
+		private long position() {
+			return position;
+		}
+
+		private boolean fill() throws IOException {
+			if (buffer.hasRemaining()) {
+				return true;
+			}
+			buffer.clear();
+			int read = channel.read(buffer);
+			buffer.flip();
+			return read > 0;
+		}
+
+		private int next() throws IOException {
+			if (!fill()) {
+				return -1;
+			}
+			position++;
+			return buffer.get() & 0xff;
+		}
+
+		/**
+		 * Read a line.
+		 *
+		 * @param line
+		 *            the stream to write the line to (without its
+		 *            terminator), or null to skip the line
+		 * @return false if the end of the file was reached before the line
+		 * @throws IOException
+		 *             if the file can't be read
+		 */
+		private boolean readLine(ByteArrayOutputStream line) throws IOException {
+			int b = next();
+			if (b == -1) {
+				return false;
+			}
+			while (b != -1 && b != '\n' && b != '\r') {
+				if (line != null) {
+					line.write(b);
+				}
+				b = next();
+			}
+			if (b == '\r' && fill() && buffer.get(buffer.position()) == '\n') {
+				next();
+			}
+			return true;
+		}
+
+		private Lines readLines(long limit) throws IOException {
+			List<String> lines = new ArrayList<>();
+			ByteArrayOutputStream line = new ByteArrayOutputStream();
+			while (lines.size() < limit && readLine(line)) {
+				lines.add(new String(line.toByteArray(), Charset.defaultCharset()));
+				line.reset();
+			}
+			return new Lines(lines, position);
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,433 @@
+package ca.corefacility.bioinformatics.irida.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Streams a zip archive of files to an {@link OutputStream}.
+ * <p>
+ * Files which are already compressed (ie. gzipped sequence files) are
+ * deflated with {@link Deflater#NO_COMPRESSION} rather than compressed again.
+ * Unlike a <code>STORED</code> entry this doesn't need the CRC before the entry
+ * is written, so each file is only read once. The next few entries are
+ * prepared (checking whether they're compressed and reading their times) on an
+ * {@link Executor} while the current entry is being written. Entries waiting to
+ * be prepared when the archive stops being written (ie. the client
+ * disconnected) are skipped. Archives and entries larger than 4GB are written
+ * with ZIP64 extensions by {@link ZipOutputStream}.
+ */
+public class ZipStreamWriter {
+	private static final Logger logger = LoggerFactory.getLogger(ZipStreamWriter.class);
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Extensions of files which are compressed and would gain nothing from
+	 * being compressed again.
+	 */
+	private static final Set<String> COMPRESSED_EXTENSIONS = ImmutableSet.of("gz", "bz2", "xz", "zip", "bam", "png",
+			"jpg", "jpeg", "gif");
+
+	private final Executor executor;
+	private final int readAhead;
+
+	/**
+	 * Create a writer which prepares each entry in the writing thread when it's
+	 * needed.
+	 */
+	public ZipStreamWriter() {
+		this(null, 0);
+	}
+
+	/**
+	 * Create a writer which prepares entries ahead of the one being written.
+	 *
+	 * @param executor
+	 *            the executor to prepare entries with
+	 * @param readAhead
+	 *            the number of entries to prepare ahead of the one being
+	 *            written
+	 */
+	public ZipStreamWriter(Executor executor, int readAhead) {
+		this.executor = executor;
+		this.readAhead = executor == null ? 0 : readAhead;
+	}
+
+	/**
+	 * Write a zip archive of the entries to a stream. The stream isn't closed.
+	 *
+	 * @param entries
+	 *            the entries to write to the archive
+	 * @param outputStream
+	 *            the stream to write the archive to
+	 * @param progress
+	 *            the {@link Progress} of the archive to update, may be null
+	 * @throws IOException
+	 *             if a file can't be read or the archive can't be written
+	 */
+	public void write(List<Entry> entries, OutputStream outputStream, Progress progress) throws IOException {
+		if (progress == null) {
+			progress = new Progress();
+		}
+		progress.start(entries);
+
+		Deque<CompletableFuture<PreparedEntry>> prepared = new ArrayDeque<>();
+		// cancel(true) doesn't stop a CompletableFuture that's already been submitted, so the entries waiting to be
+		// prepared check this first
+		AtomicBoolean stopped = new AtomicBoolean();
+		int next = 0;
+
+		try {
+			ZipOutputStream zipStream = new ZipOutputStream(outputStream);
+			for (int i = 0; i < entries.size(); i++) {
+				while (next < entries.size() && next <= i + readAhead) {
+					prepared.add(prepare(entries.get(next++), stopped));
+				}
+
+				PreparedEntry entry = getPrepared(prepared.remove());
+				zipStream.setLevel(entry.compressed ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+				zipStream.putNextEntry(entry.zipEntry);
+				entry.entry.writeTo(zipStream, progress);
+				zipStream.closeEntry();
+				progress.entriesWritten.incrementAndGet();
+			}
+			zipStream.finish();
+			zipStream.flush();
+			progress.complete.set(true);
+		} finally {
+			stopped.set(true);
+			prepared.forEach(f -> f.cancel(true));
+		}
+	}
+
+	/**
+	 * Start preparing a zip entry for a file, on the executor if there is
+	 * one.
+	 *
+	 * @param entry
+	 *            the entry to prepare
+	 * @param stopped
+	 *            set once the archive is no longer being written
+	 * @return the prepared entry
+	 */
+	private CompletableFuture<PreparedEntry> prepare(Entry entry, AtomicBoolean stopped) {
+		if (executor == null) {
+			CompletableFuture<PreparedEntry> future = new CompletableFuture<>();
+			try {
+				future.complete(entry.prepare(stopped));
+			} catch (IOException e) {
+				future.completeExceptionally(e);
+			}
+			return future;
+		}
+
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return entry.prepare(stopped);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, executor);
+	}
+
+	/**
+	 * Wait for an entry to be prepared.
+	 *
+	 * @param future
+	 *            the entry being prepared
+	 * @return the prepared entry
+	 * @throws IOException
+	 *             if the entry's file couldn't be read
+	 */
+	private static PreparedEntry getPrepared(CompletableFuture<PreparedEntry> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread()
+					.interrupt();
+			throw new IOException("Interrupted while preparing zip entry", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof UncheckedIOException) {
+				throw ((UncheckedIOException) cause).getCause();
+			} else if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException("Failed to prepare zip entry", cause);
+		}
+	}
+
+	/**
+	 * Check if a file is already compressed, by its extension or by checking
+	 * if it's gzipped.
+	 *
+	 * @param file
+	 *            the file to check
+	 * @return true if the file is compressed
+	 * @throws IOException
+	 *             if the file can't be read
+	 */
+	static boolean isCompressed(Path file) throws IOException {
+		String name = file.getFileName()
+				.toString()
+				.toLowerCase();
+		int dot = name.lastIndexOf('.');
+		if (dot >= 0 && COMPRESSED_EXTENSIONS.contains(name.substring(dot + 1))) {
+			return true;
+		}
+
+		return FileUtils.isGzipped(file);
+	}
+
+	/**
+	 * An entry to write to a zip archive, either the contents of a file or a
+	 * byte array.
+	 */
+	public static class Entry {
+		private final String name;
+		private final Path file;
+		private final byte[] content;
+		private final FileTime time;
+
+		private Entry(String name, Path file, byte[] content, FileTime time) {
+			this.name = name;
+			this.file = file;
+			this.content = content;
+			this.time = time;
+		}
+
+		/**
+		 * Create an entry for a file.
+		 *
+		 * @param name
+		 *            the name of the entry in the archive
+		 * @param file
+		 *            the file to write
+		 * @param time
+		 *            the creation and modification time of the entry, or
+		 *            null to use the file's last modified time
+		 * @return the entry
+		 */
+		public static Entry ofFile(String name, Path file, FileTime time) {
+			return new Entry(name, file, null, time);
+		}
+
+		/**
+		 * Create an entry with the given content.
+		 *
+		 * @param name
+		 *            the name of the entry in the archive
+		 * @param content
+		 *            the content of the entry
+		 * @return the entry
+		 */
+		public static Entry ofContent(String name, byte[] content) {
+			return new Entry(name, null, content, null);
+		}
+
+		/**
+		 * @return the name of the entry in the archive
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return the file to write, or null if the entry has its content
+		 */
+		public Path getFile() {
+			return file;
+		}
+
+		/**
+		 * @return the content of the entry, or null if it's a file
+		 */
+		public byte[] getContent() {
+			return content;
+		}
+
+		/**
+		 * Get the size of the entry
+		 *
+		 * @return the size of the entry in bytes
+		 * @throws IOException
+		 *             if the size of the file can't be read
+		 */
+		long size() throws IOException {
+			return file == null ? content.length : Files.size(file);
+		}
+
+		/**
+		 * Build the {@link ZipEntry} for this entry and check whether its file
+		 * is already compressed.
+		 *
+		 * @param stopped
+		 *            set once the archive is no longer being written
+		 * @return the prepared entry
+		 * @throws IOException
+		 *             if the file can't be read or the archive stopped being
+		 *             written
+		 */
+		private PreparedEntry prepare(AtomicBoolean stopped) throws IOException {
+			if (stopped.get()) {
+				throw new InterruptedIOException("Stopped preparing " + name);
+			}
+
+			ZipEntry zipEntry = new ZipEntry(name);
+
+			if (file == null) {
+				return new PreparedEntry(this, zipEntry, false);
+			}
+
+			FileTime entryTime = time == null ? Files.getLastModifiedTime(file) : time;
+			zipEntry.setCreationTime(entryTime);
+			zipEntry.setLastModifiedTime(entryTime);
+
+			return new PreparedEntry(this, zipEntry, isCompressed(file));
+		}
+
+		/**
+		 * Write the content of the entry to the archive
+		 *
+		 * @param outputStream
+		 *            the archive to write to
+		 * @param progress
+		 *            the progress to update
+		 * @throws IOException
+		 *             if the file can't be read or the archive written
+		 */
+		private void writeTo(OutputStream outputStream, Progress progress) throws IOException {
+			if (file == null) {
+				outputStream.write(content);
+				progress.bytesWritten.addAndGet(content.length);
+				return;
+			}
+
+			byte[] buffer = new byte[BUFFER_SIZE];
+			try (InputStream inputStream = Files.newInputStream(file)) {
+				int read;
+				while ((read = inputStream.read(buffer)) != -1) {
+					outputStream.write(buffer, 0, read);
+					progress.bytesWritten.addAndGet(read);
+				}
+			}
+		}
+	}
+
+	/**
+	 * An {@link Entry} with its {@link ZipEntry} ready to be written.
+	 */
+	private static class PreparedEntry {
+		private final Entry entry;
+		private final ZipEntry zipEntry;
+		private final boolean compressed;
+
+		private PreparedEntry(Entry entry, ZipEntry zipEntry, boolean compressed) {
+			this.entry = entry;
+			this.zipEntry = zipEntry;
+			this.compressed = compressed;
+		}
+	}
+
+	/**
+	 * The progress of an archive being written. Safe to read from other
+	 * threads while the archive is being written.
+	 */
+	public static class Progress implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final AtomicInteger totalEntries = new AtomicInteger();
+		private final AtomicLong totalBytes = new AtomicLong();
+		private final AtomicInteger entriesWritten = new AtomicInteger();
+		private final AtomicLong bytesWritten = new AtomicLong();
+		private final AtomicBoolean complete = new AtomicBoolean();
+
+		/**
+		 * Reset the progress for a new archive
+		 *
+		 * @param entries
+		 *            the entries being written
+		 */
+		private void start(List<Entry> entries) {
+			long bytes = 0;
+			for (Entry entry : entries) {
+				try {
+					bytes += entry.size();
+				} catch (IOException e) {
+					logger.debug("Couldn't read the size of " + entry.getName(), e);
+				}
+			}
+			totalEntries.set(entries.size());
+			totalBytes.set(bytes);
+			entriesWritten.set(0);
+			bytesWritten.set(0);
+			complete.set(false);
+		}
+
+		/**
+		 * @return the number of entries in the archive
+		 */
+		public int getTotalEntries() {
+			return totalEntries.get();
+		}
+
+		/**
+		 * @return the total size of the entries in the archive in bytes
+		 */
+		public long getTotalBytes() {
+			return totalBytes.get();
+		}
+
+		/**
+		 * @return the number of entries written so far
+		 */
+		public int getEntriesWritten() {
+			return entriesWritten.get();
+		}
+
+		/**
+		 * @return the number of bytes of the entries written so far
+		 */
+		public long getBytesWritten() {
+			return bytesWritten.get();
+		}
+
+		/**
+		 * @return whether the whole archive has been written
+		 */
+		public boolean isComplete() {
+			return complete.get();
+		}
+
+		@Override
+		public String toString() {
+			return "Zip progress: " + getEntriesWritten() + "/" + getTotalEntries() + " entries, " + getBytesWritten()
+					+ "/" + getTotalBytes() + " bytes" + (isComplete() ? ", complete" : "");
+		}
+	}
+}
@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import ca.corefacility.bioinformatics.irida.model.IridaResourceSupport;
 
 /**
@@ -18,6 +20,13 @@ public class ResourceCollection<Type> extends IridaResourceSupport implements It
      */
     private List<Type> resources;
 
+    /**
+     * The total number of resources when this collection only holds some of
+     * them.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalResources;
+
     /**
      * Default constructor, empty set of resources.
      */
@@ -52,6 +61,27 @@ public class ResourceCollection<Type> extends IridaResourceSupport implements It
         return this.resources;
     }
 
+    /**
+     * Get the total number of resources when this collection only holds some
+     * of them.
+     *
+     * @return the total number of resources, or null if this collection holds
+     *         all of them.
+     */
+    public Long getTotalResources() {
+        return totalResources;
+    }
+
+    /**
+     * Set the total number of resources when this collection only holds some
+     * of them.
+     *
+     * @param totalResources the total number of resources.
+     */
+    public void setTotalResources(Long totalResources) {
+        this.totalResources = totalResources;
+    }
+
     /**
      * {@inheritDoc}
      */
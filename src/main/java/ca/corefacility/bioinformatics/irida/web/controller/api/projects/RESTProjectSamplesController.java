@@ -18,6 +18,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.view.RedirectView;
 
@@ -233,6 +234,44 @@ public class RESTProjectSamplesController {
 		return modelMap;
 	}
 
+	/**
+	 * Get the list of {@link Sample} associated with this {@link Project} that
+	 * have changed since a given time. A sample has changed if it was added to
+	 * the project, was modified, or had sequencing objects or assemblies added
+	 * to it. The response includes the total number of samples in the project
+	 * so clients can tell if samples have been removed.
+	 *
+	 * @param projectId    the identifier of the {@link Project} to get the
+	 *                     {@link Sample}s for.
+	 * @param changedSince the time to get changes after, in milliseconds since
+	 *                     the epoch.
+	 * @return the list of changed {@link Sample}s associated with this
+	 * {@link Project}.
+	 */
+	@RequestMapping(value = "/api/projects/{projectId}/samples", method = RequestMethod.GET, params = "changedSince")
+	public ModelMap getProjectSamplesChangedSince(@PathVariable Long projectId, @RequestParam Long changedSince) {
+
+		ModelMap modelMap = new ModelMap();
+		Project p = projectService.read(projectId);
+		List<Sample> samples = sampleService.getSamplesForProjectChangedSince(p, new Date(changedSince));
+
+		ResourceCollection<Sample> sampleResources = new ResourceCollection<>(samples.size());
+
+		for (Sample sample : samples) {
+			addLinksForSample(Optional.of(p), sample);
+			sampleResources.add(sample);
+		}
+		sampleResources.setTotalResources(sampleService.getNumberOfSamplesForProject(p));
+
+		sampleResources.add(
+				linkTo(methodOn(RESTProjectSamplesController.class).getProjectSamplesChangedSince(projectId,
+						changedSince)).withSelfRel());
+
+		modelMap.addAttribute(RESTGenericController.RESOURCE_NAME, sampleResources);
+
+		return modelMap;
+	}
+
 	/**
 	 * Get samples by a given string name
 	 *
@@ -13,6 +13,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.hateoas.Link;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -30,6 +31,7 @@ import ca.corefacility.bioinformatics.irida.model.assembly.GenomeAssemblyFromAna
 import ca.corefacility.bioinformatics.irida.model.assembly.UploadedAssembly;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.SampleGenomeAssemblyJoin;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.StagingDirectory;
 import ca.corefacility.bioinformatics.irida.service.GenomeAssemblyService;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 import ca.corefacility.bioinformatics.irida.web.assembler.resource.ResourceCollection;
@@ -58,10 +60,14 @@ public class RESTSampleAssemblyController {
 
 	private GenomeAssemblyService assemblyService;
 
+	private StagingDirectory stagingDirectory;
+
 	@Autowired
-	public RESTSampleAssemblyController(SampleService sampleService, GenomeAssemblyService assemblyService) {
+	public RESTSampleAssemblyController(SampleService sampleService, GenomeAssemblyService assemblyService,
+			@Qualifier("assemblyFileStagingDirectory") StagingDirectory stagingDirectory) {
 		this.sampleService = sampleService;
 		this.assemblyService = assemblyService;
+		this.stagingDirectory = stagingDirectory;
 	}
 
 	/**
@@ -151,7 +157,7 @@ public class RESTSampleAssemblyController {
 		Sample sample = sampleService.read(sampleId);
 		logger.trace("Read sample " + sampleId);
 
-		Path temp = Files.createTempDirectory(null);
+		Path temp = stagingDirectory.createTempDirectory(null);
 		Path target = temp.resolve(file.getOriginalFilename());
 
 		try {
@@ -6,11 +6,13 @@ import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Optional;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.hateoas.Link;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -19,6 +21,7 @@ import org.springframework.ui.ModelMap;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -30,6 +33,8 @@ import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJ
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.*;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.StagingDirectory;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.StagingDirectory.StagedFile;
 import ca.corefacility.bioinformatics.irida.service.AnalysisService;
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
 import ca.corefacility.bioinformatics.irida.service.SequencingRunService;
@@ -133,16 +138,23 @@ public class RESTSampleSequenceFilesController {
 	private SequencingObjectService sequencingObjectService;
 	private AnalysisService analysisService;
 
+	/**
+	 * Where uploaded files are written before they're saved.
+	 */
+	private StagingDirectory stagingDirectory;
+
 	protected RESTSampleSequenceFilesController() {
 	}
 
 	@Autowired
 	public RESTSampleSequenceFilesController(SampleService sampleService, SequencingRunService miseqRunService,
-			SequencingObjectService sequencingObjectService, AnalysisService analysisService) {
+			SequencingObjectService sequencingObjectService, AnalysisService analysisService,
+			@Qualifier("sequenceFileStagingDirectory") StagingDirectory stagingDirectory) {
 		this.sampleService = sampleService;
 		this.sequencingRunService = miseqRunService;
 		this.sequencingObjectService = sequencingObjectService;
 		this.analysisService = analysisService;
+		this.stagingDirectory = stagingDirectory;
 	}
 
 	/**
@@ -391,7 +403,7 @@ public class RESTSampleSequenceFilesController {
 		logger.trace("Read sample " + sampleId);
 		// prepare a new sequence file using the multipart file supplied by the
 		// caller
-		Path temp = Files.createTempDirectory(null);
+		Path temp = stagingDirectory.createTempDirectory(null);
 		Path target = temp.resolve(file.getOriginalFilename());
 
 		try {
@@ -404,7 +416,7 @@ public class RESTSampleSequenceFilesController {
 			SequenceFile sf;
 			SequencingRun miseqRun = null;
 			if (fileResource != null) {
-				sf = fileResource.getResource();
+				sf = getUploadedSequenceFile(fileResource);
 
 				Long miseqRunId = fileResource.getMiseqRunId();
 				if (miseqRunId != null) {
@@ -417,69 +429,148 @@ public class RESTSampleSequenceFilesController {
 
 			sf.setFile(target);
 
-			SingleEndSequenceFile singleEndSequenceFile = new SingleEndSequenceFile(sf);
-			if (miseqRun != null) {
-				if (miseqRun.getUploadStatus() != SequencingRunUploadStatus.UPLOADING) {
-					throw new IllegalArgumentException("The sequencing run must be in the UPLOADING state to upload data.");
-				}
-				singleEndSequenceFile.setSequencingRun(miseqRun);
-				logger.trace("Added seqfile to miseqrun");
-			}
+			addSingleEndSequenceFile(sampleId, sample, sf, miseqRun, modelMap, response);
 
-			// save the seqobject and sample
-			SampleSequencingObjectJoin createSequencingObjectInSample = sequencingObjectService.createSequencingObjectInSample(
-					singleEndSequenceFile, sample);
+		} catch (IllegalArgumentException e) {
+			logger.debug("Error 400 - Bad Request: " + e.getMessage());
+			throw e;
+		} finally {
+			// clean up the temporary files.
+			logger.trace("Deleted temp files");
+			Files.deleteIfExists(target);
+			Files.deleteIfExists(temp);
+		}
 
-			singleEndSequenceFile = (SingleEndSequenceFile) createSequencingObjectInSample.getObject();
-			logger.trace("Created seqfile in sample " + createSequencingObjectInSample.getObject()
-					.getId());
+		// respond to the client
+		return modelMap;
+	}
 
-			// prepare a link to the sequence file itself (on the sequence file
-			// controller)
-			String objectType = objectLabels.get(SingleEndSequenceFile.class);
-			Long sequenceFileId = singleEndSequenceFile.getSequenceFile()
-					.getId();
-			Link selfRel = linkTo(
-					methodOn(RESTSampleSequenceFilesController.class).readSequenceFileForSequencingObject(sampleId,
-							objectType, singleEndSequenceFile.getId(), sequenceFileId)).withSelfRel();
+	/**
+	 * Add a new {@link SequenceFile} to a {@link Sample} by streaming the
+	 * request body directly into the sequence file staging directory. The
+	 * file's checksum is calculated while it's being written, so the upload is
+	 * only written to disk once before it's saved.
+	 *
+	 * @param sampleId
+	 *            the identifier for the {@link Sample}.
+	 * @param filename
+	 *            the name of the uploaded file.
+	 * @param miseqRunId
+	 *            the identifier of the {@link SequencingRun} the file belongs
+	 *            to, if any.
+	 * @param request
+	 *            the servlet request containing the file.
+	 * @param response
+	 *            the servlet response.
+	 * @return a response indicating the success of the submission.
+	 * @throws IOException
+	 *             if we can't write the file to disk.
+	 */
+	@RequestMapping(value = "/api/samples/{sampleId}/sequenceFiles", method = RequestMethod.POST, consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+	public ModelMap addNewSequenceFileStreamToSample(@PathVariable Long sampleId, @RequestParam String filename,
+			@RequestParam(required = false) Long miseqRunId, HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+		ModelMap modelMap = new ModelMap();
 
-			// Changed, because sfr.setResource(sf)
-			// and sfr.setResource(sampleSequenceFileRelationship.getObject())
-			// both will not pass a GET-POST comparison integration test.
-			singleEndSequenceFile = (SingleEndSequenceFile) sequencingObjectService.read(singleEndSequenceFile.getId());
-			SequenceFile sequenceFile = singleEndSequenceFile.getFileWithId(sequenceFileId);
+		logger.debug("Streaming sequence file to sample " + sampleId);
+		Sample sample = sampleService.read(sampleId);
+		SequencingRun miseqRun = null;
+		if (miseqRunId != null) {
+			miseqRun = sequencingRunService.read(miseqRunId);
+		}
 
-			// add links to the resource
-			sequenceFile.add(
-					linkTo(methodOn(RESTSampleSequenceFilesController.class).getSampleSequenceFiles(sampleId)).withRel(
-							REL_SAMPLE_SEQUENCE_FILES));
-			sequenceFile.add(selfRel);
-			sequenceFile.add(
-					linkTo(methodOn(RESTProjectSamplesController.class).getSample(sampleId)).withRel(REL_SAMPLE));
-			sequenceFile.add(
-					linkTo(methodOn(RESTSampleSequenceFilesController.class).readSequencingObject(sampleId, objectType,
-							singleEndSequenceFile.getId())).withRel(REL_SEQ_OBJECT));
+		StagedFile staged = stagingDirectory.write(request.getInputStream(), filename);
+		logger.trace("Streamed " + staged.getSize() + " bytes to " + staged.getFile() + ", gzipped: "
+				+ staged.isGzipped());
 
-			modelMap.addAttribute(RESTGenericController.RESOURCE_NAME, sequenceFile);
-			// add a location header.
-			response.addHeader(HttpHeaders.LOCATION, selfRel.getHref());
-			// set the response status.
-			response.setStatus(HttpStatus.CREATED.value());
+		try {
+			SequenceFile sf = new SequenceFile(staged.getFile());
+			// the checksum of the upload is already known, so the file
+			// processing chain doesn't need to read the file again
+			sf.setUploadSha256(staged.getSha256());
 
+			addSingleEndSequenceFile(sampleId, sample, sf, miseqRun, modelMap, response);
 		} catch (IllegalArgumentException e) {
 			logger.debug("Error 400 - Bad Request: " + e.getMessage());
 			throw e;
 		} finally {
-			// clean up the temporary files.
-			logger.trace("Deleted temp files");
-			Files.deleteIfExists(target);
-			Files.deleteIfExists(temp);
+			Files.deleteIfExists(staged.getFile());
+			Files.deleteIfExists(staged.getFile()
+					.getParent());
 		}
 
-		// respond to the client
 		return modelMap;
 	}
 
+	/**
+	 * Create a {@link SingleEndSequenceFile} in a {@link Sample} and add the
+	 * created {@link SequenceFile} and its location to the response.
+	 *
+	 * @param sampleId
+	 *            the identifier for the {@link Sample}.
+	 * @param sample
+	 *            the {@link Sample} to add the file to.
+	 * @param sf
+	 *            the {@link SequenceFile} to add.
+	 * @param miseqRun
+	 *            the {@link SequencingRun} the file belongs to, if any.
+	 * @param modelMap
+	 *            the model to add the created file to.
+	 * @param response
+	 *            the servlet response.
+	 */
+	private void addSingleEndSequenceFile(Long sampleId, Sample sample, SequenceFile sf, SequencingRun miseqRun,
+			ModelMap modelMap, HttpServletResponse response) {
+		SingleEndSequenceFile singleEndSequenceFile = new SingleEndSequenceFile(sf);
+		if (miseqRun != null) {
+			if (miseqRun.getUploadStatus() != SequencingRunUploadStatus.UPLOADING) {
+				throw new IllegalArgumentException("The sequencing run must be in the UPLOADING state to upload data.");
+			}
+			singleEndSequenceFile.setSequencingRun(miseqRun);
+			logger.trace("Added seqfile to miseqrun");
+		}
+
+		// save the seqobject and sample
+		SampleSequencingObjectJoin createSequencingObjectInSample = sequencingObjectService.createSequencingObjectInSample(
+				singleEndSequenceFile, sample);
+
+		singleEndSequenceFile = (SingleEndSequenceFile) createSequencingObjectInSample.getObject();
+		logger.trace("Created seqfile in sample " + createSequencingObjectInSample.getObject()
+				.getId());
+
+		// prepare a link to the sequence file itself (on the sequence file
+		// controller)
+		String objectType = objectLabels.get(SingleEndSequenceFile.class);
+		Long sequenceFileId = singleEndSequenceFile.getSequenceFile()
+				.getId();
+		Link selfRel = linkTo(
+				methodOn(RESTSampleSequenceFilesController.class).readSequenceFileForSequencingObject(sampleId,
+						objectType, singleEndSequenceFile.getId(), sequenceFileId)).withSelfRel();
+
+		// Changed, because sfr.setResource(sf)
+		// and sfr.setResource(sampleSequenceFileRelationship.getObject())
+		// both will not pass a GET-POST comparison integration test.
+		singleEndSequenceFile = (SingleEndSequenceFile) sequencingObjectService.read(singleEndSequenceFile.getId());
+		SequenceFile sequenceFile = singleEndSequenceFile.getFileWithId(sequenceFileId);
+
+		// add links to the resource
+		sequenceFile.add(
+				linkTo(methodOn(RESTSampleSequenceFilesController.class).getSampleSequenceFiles(sampleId)).withRel(
+						REL_SAMPLE_SEQUENCE_FILES));
+		sequenceFile.add(selfRel);
+		sequenceFile.add(
+				linkTo(methodOn(RESTProjectSamplesController.class).getSample(sampleId)).withRel(REL_SAMPLE));
+		sequenceFile.add(
+				linkTo(methodOn(RESTSampleSequenceFilesController.class).readSequencingObject(sampleId, objectType,
+						singleEndSequenceFile.getId())).withRel(REL_SEQ_OBJECT));
+
+		modelMap.addAttribute(RESTGenericController.RESOURCE_NAME, sequenceFile);
+		// add a location header.
+		response.addHeader(HttpHeaders.LOCATION, selfRel.getHref());
+		// set the response status.
+		response.setStatus(HttpStatus.CREATED.value());
+	}
+
 	/**
 	 * REST function to add new Fast5 object to a sample
 	 *
@@ -502,7 +593,7 @@ public class RESTSampleSequenceFilesController {
 		Sample sample = sampleService.read(sampleId);
 		logger.trace("Read sample " + sampleId);
 		// prepare a new sequence file using the multipart file supplied by the caller
-		Path temp = Files.createTempDirectory(null);
+		Path temp = stagingDirectory.createTempDirectory(null);
 		Path target = temp.resolve(file.getOriginalFilename());
 
 		try {
@@ -515,7 +606,7 @@ public class RESTSampleSequenceFilesController {
 			SequenceFile sf;
 			SequencingRun sequencingRun = null;
 			if (fileResource != null) {
-				sf = fileResource.getResource();
+				sf = getUploadedSequenceFile(fileResource);
 
 				Long sequencingRunId = fileResource.getMiseqRunId();
 				if (sequencingRunId != null) {
@@ -627,9 +718,9 @@ public class RESTSampleSequenceFilesController {
 		Sample sample = sampleService.read(sampleId);
 		logger.trace("Read sample " + sampleId);
 		// create temp files
-		Path temp1 = Files.createTempDirectory(null);
+		Path temp1 = stagingDirectory.createTempDirectory(null);
 		Path target1 = temp1.resolve(file1.getOriginalFilename());
-		Path temp2 = Files.createTempDirectory(null);
+		Path temp2 = stagingDirectory.createTempDirectory(null);
 		Path target2 = temp2.resolve(file2.getOriginalFilename());
 
 		try {
@@ -637,8 +728,8 @@ public class RESTSampleSequenceFilesController {
 			file1.transferTo(target1.toFile());
 			file2.transferTo(target2.toFile());
 			// create the model objects
-			SequenceFile sf1 = fileResource1.getResource();
-			SequenceFile sf2 = fileResource2.getResource();
+			SequenceFile sf1 = getUploadedSequenceFile(fileResource1);
+			SequenceFile sf2 = getUploadedSequenceFile(fileResource2);
 			sf1.setFile(target1);
 			sf2.setFile(target2);
 			// get the sequencing run
@@ -760,6 +851,20 @@ public class RESTSampleSequenceFilesController {
 	 * @return the enhanced {@link SequencingObject}
 	 */
 	@SuppressWarnings("unchecked")
+	/**
+	 * Get the {@link SequenceFile} from the parameters sent with an uploaded file. A checksum sent by the client is
+	 * cleared, since the checksum file processor keeps any checksum that's already set and the checksum must be
+	 * calculated from the file that was actually uploaded.
+	 *
+	 * @param fileResource the parameters sent with the file
+	 * @return the {@link SequenceFile} to save
+	 */
+	private static SequenceFile getUploadedSequenceFile(SequenceFileResource fileResource) {
+		SequenceFile sf = fileResource.getResource();
+		sf.setUploadSha256(null);
+		return sf;
+	}
+
 	public static <T extends SequencingObject> T addSequencingObjectLinks(T sequencingObject, Long sampleId) {
 
 		String objectType = objectLabels.get(sequencingObject.getClass());
@@ -1,6 +1,7 @@
 package ca.corefacility.bioinformatics.irida.web.spring.view;
 
 import ca.corefacility.bioinformatics.irida.model.irida.IridaSequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.web.controller.api.RESTGenericController;
 import com.google.common.net.HttpHeaders;
 import org.slf4j.Logger;
@@ -9,8 +10,6 @@ import org.springframework.web.servlet.view.AbstractView;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.OutputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Map;
 
@@ -41,10 +40,7 @@ public class FastaView extends AbstractView {
         logger.trace("Sending file to client [" + filename + "]");
         response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
         response.setHeader(HttpHeaders.CONTENT_TYPE, DEFAULT_CONTENT_TYPE);
-        response.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(Files.size(fileContent)));
-        OutputStream os = response.getOutputStream();
-        Files.copy(fileContent, os);
-        os.flush();
-        os.close();
+        String checksum = sfr instanceof SequenceFile ? ((SequenceFile) sfr).getUploadSha256() : null;
+        HttpRangeFileWriter.writeFile(fileContent, checksum, request, response);
     }
 }
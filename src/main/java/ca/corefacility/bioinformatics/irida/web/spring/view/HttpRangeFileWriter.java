@@ -0,0 +1,237 @@
+package ca.corefacility.bioinformatics.irida.web.spring.view;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.google.common.base.Splitter;
+import com.google.common.net.HttpHeaders;
+
+/**
+ * Writes a file to the client, honouring a single HTTP <code>Range</code>
+ * request so that clients can resume an interrupted download. Requests for
+ * more than one range, or with a range that can't be read, get the whole
+ * file. An <code>If-Range</code> header is compared against the file's entity
+ * tag or last modified date so a client resuming a file that has since changed
+ * gets the whole file again.
+ * <p>
+ * When the file has a checksum an entity tag is sent with it, and conditional
+ * requests for a file the client already has get a
+ * <code>304 Not Modified</code>. The file is handed to the container to send
+ * when it supports it (Tomcat's sendfile), otherwise it's copied to the
+ * response with {@link FileChannel#transferTo(long, long, WritableByteChannel)}.
+ */
+public class HttpRangeFileWriter {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    /**
+     * Request attributes used to hand a file to Tomcat to send with sendfile.
+     */
+    public static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    public static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    public static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    public static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Files smaller than this are written directly, the same as Tomcat's
+     * default servlet.
+     */
+    public static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private HttpRangeFileWriter() {
+    }
+
+    /**
+     * Write a file to the response, or the part of it requested by the
+     * <code>Range</code> header. Headers describing the content (ie.
+     * <code>Content-Type</code>) must already be set.
+     *
+     * @param file
+     *            the file to write
+     * @param request
+     *            the request for the file
+     * @param response
+     *            the response to write to
+     * @throws IOException
+     *             if the file can't be read or written
+     */
+    public static void writeFile(Path file, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        writeFile(file, null, request, response);
+    }
+
+    /**
+     * Write a file to the response, or the part of it requested by the
+     * <code>Range</code> header, using a checksum of the file as its entity
+     * tag. Headers describing the content (ie. <code>Content-Type</code>)
+     * must already be set.
+     *
+     * @param file
+     *            the file to write
+     * @param checksum
+     *            a checksum of the file to use in its entity tag, or null if
+     *            the file doesn't have one
+     * @param request
+     *            the request for the file
+     * @param response
+     *            the response to write to
+     * @throws IOException
+     *             if the file can't be read or written
+     */
+    public static void writeFile(Path file, String checksum, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        long size = Files.size(file);
+        // HTTP dates only have second precision
+        long lastModified = Files.getLastModifiedTime(file).toMillis() / 1000 * 1000;
+        // the checksum is taken when a file is uploaded, which may be before
+        // it's decompressed, so include the size to tell the two apart
+        String eTag = checksum == null ? null : "\"" + checksum + "-" + size + "\"";
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        if (eTag != null) {
+            response.setHeader(HttpHeaders.ETAG, eTag);
+        }
+
+        if (isNotModified(request, eTag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long length = size;
+
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && matchesIfRange(request, eTag, lastModified)) {
+            Matcher matcher = RANGE.matcher(range.trim());
+            if (matcher.matches() && !(matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+                if (matcher.group(1).isEmpty()) {
+                    // a suffix range, ie. the last n bytes
+                    long suffix = Long.parseLong(matcher.group(2));
+                    start = Math.max(0, size - suffix);
+                } else {
+                    start = Long.parseLong(matcher.group(1));
+                }
+
+                long end = size - 1;
+                if (!matcher.group(1).isEmpty() && !matcher.group(2).isEmpty()) {
+                    end = Math.min(end, Long.parseLong(matcher.group(2)));
+                }
+
+                if (start >= size || end < start) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+
+                length = end - start + 1;
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+
+        response.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(length));
+
+        if (length >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // the container writes the file after the request is handled
+            request.setAttribute(SENDFILE_FILENAME, file.toRealPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            OutputStream os = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(os);
+            long position = start;
+            long end = start + length;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred == 0 && position >= channel.size()) {
+                    throw new EOFException("File " + file + " was truncated while it was being sent");
+                }
+                position += transferred;
+            }
+            os.flush();
+            os.close();
+        }
+    }
+
+    /**
+     * Check if the client already has the current version of the file, using
+     * the <code>If-None-Match</code> header if there is one, otherwise the
+     * <code>If-Modified-Since</code> header.
+     *
+     * @param request
+     *            the request for the file
+     * @param eTag
+     *            the entity tag of the file, or null if it doesn't have one
+     * @param lastModified
+     *            the last modified date of the file
+     * @return true if the file doesn't need to be sent
+     */
+    private static boolean isNotModified(HttpServletRequest request, String eTag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            if (eTag == null) {
+                return false;
+            }
+            for (String tag : Splitter.on(',').trimResults().omitEmptyStrings().split(ifNoneMatch)) {
+                if (tag.equals("*") || tag.equals(eTag) || tag.equals("W/" + eTag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        try {
+            long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Check if the <code>If-Range</code> header of a request, if any, matches
+     * the file's entity tag or last modified date.
+     *
+     * @param request
+     *            the request for the file
+     * @param eTag
+     *            the entity tag of the file, or null if it doesn't have one
+     * @param lastModified
+     *            the last modified date of the file
+     * @return true if there's no <code>If-Range</code> header or it matches
+     *         the file
+     */
+    private static boolean matchesIfRange(HttpServletRequest request, String eTag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // weak entity tags can't be used for ranges
+            return ifRange.equals(eTag);
+        }
+
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) == lastModified;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -31,6 +31,24 @@ const dateColumn = {
   }
 };
 
+/*
+Formatting for number fields (e.g. coverage), values are sent as strings.
+ */
+const numberColumn = {
+  filter: "agNumberColumnFilter",
+  filterValueGetter: params => parseFloat(params.data[params.colDef.field]),
+  comparator(n1, n2) {
+    const v1 = parseFloat(n1);
+    const v2 = parseFloat(n2);
+    if (isNaN(v1)) {
+      return isNaN(v2) ? 0 : -1;
+    } else if (isNaN(v2)) {
+      return 1;
+    }
+    return v1 - v2;
+  }
+};
+
 /**
  * Based on the MetadataTemplateFields create the appropriate
  * column type
@@ -48,6 +66,8 @@ function getColumnDefinition(col) {
     });
   } else if (type === TYPES.date) {
     Object.assign(col, dateColumn);
+  } else if (type === TYPES.number) {
+    Object.assign(col, numberColumn);
   } else if (field === FIELDS.sampleName) {
     Object.assign(col, {
       cellRenderer: "SampleNameRenderer",
@@ -13,5 +13,7 @@ export const FILTERS = {
   FILTER_BY_NAME: "name",
   FILTER_BY_ORGANISM: "organism",
   FILTER_BY_EARLY_DATE: "startDate",
-  FILTER_BY_LATEST_DATE: "endDate"
+  FILTER_BY_LATEST_DATE: "endDate",
+  FILTER_BY_MIN_COVERAGE: "minCoverage",
+  FILTER_BY_MAX_COVERAGE: "maxCoverage"
 };
@@ -6,6 +6,8 @@ import { FILTERS, SAMPLE_EVENTS } from "../constants";
 const $organismFilter = $("#js-organism");
 const $nameFilter = $("#js-name");
 const $dateRangeFilter = $("#js-daterange");
+const $minCoverageFilter = $("#js-min-coverage");
+const $maxCoverageFilter = $("#js-max-coverage");
 
 function formatDateRangeInput(start, end) {
   $dateRangeFilter.val(
@@ -95,6 +97,14 @@ $("#js-do-filter").on("click", function() {
     filters[FILTERS.FILTER_BY_LATEST_DATE] = endDate;
   }
 
+  // Check to see if the coverage range filter needs to be applied.
+  if ($minCoverageFilter.val()) {
+    filters[FILTERS.FILTER_BY_MIN_COVERAGE] = $minCoverageFilter.val();
+  }
+  if ($maxCoverageFilter.val()) {
+    filters[FILTERS.FILTER_BY_MAX_COVERAGE] = $maxCoverageFilter.val();
+  }
+
   /*
   Close the modal and return the values so the table can be updated.
    */
@@ -339,6 +339,13 @@ const config = Object.assign({}, tableConfig, {
         })}</time>`;
       },
     },
+    {
+      targets: [COLUMNS.COVERAGE],
+      defaultContent: "",
+      render(data) {
+        return data === null ? "" : Number(data).toFixed(2);
+      },
+    },
   ],
   drawCallback() {
     $table.find('[data-toggle="popover"]').popover(POPOVER_OPTIONS);
@@ -546,6 +553,14 @@ $("#js-filter-modal-wrapper").on("show.bs.modal", function () {
     params.endDate = TABLE_FILTERS.get(FILTERS.FILTER_BY_LATEST_DATE);
   }
 
+  if (TABLE_FILTERS.has(FILTERS.FILTER_BY_MIN_COVERAGE)) {
+    params.minCoverage = TABLE_FILTERS.get(FILTERS.FILTER_BY_MIN_COVERAGE);
+  }
+
+  if (TABLE_FILTERS.has(FILTERS.FILTER_BY_MAX_COVERAGE)) {
+    params.maxCoverage = TABLE_FILTERS.get(FILTERS.FILTER_BY_MAX_COVERAGE);
+  }
+
   let script;
   $wrapper.load(`${template}?${$.param(params)}`, function () {
     script = document.createElement("script");
@@ -662,6 +677,27 @@ function displayFilters(filters) {
     });
   }
 
+  if (
+    filters.has(FILTERS.FILTER_BY_MIN_COVERAGE) ||
+    filters.has(FILTERS.FILTER_BY_MAX_COVERAGE)
+  ) {
+    const min = filters.has(FILTERS.FILTER_BY_MIN_COVERAGE)
+      ? filters.get(FILTERS.FILTER_BY_MIN_COVERAGE)
+      : "";
+    const max = filters.has(FILTERS.FILTER_BY_MAX_COVERAGE)
+      ? filters.get(FILTERS.FILTER_BY_MAX_COVERAGE)
+      : "";
+    createChip(
+      i18n("project.sample.filter-coverage"),
+      `${min} - ${max}`,
+      () => {
+        filters.delete(FILTERS.FILTER_BY_MIN_COVERAGE);
+        filters.delete(FILTERS.FILTER_BY_MAX_COVERAGE);
+        $dt.ajax.reload();
+      }
+    );
+  }
+
   $(".filter-tags").html($wrapper);
 }
 /*
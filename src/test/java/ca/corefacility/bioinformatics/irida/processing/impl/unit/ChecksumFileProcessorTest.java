@@ -1,7 +1,10 @@
 package ca.corefacility.bioinformatics.irida.processing.impl.unit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
@@ -47,6 +50,21 @@ public class ChecksumFileProcessorTest {
 		assertEquals("checksums should be equal", CHECKSUM, file.getUploadSha256());
 	}
 
+	@Test
+	public void testExistingChecksumKept() throws IOException {
+		final SequenceFile sf = constructSequenceFile();
+		sf.setUploadSha256("remote-checksum");
+
+		SingleEndSequenceFile so = new SingleEndSequenceFile(sf);
+
+		assertFalse("files with a checksum shouldn't be processed", fileProcessor.shouldProcessFile(so));
+
+		fileProcessor.process(so);
+
+		verify(sequenceFileRepository, never()).saveMetadata(any(SequenceFile.class));
+		assertEquals("checksum should not be changed", "remote-checksum", sf.getUploadSha256());
+	}
+
 	@Test(expected = FileProcessorException.class)
 	public void testFileNotExists() throws IOException {
 		final SequenceFile sf = new SequenceFile(Paths.get("/reallyfakefile"));
@@ -24,19 +24,22 @@ import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFast
 import ca.corefacility.bioinformatics.irida.processing.impl.CoverageFileProcessor;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.AnalysisRepository;
 import ca.corefacility.bioinformatics.irida.repositories.sample.QCEntryRepository;
+import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequencingObjectRepository;
 
 public class CoverageFileProcessorTest {
 
 	private CoverageFileProcessor processor;
 	private QCEntryRepository qcEntryRepository;
 	private AnalysisRepository analysisRepository;
+	private SequencingObjectRepository sequencingObjectRepository;
 
 	@Before
 	public void setup() {
 		qcEntryRepository = mock(QCEntryRepository.class);
 		analysisRepository = mock(AnalysisRepository.class);
+		sequencingObjectRepository = mock(SequencingObjectRepository.class);
 
-		processor = new CoverageFileProcessor(qcEntryRepository, analysisRepository);
+		processor = new CoverageFileProcessor(qcEntryRepository, analysisRepository, sequencingObjectRepository);
 	}
 
 	@Test
@@ -64,6 +67,8 @@ public class CoverageFileProcessorTest {
 
 		assertEquals("should show 3 times coverage", 3, qc.getCoverage());
 		assertEquals("should be positive coverage", QCEntryStatus.POSITIVE, qc.getStatus());
+
+		verify(sequencingObjectRepository).updateTotalBases(o.getId());
 	}
 
 	@Test
@@ -4,13 +4,21 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.codec.digest.DigestUtils;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -22,11 +30,16 @@ import ca.corefacility.bioinformatics.irida.exceptions.FileProcessorTimeoutExcep
 import ca.corefacility.bioinformatics.irida.model.sample.QCEntry;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessingChain;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessor;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.impl.ChecksumFileProcessor;
 import ca.corefacility.bioinformatics.irida.processing.impl.DefaultFileProcessingChain;
+import ca.corefacility.bioinformatics.irida.processing.impl.GzipFileProcessor;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.StagingDirectory;
 import ca.corefacility.bioinformatics.irida.repositories.sample.QCEntryRepository;
+import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequencingObjectRepository;
 
 /**
@@ -127,6 +140,38 @@ public class DefaultFileProcessingChainTest {
 
 	}
 
+	@Test
+	public void testStreamFiles() throws FileProcessorTimeoutException, IOException {
+		SequenceFileRepository sequenceFileRepository = mock(SequenceFileRepository.class);
+		FileProcessingChain fileProcessingChain = new DefaultFileProcessingChain(objectRepository, qcRepository,
+				new ChecksumFileProcessor(sequenceFileRepository), new GzipFileProcessor(sequenceFileRepository,
+						new StagingDirectory(Files.createTempDirectory(null))));
+		fileProcessingChain.setStreamFiles(true);
+		fileProcessingChain.setSleepDuration(0);
+
+		String contents = "@testread\nACGTACGTN\n+\n?????????\n";
+		Path compressed = Files.createTempFile(null, ".fastq.gz");
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+			out.write(contents.getBytes());
+		}
+		String expectedChecksum = DigestUtils.sha256Hex(Files.readAllBytes(compressed));
+
+		SequenceFile sf = new SequenceFile(compressed);
+		sf.setId(1L);
+		SingleEndSequenceFile so = new SingleEndSequenceFile(sf);
+		when(objectRepository.existsById(objectId)).thenReturn(true);
+		when(objectRepository.findById(objectId)).thenReturn(Optional.of(so));
+
+		List<Exception> exceptions = fileProcessingChain.launchChain(objectId);
+
+		assertTrue("no exceptions should have been thrown", exceptions.isEmpty());
+		assertEquals("checksum should be calculated on the compressed file", expectedChecksum,
+				sf.getUploadSha256());
+		assertEquals("file should have been decompressed", contents, new String(Files.readAllBytes(sf.getFile())));
+		verify(sequenceFileRepository).saveMetadata(sf);
+		verify(sequenceFileRepository, times(1)).save(sf);
+	}
+
 	private static class FailingFileProcessor implements FileProcessor {
 
 		@Override
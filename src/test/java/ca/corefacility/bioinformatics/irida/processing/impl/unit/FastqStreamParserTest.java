@@ -0,0 +1,57 @@
+package ca.corefacility.bioinformatics.irida.processing.impl.unit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.corefacility.bioinformatics.irida.processing.impl.FastqStreamParser;
+import uk.ac.babraham.FastQC.Sequence.Sequence;
+import uk.ac.babraham.FastQC.Sequence.SequenceFormatException;
+
+/**
+ * Tests for {@link FastqStreamParser}.
+ */
+public class FastqStreamParserTest {
+	private static final String FASTQ = "@read1\r\nacgtn\r\n+\r\n?????\r\n\n@read2\nACGTT\n+read2\n?????";
+
+	private List<Sequence> sequences;
+	private FastqStreamParser parser;
+
+	@Before
+	public void setUp() {
+		sequences = new ArrayList<>();
+		parser = new FastqStreamParser("test.fastq", sequences::add);
+	}
+
+	@Test
+	public void testParseInSmallBlocks() throws SequenceFormatException {
+		byte[] bytes = FASTQ.getBytes();
+		for (int i = 0; i < bytes.length; i += 3) {
+			parser.update(bytes, i, Math.min(3, bytes.length - i));
+		}
+		parser.finish();
+
+		assertEquals("should have parsed 2 sequences", 2, sequences.size());
+		assertEquals("sequence should be upper cased", "ACGTN", sequences.get(0).getSequence());
+		assertEquals("line endings should be stripped", "?????", sequences.get(0).getQualityString());
+		assertEquals("id should be read", "@read2", sequences.get(1).getID());
+		assertEquals("file name should be reported", "test.fastq", sequences.get(1).file().name());
+	}
+
+	@Test(expected = SequenceFormatException.class)
+	public void testTruncatedFile() throws SequenceFormatException {
+		byte[] bytes = "@read1\nACGT\n+\n".getBytes();
+		parser.update(bytes, 0, bytes.length);
+		parser.finish();
+	}
+
+	@Test(expected = SequenceFormatException.class)
+	public void testBadIdLine() throws SequenceFormatException {
+		byte[] bytes = ">read1\nACGT\n".getBytes();
+		parser.update(bytes, 0, bytes.length);
+	}
+}
@@ -10,6 +10,9 @@ import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.Fast5Object;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisOutputFile;
@@ -24,11 +27,14 @@ import org.springframework.util.ReflectionUtils;
 
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.OverrepresentedSequence;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFilePair;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
 import ca.corefacility.bioinformatics.irida.processing.impl.FastqcFileProcessor;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.StagingDirectory;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
+import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequencingObjectRepository;
 
 /**
  * Tests for {@link FastqcFileProcessor}.
@@ -38,6 +44,7 @@ import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFi
 public class FastqcFileProcessorTest {
 	private FastqcFileProcessor fileProcessor;
 	private SequenceFileRepository sequenceFileRepository;
+	private SequencingObjectRepository sequencingObjectRepository;
 	private AnalysisOutputFileRepository outputFileRepository;
 	private MessageSource messageSource;
 	private static final Logger logger = LoggerFactory.getLogger(FastqcFileProcessorTest.class);
@@ -48,11 +55,13 @@ public class FastqcFileProcessorTest {
 	private static final String FASTA_FILE_CONTENTS = ">test read\n" + SEQUENCE;
 
 	@Before
-	public void setUp() {
+	public void setUp() throws IOException {
 		messageSource = mock(MessageSource.class);
 		sequenceFileRepository = mock(SequenceFileRepository.class);
+		sequencingObjectRepository = mock(SequencingObjectRepository.class);
 		outputFileRepository = mock(AnalysisOutputFileRepository.class);
-		fileProcessor = new FastqcFileProcessor(messageSource, sequenceFileRepository, outputFileRepository);
+		fileProcessor = new FastqcFileProcessor(messageSource, sequenceFileRepository, sequencingObjectRepository,
+				outputFileRepository, new StagingDirectory(Files.createTempDirectory(null)));
 	}
 
 	@Test(expected = FileProcessorException.class)
@@ -84,6 +93,23 @@ public class FastqcFileProcessorTest {
 		assertFalse("should not want to process unknown fast5 file)", fileProcessor.shouldProcessFile(obj));
 	}
 
+	@Test
+	public void testSkipFileWithFastQC() throws Exception {
+		// files mirrored from a remote IRIDA already have their fastqc results
+		SequenceFile sf = new SequenceFile(Files.createTempFile(null, null));
+		sf.setFastQCAnalysis(AnalysisFastQC.builder()
+				.totalBases(100L)
+				.build());
+		SingleEndSequenceFile so = new SingleEndSequenceFile(sf);
+
+		assertFalse("should not want to process a file with fastqc results", fileProcessor.shouldProcessFile(so));
+		assertNull("should not stream a file with fastqc results", fileProcessor.createStreamConsumer(sf, false));
+
+		fileProcessor.process(so);
+
+		verify(sequenceFileRepository, never()).saveMetadata(any(SequenceFile.class));
+	}
+
 	@Test
 	public void testHandleFastqFile() throws IOException, IllegalArgumentException, IllegalAccessException {
 		// fastqc shouldn't barf on a fastq file.
@@ -135,6 +161,44 @@ public class FastqcFileProcessorTest {
 
 	}
 
+	@Test
+	public void testHandleFastqPairConcurrently() throws IOException, IllegalAccessException {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		fileProcessor.setFileExecutor(executor);
+
+		SequenceFile forward = new SequenceFile(createFastq());
+		forward.setId(1L);
+		SequenceFile reverse = new SequenceFile(createFastq());
+		reverse.setId(2L);
+
+		try {
+			fileProcessor.process(new SequenceFilePair(forward, reverse));
+		} finally {
+			executor.shutdown();
+		}
+
+		ArgumentCaptor<SequenceFile> argument = ArgumentCaptor.forClass(SequenceFile.class);
+		verify(sequenceFileRepository, times(2)).saveMetadata(argument.capture());
+		verify(outputFileRepository, times(6)).save(any(AnalysisOutputFile.class));
+		verify(sequencingObjectRepository).updateTotalBases(any());
+
+		final Field fastqcAnalysis = ReflectionUtils.findField(SequenceFile.class, "fastqcAnalysis");
+		ReflectionUtils.makeAccessible(fastqcAnalysis);
+		List<SequenceFile> updatedFiles = argument.getAllValues();
+		for (SequenceFile updatedFile : updatedFiles) {
+			AnalysisFastQC updated = (AnalysisFastQC) fastqcAnalysis.get(updatedFile);
+			assertEquals("Total number of bases was not correct.", Long.valueOf(SEQUENCE.length() * 2),
+					updated.getTotalBases());
+		}
+	}
+
+	private Path createFastq() throws IOException {
+		Path fastq = Files.createTempFile(null, null);
+		Files.write(fastq, FASTQ_FILE_CONTENTS.getBytes());
+		Runtime.getRuntime().addShutdownHook(new DeleteFileOnExit(fastq));
+		return fastq;
+	}
+
 	private static final class DeleteFileOnExit extends Thread {
 
 		private final Path fileToDelete;
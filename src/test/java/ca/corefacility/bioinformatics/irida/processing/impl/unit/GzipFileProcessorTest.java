@@ -5,6 +5,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -12,6 +13,7 @@ import static org.mockito.Mockito.when;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.stream.Stream;
 import java.util.zip.GZIPOutputStream;
 
 import org.junit.Before;
@@ -21,7 +23,9 @@ import org.mockito.ArgumentCaptor;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessorStreamConsumer;
 import ca.corefacility.bioinformatics.irida.processing.impl.GzipFileProcessor;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.StagingDirectory;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
 
 /**
@@ -33,12 +37,14 @@ public class GzipFileProcessorTest {
 
 	private GzipFileProcessor fileProcessor;
 	private SequenceFileRepository sequenceFileRepository;
+	private StagingDirectory stagingDirectory;
 	private static final String FILE_CONTENTS = ">test read\nACGTACTCATG";
 
 	@Before
-	public void setUp() {
+	public void setUp() throws IOException {
 		sequenceFileRepository = mock(SequenceFileRepository.class);
-		fileProcessor = new GzipFileProcessor(sequenceFileRepository, Boolean.FALSE);
+		stagingDirectory = new StagingDirectory(Files.createTempDirectory(null));
+		fileProcessor = new GzipFileProcessor(sequenceFileRepository, stagingDirectory, Boolean.FALSE);
 	}
 
 	@Test(expected = FileProcessorException.class)
@@ -60,7 +66,7 @@ public class GzipFileProcessorTest {
 
 	@Test
 	public void testDeleteOriginalFile() throws IOException {
-		fileProcessor = new GzipFileProcessor(sequenceFileRepository, Boolean.TRUE);
+		fileProcessor = new GzipFileProcessor(sequenceFileRepository, stagingDirectory, Boolean.TRUE);
 		final SequenceFile sf = constructSequenceFile();
 
 		// compress the file, update the sequence file reference
@@ -169,6 +175,26 @@ public class GzipFileProcessorTest {
 		}
 	}
 
+	@Test
+	public void testIncompleteStreamConsumerRemovesTarget() throws IOException {
+		SequenceFile sf = constructSequenceFile();
+		Path staging = stagingDirectory.getRoot();
+
+		FileProcessorStreamConsumer consumer = fileProcessor.createStreamConsumer(sf, true);
+		byte[] contents = FILE_CONTENTS.getBytes();
+		consumer.update(contents, 0, contents.length);
+		// an earlier processor failed, so the consumer is closed without being
+		// completed
+		consumer.close();
+
+		try (Stream<Path> remaining = Files.list(staging)) {
+			assertEquals("uncompressed file and its directory should be removed", 0, remaining.count());
+		}
+		verify(sequenceFileRepository, never()).save(any(SequenceFile.class));
+		assertTrue("original file should not be touched", Files.exists(sf.getFile()));
+		Files.delete(sf.getFile());
+	}
+
 	private SequenceFile constructSequenceFile() throws IOException {
 		SequenceFile sf = new SequenceFile();
 		Path sequenceFile = Files.createTempFile(null, null);
@@ -38,7 +38,8 @@ public class SequenceFileRepositoryImplTest {
 	public void setUp() throws IOException {
 		baseDirectory = Files.createTempDirectory(TEMP_FILE_PREFIX);
 		entityManager = mock(EntityManager.class);
-		repository = new SequenceFileRepositoryImpl(entityManager, baseDirectory);
+		repository = new SequenceFileRepositoryImpl(entityManager, baseDirectory,
+				new StagingDirectory(baseDirectory.resolve(".staging")));
 	}
 
 	@After
@@ -0,0 +1,121 @@
+package ca.corefacility.bioinformatics.irida.repositories.filesystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.StagingDirectory.StagedFile;
+
+/**
+ * Tests for {@link StagingDirectory}.
+ */
+public class StagingDirectoryTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path baseDirectory;
+	private StagingDirectory stagingDirectory;
+
+	@Before
+	public void setUp() throws IOException {
+		baseDirectory = folder.newFolder()
+				.toPath();
+		stagingDirectory = new StagingDirectory(baseDirectory.resolve(".staging"));
+	}
+
+	@Test
+	public void testCreatesRoot() {
+		assertTrue("staging directory should be created", Files.isDirectory(baseDirectory.resolve(".staging")));
+	}
+
+	@Test
+	public void testMove() throws IOException {
+		Path tempDirectory = stagingDirectory.createTempDirectory(null);
+		assertEquals("temp directories should be in the staging directory", stagingDirectory.getRoot(),
+				tempDirectory.getParent());
+
+		Path source = Files.write(tempDirectory.resolve("file.fastq"), "ACGT".getBytes(StandardCharsets.UTF_8));
+		Path target = baseDirectory.resolve("file.fastq");
+
+		stagingDirectory.move(source, target);
+
+		assertEquals("ACGT", new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+		assertFalse("empty temp directory should be removed", Files.exists(tempDirectory));
+		assertEquals(1, stagingDirectory.getMoves());
+		assertEquals("file on the same filesystem should be renamed", 0, stagingDirectory.getCrossDeviceMoves());
+	}
+
+	@Test
+	public void testWrite() throws IOException {
+		StagedFile staged = stagingDirectory.write(
+				new ByteArrayInputStream(">test read\nACGTACTCATG".getBytes(StandardCharsets.UTF_8)), "reads.fasta");
+
+		assertEquals("file should be in a new staging directory", stagingDirectory.getRoot(), staged.getFile()
+				.getParent()
+				.getParent());
+		assertEquals("reads.fasta", staged.getFile()
+				.getFileName()
+				.toString());
+		assertEquals(">test read\nACGTACTCATG", new String(Files.readAllBytes(staged.getFile()), StandardCharsets.UTF_8));
+		assertEquals("aeaa0755dc44b393ffe12f02e9bd42b0169b12ca9c15708085db6a4ac9110ee0", staged.getSha256());
+		assertEquals(22, staged.getSize());
+		assertFalse("file should not be gzipped", staged.isGzipped());
+	}
+
+	@Test
+	public void testWriteGzipped() throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+			gzip.write("ACGT".getBytes(StandardCharsets.UTF_8));
+		}
+
+		StagedFile staged = stagingDirectory.write(new ByteArrayInputStream(compressed.toByteArray()),
+				"../reads.fastq.gz");
+
+		assertTrue("file should be gzipped", staged.isGzipped());
+		assertEquals("directories in the file name should be ignored", stagingDirectory.getRoot(), staged.getFile()
+				.getParent()
+				.getParent());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWriteWithoutName() throws IOException {
+		stagingDirectory.write(new ByteArrayInputStream(new byte[0]), "");
+	}
+
+	@Test
+	public void testMoveKeepsDirectoryWithFiles() throws IOException {
+		Path tempDirectory = stagingDirectory.createTempDirectory(null);
+		Path source = Files.write(tempDirectory.resolve("chart1.png"), new byte[] { 1 });
+		Files.write(tempDirectory.resolve("chart2.png"), new byte[] { 2 });
+
+		stagingDirectory.move(source, baseDirectory.resolve("chart1.png"));
+
+		assertTrue("temp directory with other files should be kept", Files.exists(tempDirectory));
+	}
+
+	@Test
+	public void testMoveOutsideStagingDirectory() throws IOException {
+		Path otherDirectory = folder.newFolder()
+				.toPath();
+		Path source = Files.write(otherDirectory.resolve("file.fastq"), "ACGT".getBytes(StandardCharsets.UTF_8));
+
+		stagingDirectory.move(source, baseDirectory.resolve("file.fastq"));
+
+		assertTrue("directories outside the staging directory should be left alone", Files.exists(otherDirectory));
+	}
+}
@@ -0,0 +1,251 @@
+package ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.google.common.collect.Lists;
+
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.StagingDirectory;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+
+public class ResumableFileDownloaderTest {
+	private static final String URI = "http://localhost/api/sequenceFiles/1";
+	private static final String FILE_NAME = "file.fastq";
+	private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+	private static final String ETAG = "\"abc123-6\"";
+	private static final MediaType FASTQ = new MediaType("application", "fastq");
+	private static final List<MediaType> MEDIA_TYPES = Lists.newArrayList(FASTQ);
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private RestTemplate restTemplate;
+	private StagingDirectory stagingDirectory;
+	private MockRestServiceServer server;
+	private ResumableFileDownloader downloader;
+	private Path partialDirectory;
+
+	@Before
+	public void setUp() throws IOException {
+		restTemplate = new RestTemplate();
+		server = MockRestServiceServer.bindTo(restTemplate)
+				.build();
+		stagingDirectory = new StagingDirectory(folder.newFolder()
+				.toPath());
+		partialDirectory = stagingDirectory.getRoot()
+				.resolve("irida-remote-downloads");
+		downloader = new ResumableFileDownloader(restTemplate, stagingDirectory, 3, 0);
+	}
+
+	@Test
+	public void testDownload() throws IOException {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(HttpHeaders.LAST_MODIFIED, LAST_MODIFIED);
+		headers.setContentLength(6);
+
+		server.expect(requestTo(URI))
+				.andExpect(method(HttpMethod.GET))
+				.andExpect(header(HttpHeaders.ACCEPT, FASTQ.toString()))
+				.andRespond(withStatus(HttpStatus.OK).headers(headers)
+						.contentType(FASTQ)
+						.body("ABCDEF"));
+
+		Path downloaded = downloader.download(URI, FILE_NAME, MEDIA_TYPES);
+
+		server.verify();
+		assertEquals(FILE_NAME, downloaded.getFileName()
+				.toString());
+		assertEquals("ABCDEF", new String(Files.readAllBytes(downloaded), StandardCharsets.UTF_8));
+		assertPartialDownloadsRemoved();
+	}
+
+	@Test
+	public void testResumeAfterIncompleteResponse() throws IOException {
+		HttpHeaders fullHeaders = new HttpHeaders();
+		fullHeaders.set(HttpHeaders.LAST_MODIFIED, LAST_MODIFIED);
+		fullHeaders.setContentLength(6);
+
+		HttpHeaders rangeHeaders = new HttpHeaders();
+		rangeHeaders.set(HttpHeaders.CONTENT_RANGE, "bytes 3-5/6");
+
+		// the first response is cut short
+		server.expect(requestTo(URI))
+				.andRespond(withStatus(HttpStatus.OK).headers(fullHeaders)
+						.contentType(FASTQ)
+						.body("ABC"));
+		server.expect(requestTo(URI))
+				.andExpect(header(HttpHeaders.RANGE, "bytes=3-"))
+				.andExpect(header(HttpHeaders.IF_RANGE, LAST_MODIFIED))
+				.andRespond(withStatus(HttpStatus.PARTIAL_CONTENT).headers(rangeHeaders)
+						.contentType(FASTQ)
+						.body("DEF"));
+
+		Path downloaded = downloader.download(URI, FILE_NAME, MEDIA_TYPES);
+
+		server.verify();
+		assertEquals("ABCDEF", new String(Files.readAllBytes(downloaded), StandardCharsets.UTF_8));
+		assertPartialDownloadsRemoved();
+	}
+
+	@Test
+	public void testServerIgnoresRange() throws IOException {
+		HttpHeaders fullHeaders = new HttpHeaders();
+		fullHeaders.set(HttpHeaders.LAST_MODIFIED, LAST_MODIFIED);
+		fullHeaders.setContentLength(6);
+
+		server.expect(requestTo(URI))
+				.andRespond(withStatus(HttpStatus.OK).headers(fullHeaders)
+						.contentType(FASTQ)
+						.body("XYZ"));
+		server.expect(requestTo(URI))
+				.andExpect(header(HttpHeaders.RANGE, "bytes=3-"))
+				.andRespond(withStatus(HttpStatus.OK).contentType(FASTQ)
+						.body("ABCDEF"));
+
+		Path downloaded = downloader.download(URI, FILE_NAME, MEDIA_TYPES);
+
+		server.verify();
+		assertEquals("partial file should be replaced", "ABCDEF",
+				new String(Files.readAllBytes(downloaded), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testRangeNotSatisfiableRestartsWithoutWaiting() throws IOException {
+		downloader = new ResumableFileDownloader(restTemplate, stagingDirectory, 3, 1000);
+
+		HttpHeaders fullHeaders = new HttpHeaders();
+		fullHeaders.set(HttpHeaders.LAST_MODIFIED, LAST_MODIFIED);
+		fullHeaders.setContentLength(6);
+
+		// the first response is cut short, then the remote file no longer has the range
+		server.expect(requestTo(URI))
+				.andRespond(withStatus(HttpStatus.OK).headers(fullHeaders)
+						.contentType(FASTQ)
+						.body("ABC"));
+		server.expect(requestTo(URI))
+				.andExpect(header(HttpHeaders.RANGE, "bytes=3-"))
+				.andRespond(withStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE));
+		server.expect(requestTo(URI))
+				.andRespond(withStatus(HttpStatus.OK).headers(fullHeaders)
+						.contentType(FASTQ)
+						.body("UVWXYZ"));
+
+		long start = System.currentTimeMillis();
+		Path downloaded = downloader.download(URI, FILE_NAME, MEDIA_TYPES);
+		long elapsed = System.currentTimeMillis() - start;
+
+		server.verify();
+		assertEquals("UVWXYZ", new String(Files.readAllBytes(downloaded), StandardCharsets.UTF_8));
+		// only the incomplete response should wait (1s), a 416 would have waited another 2s
+		assertTrue("should restart right away after a 416, took " + elapsed + "ms", elapsed < 3000);
+	}
+
+	@Test
+	public void testResumeAfterGivingUp() throws IOException {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(HttpHeaders.LAST_MODIFIED, LAST_MODIFIED);
+		headers.setETag(ETAG);
+		headers.setContentLength(6);
+
+		HttpHeaders rangeHeaders = new HttpHeaders();
+		rangeHeaders.set(HttpHeaders.CONTENT_RANGE, "bytes 3-5/6");
+
+		for (int i = 0; i < 3; i++) {
+			server.expect(requestTo(URI))
+					.andRespond(withStatus(HttpStatus.OK).headers(headers)
+							.contentType(FASTQ)
+							.body("ABC"));
+		}
+		// the next synchronization resumes the partial file using its ETag
+		server.expect(requestTo(URI))
+				.andExpect(header(HttpHeaders.RANGE, "bytes=3-"))
+				.andExpect(header(HttpHeaders.IF_RANGE, ETAG))
+				.andRespond(withStatus(HttpStatus.PARTIAL_CONTENT).headers(rangeHeaders)
+						.contentType(FASTQ)
+						.body("DEF"));
+
+		try {
+			downloader.download(URI, FILE_NAME, MEDIA_TYPES);
+			fail("download should give up");
+		} catch (ResourceAccessException e) {
+			try (Stream<Path> downloads = Files.list(partialDirectory)) {
+				assertEquals("partial download should be kept", 1, downloads.count());
+			}
+		}
+
+		Path downloaded = new ResumableFileDownloader(restTemplate, stagingDirectory, 3, 0).download(URI, FILE_NAME,
+				MEDIA_TYPES);
+
+		server.verify();
+		assertEquals("ABCDEF", new String(Files.readAllBytes(downloaded), StandardCharsets.UTF_8));
+		assertPartialDownloadsRemoved();
+	}
+
+	@Test
+	public void testWrongContentType() throws IOException {
+		server.expect(requestTo(URI))
+				.andRespond(withStatus(HttpStatus.OK).contentType(MediaType.APPLICATION_JSON)
+						.body("{}"));
+
+		try {
+			downloader.download(URI, FILE_NAME, MEDIA_TYPES);
+			fail("download should fail");
+		} catch (RestClientException e) {
+			assertPartialDownloadsRemoved();
+		}
+	}
+
+	@Test
+	public void testAbandonedDownloadsRemoved() throws IOException {
+		Path abandoned = Files.createDirectories(partialDirectory.resolve("abandoned"));
+		Path abandonedFile = Files.write(abandoned.resolve(FILE_NAME), "ABC".getBytes(StandardCharsets.UTF_8));
+		FileTime twoDaysAgo = FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2));
+		Files.setLastModifiedTime(abandonedFile, twoDaysAgo);
+		Files.setLastModifiedTime(abandoned, twoDaysAgo);
+
+		Path inProgress = Files.createDirectories(partialDirectory.resolve("in-progress"));
+		Files.write(inProgress.resolve(FILE_NAME), "ABC".getBytes(StandardCharsets.UTF_8));
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentLength(6);
+		server.expect(requestTo(URI))
+				.andRespond(withStatus(HttpStatus.OK).headers(headers)
+						.contentType(FASTQ)
+						.body("ABCDEF"));
+
+		downloader.download(URI, FILE_NAME, MEDIA_TYPES);
+
+		assertFalse("abandoned download should be removed", Files.exists(abandoned));
+		assertTrue("download in progress should be kept", Files.exists(inProgress));
+	}
+
+	private void assertPartialDownloadsRemoved() throws IOException {
+		try (Stream<Path> downloads = Files.list(partialDirectory)) {
+			assertEquals("partial downloads should be removed", 0, downloads.count());
+		}
+	}
+}
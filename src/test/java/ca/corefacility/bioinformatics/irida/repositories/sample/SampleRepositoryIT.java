@@ -1,13 +1,17 @@
 package ca.corefacility.bioinformatics.irida.repositories.sample;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort.Direction;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.context.support.WithSecurityContextTestExecutionListener;
 import org.springframework.test.context.ActiveProfiles;
@@ -20,13 +24,21 @@ import org.springframework.test.context.support.DependencyInjectionTestExecution
 import com.github.springtestdbunit.DbUnitTestExecutionListener;
 import com.github.springtestdbunit.annotation.DatabaseSetup;
 import com.github.springtestdbunit.annotation.DatabaseTearDown;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 
 import ca.corefacility.bioinformatics.irida.config.data.IridaApiJdbcDataSourceConfig;
 import ca.corefacility.bioinformatics.irida.config.services.IridaApiServicesConfig;
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+import ca.corefacility.bioinformatics.irida.repositories.ProjectRepository;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.AnalysisSubmissionRepository;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectSampleJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.joins.sample.SampleSequencingObjectJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequencingObjectRepository;
+import ca.corefacility.bioinformatics.irida.repositories.specification.ProjectSampleSpecification;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration(loader = AnnotationConfigContextLoader.class, classes = { IridaApiServicesConfig.class,
@@ -44,6 +56,18 @@ public class SampleRepositoryIT {
 	@Autowired
 	private AnalysisSubmissionRepository analysisSubmissionRepository;
 
+	@Autowired
+	private SequencingObjectRepository sequencingObjectRepository;
+
+	@Autowired
+	private SampleSequencingObjectJoinRepository ssoRepository;
+
+	@Autowired
+	private ProjectRepository projectRepository;
+
+	@Autowired
+	private ProjectSampleJoinRepository psjRepository;
+
 	@Test
 	@WithMockUser(username = "fbristow", roles = "ADMIN")
 	public void testFindSamplesForAnalysisSubmissionSingleSample() {
@@ -63,4 +87,72 @@ public class SampleRepositoryIT {
 		assertEquals("Sample ids are equal", Sets.newHashSet(22L, 33L),
 				samples.stream().map(Sample::getId).collect(Collectors.toSet()));
 	}
+
+	@Test
+	@WithMockUser(username = "fbristow", roles = "ADMIN")
+	public void testUpdateSequencingObjectTotalBases() {
+		sequencingObjectRepository.updateTotalBases(1L);
+
+		assertEquals("object total should be the sum of its files", Long.valueOf(300L),
+				sequencingObjectRepository.findById(1L).get().getTotalBases());
+		assertEquals("sample total should be updated from its objects", Long.valueOf(300L),
+				sampleRepository.getTotalBasesForSamples(ImmutableList.of(11L)).get(11L));
+	}
+
+	@Test
+	@WithMockUser(username = "fbristow", roles = "ADMIN")
+	public void testUpdateSequencingObjectTotalBasesMissingFastQC() {
+		sequencingObjectRepository.updateTotalBases(3L);
+
+		assertEquals("object total should be unknown without fastqc results", null,
+				sequencingObjectRepository.findById(3L).get().getTotalBases());
+		assertFalse("sample total should be unknown without fastqc results",
+				sampleRepository.getTotalBasesForSamples(ImmutableList.of(33L)).containsKey(33L));
+	}
+
+	@Test
+	@WithMockUser(username = "fbristow", roles = "ADMIN")
+	public void testUpdateSampleTotalBases() {
+		sequencingObjectRepository.updateTotalBases(1L);
+		sequencingObjectRepository.updateTotalBases(2L);
+
+		sampleRepository.updateTotalBases(ImmutableList.of(11L, 22L, 33L));
+
+		Map<Long, Long> totals = sampleRepository.getTotalBasesForSamples(ImmutableList.of(11L, 22L, 33L));
+		assertEquals("sample 11 total should be updated", Long.valueOf(300L), totals.get(11L));
+		assertEquals("sample 22 total should be updated", Long.valueOf(700L), totals.get(22L));
+		assertFalse("sample 33 total should be unknown", totals.containsKey(33L));
+	}
+
+	@Test
+	@WithMockUser(username = "fbristow", roles = "ADMIN")
+	public void testDeleteJoinByIdUpdatesSampleTotalBases() {
+		sequencingObjectRepository.updateTotalBases(2L);
+
+		ssoRepository.deleteById(2L);
+
+		assertEquals("sample without objects should have no bases", Long.valueOf(0L),
+				sampleRepository.getTotalBasesForSamples(ImmutableList.of(22L)).get(22L));
+	}
+
+	@Test
+	@WithMockUser(username = "fbristow", roles = "ADMIN")
+	public void testFilterAndOrderByCoverage() {
+		sequencingObjectRepository.updateTotalBases(1L);
+		sequencingObjectRepository.updateTotalBases(2L);
+		List<Project> projects = ImmutableList.of(projectRepository.findById(1L).get());
+
+		List<ProjectSampleJoin> joins = psjRepository.findAll(ProjectSampleSpecification
+				.getSamples(projects, ImmutableList.of(), null, null, null, null, null, 1.0, null)
+				.and(ProjectSampleSpecification.orderByCoverage(Direction.DESC)));
+		assertEquals("samples should be ordered by coverage", ImmutableList.of(22L, 11L), joins.stream()
+				.map(j -> j.getObject().getId())
+				.collect(Collectors.toList()));
+
+		joins = psjRepository.findAll(ProjectSampleSpecification
+				.getSamples(projects, ImmutableList.of(), null, null, null, null, null, 5.0, 10.0));
+		assertEquals("only sample with coverage in range should be found", ImmutableList.of(22L), joins.stream()
+				.map(j -> j.getObject().getId())
+				.collect(Collectors.toList()));
+	}
 }
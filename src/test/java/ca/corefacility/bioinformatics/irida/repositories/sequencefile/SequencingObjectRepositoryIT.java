@@ -0,0 +1,137 @@
+package ca.corefacility.bioinformatics.irida.repositories.sequencefile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.springtestdbunit.DbUnitTestExecutionListener;
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DatabaseTearDown;
+import com.google.common.collect.Sets;
+
+import ca.corefacility.bioinformatics.irida.config.data.IridaApiJdbcDataSourceConfig;
+import ca.corefacility.bioinformatics.irida.config.services.IridaApiServicesConfig;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject.ProcessingState;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(loader = AnnotationConfigContextLoader.class, classes = { IridaApiServicesConfig.class,
+		IridaApiJdbcDataSourceConfig.class })
+@ActiveProfiles("it")
+@TestExecutionListeners({ DependencyInjectionTestExecutionListener.class, DbUnitTestExecutionListener.class })
+@DatabaseSetup("/ca/corefacility/bioinformatics/irida/repositories/sequencefile/SequencingObjectRepositoryIT.xml")
+@DatabaseTearDown("/ca/corefacility/bioinformatics/irida/test/integration/TableReset.xml")
+public class SequencingObjectRepositoryIT {
+	private static final String PROCESSOR = "test-processor";
+
+	@Autowired
+	private SequencingObjectRepository sequencingObjectRepository;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	public void testClaimOldestUnprocessed() {
+		int claimed = sequencingObjectRepository.claimUnprocessedSequencingObjects(PROCESSOR, 2);
+
+		assertEquals("should claim up to the limit", 2, claimed);
+		assertEquals("should claim the oldest objects", Sets.newHashSet(1L, 2L), getClaimedIds());
+	}
+
+	@Test
+	public void testClaimSkipsClaimedObjects() {
+		int claimed = sequencingObjectRepository.claimUnprocessedSequencingObjects(PROCESSOR, 10);
+
+		assertEquals("should claim every unclaimed object", 3, claimed);
+		assertEquals("should only claim unprocessed, unclaimed objects", Sets.newHashSet(1L, 2L, 4L),
+				getClaimedIds());
+
+		assertEquals("nothing should be left to claim", 0,
+				sequencingObjectRepository.claimUnprocessedSequencingObjects(PROCESSOR, 10));
+
+		SequencingObject other = sequencingObjectRepository.findById(3L).orElse(null);
+		assertEquals("another processor's object should be untouched", "other-processor", other.getFileProcessor());
+	}
+
+	@Test
+	public void testClaimNone() {
+		assertEquals("should claim nothing", 0,
+				sequencingObjectRepository.claimUnprocessedSequencingObjects(PROCESSOR, 0));
+		assertTrue("no objects should be claimed", getClaimedIds().isEmpty());
+	}
+
+	@Test
+	public void testClaimSkipsLockedObjects() throws Exception {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		String version = jdbcTemplate.queryForObject("SELECT VERSION()", String.class);
+		Assume.assumeTrue("database doesn't support SKIP LOCKED",
+				SequencingObjectRepositoryImpl.supportsSkipLocked(version));
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			// hold a lock on the oldest object while another thread claims
+			int claimed = new TransactionTemplate(transactionManager).execute(status -> {
+				jdbcTemplate.queryForList("SELECT id FROM sequencing_object WHERE id=1 FOR UPDATE", Long.class);
+
+				Future<Integer> claim = executor.submit(
+						() -> sequencingObjectRepository.claimUnprocessedSequencingObjects(PROCESSOR, 2));
+				try {
+					return claim.get(10, TimeUnit.SECONDS);
+				} catch (Exception e) {
+					throw new AssertionError("claim should not wait on locked objects", e);
+				}
+			});
+
+			assertEquals("should claim up to the limit", 2, claimed);
+			assertEquals("should pass over the locked object", Sets.newHashSet(2L, 4L), getClaimedIds());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testSupportsSkipLocked() {
+		assertTrue(SequencingObjectRepositoryImpl.supportsSkipLocked("8.0.22"));
+		assertTrue(SequencingObjectRepositoryImpl.supportsSkipLocked("8.0.1-log"));
+		assertTrue(SequencingObjectRepositoryImpl.supportsSkipLocked("10.6.4-MariaDB"));
+		assertTrue(SequencingObjectRepositoryImpl.supportsSkipLocked("11.2.2-MariaDB-1:11.2.2+maria~ubu2204"));
+
+		assertFalse(SequencingObjectRepositoryImpl.supportsSkipLocked("8.0.0-dmr"));
+		assertFalse(SequencingObjectRepositoryImpl.supportsSkipLocked("5.7.31"));
+		assertFalse(SequencingObjectRepositoryImpl.supportsSkipLocked("10.5.8-MariaDB"));
+		assertFalse(SequencingObjectRepositoryImpl.supportsSkipLocked(null));
+	}
+
+	private Set<Long> getClaimedIds() {
+		List<SequencingObject> claimed = sequencingObjectRepository
+				.getSequencingObjectsWithProcessingStateAndProcessor(ProcessingState.QUEUED, PROCESSOR);
+		return claimed.stream().map(SequencingObject::getId).collect(Collectors.toSet());
+	}
+}
@@ -36,6 +36,7 @@ import ca.corefacility.bioinformatics.irida.ria.web.components.AnalysisOutputFil
 import ca.corefacility.bioinformatics.irida.ria.web.services.AnalysesListingService;
 import ca.corefacility.bioinformatics.irida.security.permissions.analysis.UpdateAnalysisSubmissionPermission;
 import ca.corefacility.bioinformatics.irida.service.*;
+import ca.corefacility.bioinformatics.irida.service.export.ExportBundleService;
 import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 import ca.corefacility.bioinformatics.irida.service.user.UserService;
@@ -72,6 +73,7 @@ public class AnalysisAjaxControllerTest {
 	private HttpServletResponse httpServletResponseMock;
 	private AnalysisTypesService analysisTypesServiceMock;
 	private EmailController emailControllerMock;
+	private ExportBundleService exportBundleServiceMock;
 
 	/**
 	 * Analysis Output File key names from {@link TestDataFactory#constructAnalysis()}
@@ -96,11 +98,13 @@ public class AnalysisAjaxControllerTest {
 		httpServletResponseMock = mock(HttpServletResponse.class);
 		analysisTypesServiceMock = mock(AnalysisTypesService.class);
 		emailControllerMock = mock(EmailController.class);
+		exportBundleServiceMock = mock(ExportBundleService.class);
 
 		analysisAjaxController = new AnalysisAjaxController(analysisSubmissionServiceMock, iridaWorkflowsServiceMock,
 				userServiceMock, sampleService, projectServiceMock, updatePermission, metadataTemplateService,
 				sequencingObjectService, analysisSubmissionSampleProcessor,
-				analysisOutputFileDownloadManager, messageSourceMock, configFileMock, analysisAuditMock, analysisTypesServiceMock, emailControllerMock);
+				analysisOutputFileDownloadManager, messageSourceMock, configFileMock, analysisAuditMock, analysisTypesServiceMock, emailControllerMock,
+				exportBundleServiceMock);
 
 	}
 
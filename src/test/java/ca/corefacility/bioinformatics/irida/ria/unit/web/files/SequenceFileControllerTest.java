@@ -16,6 +16,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
@@ -68,9 +69,10 @@ public class SequenceFileControllerTest {
 	@Test
 	public void testDownloadSequenceFile() throws IOException {
 		logger.debug("Testing downloadSequenceFile");
+		MockHttpServletRequest request = new MockHttpServletRequest();
 		MockHttpServletResponse response = new MockHttpServletResponse();
 
-		controller.downloadSequenceFile(OBJECT_ID, FILE_ID, response);
+		controller.downloadSequenceFile(OBJECT_ID, FILE_ID, request, response);
 		assertTrue("Response should contain a \"Content-Disposition\" header.",
 				response.containsHeader("Content-Disposition"));
 		assertEquals("Content-Disposition should include the file name", "attachment; filename=\"test_file.fastq\"",
@@ -0,0 +1,117 @@
+package ca.corefacility.bioinformatics.irida.ria.unit.web.projects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.MessageSource;
+import org.springframework.mock.web.MockHttpSession;
+
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.ria.utilities.SampleMetadataStorage;
+import ca.corefacility.bioinformatics.irida.ria.web.projects.ProjectControllerUtils;
+import ca.corefacility.bioinformatics.irida.ria.web.projects.metadata.ProjectSampleMetadataController;
+import ca.corefacility.bioinformatics.irida.service.ProjectService;
+import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
+import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Unit tests for {@link ProjectSampleMetadataController}
+ */
+public class ProjectSampleMetadataControllerTest {
+	private static final long PROJECT_ID = 1L;
+
+	private SampleService sampleService;
+	private MetadataTemplateService metadataTemplateService;
+	private ProjectSampleMetadataController controller;
+	private SampleMetadataStorage storage;
+	private MockHttpSession session;
+	private Project project;
+
+	@Before
+	public void setUp() {
+		ProjectService projectService = mock(ProjectService.class);
+		MessageSource messageSource = mock(MessageSource.class);
+		sampleService = mock(SampleService.class);
+		metadataTemplateService = mock(MetadataTemplateService.class);
+		controller = new ProjectSampleMetadataController(messageSource, projectService, sampleService,
+				metadataTemplateService, mock(ProjectControllerUtils.class));
+
+		project = new Project("project");
+		when(projectService.read(PROJECT_ID)).thenReturn(project);
+		when(messageSource.getMessage(any(String.class), any(Object[].class), any(Locale.class))).thenReturn("saved");
+
+		storage = new SampleMetadataStorage();
+		session = new MockHttpSession();
+		session.setAttribute("pm-" + PROJECT_ID, storage);
+	}
+
+	@After
+	public void tearDown() {
+		storage.removeRows();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testSaveProjectSampleMetadataInChunks() throws IOException {
+		int rows = ProjectSampleMetadataController.SAVE_BATCH_SIZE * 2 + 1;
+		Set<String> names = new HashSet<>();
+		storage.setSampleNameColumn("Sample");
+		storage.saveHeaders(ImmutableList.of("Sample", "Age"));
+		try (SampleMetadataStorage.RowWriter writer = storage.writeRows()) {
+			for (int i = 0; i < rows; i++) {
+				writer.write(ImmutableMap.of("Sample", "sample-" + i, "Age", Integer.toString(i)));
+				names.add("sample-" + i);
+			}
+		}
+		storage.saveFoundSampleNames(names);
+
+		when(metadataTemplateService.getOrCreateMetadataFields(anyCollectionOf(String.class))).thenReturn(
+				ImmutableMap.of("Age", new MetadataTemplateField("Age", "text")));
+		when(sampleService.getSamplesBySampleNames(eq(project), anyCollectionOf(String.class))).thenAnswer(i -> {
+			Map<String, Sample> samples = new HashMap<>();
+			for (String name : (Collection<String>) i.getArguments()[1]) {
+				samples.put(name, new Sample(name));
+			}
+			return samples;
+		});
+
+		Map<String, Object> result = controller.saveProjectSampleMetadata(Locale.ENGLISH, session, PROJECT_ID);
+		assertTrue("the upload should be saved", result.containsKey("success"));
+
+		ArgumentCaptor<Collection> saved = ArgumentCaptor.forClass(Collection.class);
+		verify(sampleService, times(3)).updateMultiple(saved.capture());
+		List<Collection> chunks = saved.getAllValues();
+		assertEquals(ProjectSampleMetadataController.SAVE_BATCH_SIZE, chunks.get(0)
+				.size());
+		assertEquals(ProjectSampleMetadataController.SAVE_BATCH_SIZE, chunks.get(1)
+				.size());
+		assertEquals("the last chunk should have the remaining row", 1, chunks.get(2)
+				.size());
+		verify(sampleService, times(3)).getSamplesBySampleNames(eq(project), anyCollectionOf(String.class));
+	}
+}
@@ -22,10 +22,14 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
 
 import ca.corefacility.bioinformatics.irida.exceptions.EntityExistsException;
 import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
+import ca.corefacility.bioinformatics.irida.model.export.ExportBundle;
 import ca.corefacility.bioinformatics.irida.model.joins.Join;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
@@ -46,11 +50,16 @@ import ca.corefacility.bioinformatics.irida.ria.web.projects.ProjectControllerUt
 import ca.corefacility.bioinformatics.irida.ria.web.projects.ProjectSamplesController;
 import ca.corefacility.bioinformatics.irida.service.ProjectService;
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
+import ca.corefacility.bioinformatics.irida.service.export.ExportBundleService;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 import ca.corefacility.bioinformatics.irida.service.user.UserService;
+import ca.corefacility.bioinformatics.irida.util.ZipStreamWriter;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
 
 public class ProjectSamplesControllerTest {
 	public static final String PROJECT_ORGANISM = "E. coli";
@@ -68,6 +77,7 @@ public class ProjectSamplesControllerTest {
 	private SequencingObjectService sequencingObjectService;
 	private MessageSource messageSource;
 	private ProjectControllerUtils projectUtils;
+	private ExportBundleService exportBundleService;
 
 	@Before
 	public void setUp() {
@@ -76,9 +86,11 @@ public class ProjectSamplesControllerTest {
 		sequencingObjectService = mock(SequencingObjectService.class);
 		projectUtils = mock(ProjectControllerUtils.class);
 		messageSource = mock(MessageSource.class);
+		exportBundleService = mock(ExportBundleService.class);
 
 		controller = new ProjectSamplesController(projectService, sampleService, sequencingObjectService,
-				projectUtils, messageSource);
+				projectUtils, messageSource, new ZipStreamWriter(MoreExecutors.directExecutor(), 2),
+				exportBundleService);
 		user.setId(1L);
 
 		mockSidebarInfo();
@@ -307,7 +319,7 @@ public class ProjectSamplesControllerTest {
 
 		when(sampleService
 				.getFilteredSamplesForProjects(any(List.class), any(List.class), any(String.class), any(String.class), any(String.class), any(Date.class), any(Date.class),
-						any(Integer.class), any(Integer.class), any(
+						any(Double.class), any(Double.class), any(Integer.class), any(Integer.class), any(
 								Sort.class)))
 				.thenReturn(TestDataFactory.getPageOfProjectSampleJoin());
 		DataTablesParams params = mock(DataTablesParams.class);
@@ -321,6 +333,38 @@ public class ProjectSamplesControllerTest {
 
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testGetAjaxProjectSampleModelsCoverage() {
+		Project p = TestDataFactory.constructProject();
+		p.setGenomeSize(100L);
+		Sample sample = TestDataFactory.constructSample();
+		Page<ProjectSampleJoin> page = new PageImpl<>(Lists.newArrayList(new ProjectSampleJoin(p, sample, true)));
+
+		when(projectService.read(anyLong())).thenReturn(p);
+		when(sampleService
+				.getFilteredSamplesForProjects(any(List.class), any(List.class), any(String.class), any(String.class), any(String.class), any(Date.class), any(Date.class),
+						any(Double.class), any(Double.class), any(Integer.class), any(Integer.class), any(
+								Sort.class)))
+				.thenReturn(page);
+		when(sampleService.getTotalBasesForSamples(any(Collection.class))).thenReturn(
+				ImmutableMap.of(sample.getId(), 500L));
+		DataTablesParams params = mock(DataTablesParams.class);
+		when(params.getSort()).thenReturn(Sort.by(Direction.ASC, "sample.sampleName"));
+
+		DataTablesResponse response = controller
+				.getProjectSamples(1L, params, ImmutableList.of(), ImmutableList.of(), new UISampleFilter(), Locale.US);
+		DTProjectSamples sampleData = (DTProjectSamples) response.getData()
+				.get(0);
+		assertEquals("Has the correct coverage", 5.0, sampleData.getCoverage(), 0.000001);
+		assertTrue("Has no qc entries", sampleData.getQcEntries()
+				.isEmpty());
+
+		verify(sampleService).getTotalBasesForSamples(ImmutableSet.of(sample));
+		verify(sampleService).getQCEntriesForSamples(ImmutableSet.of(sample));
+		verify(sampleService, never()).getQCEntriesForSample(any(Sample.class));
+	}
+
 	@Test
 	public void testDownloadSamples() throws IOException {
 		Project project = TestDataFactory.constructProject();
@@ -337,7 +381,9 @@ public class ProjectSamplesControllerTest {
 		when(sampleService.readMultiple(ImmutableList.of(sample.getId()))).thenReturn(ImmutableList.of(sample));
 		when(sequencingObjectService.getSequencingObjectsForSample(sample)).thenReturn(filejoin);
 
-		controller.downloadSamples(project.getId(), ImmutableList.of(sample.getId()), response);
+		MockHttpSession session = new MockHttpSession();
+		controller.downloadSamples(project.getId(), ImmutableList.of(sample.getId()), "download-1", session,
+				response);
 
 		verify(projectService).read(project.getId());
 		verify(sampleService).readMultiple(ImmutableList.of(sample.getId()));
@@ -353,6 +399,91 @@ public class ProjectSamplesControllerTest {
 			String fileName = nextEntry.getName();
 			assertTrue("incorrect file in zip stream: " + file.getFileName(), fileName.endsWith(file.getFileName()));
 		}
+
+		ResponseEntity<ZipStreamWriter.Progress> progress = controller.getDownloadProgress(project.getId(),
+				"download-1", session);
+		assertEquals(HttpStatus.OK, progress.getStatusCode());
+		assertTrue("download should be complete", progress.getBody()
+				.isComplete());
+		assertEquals("one file should be written", 1, progress.getBody()
+				.getEntriesWritten());
+		assertEquals("complete downloads should be removed once reported", HttpStatus.NOT_FOUND,
+				controller.getDownloadProgress(project.getId(), "download-1", session)
+						.getStatusCode());
+		assertEquals("unknown downloads should not be found", HttpStatus.NOT_FOUND,
+				controller.getDownloadProgress(project.getId(), "download-2", session)
+						.getStatusCode());
+	}
+
+	@Test
+	public void testDownloadProgressForOtherProject() throws IOException {
+		Project project = TestDataFactory.constructProject();
+		Sample sample = TestDataFactory.constructSample();
+		SequenceFile file = new SequenceFile(Paths.get(FILE_PATH));
+		ImmutableList<SampleSequencingObjectJoin> filejoin = ImmutableList.of(new SampleSequencingObjectJoin(sample,
+				new SingleEndSequenceFile(file)));
+
+		when(projectService.read(project.getId())).thenReturn(project);
+		when(sampleService.readMultiple(ImmutableList.of(sample.getId()))).thenReturn(ImmutableList.of(sample));
+		when(sequencingObjectService.getSequencingObjectsForSample(sample)).thenReturn(filejoin);
+
+		MockHttpSession session = new MockHttpSession();
+		controller.downloadSamples(project.getId(), ImmutableList.of(sample.getId()), "download-1", session,
+				new MockHttpServletResponse());
+
+		assertEquals("downloads of other projects should not be found", HttpStatus.NOT_FOUND,
+				controller.getDownloadProgress(project.getId() + 1, "download-1", session)
+						.getStatusCode());
+		assertEquals(HttpStatus.OK, controller.getDownloadProgress(project.getId(), "download-1", session)
+				.getStatusCode());
+	}
+
+	@Test
+	public void testFailedDownloadProgressRemoved() throws IOException {
+		Project project = TestDataFactory.constructProject();
+		Sample sample = TestDataFactory.constructSample();
+		SequenceFile file = new SequenceFile(Paths.get("/does/not/exist.fastq"));
+		ImmutableList<SampleSequencingObjectJoin> filejoin = ImmutableList.of(new SampleSequencingObjectJoin(sample,
+				new SingleEndSequenceFile(file)));
+
+		when(projectService.read(project.getId())).thenReturn(project);
+		when(sampleService.readMultiple(ImmutableList.of(sample.getId()))).thenReturn(ImmutableList.of(sample));
+		when(sequencingObjectService.getSequencingObjectsForSample(sample)).thenReturn(filejoin);
+
+		MockHttpSession session = new MockHttpSession();
+		controller.downloadSamples(project.getId(), ImmutableList.of(sample.getId()), "download-1", session,
+				new MockHttpServletResponse());
+
+		assertEquals("failed downloads should be removed", HttpStatus.NOT_FOUND,
+				controller.getDownloadProgress(project.getId(), "download-1", session)
+						.getStatusCode());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testRequestDownloadBundle() throws IOException {
+		Project project = TestDataFactory.constructProject();
+		Sample sample = TestDataFactory.constructSample();
+
+		SequenceFile file = new SequenceFile(Paths.get(FILE_PATH));
+		ImmutableList<SampleSequencingObjectJoin> filejoin = ImmutableList.of(new SampleSequencingObjectJoin(sample,
+				new SingleEndSequenceFile(file)));
+
+		when(projectService.read(project.getId())).thenReturn(project);
+		when(sampleService.readMultiple(ImmutableList.of(sample.getId()))).thenReturn(ImmutableList.of(sample));
+		when(sequencingObjectService.getSequencingObjectsForSample(sample)).thenReturn(filejoin);
+
+		ExportBundle bundle = new ExportBundle("bundle", project.getName(), Paths.get("bundle.zip"));
+		ArgumentCaptor<List<ZipStreamWriter.Entry>> entries = ArgumentCaptor.forClass(List.class);
+		when(exportBundleService.requestBundle(eq(project.getName()), entries.capture())).thenReturn(bundle);
+
+		assertEquals(bundle, controller.requestDownloadBundle(project.getId(), ImmutableList.of(sample.getId())));
+
+		assertEquals("bundle should have the sample's file", 1, entries.getValue()
+				.size());
+		assertEquals(project.getName() + "/" + sample.getSampleName() + "/" + file.getFileName(), entries.getValue()
+				.get(0)
+				.getName());
 	}
 
 	@Test
@@ -373,7 +504,8 @@ public class ProjectSamplesControllerTest {
 		when(sampleService.readMultiple(ImmutableList.of(sample.getId()))).thenReturn(ImmutableList.of(sample));
 		when(sequencingObjectService.getSequencingObjectsForSample(sample)).thenReturn(filejoin);
 
-		controller.downloadSamples(project.getId(), ImmutableList.of(sample.getId()), response);
+		controller.downloadSamples(project.getId(), ImmutableList.of(sample.getId()), null, new MockHttpSession(),
+				response);
 
 		verify(projectService).read(project.getId());
 		verify(sampleService).readMultiple(ImmutableList.of(sample.getId()));
@@ -254,7 +254,7 @@ public class SamplesControllerTest {
 		when(genomeAssemblyService.getGenomeAssemblyForSample(sample, assemblyId)).thenReturn(genomeAssembly);
 		when(readSamplePermission.isAllowed(any(Authentication.class), eq(sample))).thenReturn(true);
 
-		controller.downloadAssembly(sampleId, assemblyId, response);
+		controller.downloadAssembly(sampleId, assemblyId, new MockHttpServletRequest(), response);
 
 		verify(sampleService).read(sampleId);
 		verify(genomeAssemblyService).getGenomeAssemblyForSample(sample, assemblyId);
@@ -19,6 +19,7 @@ import org.springframework.security.core.Authentication;
 
 import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 /**
@@ -65,7 +66,7 @@ public class BasePermissionTest {
 	 */
 	@Test
 	public void testPermissionSingleCollectionLongSuccess() {
-		when(crudRepository.findById(1L)).thenReturn(Optional.of(new Permittable(1L)));
+		when(crudRepository.findAllById(Sets.newHashSet(1L))).thenReturn(Lists.newArrayList(new Permittable(1L)));
 
 		assertTrue(basePermission.isAllowed(auth, Sets.newHashSet(1L)));
 	}
@@ -84,12 +85,24 @@ public class BasePermissionTest {
 	 */
 	@Test
 	public void testPermissionTwoCollectionLongSuccess() {
-		when(crudRepository.findById(1L)).thenReturn(Optional.of(new Permittable(1L)));
-		when(crudRepository.findById(2L)).thenReturn(Optional.of(new Permittable(2L)));
+		when(crudRepository.findAllById(Sets.newHashSet(1L, 2L)))
+				.thenReturn(Lists.newArrayList(new Permittable(1L), new Permittable(2L)));
 
 		assertTrue(basePermission.isAllowed(auth, Sets.newHashSet(1L, 2L)));
 	}
 
+	/**
+	 * Tests failing to allow permission for collection of two long ids when
+	 * only one is found by the batch load.
+	 */
+	@Test(expected = EntityNotFoundException.class)
+	public void testPermissionTwoCollectionLongOneNotFound() {
+		when(crudRepository.findAllById(Sets.newHashSet(1L, 2L)))
+				.thenReturn(Lists.newArrayList(new Permittable(1L)));
+
+		basePermission.isAllowed(auth, Sets.newHashSet(1L, 2L));
+	}
+
 	/**
 	 * Tests failing to allow permission for collection of two long ids (one id
 	 * exists, one doesn't).
@@ -0,0 +1,121 @@
+package ca.corefacility.bioinformatics.irida.security.permissions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroup;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupProjectJoin;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectUserJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.UserGroupProjectJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Tests for {@link ProjectMembershipCache}.
+ */
+public class ProjectMembershipCacheTest {
+	private ProjectMembershipCache membershipCache;
+	private UserRepository userRepository;
+	private ProjectUserJoinRepository pujRepository;
+	private UserGroupProjectJoinRepository ugpjRepository;
+
+	private final User user = new User();
+	private final Project project = new Project();
+
+	@Before
+	public void setUp() {
+		userRepository = mock(UserRepository.class);
+		pujRepository = mock(ProjectUserJoinRepository.class);
+		ugpjRepository = mock(UserGroupProjectJoinRepository.class);
+		membershipCache = new ProjectMembershipCache(userRepository, pujRepository, ugpjRepository, 600);
+
+		user.setUsername("fbristow");
+		project.setId(1L);
+
+		when(userRepository.loadUserByUsername(user.getUsername())).thenReturn(user);
+	}
+
+	@Test
+	public void testGroupOwnerOverridesDirectRole() {
+		UserGroup group = new UserGroup("owners");
+		when(pujRepository.getProjectJoinForUser(project, user))
+				.thenReturn(new ProjectUserJoin(project, user, ProjectRole.PROJECT_USER));
+		when(ugpjRepository.findGroupsByProjectAndUser(project, user))
+				.thenReturn(ImmutableList.of(new UserGroupProjectJoin(project, group, ProjectRole.PROJECT_OWNER)));
+
+		assertEquals("user should be an owner through their group", Optional.of(ProjectRole.PROJECT_OWNER),
+				membershipCache.getProjectRole(user.getUsername(), project));
+	}
+
+	@Test
+	public void testMembershipCached() {
+		when(pujRepository.getProjectJoinForUser(project, user))
+				.thenReturn(new ProjectUserJoin(project, user, ProjectRole.PROJECT_USER));
+
+		membershipCache.getProjectRole(user.getUsername(), project);
+		assertEquals("user should be a project user", Optional.of(ProjectRole.PROJECT_USER),
+				membershipCache.getProjectRole(user.getUsername(), project));
+
+		verify(pujRepository, times(1)).getProjectJoinForUser(project, user);
+	}
+
+	@Test
+	public void testMembershipNotCachedByDefault() {
+		membershipCache = new ProjectMembershipCache(userRepository, pujRepository, ugpjRepository, 0);
+		when(pujRepository.getProjectJoinForUser(project, user))
+				.thenReturn(new ProjectUserJoin(project, user, ProjectRole.PROJECT_USER));
+
+		membershipCache.getProjectRole(user.getUsername(), project);
+		membershipCache.getProjectRole(user.getUsername(), project);
+
+		verify(pujRepository, times(2)).getProjectJoinForUser(project, user);
+	}
+
+	@Test
+	public void testMembershipInvalidatedByProjectUserJoin() {
+		ProjectUserJoin join = new ProjectUserJoin(project, user, ProjectRole.PROJECT_USER);
+		when(pujRepository.getProjectJoinForUser(project, user)).thenReturn(join);
+
+		assertEquals("user should be a project user", Optional.of(ProjectRole.PROJECT_USER),
+				membershipCache.getProjectRole(user.getUsername(), project));
+
+		// the user is removed from the project
+		when(pujRepository.getProjectJoinForUser(project, user)).thenReturn(null);
+		membershipCache.invalidate(user, project);
+
+		assertFalse("user should no longer be a member",
+				membershipCache.getProjectRole(user.getUsername(), project).isPresent());
+		verify(pujRepository, times(2)).getProjectJoinForUser(project, user);
+	}
+
+	@Test
+	public void testMembershipInvalidatedByUserGroupJoin() {
+		UserGroup group = new UserGroup("group");
+		when(ugpjRepository.findGroupsByProjectAndUser(project, user))
+				.thenReturn(ImmutableList.of(new UserGroupProjectJoin(project, group, ProjectRole.PROJECT_USER)));
+
+		assertEquals("user should be a project user", Optional.of(ProjectRole.PROJECT_USER),
+				membershipCache.getProjectRole(user.getUsername(), project));
+
+		// the user is removed from the group
+		when(ugpjRepository.findGroupsByProjectAndUser(project, user)).thenReturn(ImmutableList.of());
+		membershipCache.invalidateUser(user);
+
+		assertFalse("user should no longer be a member",
+				membershipCache.getProjectRole(user.getUsername(), project).isPresent());
+	}
+}
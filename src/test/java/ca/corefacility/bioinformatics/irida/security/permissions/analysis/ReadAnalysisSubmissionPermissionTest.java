@@ -1,6 +1,7 @@
 package ca.corefacility.bioinformatics.irida.security.permissions.analysis;
 
 import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -279,4 +280,71 @@ public class ReadAnalysisSubmissionPermissionTest {
 		verify(analysisSubmissionRepository).findById(1L);
 	}
 
+
+	/**
+	 * Tests granting permission for a collection of submissions, one submitted
+	 * by the user and one shared with a project the user can read.
+	 */
+	@Test
+	public void testGrantPermissionCollection() {
+		String username = "aaron";
+		User u = new User();
+		u.setUsername(username);
+		Authentication auth = new UsernamePasswordAuthenticationToken("aaron", "password1");
+
+		Project p = new Project();
+		p.setId(1L);
+
+		AnalysisSubmission submitted = AnalysisSubmission.builder(workflowId).name("submitted")
+				.inputFiles(inputSingleFiles).referenceFile(referenceFile).build();
+		submitted.setId(1L);
+		submitted.setSubmitter(u);
+
+		AnalysisSubmission shared = AnalysisSubmission.builder(workflowId).name("shared")
+				.inputFiles(inputSingleFiles).referenceFile(referenceFile).build();
+		shared.setId(2L);
+		shared.setSubmitter(new User());
+
+		when(userRepository.loadUserByUsername(username)).thenReturn(u);
+		when(pasRepository.getProjectsForSubmissions(any()))
+				.thenReturn(ImmutableList.of(new ProjectAnalysisSubmissionJoin(p, shared)));
+		when(readProjectPermission.customPermissionAllowed(auth, p)).thenReturn(true);
+
+		assertTrue("permission was not granted.",
+				readAnalysisSubmissionPermission.isAllowed(auth, ImmutableList.of(submitted, shared)));
+
+		verify(userRepository).loadUserByUsername(username);
+		verify(pasRepository).getProjectsForSubmissions(any());
+		verifyZeroInteractions(sequencingObjectRepository);
+	}
+
+	/**
+	 * Tests rejecting permission for a collection of submissions when one
+	 * submission can't be read.
+	 */
+	@Test
+	public void testRejectPermissionCollection() {
+		String username = "aaron";
+		User u = new User();
+		u.setUsername(username);
+		Authentication auth = new UsernamePasswordAuthenticationToken("aaron", "password1");
+
+		AnalysisSubmission submitted = AnalysisSubmission.builder(workflowId).name("submitted")
+				.inputFiles(inputSingleFiles).referenceFile(referenceFile).build();
+		submitted.setId(1L);
+		submitted.setSubmitter(u);
+
+		AnalysisSubmission other = AnalysisSubmission.builder(workflowId).name("other")
+				.inputFiles(inputSingleFiles).referenceFile(referenceFile).build();
+		other.setId(2L);
+		other.setSubmitter(new User());
+
+		when(userRepository.loadUserByUsername(username)).thenReturn(u);
+
+		assertFalse("permission was granted.",
+				readAnalysisSubmissionPermission.isAllowed(auth, ImmutableList.of(submitted, other)));
+
+		verify(pasRepository).getProjectsForSubmissions(any());
+		verify(sequencingObjectRepository).findSequencingObjectsForAutomatedAnalysisSubmissions(any());
+	}
 }
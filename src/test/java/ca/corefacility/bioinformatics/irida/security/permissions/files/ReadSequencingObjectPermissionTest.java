@@ -5,6 +5,7 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -25,6 +26,7 @@ import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
 import ca.corefacility.bioinformatics.irida.model.user.Role;
 import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectSampleJoinRepository;
@@ -36,6 +38,8 @@ import ca.corefacility.bioinformatics.irida.security.permissions.files.ReadSeque
 import ca.corefacility.bioinformatics.irida.security.permissions.project.ReadProjectPermission;
 import ca.corefacility.bioinformatics.irida.security.permissions.sample.ReadSamplePermission;
 
+import com.google.common.collect.Lists;
+
 /**
  * Testing the permission for {@link ReadSequencingObjectPermission}
  */
@@ -129,4 +133,54 @@ public class ReadSequencingObjectPermissionTest {
 		verifyZeroInteractions(userRepository);
 		verifyZeroInteractions(ssoRepository);
 	}
+
+	@Test
+	public void testGrantPermissionCollection() {
+		Project p = new Project();
+		p.setId(1L);
+		Sample s = new Sample();
+		s.setId(1L);
+		List<Join<Project, Sample>> projectSampleList = new ArrayList<>();
+		projectSampleList.add(new ProjectSampleJoin(p, s, true));
+
+		SingleEndSequenceFile sf1 = new SingleEndSequenceFile(null);
+		sf1.setId(1L);
+		SingleEndSequenceFile sf2 = new SingleEndSequenceFile(null);
+		sf2.setId(2L);
+		List<SequencingObject> objects = Lists.newArrayList(sf1, sf2);
+
+		when(ssoRepository.getSamplesForSequencingObjects(objects)).thenReturn(
+				Lists.newArrayList(new SampleSequencingObjectJoin(s, sf1), new SampleSequencingObjectJoin(s, sf2)));
+		when(psjRepository.getProjectsForSamples(any())).thenReturn(projectSampleList);
+		when(readProjectPermission.isAllowed(any(), eq(p))).thenReturn(true);
+
+		Authentication auth = new UsernamePasswordAuthenticationToken("fbristow", "password1");
+
+		assertTrue("permission was not granted.", permission.isAllowed(auth, objects));
+
+		verify(ssoRepository).getSamplesForSequencingObjects(objects);
+		verify(ssoRepository, never()).getSampleForSequencingObject(any());
+		verify(psjRepository).getProjectsForSamples(any());
+	}
+
+	@Test
+	public void testRejectPermissionCollectionNoSample() {
+		Sample s = new Sample();
+		s.setId(1L);
+
+		SingleEndSequenceFile sf1 = new SingleEndSequenceFile(null);
+		sf1.setId(1L);
+		SingleEndSequenceFile sf2 = new SingleEndSequenceFile(null);
+		sf2.setId(2L);
+		List<SequencingObject> objects = Lists.newArrayList(sf1, sf2);
+
+		when(ssoRepository.getSamplesForSequencingObjects(objects))
+				.thenReturn(Lists.newArrayList(new SampleSequencingObjectJoin(s, sf1)));
+
+		Authentication auth = new UsernamePasswordAuthenticationToken("fbristow", "password1");
+
+		assertFalse("permission was granted.", permission.isAllowed(auth, objects));
+
+		verifyZeroInteractions(psjRepository);
+	}
 }
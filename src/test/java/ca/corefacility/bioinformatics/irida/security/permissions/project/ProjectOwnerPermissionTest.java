@@ -9,8 +9,6 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
 
-import com.google.common.collect.Lists;
-
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
@@ -25,9 +23,9 @@ import ca.corefacility.bioinformatics.irida.model.user.User;
 import ca.corefacility.bioinformatics.irida.repositories.ProjectRepository;
 import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectUserJoinRepository;
 import ca.corefacility.bioinformatics.irida.repositories.joins.project.UserGroupProjectJoinRepository;
-import ca.corefacility.bioinformatics.irida.repositories.user.UserGroupJoinRepository;
 import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
 import ca.corefacility.bioinformatics.irida.security.ProjectSynchronizationAuthenticationToken;
+import ca.corefacility.bioinformatics.irida.security.permissions.ProjectMembershipCache;
 import ca.corefacility.bioinformatics.irida.security.permissions.project.ProjectOwnerPermission;
 
 public class ProjectOwnerPermissionTest {
@@ -42,8 +40,6 @@ public class ProjectOwnerPermissionTest {
 	ProjectUserJoinRepository pujRepository;
 	@Mock
 	UserGroupProjectJoinRepository ugpjRepository;
-	@Mock
-	UserGroupJoinRepository ugRepository;
 
 	Project project = new Project();
 	Long projectId = 1L;
@@ -56,13 +52,13 @@ public class ProjectOwnerPermissionTest {
 		user.setSystemRole(Role.ROLE_USER);
 		user.setUsername("tom");
 
-		permission = new ProjectOwnerPermission(projectRepository, userRepository, pujRepository, ugpjRepository,
-				ugRepository);
+		permission = new ProjectOwnerPermission(projectRepository,
+				new ProjectMembershipCache(userRepository, pujRepository, ugpjRepository, 0));
 
 		when(projectRepository.findById(projectId)).thenReturn(Optional.of(project));
 		when(userRepository.loadUserByUsername(user.getUsername())).thenReturn(user);
-		when(pujRepository.getUsersForProjectByRole(project, ProjectRole.PROJECT_OWNER))
-				.thenReturn(Lists.newArrayList(new ProjectUserJoin(project, user, ProjectRole.PROJECT_OWNER)));
+		when(pujRepository.getProjectJoinForUser(project, user))
+				.thenReturn(new ProjectUserJoin(project, user, ProjectRole.PROJECT_OWNER));
 	}
 
 	@Test
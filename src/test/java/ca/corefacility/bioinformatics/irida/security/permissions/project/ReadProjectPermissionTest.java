@@ -3,6 +3,7 @@ package ca.corefacility.bioinformatics.irida.security.permissions.project;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -21,19 +22,17 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 
 import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
-import ca.corefacility.bioinformatics.irida.model.joins.Join;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.user.Role;
 import ca.corefacility.bioinformatics.irida.model.user.User;
 import ca.corefacility.bioinformatics.irida.model.user.group.UserGroup;
-import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupJoin;
 import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupProjectJoin;
 import ca.corefacility.bioinformatics.irida.repositories.ProjectRepository;
 import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectUserJoinRepository;
 import ca.corefacility.bioinformatics.irida.repositories.joins.project.UserGroupProjectJoinRepository;
-import ca.corefacility.bioinformatics.irida.repositories.user.UserGroupJoinRepository;
 import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
+import ca.corefacility.bioinformatics.irida.security.permissions.ProjectMembershipCache;
 import ca.corefacility.bioinformatics.irida.security.permissions.project.ReadProjectPermission;
 
 import com.google.common.collect.ImmutableList;
@@ -49,7 +48,6 @@ public class ReadProjectPermissionTest {
 	private ProjectRepository projectRepository;
 	private ProjectUserJoinRepository pujRepository;
 	private UserGroupProjectJoinRepository ugpjRepository;
-	private UserGroupJoinRepository ugRepository;
 
 	@Before
 	public void setUp() {
@@ -57,9 +55,8 @@ public class ReadProjectPermissionTest {
 		projectRepository = mock(ProjectRepository.class);
 		pujRepository = mock(ProjectUserJoinRepository.class);
 		ugpjRepository = mock(UserGroupProjectJoinRepository.class);
-		ugRepository = mock(UserGroupJoinRepository.class);
-		readProjectPermission = new ReadProjectPermission(projectRepository, userRepository, pujRepository,
-				ugpjRepository, ugRepository);
+		readProjectPermission = new ReadProjectPermission(projectRepository,
+				new ProjectMembershipCache(userRepository, pujRepository, ugpjRepository, 0));
 	}
 
 	@Test
@@ -68,12 +65,10 @@ public class ReadProjectPermissionTest {
 		User u = new User();
 		u.setUsername(username);
 		Project p = new Project();
-		List<Join<Project, User>> projectUsers = new ArrayList<>();
-		projectUsers.add(new ProjectUserJoin(p, u, ProjectRole.PROJECT_USER));
 
 		when(userRepository.loadUserByUsername(username)).thenReturn(u);
 		when(projectRepository.findById(1L)).thenReturn(Optional.of(p));
-		when(pujRepository.getUsersForProject(p)).thenReturn(projectUsers);
+		when(pujRepository.getProjectJoinForUser(p, u)).thenReturn(new ProjectUserJoin(p, u, ProjectRole.PROJECT_USER));
 
 		Authentication auth = new UsernamePasswordAuthenticationToken("fbristow", "password1");
 
@@ -81,7 +76,7 @@ public class ReadProjectPermissionTest {
 
 		verify(userRepository).loadUserByUsername(username);
 		verify(projectRepository).findById(1L);
-		verify(pujRepository).getUsersForProject(p);
+		verify(pujRepository).getProjectJoinForUser(p, u);
 	}
 
 	@Test
@@ -90,13 +85,11 @@ public class ReadProjectPermissionTest {
 		User u = new User();
 		u.setUsername(username);
 		Project p = new Project();
-		List<Join<Project, User>> projectUsers = new ArrayList<>();
-		projectUsers.add(new ProjectUserJoin(p, new User(), ProjectRole.PROJECT_USER));
 
 		when(userRepository.loadUserByUsername(username)).thenReturn(u);
 		when(projectRepository.findById(1L)).thenReturn(Optional.of(p));
-		when(pujRepository.getUsersForProject(p)).thenReturn(projectUsers);
-		when(ugpjRepository.findGroupsByProject(p)).thenReturn(ImmutableList.of());
+		when(pujRepository.getProjectJoinForUser(p, u)).thenReturn(null);
+		when(ugpjRepository.findGroupsByProjectAndUser(p, u)).thenReturn(ImmutableList.of());
 
 		Authentication auth = new UsernamePasswordAuthenticationToken("fbristow", "password1");
 
@@ -104,8 +97,8 @@ public class ReadProjectPermissionTest {
 
 		verify(userRepository).loadUserByUsername(username);
 		verify(projectRepository).findById(1L);
-		verify(pujRepository).getUsersForProject(p);
-		verifyZeroInteractions(ugRepository);
+		verify(pujRepository).getProjectJoinForUser(p, u);
+		verify(ugpjRepository).findGroupsByProjectAndUser(p, u);
 	}
 
 	@Test
@@ -134,10 +127,7 @@ public class ReadProjectPermissionTest {
 
 		when(userRepository.loadUserByUsername(username)).thenReturn(u);
 		when(projectRepository.findById(1L)).thenReturn(Optional.of(p));
-		when(pujRepository.getUsersForProject(p)).thenReturn(ImmutableList.of());
-		when(ugpjRepository.findGroupsByProject(p)).thenReturn(projectGroups);
-		when(ugRepository.findUsersInGroup(g))
-				.thenReturn(ImmutableList.of(new UserGroupJoin(u, g, UserGroupJoin.UserGroupRole.GROUP_MEMBER)));
+		when(ugpjRepository.findGroupsByProjectAndUser(p, u)).thenReturn(projectGroups);
 
 		Authentication auth = new UsernamePasswordAuthenticationToken("fbristow", "password1");
 
@@ -145,6 +135,28 @@ public class ReadProjectPermissionTest {
 
 		verify(userRepository).loadUserByUsername(username);
 		verify(projectRepository).findById(1L);
-		verify(pujRepository).getUsersForProject(p);
+		verify(pujRepository).getProjectJoinForUser(p, u);
+		verify(ugpjRepository).findGroupsByProjectAndUser(p, u);
+	}
+
+	@Test
+	public void testPermissionCachedForProject() {
+		String username = "fbristow";
+		User u = new User();
+		u.setUsername(username);
+		Project p = new Project();
+		p.setId(1L);
+		List<Project> projects = ImmutableList.of(p, p, p);
+
+		when(userRepository.loadUserByUsername(username)).thenReturn(u);
+		when(pujRepository.getProjectJoinForUser(p, u)).thenReturn(new ProjectUserJoin(p, u, ProjectRole.PROJECT_USER));
+
+		Authentication auth = new UsernamePasswordAuthenticationToken("fbristow", "password1");
+
+		assertTrue("permission was not granted.", readProjectPermission.isAllowed(auth, projects));
+
+		// the membership should only be loaded once for the project
+		verify(userRepository, times(1)).loadUserByUsername(username);
+		verify(pujRepository, times(1)).getProjectJoinForUser(p, u);
 	}
 }
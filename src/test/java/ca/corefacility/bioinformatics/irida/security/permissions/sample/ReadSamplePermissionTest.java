@@ -5,6 +5,8 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -35,6 +37,8 @@ import ca.corefacility.bioinformatics.irida.repositories.sample.SampleRepository
 import ca.corefacility.bioinformatics.irida.security.permissions.project.ReadProjectPermission;
 import ca.corefacility.bioinformatics.irida.security.permissions.sample.ReadSamplePermission;
 
+import com.google.common.collect.Lists;
+
 /**
  * Tests for {@link ReadSamplePermission}.
  * 
@@ -141,4 +145,54 @@ public class ReadSamplePermissionTest {
 		// we should fast pass through to permission granted for administrators.
 		verifyZeroInteractions(psjRepository);
 	}
+
+	@Test
+	public void testGrantPermissionCollection() {
+		Project p = new Project();
+		p.setId(1L);
+		Sample s1 = new Sample("s1");
+		s1.setId(1L);
+		Sample s2 = new Sample("s2");
+		s2.setId(2L);
+		List<Sample> samples = Lists.newArrayList(s1, s2);
+		List<Join<Project, Sample>> projectSampleList = new ArrayList<>();
+		projectSampleList.add(new ProjectSampleJoin(p, s1, true));
+		projectSampleList.add(new ProjectSampleJoin(p, s2, true));
+
+		when(psjRepository.getProjectsForSamples(samples)).thenReturn(projectSampleList);
+		when(readProjectPermission.isAllowed(any(), eq(p))).thenReturn(true);
+
+		Authentication auth = new UsernamePasswordAuthenticationToken("fbristow", "password1");
+
+		assertTrue("permission was not granted.", readSamplePermission.isAllowed(auth, samples));
+
+		// the projects should be loaded once, and the shared project checked once
+		verify(psjRepository).getProjectsForSamples(samples);
+		verify(psjRepository, never()).getProjectForSample(any());
+		verify(readProjectPermission, times(1)).isAllowed(any(), eq(p));
+	}
+
+	@Test
+	public void testRejectPermissionCollection() {
+		Project p1 = new Project("p1");
+		p1.setId(1L);
+		Project p2 = new Project("p2");
+		p2.setId(2L);
+		Sample s1 = new Sample("s1");
+		s1.setId(1L);
+		Sample s2 = new Sample("s2");
+		s2.setId(2L);
+		List<Sample> samples = Lists.newArrayList(s1, s2);
+		List<Join<Project, Sample>> projectSampleList = new ArrayList<>();
+		projectSampleList.add(new ProjectSampleJoin(p1, s1, true));
+		projectSampleList.add(new ProjectSampleJoin(p2, s2, true));
+
+		when(psjRepository.getProjectsForSamples(samples)).thenReturn(projectSampleList);
+		when(readProjectPermission.isAllowed(any(), eq(p1))).thenReturn(true);
+		when(readProjectPermission.isAllowed(any(), eq(p2))).thenReturn(false);
+
+		Authentication auth = new UsernamePasswordAuthenticationToken("fbristow", "password1");
+
+		assertFalse("permission was granted.", readSamplePermission.isAllowed(auth, samples));
+	}
 }
@@ -1,6 +1,9 @@
 package ca.corefacility.bioinformatics.irida.service;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 
 import ca.corefacility.bioinformatics.irida.exceptions.IridaOAuthException;
 import ca.corefacility.bioinformatics.irida.exceptions.LinkNotFoundException;
@@ -9,16 +12,22 @@ import ca.corefacility.bioinformatics.irida.model.assembly.UploadedAssembly;
 import ca.corefacility.bioinformatics.irida.service.impl.TestEmailController;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import ca.corefacility.bioinformatics.irida.exceptions.ProjectSynchronizationException;
 import ca.corefacility.bioinformatics.irida.model.RemoteAPI;
+import ca.corefacility.bioinformatics.irida.model.joins.Join;
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.project.ProjectSyncFrequency;
 import ca.corefacility.bioinformatics.irida.model.remote.RemoteStatus;
 import ca.corefacility.bioinformatics.irida.model.remote.RemoteStatus.SyncStatus;
+import ca.corefacility.bioinformatics.irida.model.remote.resource.ResourceList;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFilePair;
 import ca.corefacility.bioinformatics.irida.model.user.User;
 import ca.corefacility.bioinformatics.irida.service.remote.*;
@@ -26,10 +35,13 @@ import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateServi
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
@@ -73,7 +85,8 @@ public class ProjectSynchronizationServiceTest {
 
 		syncService = new ProjectSynchronizationService(projectService, sampleService, objectService,
 				metadataTemplateService, assemblyService, projectRemoteService, sampleRemoteService, singleEndRemoteService,
-				pairRemoteService, assemblyRemoteService, tokenService, emailController);
+				pairRemoteService, assemblyRemoteService, tokenService, emailController, MoreExecutors.directExecutor(),
+				MoreExecutors.directExecutor(), 2);
 
 		api = new RemoteAPI();
 		expired = new Project();
@@ -136,6 +149,163 @@ public class ProjectSynchronizationServiceTest {
 		assertEquals(SyncStatus.SYNCHRONIZED, remoteProject.getRemoteStatus().getSyncStatus());
 	}
 
+	@Test
+	public void testSyncProjectsAlreadyInProgress() {
+		List<Runnable> projectTasks = new ArrayList<>();
+		syncService = new ProjectSynchronizationService(projectService, sampleService, objectService,
+				metadataTemplateService, assemblyService, projectRemoteService, sampleRemoteService, singleEndRemoteService,
+				pairRemoteService, assemblyRemoteService, tokenService, emailController, projectTasks::add,
+				MoreExecutors.directExecutor(), 2);
+
+		expired.getRemoteStatus().setSyncStatus(SyncStatus.MARKED);
+		expired.getRemoteStatus().setReadBy(new User());
+		when(projectService.getProjectsWithRemoteSyncStatus(RemoteStatus.SyncStatus.MARKED))
+				.thenReturn(Lists.newArrayList(expired));
+
+		syncService.findMarkedProjectsToSync();
+		syncService.findMarkedProjectsToSync();
+
+		assertEquals("project should only be started once while it's running", 1, projectTasks.size());
+
+		projectTasks.get(0).run();
+		syncService.findMarkedProjectsToSync();
+
+		assertEquals("project should be started again once it's finished", 2, projectTasks.size());
+	}
+
+	@Test
+	public void testSyncProjectsSampleError() {
+		expired.getRemoteStatus().setSyncStatus(SyncStatus.MARKED);
+		when(projectService.read(expired.getId())).thenReturn(expired);
+		Project remoteProject = new Project();
+		remoteProject.setRemoteStatus(expired.getRemoteStatus());
+		expired.getRemoteStatus().setReadBy(new User());
+		when(projectService.getProjectsWithRemoteSyncStatus(RemoteStatus.SyncStatus.MARKED))
+				.thenReturn(Lists.newArrayList(expired));
+		when(projectRemoteService.read(expired.getRemoteStatus().getURL())).thenReturn(remoteProject);
+		when(projectService.update(remoteProject)).thenReturn(remoteProject);
+
+		Sample sample = new Sample();
+		sample.setRemoteStatus(new RemoteStatus("http://sample", api));
+		when(sampleRemoteService.getSamplesForProject(remoteProject)).thenReturn(Lists.newArrayList(sample));
+		when(sampleRemoteService.getSampleMetadata(sample)).thenThrow(new IllegalStateException("bad sample"));
+
+		syncService.findMarkedProjectsToSync();
+
+		assertEquals(SyncStatus.ERROR, expired.getRemoteStatus().getSyncStatus());
+	}
+
+	@Test
+	public void testSyncProjectChangedSamples() {
+		Date lastSynchronized = new Date(1000L);
+		expired.getRemoteStatus().setSyncStatus(SyncStatus.MARKED);
+		expired.getRemoteStatus().setLastSynchronized(lastSynchronized);
+		expired.getRemoteStatus().setReadBy(new User());
+		when(projectService.read(expired.getId())).thenReturn(expired);
+		Project remoteProject = new Project();
+		remoteProject.setRemoteStatus(expired.getRemoteStatus());
+		when(projectService.getProjectsWithRemoteSyncStatus(RemoteStatus.SyncStatus.MARKED))
+				.thenReturn(Lists.newArrayList(expired));
+		when(projectRemoteService.read(expired.getRemoteStatus().getURL())).thenReturn(remoteProject);
+		when(projectService.update(remoteProject)).thenReturn(remoteProject);
+
+		Sample localSample = new Sample();
+		localSample.setRemoteStatus(new RemoteStatus("http://sample", api));
+		when(sampleService.getSamplesForProject(remoteProject))
+				.thenReturn(Lists.<Join<Project, Sample>>newArrayList(new ProjectSampleJoin(remoteProject, localSample, true)));
+
+		ResourceList<Sample> changes = new ResourceList<>();
+		changes.setResources(Lists.newArrayList());
+		changes.setTotalResources(1L);
+		when(sampleRemoteService.getSamplesForProjectChangedSince(any(Project.class), any(Date.class)))
+				.thenReturn(changes);
+
+		syncService.findMarkedProjectsToSync();
+
+		ArgumentCaptor<Date> changedSince = ArgumentCaptor.forClass(Date.class);
+		verify(sampleRemoteService).getSamplesForProjectChangedSince(eq(remoteProject), changedSince.capture());
+		assertTrue("changes should be read from before the last sync", changedSince.getValue()
+				.before(lastSynchronized));
+		verify(sampleRemoteService, never()).getSamplesForProject(any(Project.class));
+		verify(projectService, never()).removeSampleFromProject(any(Project.class), any(Sample.class));
+
+		assertEquals(SyncStatus.SYNCHRONIZED, remoteProject.getRemoteStatus().getSyncStatus());
+		assertTrue("sync time should be recorded", remoteProject.getRemoteStatus()
+				.getLastSynchronized()
+				.after(lastSynchronized));
+	}
+
+	@Test
+	public void testSyncProjectRemovedSamplesListsAll() {
+		expired.getRemoteStatus().setSyncStatus(SyncStatus.MARKED);
+		expired.getRemoteStatus().setLastSynchronized(new Date(1000L));
+		expired.getRemoteStatus().setReadBy(new User());
+		when(projectService.read(expired.getId())).thenReturn(expired);
+		Project remoteProject = new Project();
+		remoteProject.setRemoteStatus(expired.getRemoteStatus());
+		when(projectService.getProjectsWithRemoteSyncStatus(RemoteStatus.SyncStatus.MARKED))
+				.thenReturn(Lists.newArrayList(expired));
+		when(projectRemoteService.read(expired.getRemoteStatus().getURL())).thenReturn(remoteProject);
+		when(projectService.update(remoteProject)).thenReturn(remoteProject);
+
+		Sample localSample = new Sample();
+		localSample.setRemoteStatus(new RemoteStatus("http://sample", api));
+		when(sampleService.getSamplesForProject(remoteProject))
+				.thenReturn(Lists.<Join<Project, Sample>>newArrayList(new ProjectSampleJoin(remoteProject, localSample, true)));
+
+		// the local sample was removed remotely, so the remote project is empty
+		ResourceList<Sample> changes = new ResourceList<>();
+		changes.setResources(Lists.newArrayList());
+		changes.setTotalResources(0L);
+		when(sampleRemoteService.getSamplesForProjectChangedSince(any(Project.class), any(Date.class)))
+				.thenReturn(changes);
+		when(sampleRemoteService.getSamplesForProject(remoteProject)).thenReturn(Lists.newArrayList());
+
+		syncService.findMarkedProjectsToSync();
+
+		verify(sampleRemoteService).getSamplesForProject(remoteProject);
+		verify(projectService).removeSampleFromProject(remoteProject, localSample);
+
+		assertEquals(SyncStatus.SYNCHRONIZED, remoteProject.getRemoteStatus().getSyncStatus());
+	}
+
+	@Test
+	public void testSyncProjectCreatesMetadataFieldsBeforeSamples() {
+		expired.getRemoteStatus().setSyncStatus(SyncStatus.MARKED);
+		expired.getRemoteStatus().setReadBy(new User());
+		when(projectService.read(expired.getId())).thenReturn(expired);
+		Project remoteProject = new Project();
+		remoteProject.setRemoteStatus(expired.getRemoteStatus());
+		when(projectService.getProjectsWithRemoteSyncStatus(RemoteStatus.SyncStatus.MARKED))
+				.thenReturn(Lists.newArrayList(expired));
+		when(projectRemoteService.read(expired.getRemoteStatus().getURL())).thenReturn(remoteProject);
+		when(projectService.update(remoteProject)).thenReturn(remoteProject);
+
+		Sample sample1 = new Sample();
+		sample1.setRemoteStatus(new RemoteStatus("http://sample1", api));
+		Sample sample2 = new Sample();
+		sample2.setRemoteStatus(new RemoteStatus("http://sample2", api));
+		when(sampleRemoteService.getSamplesForProject(remoteProject)).thenReturn(
+				Lists.newArrayList(sample1, sample2));
+		when(sampleService.create(any(Sample.class))).thenAnswer(i -> i.getArguments()[0]);
+
+		// both samples bring the same new label
+		Map<String, MetadataEntry> metadata1 = ImmutableMap.of("new", new MetadataEntry("1", "text"));
+		Map<String, MetadataEntry> metadata2 = ImmutableMap.of("new", new MetadataEntry("2", "text"), "other",
+				new MetadataEntry("3", "text"));
+		when(sampleRemoteService.getSampleMetadata(sample1)).thenReturn(metadata1);
+		when(sampleRemoteService.getSampleMetadata(sample2)).thenReturn(metadata2);
+
+		syncService.findMarkedProjectsToSync();
+
+		// the fields are created once for the whole project, before any sample's metadata is resolved
+		InOrder inOrder = inOrder(metadataTemplateService);
+		inOrder.verify(metadataTemplateService).getOrCreateMetadataFields(ImmutableSet.of("new", "other"));
+		inOrder.verify(metadataTemplateService, times(2)).getMetadataMap(any(Map.class));
+
+		assertEquals(SyncStatus.SYNCHRONIZED, remoteProject.getRemoteStatus().getSyncStatus());
+	}
+
 	@Test
 	public void testSyncProjectsUnauthorized() {
 		expired.getRemoteStatus()
@@ -53,6 +53,7 @@ import ca.corefacility.bioinformatics.irida.service.AnalysisSubmissionService;
 import ca.corefacility.bioinformatics.irida.service.analysis.execution.galaxy.AnalysisExecutionServiceGalaxy;
 import ca.corefacility.bioinformatics.irida.service.analysis.execution.galaxy.AnalysisExecutionServiceGalaxyAsync;
 import ca.corefacility.bioinformatics.irida.service.analysis.execution.galaxy.AnalysisExecutionServiceGalaxyCleanupAsync;
+import ca.corefacility.bioinformatics.irida.service.analysis.execution.galaxy.GalaxyWorkflowStatusCache;
 import ca.corefacility.bioinformatics.irida.service.analysis.workspace.galaxy.AnalysisWorkspaceServiceGalaxy;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 import ca.corefacility.bioinformatics.irida.service.workflow.IridaWorkflowsService;
@@ -75,6 +76,8 @@ public class AnalysisExecutionServiceGalaxyTest {
 	@Mock
 	private GalaxyLibrariesService galaxyLibrariesService;
 	@Mock
+	private GalaxyWorkflowStatusCache galaxyWorkflowStatusCache;
+	@Mock
 	private AnalysisWorkspaceServiceGalaxy analysisWorkspaceService;
 	@Mock
 	private Analysis analysisResults;
@@ -152,7 +155,7 @@ public class AnalysisExecutionServiceGalaxyTest {
 		AnalysisExecutionServiceGalaxyCleanupAsync analysisExecutionServiceGalaxyCleanupAsync = new AnalysisExecutionServiceGalaxyCleanupAsync(
 				analysisSubmissionService, galaxyWorkflowService, galaxyHistoriesService, galaxyLibrariesService);
 		workflowManagement = new AnalysisExecutionServiceGalaxy(analysisSubmissionService, galaxyHistoriesService,
-				workflowManagementAsync, analysisExecutionServiceGalaxyCleanupAsync);
+				workflowManagementAsync, analysisExecutionServiceGalaxyCleanupAsync, galaxyWorkflowStatusCache);
 
 		when(iridaWorkflowsService.getIridaWorkflow(WORKFLOW_ID)).thenReturn(iridaWorkflow);
 		when(iridaWorkflow.getWorkflowStructure()).thenReturn(iridaWorkflowStructure);
@@ -446,6 +449,7 @@ public class AnalysisExecutionServiceGalaxyTest {
 				workflowStatus);
 
 		assertEquals(workflowStatus, workflowManagement.getWorkflowStatus(analysisSubmission));
+		verify(galaxyWorkflowStatusCache).putStatus(ANALYSIS_ID, workflowStatus);
 	}
 
 	/**
@@ -0,0 +1,121 @@
+package ca.corefacility.bioinformatics.irida.service.analysis.execution.galaxy.impl.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.corefacility.bioinformatics.irida.exceptions.ExecutionManagerException;
+import ca.corefacility.bioinformatics.irida.exceptions.WorkflowException;
+import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowState;
+import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowStatus;
+import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyHistoriesService;
+import ca.corefacility.bioinformatics.irida.service.analysis.execution.galaxy.GalaxyWorkflowStatusCache;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Unit tests for {@link GalaxyWorkflowStatusCache}
+ */
+public class GalaxyWorkflowStatusCacheTest {
+	private static final String HISTORY_ID = "1";
+
+	private GalaxyHistoriesService galaxyHistoriesService;
+	private List<Runnable> queued;
+	private GalaxyWorkflowStatus workflowStatus;
+
+	@Before
+	public void setUp() {
+		galaxyHistoriesService = mock(GalaxyHistoriesService.class);
+		queued = new ArrayList<>();
+		workflowStatus = new GalaxyWorkflowStatus(GalaxyWorkflowState.RUNNING, Maps.newHashMap());
+	}
+
+	@Test
+	public void testGetStatusRecorded() {
+		GalaxyWorkflowStatusCache cache = new GalaxyWorkflowStatusCache(galaxyHistoriesService, queued::add, 60, 120);
+		cache.putStatus(HISTORY_ID, workflowStatus);
+
+		assertEquals(Optional.of(workflowStatus), cache.getStatus(HISTORY_ID));
+		assertTrue("a recent status should not be read again", queued.isEmpty());
+		verifyZeroInteractions(galaxyHistoriesService);
+	}
+
+	@Test
+	public void testGetStatusMissing() throws ExecutionManagerException {
+		GalaxyWorkflowStatusCache cache = new GalaxyWorkflowStatusCache(galaxyHistoriesService, queued::add, 60, 120);
+		when(galaxyHistoriesService.getStatusForHistory(HISTORY_ID)).thenReturn(workflowStatus);
+
+		assertFalse("a missing status should not wait for Galaxy", cache.getStatus(HISTORY_ID)
+				.isPresent());
+		cache.getStatus(HISTORY_ID);
+		assertEquals("the status should only be read once at a time", 1, queued.size());
+		verifyZeroInteractions(galaxyHistoriesService);
+
+		runQueued();
+
+		assertEquals(Optional.of(workflowStatus), cache.getStatus(HISTORY_ID));
+		verify(galaxyHistoriesService, times(1)).getStatusForHistory(HISTORY_ID);
+	}
+
+	@Test
+	public void testGetStatusOutOfDate() throws ExecutionManagerException {
+		GalaxyWorkflowStatusCache cache = new GalaxyWorkflowStatusCache(galaxyHistoriesService, queued::add, -1, -1);
+		GalaxyWorkflowStatus newStatus = new GalaxyWorkflowStatus(GalaxyWorkflowState.OK, Maps.newHashMap());
+		when(galaxyHistoriesService.getStatusForHistory(HISTORY_ID)).thenReturn(newStatus);
+		cache.putStatus(HISTORY_ID, workflowStatus);
+
+		assertEquals("the old status should be used until it's read again", Optional.of(workflowStatus),
+				cache.getStatus(HISTORY_ID));
+		runQueued();
+
+		assertEquals(Optional.of(newStatus), cache.getStatus(HISTORY_ID));
+	}
+
+	@Test
+	public void testMonitoredStatusNotReadBeforeMonitor() throws ExecutionManagerException {
+		GalaxyWorkflowStatusCache cache = new GalaxyWorkflowStatusCache(galaxyHistoriesService, queued::add, -1, 120);
+		cache.putStatus(HISTORY_ID, workflowStatus);
+
+		assertEquals(Optional.of(workflowStatus), cache.getStatus(HISTORY_ID));
+		assertTrue("a status from the monitor should not be read again before the monitor reads it",
+				queued.isEmpty());
+
+		// a status that wasn't read by the monitor is read again once it's out of date
+		when(galaxyHistoriesService.getStatusForHistory("2")).thenReturn(workflowStatus);
+		cache.getStatus("2");
+		runQueued();
+		cache.getStatus("2");
+		assertEquals("a status read in the background should be read again", 1, queued.size());
+	}
+
+	@Test
+	public void testGetStatusFailure() throws ExecutionManagerException {
+		GalaxyWorkflowStatusCache cache = new GalaxyWorkflowStatusCache(galaxyHistoriesService, queued::add, 60, 120);
+		when(galaxyHistoriesService.getStatusForHistory(HISTORY_ID)).thenThrow(new WorkflowException());
+
+		cache.getStatus(HISTORY_ID);
+		runQueued();
+
+		assertFalse("a failed read should not be cached", cache.getStatus(HISTORY_ID)
+				.isPresent());
+		assertEquals("the status should be read again after a failure", 1, queued.size());
+	}
+
+	private void runQueued() {
+		List<Runnable> tasks = new ArrayList<>(queued);
+		queued.clear();
+		tasks.forEach(Runnable::run);
+	}
+}
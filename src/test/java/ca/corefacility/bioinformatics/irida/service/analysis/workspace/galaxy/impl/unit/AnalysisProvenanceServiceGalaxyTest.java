@@ -6,6 +6,8 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.nio.file.Paths;
@@ -262,6 +264,47 @@ public class AnalysisProvenanceServiceGalaxyTest {
 				.getExecutionTimeParameters().get("akey"));
 	}
 
+	@Test
+	public void testBuildToolExecutionsSharedPredecessor() throws ExecutionManagerException {
+		final String historyId = analysisSubmission();
+		final HistoryContents output1 = new HistoryContents();
+		output1.setName("output1");
+		output1.setId("output1Id");
+		final HistoryContents output2 = new HistoryContents();
+		output2.setName("output2");
+		output2.setId("output2Id");
+		final HistoryContentsProvenance hcpWithPredecessor = new HistoryContentsProvenance();
+		hcpWithPredecessor.setParameters(ImmutableMap.of("akey", (Object) ImmutableMap.of("id", "previousKey")));
+		hcpWithPredecessor.setToolId("tool");
+		hcpWithPredecessor.setJobId("job");
+		final HistoryContentsProvenance hcpWithoutPredecessor = new HistoryContentsProvenance();
+		hcpWithoutPredecessor.setParameters(ImmutableMap.of("akey", (Object) "value"));
+		hcpWithoutPredecessor.setToolId("previousTool");
+		hcpWithoutPredecessor.setJobId("previousJob");
+		when(galaxyHistoriesService.showProvenance(eq(historyId), eq("output1Id"))).thenReturn(hcpWithPredecessor);
+		when(galaxyHistoriesService.showProvenance(eq(historyId), eq("output2Id"))).thenReturn(hcpWithPredecessor);
+		when(galaxyHistoriesService.showProvenance(eq(historyId), eq("previousKey"))).thenReturn(
+				hcpWithoutPredecessor);
+		when(jobsClient.showJob(any(String.class))).thenReturn(new JobDetails());
+		when(toolsClient.showTool(any(String.class))).thenReturn(new Tool());
+
+		final ToolExecution toolExecution1 = provenanceService.buildToolExecutionForOutputFile(historyId, "output1",
+				Lists.newArrayList(output1, output2));
+		final ToolExecution toolExecution2 = provenanceService.buildToolExecutionForOutputFile(historyId, "output2",
+				Lists.newArrayList(output1, output2));
+
+		final ToolExecution predecessor1 = toolExecution1.getPreviousSteps().iterator().next();
+		final ToolExecution predecessor2 = toolExecution2.getPreviousSteps().iterator().next();
+		assertTrue("predecessor step is input step.", predecessor2.isInputTool());
+		assertFalse("each output should get its own tool executions.", predecessor1 == predecessor2);
+
+		verify(galaxyHistoriesService, times(1)).showProvenance(historyId, "previousKey");
+		verify(toolsClient, times(1)).showTool("tool");
+		verify(toolsClient, times(1)).showTool("previousTool");
+		verify(jobsClient, times(1)).showJob("job");
+		verify(jobsClient, times(1)).showJob("previousJob");
+	}
+
 	private String analysisSubmission() {
 		return UUID.randomUUID().toString();
 	}
@@ -33,6 +33,7 @@ import com.github.jmchilton.blend4j.galaxy.beans.collection.response.CollectionR
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -40,6 +41,7 @@ import org.mockito.MockitoAnnotations;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
@@ -120,6 +122,7 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 	private Dataset output2Dataset;
 	private String output1Filename = "output1.txt";
 	private String output2Filename = "output2.txt";
+	private List<HistoryContents> historyContents;
 
 	private UUID workflowId = IridaWorkflowTestBuilder.DEFAULT_ID;
 	private UUID workflowIdMultiSamples = IridaWorkflowTestBuilder.MULTI_SAMPLES_ID;
@@ -147,11 +150,11 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 	 * Sets up variables for testing.
 	 *
 	 * @throws IOException
-	 * @throws GalaxyDatasetException
+	 * @throws ExecutionManagerException
 	 * @throws UploadException
 	 */
 	@Before
-	public void setup() throws IOException, UploadException, GalaxyDatasetException {
+	public void setup() throws IOException, UploadException, ExecutionManagerException {
 		MockitoAnnotations.initMocks(this);
 
 		sFileA = new SequenceFile(createTempFile("fileA", "fastq"));
@@ -199,7 +202,10 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		workflowPreparation = new AnalysisWorkspaceServiceGalaxy(galaxyHistoriesService, galaxyWorkflowService,
 				galaxyLibrariesService, iridaWorkflowsService, analysisCollectionServiceGalaxy,
 				analysisProvenanceServiceGalaxy, analysisParameterServiceGalaxy,
-				sequencingObjectService);
+				sequencingObjectService, MoreExecutors.directExecutor());
+
+		historyContents = new ArrayList<>();
+		when(galaxyHistoriesService.showHistoryContents(HISTORY_ID)).thenReturn(historyContents);
 
 		output1Dataset = new Dataset();
 		output1Dataset.setId("1");
@@ -728,8 +734,8 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 				.thenReturn(Sets.newHashSet(singleFiles));
 
 		when(iridaWorkflowsService.getIridaWorkflow(workflowId)).thenReturn(iridaWorkflowSingle);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID)).thenReturn(output1Dataset);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output2Filename, HISTORY_ID)).thenReturn(output2Dataset);
+		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID, historyContents)).thenReturn(output1Dataset);
+		when(galaxyHistoriesService.getDatasetForFileInHistory(output2Filename, HISTORY_ID, historyContents)).thenReturn(output2Dataset);
 
 		when(sequencingObjectService.getUniqueSamplesForSequencingObjects(singleFiles))
 				.thenReturn(sampleSingleSequenceFileMap);
@@ -745,8 +751,9 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		assertEquals("missing output file for analysis", "SampleA-output2.txt",
 				analysis.getAnalysisOutputFile("output2").getLabel());
 
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output1.txt", HISTORY_ID);
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output2.txt", HISTORY_ID);
+		verify(galaxyHistoriesService).getDatasetForFileInHistory("output1.txt", HISTORY_ID, historyContents);
+		verify(galaxyHistoriesService).getDatasetForFileInHistory("output2.txt", HISTORY_ID, historyContents);
+		verify(galaxyHistoriesService, times(1)).showHistoryContents(HISTORY_ID);
 	}
 
 	/**
@@ -769,8 +776,8 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		submission.setRemoteAnalysisId(HISTORY_ID);
 
 		when(iridaWorkflowsService.getIridaWorkflow(workflowId)).thenReturn(iridaWorkflowSingle);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID)).thenReturn(output1Dataset);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output2Filename, HISTORY_ID)).thenReturn(output2Dataset);
+		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID, historyContents)).thenReturn(output1Dataset);
+		when(galaxyHistoriesService.getDatasetForFileInHistory(output2Filename, HISTORY_ID, historyContents)).thenReturn(output2Dataset);
 
 		when(sequencingObjectService.getSequencingObjectsForAnalysisSubmission(submission))
 				.thenReturn(Sets.newHashSet(pairedFiles));
@@ -789,8 +796,9 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		assertEquals("missing output file for analysis", "SampleB-output2.txt",
 				analysis.getAnalysisOutputFile("output2").getLabel());
 
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output1.txt", HISTORY_ID);
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output2.txt", HISTORY_ID);
+		verify(galaxyHistoriesService).getDatasetForFileInHistory("output1.txt", HISTORY_ID, historyContents);
+		verify(galaxyHistoriesService).getDatasetForFileInHistory("output2.txt", HISTORY_ID, historyContents);
+		verify(galaxyHistoriesService, times(1)).showHistoryContents(HISTORY_ID);
 	}
 
 	/**
@@ -826,8 +834,8 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 
 		when(iridaWorkflowsService.getIridaWorkflow(workflowIdMultiSamples))
 				.thenReturn(iridaWorkflowSinglePairedMultipleSamples);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID)).thenReturn(output1Dataset);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output2Filename, HISTORY_ID)).thenReturn(output2Dataset);
+		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID, historyContents)).thenReturn(output1Dataset);
+		when(galaxyHistoriesService.getDatasetForFileInHistory(output2Filename, HISTORY_ID, historyContents)).thenReturn(output2Dataset);
 
 		when(sequencingObjectService.getUniqueSamplesForSequencingObjects(joinedFiles))
 				.thenReturn(joinedMap);
@@ -845,8 +853,9 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		assertEquals("missing output file for analysis", "output2.txt",
 				analysis.getAnalysisOutputFile("output2").getLabel());
 
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output1.txt", HISTORY_ID);
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output2.txt", HISTORY_ID);
+		verify(galaxyHistoriesService).getDatasetForFileInHistory("output1.txt", HISTORY_ID, historyContents);
+		verify(galaxyHistoriesService).getDatasetForFileInHistory("output2.txt", HISTORY_ID, historyContents);
+		verify(galaxyHistoriesService, times(1)).showHistoryContents(HISTORY_ID);
 	}
 
 	/**
@@ -877,8 +886,8 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 				SequenceFilePair.class)).thenReturn(pairedFiles);
 
 		when(iridaWorkflowsService.getIridaWorkflow(workflowId)).thenReturn(iridaWorkflowSingle);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID)).thenReturn(output1Dataset);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output2Filename, HISTORY_ID)).thenReturn(output2Dataset);
+		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID, historyContents)).thenReturn(output1Dataset);
+		when(galaxyHistoriesService.getDatasetForFileInHistory(output2Filename, HISTORY_ID, historyContents)).thenReturn(output2Dataset);
 
 		when(sequencingObjectService.getUniqueSamplesForSequencingObjects(singleFiles))
 				.thenReturn(sampleSingleSequenceFileMap);
@@ -898,8 +907,9 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		assertEquals("missing output file for analysis", "output2.txt",
 				analysis.getAnalysisOutputFile("output2").getLabel());
 
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output1.txt", HISTORY_ID);
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output2.txt", HISTORY_ID);
+		verify(galaxyHistoriesService).getDatasetForFileInHistory("output1.txt", HISTORY_ID, historyContents);
+		verify(galaxyHistoriesService).getDatasetForFileInHistory("output2.txt", HISTORY_ID, historyContents);
+		verify(galaxyHistoriesService, times(1)).showHistoryContents(HISTORY_ID);
 	}
 
 	/**
@@ -922,8 +932,8 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		submission.setRemoteAnalysisId(HISTORY_ID);
 
 		when(iridaWorkflowsService.getIridaWorkflow(workflowId)).thenReturn(iridaWorkflowSingle);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID)).thenReturn(output1Dataset);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output2Filename, HISTORY_ID)).thenReturn(output2Dataset);
+		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID, historyContents)).thenReturn(output1Dataset);
+		when(galaxyHistoriesService.getDatasetForFileInHistory(output2Filename, HISTORY_ID, historyContents)).thenReturn(output2Dataset);
 
 		Analysis analysis = workflowPreparation.getAnalysisResults(submission);
 
@@ -938,8 +948,9 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		assertEquals("missing output file for analysis", "output2.txt",
 				analysis.getAnalysisOutputFile("output2").getLabel());
 
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output1.txt", HISTORY_ID);
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output2.txt", HISTORY_ID);
+		verify(galaxyHistoriesService).getDatasetForFileInHistory("output1.txt", HISTORY_ID, historyContents);
+		verify(galaxyHistoriesService).getDatasetForFileInHistory("output2.txt", HISTORY_ID, historyContents);
+		verify(galaxyHistoriesService, times(1)).showHistoryContents(HISTORY_ID);
 	}
 
 	/**
@@ -960,9 +971,51 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		submission.setRemoteAnalysisId(HISTORY_ID);
 
 		when(iridaWorkflowsService.getIridaWorkflow(workflowId)).thenReturn(iridaWorkflowSingle);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID))
+		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID, historyContents))
 				.thenThrow(new GalaxyDatasetException());
 
 		workflowPreparation.getAnalysisResults(submission);
 	}
+
+	/**
+	 * Tests that the remaining output files aren't downloaded once one fails, and that the files already downloaded
+	 * are deleted.
+	 *
+	 * @throws IridaWorkflowNotFoundException
+	 * @throws IOException
+	 * @throws ExecutionManagerException
+	 * @throws IridaWorkflowAnalysisTypeException
+	 */
+	@Test
+	public void testGetAnalysisResultsFailStopsDownloads() throws IridaWorkflowNotFoundException,
+			IridaWorkflowAnalysisTypeException, ExecutionManagerException, IOException {
+		submission = AnalysisSubmission.builder(workflowId).name("my analysis").inputFiles(singleInputFiles)
+				.referenceFile(referenceFile).build();
+		submission.setRemoteWorkflowId(WORKFLOW_ID);
+		submission.setRemoteAnalysisId(HISTORY_ID);
+
+		when(iridaWorkflowsService.getIridaWorkflow(workflowId)).thenReturn(iridaWorkflowSingle);
+		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID, historyContents))
+				.thenReturn(output1Dataset);
+		when(galaxyHistoriesService.getDatasetForFileInHistory(output2Filename, HISTORY_ID, historyContents))
+				.thenReturn(output2Dataset);
+		List<Path> downloaded = new ArrayList<>();
+		doAnswer(invocation -> {
+			Path destination = (Path) invocation.getArguments()[2];
+			Files.write(destination, "output".getBytes());
+			downloaded.add(destination);
+			return null;
+		}).when(galaxyHistoriesService).downloadDatasetTo(eq(HISTORY_ID), any(String.class), any(Path.class));
+		when(analysisProvenanceServiceGalaxy.buildToolExecutionForOutputFile(eq(HISTORY_ID), any(String.class),
+				eq(historyContents))).thenThrow(new ExecutionManagerException());
+
+		try {
+			workflowPreparation.getAnalysisResults(submission);
+			fail("getting the results should fail");
+		} catch (ExecutionManagerException e) {
+			assertEquals("only the first output file should be downloaded", 1, downloaded.size());
+			assertFalse("downloaded output files should be deleted", Files.exists(downloaded.get(0)
+					.getParent()));
+		}
+	}
 }
@@ -92,13 +92,15 @@ public class AnalysisSubmissionCleanupServiceImplIT {
 	public void testSwitchInconsistentSubmissionsToErrorAutwiredSuccess() {
 		int analysisSubmissionsChanged = analysisSubmissionCleanupService.switchInconsistentSubmissionsToError();
 
-		assertEquals("Switched invalid number of submissions", 3, analysisSubmissionsChanged);
+		assertEquals("Switched invalid number of submissions", 4, analysisSubmissionsChanged);
 		assertEquals("Did not switch SUBMITTING to ERROR", AnalysisState.ERROR, analysisSubmissionRepository.findById(1L).orElse(null)
 				.getAnalysisState());
 		assertEquals("Did not switch PREPARING to ERROR", AnalysisState.ERROR, analysisSubmissionRepository.findById(2L).orElse(null)
 				.getAnalysisState());
 		assertEquals("Did not switch COMPLETING to ERROR", AnalysisState.ERROR, analysisSubmissionRepository.findById(3L).orElse(null)
 				.getAnalysisState());
+		assertEquals("Did not switch POST_PROCESSING to ERROR", AnalysisState.ERROR, analysisSubmissionRepository.findById(10L).orElse(null)
+				.getAnalysisState());
 
 		// make sure no other submissions have changed
 		assertEquals("Analysis submission state has changed", AnalysisState.NEW,
@@ -128,13 +130,15 @@ public class AnalysisSubmissionCleanupServiceImplIT {
 	public void testSwitchInconsistentSubmissionsToErrorLocalSuccess() {
 		int analysisSubmissionsChanged = analysisSubmissionCleanupServiceLocal.switchInconsistentSubmissionsToError();
 
-		assertEquals("Switched invalid number of submissions", 3, analysisSubmissionsChanged);
+		assertEquals("Switched invalid number of submissions", 4, analysisSubmissionsChanged);
 		assertEquals("Did not switch SUBMITTING to ERROR", AnalysisState.ERROR, analysisSubmissionRepository.findById(1L).orElse(null)
 				.getAnalysisState());
 		assertEquals("Did not switch PREPARING to ERROR", AnalysisState.ERROR, analysisSubmissionRepository.findById(2L).orElse(null)
 				.getAnalysisState());
 		assertEquals("Did not switch COMPLETING to ERROR", AnalysisState.ERROR, analysisSubmissionRepository.findById(3L).orElse(null)
 				.getAnalysisState());
+		assertEquals("Did not switch POST_PROCESSING to ERROR", AnalysisState.ERROR, analysisSubmissionRepository.findById(10L).orElse(null)
+				.getAnalysisState());
 
 		// make sure no other submissions have changed
 		assertEquals("Analysis submission state has changed", AnalysisState.NEW,
@@ -7,7 +7,9 @@ import java.io.IOException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Future;
@@ -34,6 +36,7 @@ import ca.corefacility.bioinformatics.irida.model.workflow.analysis.Analysis;
 import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowState;
 import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowStatus;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmissionExecutionState;
 import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyJobErrorsService;
 import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.integration.Util;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.AnalysisSubmissionRepository;
@@ -91,6 +94,7 @@ public class AnalysisExecutionScheduledTaskImplTest {
 	private static final String ANALYSIS_ID = "1";
 	private static final Long INTERNAL_ID = 1L;
 	private AnalysisSubmission analysisSubmission;
+	private AnalysisSubmissionExecutionState executionState;
 
 	private AnalysisExecutionScheduledTask analysisExecutionScheduledTask;
 
@@ -116,6 +120,9 @@ public class AnalysisExecutionScheduledTaskImplTest {
 		analysisSubmission.setId(INTERNAL_ID);
 		analysisSubmission.setRemoteAnalysisId(ANALYSIS_ID);
 		when(galaxyJobErrorsService.createNewJobErrors(analysisSubmission)).thenReturn(new ArrayList<>());
+
+		executionState = new AnalysisSubmissionExecutionState(INTERNAL_ID, ANALYSIS_ID, AnalysisState.RUNNING);
+		when(analysisSubmissionRepository.findById(INTERNAL_ID)).thenReturn(Optional.of(analysisSubmission));
 	}
 
 	/**
@@ -203,12 +210,58 @@ public class AnalysisExecutionScheduledTaskImplTest {
 
 		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.PREPARED)).thenReturn(
 				Arrays.asList(analysisSubmission));
+		when(analysisExecutionService.getCapacity(AnalysisState.PREPARED)).thenReturn(1);
 
 		analysisExecutionScheduledTask.executeAnalyses();
 
 		verify(analysisExecutionService).executeAnalysis(analysisSubmission);
 	}
 
+	/**
+	 * Tests executing the highest priority prepared analyses when there are
+	 * more than can run in Galaxy.
+	 *
+	 * @throws ExecutionManagerException
+	 * @throws IridaWorkflowException
+	 * @throws IOException
+	 */
+	@Test
+	public void testExecuteAnalysesPriorities() throws ExecutionManagerException, IridaWorkflowException, IOException {
+		AnalysisSubmission low = buildSubmission(AnalysisSubmission.Priority.LOW, AnalysisState.PREPARED);
+		AnalysisSubmission medium = buildSubmission(AnalysisSubmission.Priority.MEDIUM, AnalysisState.PREPARED);
+		AnalysisSubmission high = buildSubmission(AnalysisSubmission.Priority.HIGH, AnalysisState.PREPARED);
+
+		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.PREPARED)).thenReturn(
+				Arrays.asList(low, medium, high));
+		when(analysisExecutionService.getCapacity(AnalysisState.PREPARED)).thenReturn(2);
+
+		analysisExecutionScheduledTask.executeAnalyses();
+
+		verify(analysisExecutionService).executeAnalysis(high);
+		verify(analysisExecutionService).executeAnalysis(medium);
+		verify(analysisExecutionService, never()).executeAnalysis(low);
+	}
+
+	/**
+	 * Tests not executing prepared analyses when Galaxy is at capacity.
+	 *
+	 * @throws ExecutionManagerException
+	 * @throws IridaWorkflowException
+	 * @throws IOException
+	 */
+	@Test
+	public void testExecuteAnalysesNoCapacity() throws ExecutionManagerException, IridaWorkflowException, IOException {
+		analysisSubmission.setAnalysisState(AnalysisState.PREPARED);
+
+		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.PREPARED)).thenReturn(
+				Arrays.asList(analysisSubmission));
+		when(analysisExecutionService.getCapacity(AnalysisState.PREPARED)).thenReturn(0);
+
+		analysisExecutionScheduledTask.executeAnalyses();
+
+		verify(analysisExecutionService, never()).executeAnalysis(analysisSubmission);
+	}
+
 	/**
 	 * Tests no analyses to submit.
 	 *
@@ -244,9 +297,9 @@ public class AnalysisExecutionScheduledTaskImplTest {
 				Sets.newHashSet("1"));
 		GalaxyWorkflowStatus galaxyWorkflowStatus = new GalaxyWorkflowStatus(GalaxyWorkflowState.OK, stateIds);
 
-		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
-				Arrays.asList(analysisSubmission));
-		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(galaxyWorkflowStatus);
+		when(analysisSubmissionRepository.findExecutionStatesByAnalysisState(AnalysisState.RUNNING)).thenReturn(
+				Arrays.asList(executionState));
+		when(analysisExecutionService.getWorkflowStatus(ANALYSIS_ID)).thenReturn(galaxyWorkflowStatus);
 
 		when(analysisWorkspaceService.outputFilesExist(analysisSubmission)).thenReturn(true);
 
@@ -274,9 +327,9 @@ public class AnalysisExecutionScheduledTaskImplTest {
 				Sets.newHashSet("1"));
 		GalaxyWorkflowStatus galaxyWorkflowStatus = new GalaxyWorkflowStatus(GalaxyWorkflowState.OK, stateIds);
 
-		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
-				Arrays.asList(analysisSubmission));
-		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(galaxyWorkflowStatus);
+		when(analysisSubmissionRepository.findExecutionStatesByAnalysisState(AnalysisState.RUNNING)).thenReturn(
+				Arrays.asList(executionState));
+		when(analysisExecutionService.getWorkflowStatus(ANALYSIS_ID)).thenReturn(galaxyWorkflowStatus);
 
 		when(analysisWorkspaceService.outputFilesExist(analysisSubmission)).thenReturn(true);
 
@@ -301,15 +354,16 @@ public class AnalysisExecutionScheduledTaskImplTest {
 		Map<GalaxyWorkflowState, Set<String>> stateIds = Util.buildStateIdsWithStateFilled(GalaxyWorkflowState.RUNNING,
 				Sets.newHashSet("1"));
 
-		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
-				Arrays.asList(analysisSubmission));
-		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(
+		when(analysisSubmissionRepository.findExecutionStatesByAnalysisState(AnalysisState.RUNNING)).thenReturn(
+				Arrays.asList(executionState));
+		when(analysisExecutionService.getWorkflowStatus(ANALYSIS_ID)).thenReturn(
 				new GalaxyWorkflowStatus(GalaxyWorkflowState.RUNNING, stateIds));
 
 		analysisExecutionScheduledTask.monitorRunningAnalyses();
 
 		assertEquals(AnalysisState.RUNNING, analysisSubmission.getAnalysisState());
 		verify(analysisSubmissionRepository, never()).save(analysisSubmission);
+		verify(analysisSubmissionRepository, never()).findById(INTERNAL_ID);
 	}
 
 	/**
@@ -328,9 +382,9 @@ public class AnalysisExecutionScheduledTaskImplTest {
 				Sets.newHashSet("1"));
 		GalaxyWorkflowStatus galaxyWorkflowStatus = new GalaxyWorkflowStatus(GalaxyWorkflowState.OK, stateIds);
 
-		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
-				Arrays.asList(analysisSubmission));
-		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(galaxyWorkflowStatus);
+		when(analysisSubmissionRepository.findExecutionStatesByAnalysisState(AnalysisState.RUNNING)).thenReturn(
+				Arrays.asList(executionState));
+		when(analysisExecutionService.getWorkflowStatus(ANALYSIS_ID)).thenReturn(galaxyWorkflowStatus);
 
 		when(analysisWorkspaceService.outputFilesExist(analysisSubmission)).thenReturn(false);
 
@@ -353,9 +407,9 @@ public class AnalysisExecutionScheduledTaskImplTest {
 		Map<GalaxyWorkflowState, Set<String>> stateIds = Util.buildStateIdsWithStateFilled(GalaxyWorkflowState.QUEUED,
 				Sets.newHashSet("1"));
 
-		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
-				Arrays.asList(analysisSubmission));
-		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(
+		when(analysisSubmissionRepository.findExecutionStatesByAnalysisState(AnalysisState.RUNNING)).thenReturn(
+				Arrays.asList(executionState));
+		when(analysisExecutionService.getWorkflowStatus(ANALYSIS_ID)).thenReturn(
 				new GalaxyWorkflowStatus(GalaxyWorkflowState.QUEUED, stateIds));
 
 		analysisExecutionScheduledTask.monitorRunningAnalyses();
@@ -381,9 +435,9 @@ public class AnalysisExecutionScheduledTaskImplTest {
 				Sets.newHashSet("1"));
 		GalaxyWorkflowStatus galaxyWorkflowStatus = new GalaxyWorkflowStatus(GalaxyWorkflowState.ERROR, stateIds);
 
-		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
-				Arrays.asList(analysisSubmission));
-		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(galaxyWorkflowStatus);
+		when(analysisSubmissionRepository.findExecutionStatesByAnalysisState(AnalysisState.RUNNING)).thenReturn(
+				Arrays.asList(executionState));
+		when(analysisExecutionService.getWorkflowStatus(ANALYSIS_ID)).thenReturn(galaxyWorkflowStatus);
 
 		analysisExecutionScheduledTask.monitorRunningAnalyses();
 
@@ -409,9 +463,9 @@ public class AnalysisExecutionScheduledTaskImplTest {
 				Sets.newHashSet("1"));
 		GalaxyWorkflowStatus galaxyWorkflowStatus = new GalaxyWorkflowStatus(GalaxyWorkflowState.ERROR, stateIds);
 
-		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
-				Arrays.asList(analysisSubmission));
-		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(galaxyWorkflowStatus);
+		when(analysisSubmissionRepository.findExecutionStatesByAnalysisState(AnalysisState.RUNNING)).thenReturn(
+				Arrays.asList(executionState));
+		when(analysisExecutionService.getWorkflowStatus(ANALYSIS_ID)).thenReturn(galaxyWorkflowStatus);
 
 		analysisExecutionScheduledTask.monitorRunningAnalyses();
 
@@ -433,9 +487,9 @@ public class AnalysisExecutionScheduledTaskImplTest {
 			throws ExecutionManagerException, IridaWorkflowNotFoundException {
 		analysisSubmission.setAnalysisState(AnalysisState.RUNNING);
 
-		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
-				Arrays.asList(analysisSubmission));
-		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenThrow(new IllegalArgumentException());
+		when(analysisSubmissionRepository.findExecutionStatesByAnalysisState(AnalysisState.RUNNING)).thenReturn(
+				Arrays.asList(executionState));
+		when(analysisExecutionService.getWorkflowStatus(ANALYSIS_ID)).thenThrow(new IllegalArgumentException());
 
 		analysisExecutionScheduledTask.monitorRunningAnalyses();
 
@@ -458,9 +512,9 @@ public class AnalysisExecutionScheduledTaskImplTest {
 		analysisSubmission.setAnalysisState(AnalysisState.RUNNING);
 		analysisSubmission.setEmailPipelineResult(true);
 
-		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
-				Arrays.asList(analysisSubmission));
-		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenThrow(new IllegalArgumentException());
+		when(analysisSubmissionRepository.findExecutionStatesByAnalysisState(AnalysisState.RUNNING)).thenReturn(
+				Arrays.asList(executionState));
+		when(analysisExecutionService.getWorkflowStatus(ANALYSIS_ID)).thenThrow(new IllegalArgumentException());
 
 		analysisExecutionScheduledTask.monitorRunningAnalyses();
 
@@ -485,9 +539,9 @@ public class AnalysisExecutionScheduledTaskImplTest {
 				Sets.newHashSet("1"));
 		GalaxyWorkflowStatus galaxyWorkflowStatus = new GalaxyWorkflowStatus(GalaxyWorkflowState.RUNNING, stateIds);
 
-		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
-				Arrays.asList(analysisSubmission));
-		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(galaxyWorkflowStatus);
+		when(analysisSubmissionRepository.findExecutionStatesByAnalysisState(AnalysisState.RUNNING)).thenReturn(
+				Arrays.asList(executionState));
+		when(analysisExecutionService.getWorkflowStatus(ANALYSIS_ID)).thenReturn(galaxyWorkflowStatus);
 
 		analysisExecutionScheduledTask.monitorRunningAnalyses();
 
@@ -495,6 +549,50 @@ public class AnalysisExecutionScheduledTaskImplTest {
 		verify(analysisSubmissionRepository).save(analysisSubmission);
 	}
 
+	/**
+	 * Tests reading the status of an analysis whose progress hasn't changed
+	 * less often, and reading every status on the status monitor executor.
+	 *
+	 * @throws ExecutionManagerException
+	 */
+	@Test
+	public void testMonitorRunningAnalysesBackoff() throws ExecutionManagerException {
+		List<Runnable> executed = new ArrayList<>();
+		analysisExecutionScheduledTask = new AnalysisExecutionScheduledTaskImpl(analysisSubmissionRepository,
+				analysisExecutionService, CleanupAnalysisSubmissionCondition.ALWAYS_CLEANUP, galaxyJobErrorsService,
+				jobErrorRepository, emailController, analysisWorkspaceService, r -> {
+					executed.add(r);
+					r.run();
+				}, Duration.ofMinutes(10)
+						.toMillis());
+
+		String otherAnalysisId = "2";
+		Map<GalaxyWorkflowState, Set<String>> stateIds = Util.buildStateIdsWithStateFilled(GalaxyWorkflowState.RUNNING,
+				Sets.newHashSet("1"));
+		Map<GalaxyWorkflowState, Set<String>> progressedStateIds = Util.buildStateIdsWithStateFilled(
+				GalaxyWorkflowState.RUNNING, Sets.newHashSet("1"));
+		progressedStateIds.put(GalaxyWorkflowState.OK, Sets.newHashSet("2"));
+
+		when(analysisSubmissionRepository.findExecutionStatesByAnalysisState(AnalysisState.RUNNING)).thenReturn(
+				Arrays.asList(executionState,
+						new AnalysisSubmissionExecutionState(2L, otherAnalysisId, AnalysisState.RUNNING)));
+		when(analysisExecutionService.getWorkflowStatus(ANALYSIS_ID)).thenReturn(
+				new GalaxyWorkflowStatus(GalaxyWorkflowState.RUNNING, stateIds));
+		when(analysisExecutionService.getWorkflowStatus(otherAnalysisId)).thenReturn(
+				new GalaxyWorkflowStatus(GalaxyWorkflowState.RUNNING, stateIds),
+				new GalaxyWorkflowStatus(GalaxyWorkflowState.RUNNING, progressedStateIds),
+				new GalaxyWorkflowStatus(GalaxyWorkflowState.RUNNING, stateIds));
+
+		analysisExecutionScheduledTask.monitorRunningAnalyses();
+		analysisExecutionScheduledTask.monitorRunningAnalyses();
+		analysisExecutionScheduledTask.monitorRunningAnalyses();
+
+		verify(analysisExecutionService, times(2)).getWorkflowStatus(ANALYSIS_ID);
+		verify(analysisExecutionService, times(3)).getWorkflowStatus(otherAnalysisId);
+		assertEquals("every status should be read on the executor", 5, executed.size());
+		verify(analysisSubmissionRepository, never()).findById(any(Long.class));
+	}
+
 	/**
 	 * Tests successfully transferring results for a submitted analysis.
 	 *
@@ -511,12 +609,49 @@ public class AnalysisExecutionScheduledTaskImplTest {
 
 		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.FINISHED_RUNNING)).thenReturn(
 				Arrays.asList(analysisSubmission));
+		when(analysisExecutionService.getCapacity(AnalysisState.FINISHED_RUNNING)).thenReturn(1);
 
 		analysisExecutionScheduledTask.transferAnalysesResults();
 
 		verify(analysisExecutionService).transferAnalysisResults(analysisSubmission);
 	}
 
+	/**
+	 * Tests transferring and post-processing the results of a high priority
+	 * analysis before lower priority analyses that finished first.
+	 *
+	 * @throws ExecutionManagerException
+	 * @throws IOException
+	 * @throws IridaWorkflowNotFoundException
+	 * @throws IridaWorkflowAnalysisTypeException
+	 */
+	@Test
+	public void testTransferAndPostProcessResultsPriorities()
+			throws ExecutionManagerException, IOException, IridaWorkflowNotFoundException,
+			IridaWorkflowAnalysisTypeException {
+		AnalysisSubmission low = buildSubmission(AnalysisSubmission.Priority.LOW, AnalysisState.FINISHED_RUNNING);
+		AnalysisSubmission high = buildSubmission(AnalysisSubmission.Priority.HIGH, AnalysisState.FINISHED_RUNNING);
+		AnalysisSubmission lowTransferred = buildSubmission(AnalysisSubmission.Priority.LOW,
+				AnalysisState.TRANSFERRED);
+		AnalysisSubmission highTransferred = buildSubmission(AnalysisSubmission.Priority.HIGH,
+				AnalysisState.TRANSFERRED);
+
+		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.FINISHED_RUNNING)).thenReturn(
+				Arrays.asList(low, high));
+		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.TRANSFERRED)).thenReturn(
+				Arrays.asList(lowTransferred, highTransferred));
+		when(analysisExecutionService.getCapacity(AnalysisState.FINISHED_RUNNING)).thenReturn(1);
+		when(analysisExecutionService.getCapacity(AnalysisState.TRANSFERRED)).thenReturn(1);
+
+		analysisExecutionScheduledTask.transferAnalysesResults();
+		analysisExecutionScheduledTask.postProcessResults();
+
+		verify(analysisExecutionService).transferAnalysisResults(high);
+		verify(analysisExecutionService, never()).transferAnalysisResults(low);
+		verify(analysisExecutionService).postProcessResults(highTransferred);
+		verify(analysisExecutionService, never()).postProcessResults(lowTransferred);
+	}
+
 	/**
 	 * Tests no analysis results to check if they can be transferred.
 	 *
@@ -770,4 +905,14 @@ public class AnalysisExecutionScheduledTaskImplTest {
 		verify(analysisExecutionService).cleanupSubmission(analysisSubmissionMock);
 		verify(analysisExecutionService, never()).cleanupSubmission(analysisSubmissionMock2);
 	}
+
+	private AnalysisSubmission buildSubmission(AnalysisSubmission.Priority priority, AnalysisState state) {
+		AnalysisSubmission submission = AnalysisSubmission.builder(workflowId)
+				.name(priority.toString())
+				.inputFiles(sequenceFiles)
+				.priority(priority)
+				.build();
+		submission.setAnalysisState(state);
+		return submission;
+	}
 }
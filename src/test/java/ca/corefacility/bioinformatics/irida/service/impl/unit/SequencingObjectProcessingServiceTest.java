@@ -0,0 +1,74 @@
+package ca.corefacility.bioinformatics.irida.service.impl.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import ca.corefacility.bioinformatics.irida.processing.FileProcessingChain;
+import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequencingObjectRepository;
+import ca.corefacility.bioinformatics.irida.service.SequencingObjectProcessingService;
+import ca.corefacility.bioinformatics.irida.service.SequencingObjectProcessingService.ClaimStatistics;
+
+public class SequencingObjectProcessingServiceTest {
+	private SequencingObjectProcessingService service;
+	private SequencingObjectRepository repository;
+	private ThreadPoolTaskExecutor executor;
+
+	@Before
+	public void setUp() {
+		repository = mock(SequencingObjectRepository.class);
+		executor = mock(ThreadPoolTaskExecutor.class);
+
+		when(executor.getCorePoolSize()).thenReturn(4);
+		when(executor.getActiveCount()).thenReturn(1);
+
+		service = new SequencingObjectProcessingService(repository, executor, mock(FileProcessingChain.class));
+	}
+
+	@Test
+	public void testFindFilesToProcessClaimsQueueSpace() {
+		when(repository.claimUnprocessedSequencingObjects(anyString(), eq(3))).thenReturn(2);
+
+		service.findFilesToProcess();
+
+		verify(repository).claimUnprocessedSequencingObjects(anyString(), eq(3));
+
+		ClaimStatistics statistics = service.getClaimStatistics();
+		assertEquals("should have tried to claim once", 1, statistics.getClaimAttempts());
+		assertEquals("should have claimed 2 files", 2, statistics.getClaimed());
+		assertEquals("last batch should be 2 files", 2, statistics.getLastBatchSize());
+		assertEquals("should be no lock failures", 0, statistics.getLockFailures());
+	}
+
+	@Test
+	public void testFindFilesToProcessNoQueueSpace() {
+		when(executor.getActiveCount()).thenReturn(4);
+
+		service.findFilesToProcess();
+
+		verify(repository, never()).claimUnprocessedSequencingObjects(anyString(), anyInt());
+		assertEquals("should not have tried to claim", 0, service.getClaimStatistics().getClaimAttempts());
+	}
+
+	@Test
+	public void testFindFilesToProcessLockFailure() {
+		when(repository.claimUnprocessedSequencingObjects(anyString(), anyInt()))
+				.thenThrow(new CannotAcquireLockException("locked"));
+
+		service.findFilesToProcess();
+
+		ClaimStatistics statistics = service.getClaimStatistics();
+		assertEquals("should have counted the lock failure", 1, statistics.getLockFailures());
+		assertEquals("should have claimed nothing", 0, statistics.getClaimed());
+	}
+}
@@ -1,5 +1,7 @@
 package ca.corefacility.bioinformatics.irida.service.impl.unit.analysis.submission;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
@@ -9,15 +11,16 @@ import ca.corefacility.bioinformatics.irida.model.enums.AnalysisCleanedState;
 import ca.corefacility.bioinformatics.irida.model.enums.AnalysisState;
 import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowStatus;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
-import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyHistoriesService;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.AnalysisSubmissionRepository;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.AnalysisSubmissionTemplateRepository;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.JobErrorRepository;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.ProjectAnalysisSubmissionJoinRepository;
 import ca.corefacility.bioinformatics.irida.repositories.referencefile.ReferenceFileRepository;
 import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
+import ca.corefacility.bioinformatics.irida.service.AnalysisSubmissionService;
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
 import ca.corefacility.bioinformatics.irida.service.analysis.execution.galaxy.AnalysisExecutionServiceGalaxyCleanupAsync;
+import ca.corefacility.bioinformatics.irida.service.analysis.execution.galaxy.GalaxyWorkflowStatusCache;
 import ca.corefacility.bioinformatics.irida.service.impl.analysis.submission.AnalysisSubmissionServiceImpl;
 import ca.corefacility.bioinformatics.irida.service.workflow.IridaWorkflowsService;
 import org.junit.Before;
@@ -28,6 +31,7 @@ import org.mockito.MockitoAnnotations;
 import javax.validation.Validator;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -58,7 +62,7 @@ public class AnalysisSubmissionServiceImplTest {
 	@Mock
 	private Validator validator;
 	@Mock
-	private GalaxyHistoriesService galaxyHistoriesService;
+	private GalaxyWorkflowStatusCache galaxyWorkflowStatusCache;
 	@Mock
 	private GalaxyWorkflowStatus galaxyWorkflowStatus;
 
@@ -85,7 +89,7 @@ public class AnalysisSubmissionServiceImplTest {
 
 		analysisSubmissionServiceImpl = new AnalysisSubmissionServiceImpl(analysisSubmissionRepository,
 				analysisTemplateRepository, userRepository, referenceFileRepository, sequencingObjectService,
-				galaxyHistoriesService, pasRepository, jobErrorRepository, iridaWorkflowsService, validator);
+				galaxyWorkflowStatusCache, pasRepository, jobErrorRepository, iridaWorkflowsService, validator);
 		analysisSubmissionServiceImpl.setAnalysisExecutionService(analysisExecutionService);
 
 		when(analysisSubmissionRepository.findById(ID)).thenReturn(Optional.of(analysisSubmission));
@@ -162,7 +166,7 @@ public class AnalysisSubmissionServiceImplTest {
 	public void testGetPercentageCompleteStateRunningJustStarted() throws EntityNotFoundException,
 			ExecutionManagerException {
 		when(analysisSubmission.getAnalysisState()).thenReturn(AnalysisState.RUNNING);
-		when(galaxyHistoriesService.getStatusForHistory(HISTORY_ID)).thenReturn(galaxyWorkflowStatus);
+		when(galaxyWorkflowStatusCache.getStatus(HISTORY_ID)).thenReturn(Optional.of(galaxyWorkflowStatus));
 		when(galaxyWorkflowStatus.getProportionComplete()).thenReturn(0.0f);
 
 		assertEquals("invalid percent complete",
@@ -170,6 +174,24 @@ public class AnalysisSubmissionServiceImplTest {
 				analysisSubmissionServiceImpl.getPercentCompleteForAnalysisSubmission(ID), DELTA);
 	}
 
+	/**
+	 * Tests getting the percent complete in the running state before the
+	 * status of the workflow has been read from Galaxy.
+	 * 
+	 * @throws EntityNotFoundException
+	 * @throws ExecutionManagerException
+	 */
+	@Test
+	public void testGetPercentageCompleteStateRunningNoStatus() throws EntityNotFoundException,
+			ExecutionManagerException {
+		when(analysisSubmission.getAnalysisState()).thenReturn(AnalysisState.RUNNING);
+		when(galaxyWorkflowStatusCache.getStatus(HISTORY_ID)).thenReturn(Optional.empty());
+
+		assertEquals("invalid percent complete",
+				AnalysisSubmissionServiceImpl.STATE_PERCENTAGE.get(AnalysisState.RUNNING),
+				analysisSubmissionServiceImpl.getPercentCompleteForAnalysisSubmission(ID), DELTA);
+	}
+
 	/**
 	 * Tests getting the percent complete in the running state when the workflow
 	 * is halfway complete in Galaxy.
@@ -181,7 +203,7 @@ public class AnalysisSubmissionServiceImplTest {
 	public void testGetPercentageCompleteStateRunningHalfway() throws EntityNotFoundException,
 			ExecutionManagerException {
 		when(analysisSubmission.getAnalysisState()).thenReturn(AnalysisState.RUNNING);
-		when(galaxyHistoriesService.getStatusForHistory(HISTORY_ID)).thenReturn(galaxyWorkflowStatus);
+		when(galaxyWorkflowStatusCache.getStatus(HISTORY_ID)).thenReturn(Optional.of(galaxyWorkflowStatus));
 		when(galaxyWorkflowStatus.getProportionComplete()).thenReturn(0.5f);
 
 		Float runningState = AnalysisSubmissionServiceImpl.STATE_PERCENTAGE.get(AnalysisState.RUNNING);
@@ -202,7 +224,7 @@ public class AnalysisSubmissionServiceImplTest {
 	public void testGetPercentageCompleteStateRunningFullyComplete() throws EntityNotFoundException,
 			ExecutionManagerException {
 		when(analysisSubmission.getAnalysisState()).thenReturn(AnalysisState.RUNNING);
-		when(galaxyHistoriesService.getStatusForHistory(HISTORY_ID)).thenReturn(galaxyWorkflowStatus);
+		when(galaxyWorkflowStatusCache.getStatus(HISTORY_ID)).thenReturn(Optional.of(galaxyWorkflowStatus));
 		when(galaxyWorkflowStatus.getProportionComplete()).thenReturn(1.0f);
 
 		assertEquals("invalid percent complete", 90.0f,
@@ -295,4 +317,29 @@ public class AnalysisSubmissionServiceImplTest {
 		verify(analysisExecutionService).cleanupSubmission(analysisSubmission);
 		verify(analysisSubmissionRepository).deleteById(ID);
 	}
+
+	/**
+	 * Tests counting the running and queued analyses, and the analyses in
+	 * each queued or running state, from one query.
+	 */
+	@Test
+	public void testGetAnalysisServiceStatus() {
+		List<AnalysisState> countedStates = AnalysisState.getRunningStates();
+		countedStates.add(AnalysisState.NEW);
+		when(analysisSubmissionRepository.countAnalysesByState(countedStates)).thenReturn(
+				Arrays.asList(new Object[] { AnalysisState.NEW, 3L }, new Object[] { AnalysisState.RUNNING, 2L },
+						new Object[] { AnalysisState.COMPLETING, 1L }));
+
+		AnalysisSubmissionService.AnalysisServiceStatus status = analysisSubmissionServiceImpl.getAnalysisServiceStatus();
+
+		assertEquals(Long.valueOf(3), status.getRunning());
+		assertEquals(Long.valueOf(3), status.getQueued());
+		assertEquals(Long.valueOf(1), status.getStateCounts()
+				.get(AnalysisState.COMPLETING));
+		assertEquals("states without analyses should be counted", Long.valueOf(0), status.getStateCounts()
+				.get(AnalysisState.POST_PROCESSING));
+		assertEquals(3, status.getCount(AnalysisState.RUNNING, AnalysisState.COMPLETING));
+		assertFalse("finished analyses should not be counted", status.getStateCounts()
+				.containsKey(AnalysisState.COMPLETED));
+	}
 }
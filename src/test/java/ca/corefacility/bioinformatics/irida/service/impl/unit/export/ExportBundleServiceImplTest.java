@@ -0,0 +1,224 @@
+package ca.corefacility.bioinformatics.irida.service.impl.unit.export;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
+import ca.corefacility.bioinformatics.irida.model.export.ExportBundle;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+import ca.corefacility.bioinformatics.irida.service.impl.export.ExportBundleServiceImpl;
+import ca.corefacility.bioinformatics.irida.util.ZipStreamWriter;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Unit tests for {@link ExportBundleServiceImpl}
+ */
+public class ExportBundleServiceImplTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private List<Runnable> queued;
+	private Path directory;
+	private Path fastq;
+	private ExportBundleServiceImpl service;
+
+	@Before
+	public void setUp() throws IOException {
+		queued = new ArrayList<>();
+		directory = folder.getRoot()
+				.toPath()
+				.resolve("bundles");
+		fastq = folder.newFile("reads.fastq")
+				.toPath();
+		Files.write(fastq, "@read\nACGT\n+\nIIII\n".getBytes(StandardCharsets.UTF_8));
+
+		service = new ExportBundleServiceImpl(queued::add, new ZipStreamWriter(), directory.toString(), 60, 1024);
+
+		login("fbristow");
+	}
+
+	@After
+	public void tearDown() {
+		SecurityContextHolder.getContext()
+				.setAuthentication(null);
+	}
+
+	@Test
+	public void testRequestBundle() throws IOException, EntityNotFoundException {
+		ExportBundle bundle = service.requestBundle("project", entries());
+
+		assertEquals("bundle should wait for a thread", ExportBundle.State.QUEUED, bundle.getState());
+		assertEquals(1, queued.size());
+
+		runQueued();
+
+		assertEquals(ExportBundle.State.COMPLETE, bundle.getState());
+		assertTrue("progress should be complete", bundle.getProgress()
+				.isComplete());
+		assertSame(bundle, service.getBundle(bundle.getId()));
+		try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(bundle.getFile()))) {
+			assertEquals("project/reads.fastq", zip.getNextEntry()
+					.getName());
+		}
+		assertFalse("partial file should have been renamed", Files.exists(bundle.getFile()
+				.resolveSibling(bundle.getId() + ".part")));
+	}
+
+	@Test
+	public void testRequestSameSelection() throws EntityNotFoundException {
+		ExportBundle bundle = service.requestBundle("project", entries());
+		runQueued();
+
+		login("tom");
+		ExportBundle other = service.requestBundle("project", entries());
+
+		assertSame("the same selection should reuse the bundle", bundle, other);
+		assertTrue("the bundle should not be written again", queued.isEmpty());
+		assertSame("both users should be able to read the bundle", bundle, service.getBundle(bundle.getId()));
+	}
+
+	@Test
+	public void testRequestChangedFile() throws IOException {
+		ExportBundle bundle = service.requestBundle("project", entries());
+		runQueued();
+
+		Files.write(fastq, "@read\nACGTACGT\n+\nIIIIIIII\n".getBytes(StandardCharsets.UTF_8));
+		ExportBundle changed = service.requestBundle("project", entries());
+
+		assertNotEquals("a changed file should get a new bundle", bundle.getId(), changed.getId());
+		assertEquals(1, queued.size());
+	}
+
+	@Test(expected = EntityNotFoundException.class)
+	public void testGetBundleOtherUser() {
+		ExportBundle bundle = service.requestBundle("project", entries());
+
+		login("tom");
+		service.getBundle(bundle.getId());
+	}
+
+	@Test
+	public void testFailedBundle() throws IOException {
+		List<ZipStreamWriter.Entry> missing = ImmutableList.of(
+				ZipStreamWriter.Entry.ofFile("project/missing.fastq", folder.getRoot()
+						.toPath()
+						.resolve("missing.fastq"), null));
+
+		ExportBundle bundle = service.requestBundle("project", missing);
+		runQueued();
+
+		assertEquals(ExportBundle.State.FAILED, bundle.getState());
+		assertFalse("partial file should be deleted", Files.exists(bundle.getFile()
+				.resolveSibling(bundle.getId() + ".part")));
+
+		ExportBundle retried = service.requestBundle("project", missing);
+		assertNotEquals("failed bundles should be written again", bundle, retried);
+		assertEquals(1, queued.size());
+	}
+
+	@Test(expected = EntityNotFoundException.class)
+	public void testEvictExpiredBundles() throws IOException, InterruptedException {
+		service = new ExportBundleServiceImpl(queued::add, new ZipStreamWriter(), directory.toString(), 0, 1024);
+		ExportBundle bundle = service.requestBundle("project", entries());
+
+		// bundles are only evicted once they're finished
+		Thread.sleep(5);
+		service.evictExpiredBundles();
+		assertEquals(ExportBundle.State.QUEUED, service.getBundle(bundle.getId())
+				.getState());
+
+		runQueued();
+		Thread.sleep(5);
+		service.evictExpiredBundles();
+
+		assertFalse("bundle file should be deleted", Files.exists(bundle.getFile()));
+		service.getBundle(bundle.getId());
+	}
+
+	@Test
+	public void testEvictBundlesOverMaxSize() throws IOException, InterruptedException {
+		service = new ExportBundleServiceImpl(queued::add, new ZipStreamWriter(), directory.toString(), 60, 0);
+		ExportBundle bundle = service.requestBundle("project", entries());
+		runQueued();
+
+		assertFalse("bundles over the maximum size should be removed when finished", Files.exists(bundle.getFile()));
+		assertNotEquals("removed bundles should be written again", bundle, service.requestBundle("project", entries()));
+	}
+
+	@Test
+	public void testQueueFull() {
+		AtomicBoolean full = new AtomicBoolean(true);
+		service = new ExportBundleServiceImpl(task -> {
+			if (full.get()) {
+				throw new RejectedExecutionException("full");
+			}
+			queued.add(task);
+		}, new ZipStreamWriter(), directory.toString(), 60, 1024);
+
+		ExportBundle bundle = service.requestBundle("project", entries());
+		assertEquals("bundles that can't be queued should fail", ExportBundle.State.FAILED, bundle.getState());
+
+		full.set(false);
+		service.requestBundle("project", entries());
+		assertEquals("the bundle should be queued when it's requested again", 1, queued.size());
+	}
+
+	@Test
+	public void testStartOnlyRemovesOwnBundles() throws IOException {
+		ExportBundle bundle = service.requestBundle("project", entries());
+		runQueued();
+
+		Path hostDirectory = bundle.getFile()
+				.getParent();
+		Path otherHost = Files.createDirectories(directory.resolve("other-host"))
+				.resolve(bundle.getId() + ".zip");
+		Files.copy(bundle.getFile(), otherHost);
+		Path other = Files.createFile(hostDirectory.resolve("notes.txt"));
+
+		new ExportBundleServiceImpl(queued::add, new ZipStreamWriter(), directory.toString(), 60, 1024);
+
+		assertFalse("this server's old bundles should be removed", Files.exists(bundle.getFile()));
+		assertTrue("other servers' bundles should be kept", Files.exists(otherHost));
+		assertTrue("files that aren't bundles should be kept", Files.exists(other));
+	}
+
+	private List<ZipStreamWriter.Entry> entries() {
+		return ImmutableList.of(ZipStreamWriter.Entry.ofFile("project/reads.fastq", fastq, null));
+	}
+
+	private void runQueued() {
+		List<Runnable> tasks = new ArrayList<>(queued);
+		queued.clear();
+		tasks.forEach(Runnable::run);
+	}
+
+	private static void login(String username) {
+		User user = new User();
+		user.setUsername(username);
+		SecurityContextHolder.getContext()
+				.setAuthentication(new UsernamePasswordAuthenticationToken(user, null));
+	}
+}
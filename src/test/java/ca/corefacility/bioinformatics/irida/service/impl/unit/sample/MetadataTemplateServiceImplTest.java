@@ -0,0 +1,211 @@
+package ca.corefacility.bioinformatics.irida.service.impl.unit.sample;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectMetadataTemplateJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.sample.MetadataFieldRepository;
+import ca.corefacility.bioinformatics.irida.repositories.sample.MetadataTemplateRepository;
+import ca.corefacility.bioinformatics.irida.service.impl.sample.MetadataTemplateServiceImpl;
+import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
+
+/**
+ * Unit tests for {@link MetadataTemplateServiceImpl}
+ */
+public class MetadataTemplateServiceImplTest {
+
+	private MetadataTemplateService metadataTemplateService;
+	private MetadataFieldRepository fieldRepository;
+
+	@Before
+	public void setUp() {
+		fieldRepository = mock(MetadataFieldRepository.class);
+		Validator validator = Validation.buildDefaultValidatorFactory()
+				.getValidator();
+
+		metadataTemplateService = new MetadataTemplateServiceImpl(mock(MetadataTemplateRepository.class),
+				mock(ProjectMetadataTemplateJoinRepository.class), fieldRepository, validator);
+	}
+
+	/**
+	 * Tests that reading the same label twice only looks the field up by label
+	 * once, and reads it by id after that.
+	 */
+	@Test
+	public void testReadMetadataFieldByLabelCached() {
+		MetadataTemplateField field = field(1L, "field");
+		when(fieldRepository.findMetadataFieldByLabel("field")).thenReturn(field);
+		when(fieldRepository.findById(1L)).thenReturn(Optional.of(field));
+
+		assertSame(field, metadataTemplateService.readMetadataFieldByLabel("field"));
+		assertSame(field, metadataTemplateService.readMetadataFieldByLabel("field"));
+
+		verify(fieldRepository, times(1)).findMetadataFieldByLabel("field");
+		verify(fieldRepository, times(1)).findById(1L);
+	}
+
+	/**
+	 * Tests that labels without a field aren't cached, so a field created
+	 * later is found.
+	 */
+	@Test
+	public void testReadMetadataFieldByLabelMissingNotCached() {
+		assertNull(metadataTemplateService.readMetadataFieldByLabel("field"));
+		assertNull(metadataTemplateService.readMetadataFieldByLabel("field"));
+
+		verify(fieldRepository, times(2)).findMetadataFieldByLabel("field");
+	}
+
+	/**
+	 * Tests that a cached field that no longer exists is looked up by label
+	 * again.
+	 */
+	@Test
+	public void testReadMetadataFieldByLabelRemoved() {
+		MetadataTemplateField field = field(1L, "field");
+		when(fieldRepository.findMetadataFieldByLabel("field")).thenReturn(field);
+		when(fieldRepository.findById(1L)).thenReturn(Optional.empty());
+
+		metadataTemplateService.readMetadataFieldByLabel("field");
+		assertSame(field, metadataTemplateService.readMetadataFieldByLabel("field"));
+
+		verify(fieldRepository, times(2)).findMetadataFieldByLabel("field");
+	}
+
+	/**
+	 * Tests that a saved field is read by id.
+	 */
+	@Test
+	public void testSaveMetadataFieldWritesThrough() {
+		MetadataTemplateField field = new MetadataTemplateField("field", "text");
+		MetadataTemplateField saved = field(2L, "field");
+		when(fieldRepository.save(field)).thenReturn(saved);
+		when(fieldRepository.findById(2L)).thenReturn(Optional.of(saved));
+		when(fieldRepository.findAllById(ImmutableSet.of(2L))).thenReturn(Lists.newArrayList(saved));
+
+		metadataTemplateService.saveMetadataField(field);
+
+		assertSame(saved, metadataTemplateService.readMetadataFieldByLabel("field"));
+		assertSame(saved, metadataTemplateService.readMetadataFieldsByLabels(ImmutableSet.of("field"))
+				.get("field"));
+
+		verify(fieldRepository, never()).findMetadataFieldByLabel(any(String.class));
+		verify(fieldRepository, never()).findMetadataFieldsByLabels(any(Collection.class));
+	}
+
+	/**
+	 * Tests that fields read or saved in a transaction that can write are only
+	 * cached once the transaction commits.
+	 */
+	@Test
+	public void testFieldsCachedAfterCommit() {
+		MetadataTemplateField field = field(1L, "field");
+		MetadataTemplateField saved = field(2L, "saved");
+		when(fieldRepository.findMetadataFieldByLabel("field")).thenReturn(field);
+		when(fieldRepository.findMetadataFieldByLabel("saved")).thenReturn(saved);
+		when(fieldRepository.save(any(MetadataTemplateField.class))).thenReturn(saved);
+		when(fieldRepository.findById(1L)).thenReturn(Optional.of(field));
+		when(fieldRepository.findById(2L)).thenReturn(Optional.of(saved));
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			metadataTemplateService.readMetadataFieldByLabel("field");
+			metadataTemplateService.saveMetadataField(new MetadataTemplateField("saved", "text"));
+
+			// nothing is cached before the commit
+			metadataTemplateService.readMetadataFieldByLabel("field");
+			metadataTemplateService.readMetadataFieldByLabel("saved");
+			verify(fieldRepository, times(2)).findMetadataFieldByLabel("field");
+			verify(fieldRepository, times(1)).findMetadataFieldByLabel("saved");
+
+			TransactionSynchronizationManager.getSynchronizations()
+					.forEach(TransactionSynchronization::afterCommit);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		metadataTemplateService.readMetadataFieldByLabel("field");
+		metadataTemplateService.readMetadataFieldByLabel("saved");
+		verify(fieldRepository, times(2)).findMetadataFieldByLabel("field");
+		verify(fieldRepository, times(1)).findMetadataFieldByLabel("saved");
+	}
+
+	/**
+	 * Tests that a field saved in a transaction that rolls back isn't cached.
+	 */
+	@Test
+	public void testFieldNotCachedAfterRollback() {
+		MetadataTemplateField saved = field(2L, "saved");
+		when(fieldRepository.save(any(MetadataTemplateField.class))).thenReturn(saved);
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			metadataTemplateService.saveMetadataField(new MetadataTemplateField("saved", "text"));
+
+			TransactionSynchronizationManager.getSynchronizations()
+					.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		assertNull(metadataTemplateService.readMetadataFieldByLabel("saved"));
+		verify(fieldRepository, never()).findById(any(Long.class));
+	}
+
+	/**
+	 * Tests that reading a set of labels reads the cached fields by id, only
+	 * queries for the labels that aren't cached, and matches labels that
+	 * differ by case.
+	 */
+	@Test
+	public void testReadMetadataFieldsByLabels() {
+		MetadataTemplateField cached = field(1L, "cached");
+		MetadataTemplateField other = field(2L, "Other");
+		when(fieldRepository.findMetadataFieldByLabel("cached")).thenReturn(cached);
+		when(fieldRepository.findAllById(ImmutableSet.of(1L))).thenReturn(Lists.newArrayList(cached));
+		when(fieldRepository.findMetadataFieldsByLabels(ImmutableSet.of("other", "missing"))).thenReturn(
+				Lists.newArrayList(other));
+
+		metadataTemplateService.readMetadataFieldByLabel("cached");
+		Map<String, MetadataTemplateField> fields = metadataTemplateService.readMetadataFieldsByLabels(
+				ImmutableSet.of("cached", "other", "missing"));
+
+		assertEquals(2, fields.size());
+		assertSame(cached, fields.get("cached"));
+		assertSame(other, fields.get("other"));
+		assertFalse(fields.containsKey("missing"));
+
+		verify(fieldRepository).findMetadataFieldsByLabels(ImmutableSet.of("other", "missing"));
+	}
+
+	private MetadataTemplateField field(Long id, String label) {
+		MetadataTemplateField field = new MetadataTemplateField(label, "text");
+		new DirectFieldAccessor(field).setPropertyValue("id", id);
+		return field;
+	}
+}
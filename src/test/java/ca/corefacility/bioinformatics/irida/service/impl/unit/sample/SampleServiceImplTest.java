@@ -1,8 +1,12 @@
 package ca.corefacility.bioinformatics.irida.service.impl.unit.sample;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -11,6 +15,7 @@ import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import javax.validation.Validation;
@@ -20,6 +25,8 @@ import javax.validation.ValidatorFactory;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
 import ca.corefacility.bioinformatics.irida.exceptions.AnalysisAlreadySetException;
@@ -27,6 +34,9 @@ import ca.corefacility.bioinformatics.irida.exceptions.SequenceFileAnalysisExcep
 import ca.corefacility.bioinformatics.irida.model.joins.Join;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.CoverageQCEntry;
+import ca.corefacility.bioinformatics.irida.model.sample.FileProcessorErrorQCEntry;
+import ca.corefacility.bioinformatics.irida.model.sample.QCEntry;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
@@ -274,6 +284,115 @@ public class SampleServiceImplTest {
 		sampleService.estimateCoverageForSample(new Sample(), 0L);
 	}
 
+	/**
+	 * Tests getting the samples for a collection of names with a single query.
+	 */
+	@Test
+	public void testGetSamplesBySampleNames() {
+		Project p = new Project();
+		Sample s1 = new Sample("sample1");
+		Sample s2 = new Sample("sample2");
+
+		when(sampleRepository.getSamplesBySampleNames(any(Project.class), any(List.class))).thenReturn(
+				Lists.newArrayList(s1, s2));
+
+		Map<String, Sample> samples = sampleService.getSamplesBySampleNames(p,
+				Lists.newArrayList("sample1", "sample2", "sample1", "missing"));
+		assertEquals(2, samples.size());
+		assertEquals(s1, samples.get("sample1"));
+		assertEquals(s2, samples.get("sample2"));
+		assertFalse(samples.containsKey("missing"));
+
+		verify(sampleRepository).getSamplesBySampleNames(any(Project.class), any(List.class));
+	}
+
+	/**
+	 * Tests that updating multiple samples sets the modified date of each
+	 * sample, as updating a single sample does.
+	 */
+	@Test
+	public void testUpdateMultipleSetsModifiedDate() {
+		Sample s1 = new Sample("sample1");
+		s1.setId(1L);
+		Sample s2 = new Sample("sample2");
+		s2.setId(2L);
+
+		when(sampleRepository.existsById(any(Long.class))).thenReturn(true);
+		when(sampleRepository.save(any(Sample.class))).thenAnswer(i -> i.getArguments()[0]);
+
+		sampleService.updateMultiple(Lists.newArrayList(s1, s2));
+
+		assertNotNull(s1.getModifiedDate());
+		assertNotNull(s2.getModifiedDate());
+		verify(sampleRepository).save(s1);
+		verify(sampleRepository).save(s2);
+	}
+
+	/**
+	 * Tests getting the total bases for a collection of samples with a single
+	 * query.
+	 */
+	@Test
+	public void testGetTotalBasesForSamples() {
+		Sample s1 = new Sample();
+		s1.setId(1L);
+		Sample s2 = new Sample();
+		s2.setId(2L);
+
+		when(sampleRepository.getTotalBasesForSamples(ImmutableSet.of(1L, 2L))).thenReturn(
+				ImmutableMap.of(1L, 1000L, 2L, 0L));
+
+		Map<Long, Long> totalBases = sampleService.getTotalBasesForSamples(Lists.newArrayList(s1, s2));
+		assertEquals(Long.valueOf(1000L), totalBases.get(1L));
+		assertEquals(Long.valueOf(0L), totalBases.get(2L));
+
+		verify(sampleRepository).getTotalBasesForSamples(ImmutableSet.of(1L, 2L));
+		verify(ssoRepository, never()).getSequencesForSample(any(Sample.class));
+	}
+
+	/**
+	 * Tests grouping the {@link QCEntry} for a collection of samples by
+	 * sample.
+	 */
+	@Test
+	public void testGetQCEntriesForSamples() {
+		Sample s1 = new Sample();
+		s1.setId(1L);
+		Sample s2 = new Sample();
+		s2.setId(2L);
+		List<Sample> samples = Lists.newArrayList(s1, s2);
+
+		QCEntry coverage = new CoverageQCEntry(new SingleEndSequenceFile(new SequenceFile()), 1000L);
+		QCEntry error = new FileProcessorErrorQCEntry(new SingleEndSequenceFile(new SequenceFile()));
+
+		when(qcEntryRepository.getQCEntriesForSamples(samples)).thenReturn(
+				Lists.newArrayList(new Object[] { 1L, coverage }, new Object[] { 1L, error }));
+
+		Map<Long, List<QCEntry>> qcEntries = sampleService.getQCEntriesForSamples(samples);
+		assertEquals("only the sample with entries should be returned", 1, qcEntries.size());
+		assertEquals(Lists.newArrayList(coverage, error), qcEntries.get(1L));
+		assertFalse(qcEntries.containsKey(2L));
+	}
+
+	/**
+	 * Tests that the stored total bases of a sample are used without loading
+	 * the FastQC results of its files.
+	 * 
+	 * @throws SequenceFileAnalysisException
+	 */
+	@Test
+	public void testGetTotalBasesForSampleStored() throws SequenceFileAnalysisException {
+		Sample s1 = new Sample();
+		s1.setId(1L);
+
+		when(sampleRepository.getTotalBasesForSamples(ImmutableSet.of(1L))).thenReturn(ImmutableMap.of(1L, 1000L));
+
+		long actualBases = sampleService.getTotalBasesForSample(s1);
+		assertEquals(1000, actualBases);
+
+		verify(ssoRepository, never()).getSequencesForSample(s1);
+	}
+
 	/**
 	 * Tests out successfully getting the total bases from a sample with no
 	 * sequence files.
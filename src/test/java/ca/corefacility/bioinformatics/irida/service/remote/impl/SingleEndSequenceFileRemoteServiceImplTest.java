@@ -1,15 +1,21 @@
 package ca.corefacility.bioinformatics.irida.service.remote.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.hateoas.Link;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
 
 import com.google.common.collect.Lists;
 
@@ -18,6 +24,7 @@ import ca.corefacility.bioinformatics.irida.model.remote.RemoteStatus;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
 import ca.corefacility.bioinformatics.irida.repositories.RemoteAPIRepository;
 import ca.corefacility.bioinformatics.irida.repositories.remote.SequenceFileRemoteRepository;
 import ca.corefacility.bioinformatics.irida.repositories.remote.SingleEndSequenceFileRemoteRepository;
@@ -32,6 +39,7 @@ public class SingleEndSequenceFileRemoteServiceImplTest {
 	@Before
 	public void setUp() {
 		repository = mock(SingleEndSequenceFileRemoteRepository.class);
+		fileRepository = mock(SequenceFileRemoteRepository.class);
 		apiRepo = mock(RemoteAPIRepository.class);
 		service = new SingleEndSequenceFileRemoteServiceImpl(repository, fileRepository, apiRepo);
 	}
@@ -55,4 +63,48 @@ public class SingleEndSequenceFileRemoteServiceImplTest {
 		assertEquals(filesList, sequenceFilesForSample);
 		verify(repository).list(seqFilesHref, api);
 	}
+
+	@Test
+	public void testMirrorSequencingObject() {
+		String fileHref = "http://somewhere/samples/2/unpaired/3/files/4";
+		RemoteAPI api = new RemoteAPI();
+		SequenceFile file = new SequenceFile();
+		file.add(new Link(fileHref, Link.REL_SELF));
+		SingleEndSequenceFile object = new SingleEndSequenceFile(file);
+
+		Path downloaded = Paths.get("/tmp/file.fastq");
+		AnalysisFastQC fastqc = AnalysisFastQC.builder()
+				.totalBases(100L)
+				.build();
+
+		when(apiRepo.getRemoteAPIForUrl(fileHref)).thenReturn(api);
+		when(fileRepository.downloadRemoteSequenceFile(fileHref, api)).thenReturn(downloaded);
+		when(fileRepository.readRemoteFastQC(file, api)).thenReturn(fastqc);
+
+		service.mirrorSequencingObject(object);
+
+		assertEquals(downloaded, file.getFile());
+		assertSame("the remote fastqc results should be mirrored", fastqc, file.getFastQCAnalysis());
+	}
+
+	@Test
+	public void testMirrorSequencingObjectWithoutFastQC() {
+		String fileHref = "http://somewhere/samples/2/unpaired/3/files/4";
+		RemoteAPI api = new RemoteAPI();
+		SequenceFile file = new SequenceFile();
+		file.add(new Link(fileHref, Link.REL_SELF));
+		SingleEndSequenceFile object = new SingleEndSequenceFile(file);
+
+		Path downloaded = Paths.get("/tmp/file.fastq");
+
+		when(apiRepo.getRemoteAPIForUrl(fileHref)).thenReturn(api);
+		when(fileRepository.downloadRemoteSequenceFile(fileHref, api)).thenReturn(downloaded);
+		when(fileRepository.readRemoteFastQC(file, api)).thenThrow(
+				new HttpClientErrorException(HttpStatus.INTERNAL_SERVER_ERROR));
+
+		service.mirrorSequencingObject(object);
+
+		assertEquals(downloaded, file.getFile());
+		assertNull("fastqc should be left to be calculated locally", file.getFastQCAnalysis());
+	}
 }
@@ -0,0 +1,131 @@
+package ca.corefacility.bioinformatics.irida.util.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ca.corefacility.bioinformatics.irida.util.LineOffsetIndex;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Unit tests for {@link LineOffsetIndex}
+ */
+public class LineOffsetIndexTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path file;
+
+	@Before
+	public void setUp() throws IOException {
+		file = folder.newFile("matrix.tsv")
+				.toPath();
+		write(10);
+	}
+
+	@Test
+	public void testReadLines() throws IOException {
+		LineOffsetIndex index = LineOffsetIndex.forFile(file, 3, Long.MAX_VALUE);
+		assertEquals(10, index.getLineCount());
+
+		LineOffsetIndex.Lines lines = index.readLines(4, 3);
+		assertEquals(ImmutableList.of("line\t4", "line\t5", "line\t6"), lines.getLines());
+		assertEquals("end offset should be the start of the next line", 7 * "line\t0\n".length(),
+				lines.getEndOffset());
+
+		assertEquals("reading past the last line should stop at the end of the file", ImmutableList.of("line\t9"),
+				index.readLines(9, 5)
+						.getLines());
+
+		LineOffsetIndex.Lines none = index.readLines(10, 1);
+		assertTrue("there should be no lines after the end of the file", none.getLines()
+				.isEmpty());
+		assertEquals(Files.size(file), none.getEndOffset());
+
+		assertFalse("small indexes should not be saved", Files.exists(folder.getRoot()
+				.toPath()
+				.resolve("matrix.tsv.lines.idx")));
+	}
+
+	@Test
+	public void testLineTerminators() throws IOException {
+		Files.write(file, "a\r\nb\rc\n\nd".getBytes(StandardCharsets.UTF_8));
+
+		LineOffsetIndex index = LineOffsetIndex.forFile(file, 2, Long.MAX_VALUE);
+
+		assertEquals(5, index.getLineCount());
+		assertEquals(ImmutableList.of("a", "b", "c", "", "d"), index.readLines(0, 10)
+				.getLines());
+		assertEquals(ImmutableList.of("c", ""), index.readLines(2, 2)
+				.getLines());
+	}
+
+	@Test
+	public void testReadLinesFromOffset() throws IOException {
+		long offset = 2 * "line\t0\n".length();
+
+		LineOffsetIndex.Lines lines = LineOffsetIndex.readLines(file, offset, 2);
+
+		assertEquals(ImmutableList.of("line\t2", "line\t3"), lines.getLines());
+		assertEquals(offset + 2 * "line\t0\n".length(), lines.getEndOffset());
+	}
+
+	@Test
+	public void testSavedIndex() throws IOException {
+		Path indexFile = folder.getRoot()
+				.toPath()
+				.resolve("matrix.tsv.lines.idx");
+
+		LineOffsetIndex.forFile(file, 3, 0);
+		assertTrue("index should be saved beside the file", Files.exists(indexFile));
+
+		LineOffsetIndex saved = LineOffsetIndex.forFile(file, 3, 0);
+		assertEquals(10, saved.getLineCount());
+		assertEquals(ImmutableList.of("line\t7"), saved.readLines(7, 1)
+				.getLines());
+
+		write(20);
+		LineOffsetIndex rebuilt = LineOffsetIndex.forFile(file, 3, 0);
+		assertEquals("a changed file should be indexed again", 20, rebuilt.getLineCount());
+		assertEquals(ImmutableList.of("line\t19"), rebuilt.readLines(19, 1)
+				.getLines());
+	}
+
+	@Test
+	public void testUnsavedIndexCached() throws IOException {
+		LineOffsetIndex index = LineOffsetIndex.forFile(file, 3, Long.MAX_VALUE);
+		assertFalse("small indexes should not be saved", Files.exists(folder.getRoot()
+				.toPath()
+				.resolve("matrix.tsv.lines.idx")));
+		assertSame("an unchanged file should use the index in memory", index,
+				LineOffsetIndex.forFile(file, 3, Long.MAX_VALUE));
+
+		write(20);
+		LineOffsetIndex rebuilt = LineOffsetIndex.forFile(file, 3, Long.MAX_VALUE);
+		assertNotSame("a changed file should be indexed again", index, rebuilt);
+		assertEquals(20, rebuilt.getLineCount());
+	}
+
+	private void write(int lines) throws IOException {
+		String content = IntStream.range(0, lines)
+				.mapToObj(i -> "line\t" + i + "\n")
+				.collect(Collectors.joining());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+}
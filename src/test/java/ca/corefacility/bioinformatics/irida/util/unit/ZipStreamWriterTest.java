@@ -0,0 +1,153 @@
+package ca.corefacility.bioinformatics.irida.util.unit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ca.corefacility.bioinformatics.irida.util.ZipStreamWriter;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Unit tests for {@link ZipStreamWriter}
+ */
+public class ZipStreamWriterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ExecutorService executor;
+	private ZipStreamWriter writer;
+
+	private Path fastq;
+	private Path gzippedFastq;
+
+	@Before
+	public void setUp() throws IOException {
+		executor = Executors.newFixedThreadPool(2);
+		writer = new ZipStreamWriter(executor, 2);
+
+		fastq = folder.newFile("reads.fastq")
+				.toPath();
+		Files.write(fastq, "@read\nACGT\n+\nIIII\n".getBytes(StandardCharsets.UTF_8));
+
+		gzippedFastq = folder.newFile("reads_2.fastq.gz")
+				.toPath();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(Files.newOutputStream(gzippedFastq))) {
+			gzip.write("@read\nTTTT\n+\nIIII\n".getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testWrite() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ZipStreamWriter.Progress progress = new ZipStreamWriter.Progress();
+
+		writer.write(ImmutableList.of(ZipStreamWriter.Entry.ofFile("project/reads.fastq", fastq, null),
+				ZipStreamWriter.Entry.ofFile("project/reads_2.fastq.gz", gzippedFastq, null),
+				ZipStreamWriter.Entry.ofContent("project/reads.json", "{}".getBytes(StandardCharsets.UTF_8))), out,
+				progress);
+
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			ZipEntry entry = zip.getNextEntry();
+			assertEquals("project/reads.fastq", entry.getName());
+			assertEquals("uncompressed files should be deflated", ZipEntry.DEFLATED, entry.getMethod());
+			assertArrayEquals(Files.readAllBytes(fastq), ByteStreams.toByteArray(zip));
+
+			entry = zip.getNextEntry();
+			assertEquals("project/reads_2.fastq.gz", entry.getName());
+			assertArrayEquals(Files.readAllBytes(gzippedFastq), ByteStreams.toByteArray(zip));
+			assertTrue("gzipped files should not be compressed again",
+					entry.getCompressedSize() >= entry.getSize());
+
+			entry = zip.getNextEntry();
+			assertEquals("project/reads.json", entry.getName());
+			assertEquals("{}", new String(ByteStreams.toByteArray(zip), StandardCharsets.UTF_8));
+
+			assertNull("there should be no more entries", zip.getNextEntry());
+		}
+
+		assertTrue("archive should be complete", progress.isComplete());
+		assertEquals(3, progress.getTotalEntries());
+		assertEquals(3, progress.getEntriesWritten());
+		long size = Files.size(fastq) + Files.size(gzippedFastq) + 2;
+		assertEquals(size, progress.getTotalBytes());
+		assertEquals(size, progress.getBytesWritten());
+	}
+
+	@Test
+	public void testWriteManyEntries() throws IOException {
+		List<ZipStreamWriter.Entry> entries = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			entries.add(ZipStreamWriter.Entry.ofFile("reads_" + i + ".fastq.gz", gzippedFastq, null));
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		writer.write(entries, out, null);
+
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			for (int i = 0; i < 20; i++) {
+				assertEquals("entries should be written in order", "reads_" + i + ".fastq.gz", zip.getNextEntry()
+						.getName());
+			}
+			assertNull("there should be no more entries", zip.getNextEntry());
+		}
+	}
+
+	@Test
+	public void testWriteWithoutExecutor() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		new ZipStreamWriter().write(ImmutableList.of(ZipStreamWriter.Entry.ofFile("reads_2.fastq.gz", gzippedFastq,
+				null)), out, null);
+
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			ZipEntry entry = zip.getNextEntry();
+			assertArrayEquals(Files.readAllBytes(gzippedFastq), ByteStreams.toByteArray(zip));
+			assertTrue("gzipped files should not be compressed again",
+					entry.getCompressedSize() >= entry.getSize());
+		}
+	}
+
+	@Test(expected = NoSuchFileException.class)
+	public void testMissingFile() throws IOException {
+		ZipStreamWriter.Progress progress = new ZipStreamWriter.Progress();
+		try {
+			writer.write(ImmutableList.of(ZipStreamWriter.Entry.ofFile("reads.fastq", fastq, null),
+					ZipStreamWriter.Entry.ofFile("missing.fastq.gz", folder.getRoot()
+							.toPath()
+							.resolve("missing.fastq.gz"), null)), new ByteArrayOutputStream(), progress);
+		} finally {
+			assertFalse("archive should not be complete", progress.isComplete());
+		}
+	}
+}
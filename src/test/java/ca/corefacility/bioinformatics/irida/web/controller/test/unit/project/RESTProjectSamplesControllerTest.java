@@ -165,6 +165,31 @@ public class RESTProjectSamplesControllerTest {
 		assertTrue("Rels should be empty after removing expected links", rels.isEmpty());
 	}
 
+	@Test
+	public void testGetProjectSamplesChangedSince() {
+		Project p = TestDataFactory.constructProject();
+		Sample s = TestDataFactory.constructSample();
+		Date changedSince = new Date(1000L);
+
+		when(sampleService.getSamplesForProjectChangedSince(p, changedSince)).thenReturn(Lists.newArrayList(s));
+		when(sampleService.getNumberOfSamplesForProject(p)).thenReturn(5L);
+		when(projectService.read(p.getId())).thenReturn(p);
+
+		ModelMap modelMap = controller.getProjectSamplesChangedSince(p.getId(), changedSince.getTime());
+
+		verify(sampleService).getSamplesForProjectChangedSince(p, changedSince);
+		verify(sampleService, never()).getSamplesForProjectShallow(p);
+
+		@SuppressWarnings("unchecked") ResourceCollection<Sample> samples = (ResourceCollection<Sample>) modelMap.get(
+				RESTGenericController.RESOURCE_NAME);
+		assertEquals(1, samples.size());
+		assertEquals("total should include unchanged samples", Long.valueOf(5L), samples.getTotalResources());
+		assertEquals("http://localhost/api/projects/" + p.getId() + "/samples?changedSince=1000", samples.getLink(
+				Link.REL_SELF)
+				.getHref());
+		assertNotNull("sample should have links", s.getLink(Link.REL_SELF));
+	}
+
 	@Test
 	public void testGetProjectSample() throws IOException {
 		Project p = TestDataFactory.constructProject();
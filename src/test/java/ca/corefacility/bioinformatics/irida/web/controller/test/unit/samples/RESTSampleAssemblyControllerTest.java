@@ -1,5 +1,7 @@
 package ca.corefacility.bioinformatics.irida.web.controller.test.unit.samples;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.List;
 
 import org.junit.Before;
@@ -11,6 +13,7 @@ import ca.corefacility.bioinformatics.irida.model.assembly.GenomeAssemblyFromAna
 import ca.corefacility.bioinformatics.irida.model.joins.impl.SampleGenomeAssemblyJoin;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.StagingDirectory;
 import ca.corefacility.bioinformatics.irida.ria.unit.TestDataFactory;
 import ca.corefacility.bioinformatics.irida.service.GenomeAssemblyService;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
@@ -37,11 +40,12 @@ public class RESTSampleAssemblyControllerTest {
 	Sample s1;
 
 	@Before
-	public void setUp() {
+	public void setUp() throws IOException {
 		sampleService = mock(SampleService.class);
 		genomeAssemblyService = mock(GenomeAssemblyService.class);
 
-		controller = new RESTSampleAssemblyController(sampleService, genomeAssemblyService);
+		controller = new RESTSampleAssemblyController(sampleService, genomeAssemblyService,
+				new StagingDirectory(Files.createTempDirectory(null)));
 
 		s1 = new Sample("s1");
 		s1.setId(1L);
@@ -1,12 +1,15 @@
 package ca.corefacility.bioinformatics.irida.web.controller.test.unit.samples;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
@@ -20,9 +23,11 @@ import ca.corefacility.bioinformatics.irida.model.enums.SequencingRunUploadStatu
 import ca.corefacility.bioinformatics.irida.model.run.SequencingRun;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
 import org.springframework.hateoas.Link;
 import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.ui.ModelMap;
@@ -40,6 +45,7 @@ import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFilePair;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.StagingDirectory;
 import ca.corefacility.bioinformatics.irida.service.AnalysisService;
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
 import ca.corefacility.bioinformatics.irida.service.SequencingRunService;
@@ -63,14 +69,15 @@ public class SampleSequenceFilesControllerTest {
 	private SequencingRun sequencingRun;
 
 	@Before
-	public void setUp() {
+	public void setUp() throws IOException {
 		sampleService = mock(SampleService.class);
 		miseqRunService = mock(SequencingRunService.class);
 		sequencingObjectService = mock(SequencingObjectService.class);
 		analysisService = mock(AnalysisService.class);
 		sequencingRun = mock(SequencingRun.class);
 
-		controller = new RESTSampleSequenceFilesController(sampleService, miseqRunService, sequencingObjectService,analysisService);
+		controller = new RESTSampleSequenceFilesController(sampleService, miseqRunService, sequencingObjectService,analysisService,
+				new StagingDirectory(Files.createTempDirectory(null)));
 	}
 
 	@Test
@@ -275,6 +282,66 @@ public class SampleSequenceFilesControllerTest {
 		Files.delete(f);
 	}
 
+	@Test
+	public void testAddNewSequenceFileToSampleClearsClientChecksum() throws IOException {
+		Sample s = TestDataFactory.constructSample();
+		SingleEndSequenceFile so = TestDataFactory.constructSingleEndSequenceFile();
+		SampleSequencingObjectJoin sso = new SampleSequencingObjectJoin(s, so);
+
+		SequenceFileResource resource = new SequenceFileResource();
+		resource.getResource()
+				.setUploadSha256("not the checksum of the file");
+		MockMultipartFile mmf = new MockMultipartFile("filename", "filename", "blurgh", ">read\nACGT".getBytes());
+		when(sampleService.read(s.getId())).thenReturn(s);
+		when(sequencingObjectService.createSequencingObjectInSample(any(SingleEndSequenceFile.class), Matchers.eq(s)))
+				.thenReturn(sso);
+		when(sequencingObjectService.read(so.getId())).thenReturn(so);
+
+		controller.addNewSequenceFileToSample(s.getId(), mmf, resource, new MockHttpServletResponse());
+
+		ArgumentCaptor<SingleEndSequenceFile> captor = ArgumentCaptor.forClass(SingleEndSequenceFile.class);
+		verify(sequencingObjectService).createSequencingObjectInSample(captor.capture(), Matchers.eq(s));
+		assertNull("the checksum sent by the client should be cleared so it's calculated from the file", captor.getValue()
+				.getSequenceFile()
+				.getUploadSha256());
+	}
+
+	@Test
+	public void testAddNewSequenceFileStreamToSample() throws IOException {
+		Sample s = TestDataFactory.constructSample();
+		SingleEndSequenceFile so = TestDataFactory.constructSingleEndSequenceFile();
+		SampleSequencingObjectJoin sso = new SampleSequencingObjectJoin(s, so);
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setContent(">test read\nACGTACTCATG".getBytes());
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		when(sampleService.read(s.getId())).thenReturn(s);
+		when(sequencingObjectService.createSequencingObjectInSample(any(SingleEndSequenceFile.class), Matchers.eq(s)))
+				.thenReturn(sso);
+		when(sequencingObjectService.read(so.getId())).thenReturn(so);
+
+		ModelMap modelMap = controller.addNewSequenceFileStreamToSample(s.getId(), "reads.fasta", null, request,
+				response);
+
+		ArgumentCaptor<SingleEndSequenceFile> captor = ArgumentCaptor.forClass(SingleEndSequenceFile.class);
+		verify(sequencingObjectService).createSequencingObjectInSample(captor.capture(), Matchers.eq(s));
+		verifyZeroInteractions(miseqRunService);
+
+		SequenceFile uploaded = captor.getValue()
+				.getSequenceFile();
+		assertEquals("file name should be kept", "reads.fasta", uploaded.getFile()
+				.getFileName()
+				.toString());
+		assertEquals("checksum should be calculated while streaming",
+				"aeaa0755dc44b393ffe12f02e9bd42b0169b12ca9c15708085db6a4ac9110ee0", uploaded.getUploadSha256());
+
+		assertTrue("object must be a SequenceFile",
+				modelMap.get(RESTGenericController.RESOURCE_NAME) instanceof SequenceFile);
+		assertEquals("response must have CREATED status", HttpStatus.CREATED.value(), response.getStatus());
+		assertNotNull("response must have a location", response.getHeader(HttpHeaders.LOCATION));
+		assertFalse("staged file should be cleaned up", Files.exists(uploaded.getFile()));
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void testAddNewSequenceFileToSampleCompletedRun() throws IOException {
 		Sample s = TestDataFactory.constructSample();
@@ -0,0 +1,207 @@
+package ca.corefacility.bioinformatics.irida.web.controller.test.unit.view;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.google.common.net.HttpHeaders;
+
+import ca.corefacility.bioinformatics.irida.web.spring.view.HttpRangeFileWriter;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link HttpRangeFileWriter}
+ */
+public class HttpRangeFileWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path file;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Before
+    public void setUp() throws IOException {
+        file = folder.newFile("file.fastq").toPath();
+        Files.write(file, "0123456789".getBytes(StandardCharsets.UTF_8));
+
+        request = new MockHttpServletRequest();
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    public void testWholeFile() throws IOException {
+        HttpRangeFileWriter.writeFile(file, request, response);
+
+        assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals("10", response.getHeader(HttpHeaders.CONTENT_LENGTH));
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    public void testOpenRange() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=4-");
+
+        HttpRangeFileWriter.writeFile(file, request, response);
+
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+        assertEquals("bytes 4-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("6", response.getHeader(HttpHeaders.CONTENT_LENGTH));
+        assertEquals("456789", response.getContentAsString());
+    }
+
+    @Test
+    public void testClosedRange() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-4");
+
+        HttpRangeFileWriter.writeFile(file, request, response);
+
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+        assertEquals("bytes 2-4/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("234", response.getContentAsString());
+    }
+
+    @Test
+    public void testSuffixRange() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+
+        HttpRangeFileWriter.writeFile(file, request, response);
+
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+        assertEquals("bytes 7-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("789", response.getContentAsString());
+    }
+
+    @Test
+    public void testUnsatisfiableRange() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-");
+
+        HttpRangeFileWriter.writeFile(file, request, response);
+
+        assertEquals(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    public void testMultipleRangesSendWholeFile() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1,4-5");
+
+        HttpRangeFileWriter.writeFile(file, request, response);
+
+        assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    public void testIfRangeMatches() throws IOException {
+        long lastModified = Files.getLastModifiedTime(file).toMillis() / 1000 * 1000;
+        request.addHeader(HttpHeaders.RANGE, "bytes=8-");
+        request.addHeader(HttpHeaders.IF_RANGE, lastModified);
+
+        HttpRangeFileWriter.writeFile(file, request, response);
+
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+        assertEquals("89", response.getContentAsString());
+    }
+
+    @Test
+    public void testIfRangeChangedSendsWholeFile() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=8-");
+        request.addHeader(HttpHeaders.IF_RANGE, "Wed, 21 Oct 2015 07:28:00 GMT");
+
+        HttpRangeFileWriter.writeFile(file, request, response);
+
+        assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    public void testETag() throws IOException {
+        HttpRangeFileWriter.writeFile(file, "abc123", request, response);
+
+        assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+        assertEquals("\"abc123-10\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    public void testIfNoneMatch() throws IOException {
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\", \"abc123-10\"");
+
+        HttpRangeFileWriter.writeFile(file, "abc123", request, response);
+
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+        assertEquals("", response.getContentAsString());
+    }
+
+    @Test
+    public void testIfNoneMatchChanged() throws IOException {
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"abc123-11\"");
+
+        HttpRangeFileWriter.writeFile(file, "abc123", request, response);
+
+        assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    public void testIfModifiedSince() throws IOException {
+        long lastModified = Files.getLastModifiedTime(file).toMillis() / 1000 * 1000;
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+
+        HttpRangeFileWriter.writeFile(file, request, response);
+
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+    }
+
+    @Test
+    public void testIfRangeETagMatches() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=8-");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"abc123-10\"");
+
+        HttpRangeFileWriter.writeFile(file, "abc123", request, response);
+
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+        assertEquals("89", response.getContentAsString());
+    }
+
+    @Test
+    public void testIfRangeETagChangedSendsWholeFile() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=8-");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"def456-10\"");
+
+        HttpRangeFileWriter.writeFile(file, "abc123", request, response);
+
+        assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    public void testSendfile() throws IOException {
+        byte[] contents = new byte[(int) HttpRangeFileWriter.SENDFILE_MIN_SIZE * 2];
+        Files.write(file, contents);
+        request.setAttribute(HttpRangeFileWriter.SENDFILE_SUPPORT, Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=100-");
+
+        HttpRangeFileWriter.writeFile(file, request, response);
+
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+        assertEquals(file.toRealPath().toString(), request.getAttribute(HttpRangeFileWriter.SENDFILE_FILENAME));
+        assertEquals(100L, request.getAttribute(HttpRangeFileWriter.SENDFILE_START));
+        assertEquals((long) contents.length, request.getAttribute(HttpRangeFileWriter.SENDFILE_END));
+        assertEquals("the container should write the file", 0, response.getContentAsByteArray().length);
+    }
+}